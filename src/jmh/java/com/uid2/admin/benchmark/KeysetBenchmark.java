@@ -0,0 +1,55 @@
+package com.uid2.admin.benchmark;
+
+import com.uid2.admin.auth.AdminKeyset;
+import com.uid2.admin.auth.AdminKeysetSnapshot;
+import com.uid2.admin.managers.KeysetManager;
+import com.uid2.admin.store.parser.AdminKeysetParser;
+import com.uid2.shared.auth.Keyset;
+import com.uid2.shared.model.ClientType;
+import com.uid2.shared.store.parser.ParsingResult;
+import io.vertx.core.json.JsonArray;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KeysetBenchmark {
+    private final AdminKeysetParser parser = new AdminKeysetParser();
+    @Param({"10000", "100000"})
+    private int keysets;
+    private Map<Integer, AdminKeyset> adminKeysets;
+    private Map<ClientType, Set<Integer>> siteIdsByType;
+    private byte[] serializedAdminKeysets;
+
+    @Setup
+    public void setup() {
+        adminKeysets = SyntheticData.adminKeysets(keysets);
+        siteIdsByType = SyntheticData.siteIdsByType();
+        // the same format AdminKeysetWriter uploads
+        serializedAdminKeysets = new JsonArray(new ArrayList<>(adminKeysets.values())).encodePrettily().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ParsingResult<AdminKeysetSnapshot> deserializeAdminKeysets() throws Exception {
+        return parser.deserialize(new ByteArrayInputStream(serializedAdminKeysets));
+    }
+
+    @Benchmark
+    public void adminKeysetToKeyset(Blackhole blackhole) {
+        for (AdminKeyset adminKeyset : adminKeysets.values()) {
+            final Keyset keyset = KeysetManager.adminKeysetToKeyset(adminKeyset, siteIdsByType);
+            blackhole.consume(keyset);
+        }
+    }
+}
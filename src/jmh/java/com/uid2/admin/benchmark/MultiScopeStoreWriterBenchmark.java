@@ -0,0 +1,55 @@
+package com.uid2.admin.benchmark;
+
+import com.uid2.admin.legacy.LegacyClientKey;
+import com.uid2.admin.store.MultiScopeStoreWriter;
+import com.uid2.admin.store.writer.ScopedStoreWriter;
+import com.uid2.shared.auth.Keyset;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.uid2.admin.vertx.JsonUtil.createJsonWriter;
+
+/*
+ * The ways MultiScopeStoreWriter decides whether a scope changed:
+ * comparing the desired data with the current data, or digesting the serialized desired data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MultiScopeStoreWriterBenchmark {
+    private List<LegacyClientKey> clients;
+    private List<LegacyClientKey> shuffledClients;
+    private Map<Integer, Keyset> keysets;
+    private Map<Integer, Keyset> copiedKeysets;
+    private String serializedClients;
+
+    @Setup
+    public void setup() throws Exception {
+        clients = SyntheticData.clients();
+        shuffledClients = new ArrayList<>(clients);
+        Collections.shuffle(shuffledClients, new Random(5));
+        keysets = SyntheticData.keysets();
+        copiedKeysets = new HashMap<>(keysets);
+        serializedClients = createJsonWriter().writeValueAsString(clients);
+    }
+
+    @Benchmark
+    public boolean areCollectionsEqual() {
+        return MultiScopeStoreWriter.areCollectionsEqual(clients, shuffledClients);
+    }
+
+    @Benchmark
+    public boolean areMapsEqual() {
+        return MultiScopeStoreWriter.areMapsEqual(keysets, copiedKeysets);
+    }
+
+    @Benchmark
+    public String contentDigest() {
+        return ScopedStoreWriter.contentDigest(serializedClients);
+    }
+}
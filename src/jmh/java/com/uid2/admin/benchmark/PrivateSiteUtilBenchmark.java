@@ -0,0 +1,73 @@
+package com.uid2.admin.benchmark;
+
+import com.uid2.admin.legacy.LegacyClientKey;
+import com.uid2.admin.model.PrivateSiteDataMap;
+import com.uid2.admin.model.PrivateSiteTopology;
+import com.uid2.admin.util.PrivateSiteUtil;
+import com.uid2.shared.auth.EncryptionKeyAcl;
+import com.uid2.shared.auth.Keyset;
+import com.uid2.shared.model.EncryptionKey;
+import com.uid2.shared.model.KeysetKey;
+import com.uid2.shared.model.Site;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PrivateSiteUtilBenchmark {
+    private PrivateSiteTopology topology;
+    private List<Site> sites;
+    private List<LegacyClientKey> clients;
+    private List<EncryptionKey> encryptionKeys;
+    private Map<Integer, EncryptionKeyAcl> acls;
+    private Map<Integer, Keyset> keysets;
+    private List<KeysetKey> keysetKeys;
+
+    @Setup
+    public void setup() {
+        topology = PrivateSiteTopology.fromOperators(SyntheticData.operators());
+        sites = SyntheticData.sites();
+        clients = SyntheticData.clients();
+        encryptionKeys = SyntheticData.encryptionKeys();
+        acls = SyntheticData.encryptionKeyAcls();
+        keysets = SyntheticData.keysets();
+        keysetKeys = SyntheticData.keysetKeys();
+    }
+
+    @Benchmark
+    public PrivateSiteDataMap<Site> getSites() {
+        return PrivateSiteUtil.getSites(sites, topology);
+    }
+
+    @Benchmark
+    public PrivateSiteDataMap<LegacyClientKey> getClientKeys() {
+        return PrivateSiteUtil.getClientKeys(topology, clients);
+    }
+
+    @Benchmark
+    public PrivateSiteDataMap<EncryptionKey> getEncryptionKeys() {
+        return PrivateSiteUtil.getEncryptionKeys(topology, encryptionKeys, acls, clients);
+    }
+
+    @Benchmark
+    public PrivateSiteDataMap<EncryptionKeyAcl> getEncryptionKeyAcls() {
+        return PrivateSiteUtil.getEncryptionKeyAcls(topology, acls);
+    }
+
+    @Benchmark
+    public Map<Integer, Map<Integer, Keyset>> getKeysetForEachSite() {
+        return PrivateSiteUtil.getKeysetForEachSite(topology, keysets);
+    }
+
+    @Benchmark
+    public PrivateSiteDataMap<KeysetKey> getKeysetKeys() {
+        return PrivateSiteUtil.getKeysetKeys(topology, keysetKeys, keysets);
+    }
+}
@@ -0,0 +1,37 @@
+package com.uid2.admin.benchmark;
+
+import com.uid2.admin.secret.ISaltRotation;
+import com.uid2.admin.secret.SaltRotation;
+import com.uid2.shared.secret.SecureKeyGenerator;
+import com.uid2.shared.store.RotatingSaltProvider;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SaltRotationBenchmark {
+    private final Duration[] minAges = {Duration.ofDays(30), Duration.ofDays(60), Duration.ofDays(90)};
+    private SaltRotation saltRotation;
+    private RotatingSaltProvider.SaltSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        final JsonObject config = new JsonObject()
+                .put("salt_snapshot_activates_in_seconds", 3600)
+                .put("salt_snapshot_expires_after_seconds", 86400);
+        saltRotation = new SaltRotation(config, new SecureKeyGenerator());
+        snapshot = SyntheticData.salts();
+    }
+
+    @Benchmark
+    public ISaltRotation.Result rotateSalts() throws Exception {
+        return saltRotation.rotateSalts(snapshot, minAges, 0.001);
+    }
+}
@@ -0,0 +1,170 @@
+package com.uid2.admin.benchmark;
+
+import com.uid2.admin.auth.AdminKeyset;
+import com.uid2.admin.legacy.LegacyClientKey;
+import com.uid2.shared.auth.EncryptionKeyAcl;
+import com.uid2.shared.auth.Keyset;
+import com.uid2.shared.auth.OperatorKey;
+import com.uid2.shared.auth.OperatorType;
+import com.uid2.shared.auth.Role;
+import com.uid2.shared.model.ClientType;
+import com.uid2.shared.model.EncryptionKey;
+import com.uid2.shared.model.KeysetKey;
+import com.uid2.shared.model.SaltEntry;
+import com.uid2.shared.model.Site;
+import com.uid2.shared.store.RotatingSaltProvider;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Deterministic data sized like production, for benchmarks.
+ * Site ids start at 3 so that the special sites (-2, -1, 2) are only present where added on purpose.
+ */
+public final class SyntheticData {
+    public static final int SITES = 10_000;
+    public static final int CLIENTS = 100_000;
+    // a power of two, as in production
+    public static final int SALTS = 1 << 20;
+    public static final int KEYS = 50_000;
+    public static final int PRIVATE_OPERATORS = 50;
+    public static final int ALLOWED_SITES_PER_KEYSET = 20;
+
+    private static final Instant NOW = Instant.parse("2023-06-01T00:00:00Z");
+    private static final int FIRST_SITE_ID = 3;
+
+    private SyntheticData() {
+    }
+
+    public static int siteId(int index) {
+        return FIRST_SITE_ID + index;
+    }
+
+    public static List<Site> sites() {
+        final List<Site> sites = new ArrayList<>(SITES);
+        for (int i = 0; i < SITES; i++) {
+            sites.add(new Site(siteId(i), "site " + i, i % 10 != 0));
+        }
+        return sites;
+    }
+
+    public static List<LegacyClientKey> clients() {
+        final Random random = new Random(1);
+        final Role[] roles = {Role.GENERATOR, Role.MAPPER, Role.ID_READER, Role.SHARER};
+        final List<LegacyClientKey> clients = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.add(new LegacyClientKey(
+                    "UID2C" + i, base64(i, 32), base64(i, 16), base64(i, 32), "client " + i, "contact" + i, NOW,
+                    Set.of(roles[random.nextInt(roles.length)]), siteId(random.nextInt(SITES)), i % 50 == 0, "key-id-" + i));
+        }
+        return clients;
+    }
+
+    // one private operator for each of the first PRIVATE_OPERATORS sites, plus a public one
+    public static List<OperatorKey> operators() {
+        final List<OperatorKey> operators = new ArrayList<>(PRIVATE_OPERATORS + 1);
+        for (int i = 0; i < PRIVATE_OPERATORS; i++) {
+            operators.add(new OperatorKey("keyHash" + i, "keySalt" + i, "operator " + i, "contact" + i, "aws-nitro",
+                    NOW.getEpochSecond(), false, siteId(i), new HashSet<>(), OperatorType.PRIVATE, "op-key-id-" + i));
+        }
+        operators.add(new OperatorKey("keyHashPublic", "keySaltPublic", "public operator", "contact", "aws-nitro",
+                NOW.getEpochSecond(), false, siteId(0), new HashSet<>(), OperatorType.PUBLIC, "op-key-id-public"));
+        return operators;
+    }
+
+    public static List<EncryptionKey> encryptionKeys() {
+        final List<EncryptionKey> keys = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            keys.add(new EncryptionKey(i + 1, keyBytes(i), NOW, NOW, NOW.plus(Duration.ofDays(30)), siteId(i % SITES)));
+        }
+        return keys;
+    }
+
+    public static Map<Integer, EncryptionKeyAcl> encryptionKeyAcls() {
+        final Random random = new Random(2);
+        final Map<Integer, EncryptionKeyAcl> acls = new HashMap<>();
+        for (int i = 0; i < SITES; i += 2) {
+            acls.put(siteId(i), new EncryptionKeyAcl(i % 4 == 0, randomSites(random)));
+        }
+        return acls;
+    }
+
+    // one keyset per site, with keyset id = site index + 1
+    public static Map<Integer, Keyset> keysets() {
+        final Map<Integer, Keyset> keysets = new HashMap<>(SITES * 2);
+        for (AdminKeyset adminKeyset : adminKeysets().values()) {
+            keysets.put(adminKeyset.getKeysetId(), adminKeyset.getKeyset());
+        }
+        return keysets;
+    }
+
+    public static Map<Integer, AdminKeyset> adminKeysets() {
+        return adminKeysets(SITES);
+    }
+
+    // one keyset per site, sites get more than one keyset when count is above SITES
+    public static Map<Integer, AdminKeyset> adminKeysets(int count) {
+        final Random random = new Random(3);
+        final ClientType[] types = ClientType.values();
+        final Map<Integer, AdminKeyset> keysets = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            keysets.put(i + 1, new AdminKeyset(i + 1, siteId(i % SITES), "keyset " + i, randomSites(random), NOW.getEpochSecond(),
+                    true, true, Set.of(types[random.nextInt(types.length)])));
+        }
+        return keysets;
+    }
+
+    public static Map<ClientType, Set<Integer>> siteIdsByType() {
+        final Map<ClientType, Set<Integer>> siteIdsByType = new EnumMap<>(ClientType.class);
+        for (ClientType type : ClientType.values()) {
+            siteIdsByType.put(type, new HashSet<>());
+        }
+        final ClientType[] types = ClientType.values();
+        for (int i = 0; i < SITES; i++) {
+            siteIdsByType.get(types[i % types.length]).add(siteId(i));
+        }
+        return siteIdsByType;
+    }
+
+    public static List<KeysetKey> keysetKeys() {
+        final List<KeysetKey> keys = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            keys.add(new KeysetKey(i + 1, keyBytes(i), NOW, NOW, NOW.plus(Duration.ofDays(30)), (i % SITES) + 1));
+        }
+        return keys;
+    }
+
+    // salts last updated over the past year, so rotation has candidates in every age bracket
+    public static RotatingSaltProvider.SaltSnapshot salts() {
+        final Random random = new Random(4);
+        final SaltEntry[] entries = new SaltEntry[SALTS];
+        for (int i = 0; i < SALTS; i++) {
+            final long lastUpdated = NOW.minus(Duration.ofDays(random.nextInt(365))).toEpochMilli();
+            entries[i] = new SaltEntry(i, "hashedId" + i, lastUpdated, "salt" + i);
+        }
+        return new RotatingSaltProvider.SaltSnapshot(NOW, NOW.plus(Duration.ofDays(30)), entries, "first_level_salt");
+    }
+
+    private static Set<Integer> randomSites(Random random) {
+        final Set<Integer> sites = new HashSet<>();
+        for (int i = 0; i < ALLOWED_SITES_PER_KEYSET; i++) {
+            sites.add(siteId(random.nextInt(SITES)));
+        }
+        return sites;
+    }
+
+    private static byte[] keyBytes(int i) {
+        return keyBytes(i, 32);
+    }
+
+    private static byte[] keyBytes(int i, int length) {
+        final byte[] bytes = new byte[length];
+        new Random(i).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String base64(int i, int length) {
+        return Base64.getEncoder().encodeToString(keyBytes(i, length));
+    }
+}
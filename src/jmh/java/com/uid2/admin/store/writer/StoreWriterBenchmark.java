@@ -0,0 +1,104 @@
+package com.uid2.admin.store.writer;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.uid2.admin.auth.AdminKeyset;
+import com.uid2.admin.benchmark.SyntheticData;
+import com.uid2.admin.legacy.LegacyClientKey;
+import com.uid2.shared.auth.EncryptionKeyAcl;
+import com.uid2.shared.auth.Keyset;
+import com.uid2.shared.auth.OperatorKey;
+import com.uid2.shared.model.EncryptionKey;
+import com.uid2.shared.model.KeysetKey;
+import com.uid2.shared.model.Site;
+import com.uid2.shared.store.RotatingSaltProvider;
+import io.vertx.core.json.JsonArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.uid2.admin.vertx.JsonUtil.createJsonWriter;
+
+/*
+ * The serialization each store writer does before uploading, without the upload itself.
+ * Writers that serialize inline with the shared ObjectWriter are benchmarked through it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StoreWriterBenchmark {
+    private final ObjectWriter jsonWriter = createJsonWriter();
+    private List<Site> sites;
+    private List<LegacyClientKey> clients;
+    private List<OperatorKey> operators;
+    private List<EncryptionKey> encryptionKeys;
+    private Map<Integer, EncryptionKeyAcl> acls;
+    private Map<Integer, Keyset> keysets;
+    private Map<Integer, AdminKeyset> adminKeysets;
+    private List<KeysetKey> keysetKeys;
+    private RotatingSaltProvider.SaltSnapshot salts;
+
+    @Setup
+    public void setup() {
+        sites = SyntheticData.sites();
+        clients = SyntheticData.clients();
+        operators = SyntheticData.operators();
+        encryptionKeys = SyntheticData.encryptionKeys();
+        acls = SyntheticData.encryptionKeyAcls();
+        keysets = SyntheticData.keysets();
+        adminKeysets = SyntheticData.adminKeysets();
+        keysetKeys = SyntheticData.keysetKeys();
+        salts = SyntheticData.salts();
+    }
+
+    @Benchmark
+    public String sites() throws Exception {
+        return SiteStoreWriter.serialize(jsonWriter, sites);
+    }
+
+    @Benchmark
+    public String clientKeys() throws Exception {
+        return jsonWriter.writeValueAsString(clients);
+    }
+
+    @Benchmark
+    public String operatorKeys() throws Exception {
+        return jsonWriter.writeValueAsString(operators);
+    }
+
+    @Benchmark
+    public String encryptionKeys() {
+        return EncryptionKeyStoreWriter.serialize(encryptionKeys);
+    }
+
+    @Benchmark
+    public String keyAcls() {
+        return KeyAclStoreWriter.serialize(acls);
+    }
+
+    @Benchmark
+    public String keysets() {
+        return KeysetStoreWriter.serialize(keysets);
+    }
+
+    @Benchmark
+    public String adminKeysets() {
+        return new JsonArray(new ArrayList<>(adminKeysets.values())).encodePrettily();
+    }
+
+    @Benchmark
+    public String keysetKeys() {
+        return KeysetKeyStoreWriter.serialize(keysetKeys);
+    }
+
+    @Benchmark
+    public void saltSnapshot() throws Exception {
+        SaltStoreWriter.writeSalts(salts, Writer.nullWriter());
+    }
+}
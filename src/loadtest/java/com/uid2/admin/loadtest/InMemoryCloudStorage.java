@@ -0,0 +1,179 @@
+package com.uid2.admin.loadtest;
+
+import com.uid2.shared.cloud.CloudStorageException;
+import com.uid2.shared.cloud.TaggableCloudStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * A bucket held in memory, standing in for the cloud storage when measuring the service without one.
+ * Every request can be delayed by latencyMs and, when maxConcurrentRequests is positive,
+ * requests beyond that many in flight wait for a slot, as a throttled bucket would make them.
+ */
+public class InMemoryCloudStorage implements TaggableCloudStorage {
+    private final ConcurrentSkipListMap<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, Map<String, String>> tags = new ConcurrentHashMap<>();
+    private final long latencyMs;
+    private final Semaphore slots;
+    private final AtomicLong requests = new AtomicLong();
+
+    public InMemoryCloudStorage() {
+        this(0, 0);
+    }
+
+    public InMemoryCloudStorage(long latencyMs, int maxConcurrentRequests) {
+        this.latencyMs = latencyMs;
+        this.slots = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests, true) : null;
+    }
+
+    @Override
+    public void upload(String localPath, String cloudPath) throws CloudStorageException {
+        upload(localPath, cloudPath, null);
+    }
+
+    @Override
+    public void upload(String localPath, String cloudPath, Map<String, String> tags) throws CloudStorageException {
+        final byte[] content;
+        try {
+            content = Files.readAllBytes(Path.of(localPath));
+        } catch (IOException e) {
+            throw new CloudStorageException("cannot read " + localPath, e);
+        }
+        put(cloudPath, content, tags);
+    }
+
+    @Override
+    public void upload(InputStream input, String cloudPath) throws CloudStorageException {
+        upload(input, cloudPath, null);
+    }
+
+    @Override
+    public void upload(InputStream input, String cloudPath, Map<String, String> tags) throws CloudStorageException {
+        final byte[] content;
+        try {
+            content = input.readAllBytes();
+        } catch (IOException e) {
+            throw new CloudStorageException("cannot read the content of " + cloudPath, e);
+        }
+        put(cloudPath, content, tags);
+    }
+
+    @Override
+    public InputStream download(String cloudPath) throws CloudStorageException {
+        request();
+        final byte[] content = objects.get(cloudPath);
+        if (content == null) {
+            // the same message as S3, which callers check for
+            throw new CloudStorageException("The specified key does not exist: " + cloudPath);
+        }
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public void delete(String cloudPath) throws CloudStorageException {
+        request();
+        objects.remove(cloudPath);
+        tags.remove(cloudPath);
+    }
+
+    @Override
+    public void delete(Collection<String> cloudPaths) throws CloudStorageException {
+        request();
+        for (String cloudPath : cloudPaths) {
+            objects.remove(cloudPath);
+            tags.remove(cloudPath);
+        }
+    }
+
+    @Override
+    public List<String> list(String prefix) throws CloudStorageException {
+        request();
+        return new ArrayList<>(objects.subMap(prefix, prefix + Character.MAX_VALUE).keySet());
+    }
+
+    @Override
+    public URL preSignUrl(String cloudPath) throws CloudStorageException {
+        try {
+            return new URL("http://in-memory-storage/" + cloudPath);
+        } catch (MalformedURLException e) {
+            throw new CloudStorageException("cannot pre-sign " + cloudPath, e);
+        }
+    }
+
+    @Override
+    public void setPreSignedUrlExpiry(long expiry) {
+    }
+
+    @Override
+    public String mask(String cloudPath) {
+        return cloudPath;
+    }
+
+    @Override
+    public void setTags(String cloudPath, Map<String, String> tags) throws CloudStorageException {
+        request();
+        if (!objects.containsKey(cloudPath)) {
+            throw new CloudStorageException("The specified key does not exist: " + cloudPath);
+        }
+        this.tags.put(cloudPath, new HashMap<>(tags));
+    }
+
+    public Map<String, String> getTags(String cloudPath) {
+        return tags.getOrDefault(cloudPath, Collections.emptyMap());
+    }
+
+    // requests made so far, including the failed ones
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    private void put(String cloudPath, byte[] content, Map<String, String> tags) throws CloudStorageException {
+        request();
+        objects.put(cloudPath, content);
+        if (tags != null) {
+            this.tags.put(cloudPath, new HashMap<>(tags));
+        }
+    }
+
+    private void request() throws CloudStorageException {
+        requests.incrementAndGet();
+        if (slots == null) {
+            delay();
+            return;
+        }
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CloudStorageException("interrupted waiting for a request slot", e);
+        }
+        try {
+            delay();
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void delay() throws CloudStorageException {
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CloudStorageException("interrupted during the request", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.uid2.admin.loadtest;
+
+import com.uid2.shared.cloud.CloudStorageException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryCloudStorageTest {
+    @Test
+    void downloadsWhatWasUploaded() throws Exception {
+        InMemoryCloudStorage storage = new InMemoryCloudStorage();
+
+        upload(storage, "sites/sites.json", "[]");
+
+        assertThat(new String(storage.download("sites/sites.json").readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("[]");
+    }
+
+    @Test
+    void missingKeyFailsLikeS3() {
+        InMemoryCloudStorage storage = new InMemoryCloudStorage();
+
+        assertThatThrownBy(() -> storage.download("sites/metadata.json"))
+                .isInstanceOf(CloudStorageException.class)
+                .hasMessageContaining("The specified key does not exist");
+    }
+
+    @Test
+    void listsByPrefix() throws Exception {
+        InMemoryCloudStorage storage = new InMemoryCloudStorage();
+        upload(storage, "sites/metadata.json", "{}");
+        upload(storage, "sites/sites.json", "[]");
+        upload(storage, "site/1/sites.json", "[]");
+
+        assertThat(storage.list("sites/")).containsExactly("sites/metadata.json", "sites/sites.json");
+    }
+
+    @Test
+    void keepsTagsUntilDeleted() throws Exception {
+        InMemoryCloudStorage storage = new InMemoryCloudStorage();
+        upload(storage, "keys/keys.json", "[]");
+
+        storage.setTags("keys/keys.json", Map.of("status", "obsolete"));
+        assertThat(storage.getTags("keys/keys.json")).containsEntry("status", "obsolete");
+
+        storage.delete("keys/keys.json");
+        assertThat(storage.getTags("keys/keys.json")).isEmpty();
+        assertThat(storage.list("keys/")).isEmpty();
+    }
+
+    @Test
+    void queuesRequestsBeyondTheConcurrencyLimit() {
+        InMemoryCloudStorage storage = new InMemoryCloudStorage(50, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        long start = System.nanoTime();
+        try {
+            List<CompletableFuture<Void>> requests = IntStream.range(0, 6)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                        try {
+                            storage.list("sites/");
+                        } catch (CloudStorageException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }, executor))
+                    .collect(Collectors.toList());
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        // 6 requests of 50ms, 2 at a time
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(150));
+        assertThat(storage.getRequestCount()).isEqualTo(6);
+    }
+
+    private static void upload(InMemoryCloudStorage storage, String path, String content) throws CloudStorageException {
+        storage.upload(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), path);
+    }
+}
@@ -0,0 +1,281 @@
+package com.uid2.admin.loadtest;
+
+import com.uid2.admin.Main;
+import com.uid2.shared.Const;
+import com.uid2.shared.Utils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static io.micrometer.core.instrument.Metrics.globalRegistry;
+
+/*
+ * Boots the admin service on an in-memory bucket seeded with generated data, drives a mixed workload through
+ * its HTTP API from concurrent users and reports throughput, latency percentiles, write lock contention and heap use.
+ *
+ * mvn -P loadtest test-compile exec:exec@loadtest -Dloadtest.args="duration_seconds=60 concurrency=16"
+ *
+ * Options, as name=value or --name=value:
+ *   duration_seconds (60), concurrency (16), sites (10000), clients (100000), salts (1048576),
+ *   private_operator_every (100): one private operator for every this many generated sites,
+ *   storage_latency_ms (20) and storage_max_concurrent_requests (0, unlimited): how the bucket is slowed down,
+ *   mix: weights of the operations, e.g. site_list:30,client_list:30,client_add:15,key_rotate_site:15,salt_rotate:5,private_site_refresh:5
+ *   config (conf/local-config.json), output (target/loadtest-result.json)
+ */
+public class LoadHarness {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadHarness.class);
+    private static final String DEFAULT_MIX = "site_list:30,client_list:30,client_add:15,key_rotate_site:15,salt_rotate:5,private_site_refresh:5";
+
+    private final Map<String, String> options;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final AtomicInteger addedClients = new AtomicInteger();
+    private final Map<String, OperationStats> stats = new TreeMap<>();
+    private final List<Operation> operations = new ArrayList<>();
+    private int totalWeight;
+
+    private long maxHeapUsed;
+    private int maxBlockedThreads;
+    private long blockedThreadSamples;
+    private long samples;
+
+    private LoadHarness(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new TreeMap<>();
+        for (String arg : args) {
+            final String[] nameAndValue = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(nameAndValue[0], nameAndValue.length > 1 ? nameAndValue[1] : "true");
+        }
+        try {
+            new LoadHarness(options).run();
+            System.exit(0);
+        } catch (Exception e) {
+            LOGGER.error("Load test failed", e);
+            System.exit(1);
+        }
+    }
+
+    private void run() throws Exception {
+        final int durationSeconds = intOption("duration_seconds", 60);
+        final int concurrency = intOption("concurrency", 16);
+        final int sites = intOption("sites", 10_000);
+
+        final JsonObject config = new JsonObject(Files.readString(Path.of(option("config", "conf/local-config.json"))));
+        globalRegistry.add(registry);
+
+        // handed to the service instead of the bucket in the config, so nothing outside the harness can write to it
+        final InMemoryCloudStorage storage = new InMemoryCloudStorage(
+                intOption("storage_latency_ms", 20), intOption("storage_max_concurrent_requests", 0));
+        final Seeder seeder = new Seeder(storage);
+        LOGGER.info("Seeding the bucket");
+        seeder.seed(sites, intOption("clients", 100_000), intOption("salts", 1 << 20), intOption("private_operator_every", 100));
+        final String adminKey = seeder.adminKey();
+
+        final Vertx vertx = Vertx.vertx();
+        LOGGER.info("Starting the admin service");
+        new Main(vertx, config, storage).run();
+        final WebClient client = WebClient.create(vertx, new WebClientOptions()
+                .setDefaultHost("localhost")
+                .setDefaultPort(Const.Port.ServicePortForAdmin + Utils.getPortOffset())
+                .setMaxPoolSize(concurrency));
+        waitUntilHealthy(client);
+
+        setupOperations(client, adminKey, sites);
+        final long storageRequestsBefore = storage.getRequestCount();
+        final long gcTimeBefore = gcTimeMs();
+        final long sampler = vertx.setPeriodic(200, id -> sample());
+
+        LOGGER.info("Running {} users for {}s", concurrency, durationSeconds);
+        final long start = System.nanoTime();
+        final long deadline = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        final CountDownLatch finished = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            next(deadline, finished);
+        }
+        finished.await();
+        final double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        vertx.cancelTimer(sampler);
+
+        final JsonObject report = report(elapsedSeconds, storage.getRequestCount() - storageRequestsBefore, gcTimeMs() - gcTimeBefore);
+        final Path output = Path.of(option("output", "target/loadtest-result.json"));
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.writeString(output, report.encodePrettily());
+        System.out.println(report.encodePrettily());
+        LOGGER.info("Results written to {}", output);
+        vertx.close();
+    }
+
+    private void setupOperations(WebClient client, String adminKey, int sites) {
+        final Map<String, Supplier<Future<HttpResponse<Buffer>>>> available = new HashMap<>();
+        available.put("site_list", () -> send(client, adminKey, HttpMethod.GET, "/api/site/list"));
+        available.put("client_list", () -> send(client, adminKey, HttpMethod.GET, "/api/client/list"));
+        available.put("client_add", () -> send(client, adminKey, HttpMethod.POST,
+                "/api/client/add?name=load-test-added-" + addedClients.incrementAndGet() + "&roles=generator&site_id=" + randomSite(sites)));
+        available.put("key_rotate_site", () -> send(client, adminKey, HttpMethod.POST,
+                "/api/key/rotate_site?site_id=" + randomSite(sites) + "&min_age_seconds=1"));
+        available.put("salt_rotate", () -> send(client, adminKey, HttpMethod.POST,
+                "/api/salt/rotate?min_ages_in_seconds=1&fraction=0.001"));
+        available.put("private_site_refresh", () -> send(client, adminKey, HttpMethod.POST, "/api/private-sites/refresh"));
+
+        for (String entry : option("mix", DEFAULT_MIX).split(",")) {
+            final String[] nameAndWeight = entry.trim().split(":");
+            final Supplier<Future<HttpResponse<Buffer>>> request = available.get(nameAndWeight[0]);
+            if (request == null) {
+                throw new IllegalArgumentException("unknown operation " + nameAndWeight[0] + ", expected one of " + available.keySet());
+            }
+            final int weight = Integer.parseInt(nameAndWeight[1]);
+            operations.add(new Operation(nameAndWeight[0], weight, request));
+            stats.put(nameAndWeight[0], new OperationStats());
+            totalWeight += weight;
+        }
+    }
+
+    // runs operations one after the other until the deadline, as one user
+    private void next(long deadline, CountDownLatch finished) {
+        if (System.nanoTime() >= deadline) {
+            finished.countDown();
+            return;
+        }
+        final Operation operation = pick();
+        final long start = System.nanoTime();
+        operation.request.get().onComplete(ar -> {
+            final boolean failed = ar.failed() || ar.result().statusCode() >= 400;
+            if (ar.failed()) {
+                LOGGER.warn("{} failed", operation.name, ar.cause());
+            }
+            stats.get(operation.name).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), failed);
+            next(deadline, finished);
+        });
+    }
+
+    private Operation pick() {
+        int remaining = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : operations) {
+            remaining -= operation.weight;
+            if (remaining < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private static Future<HttpResponse<Buffer>> send(WebClient client, String adminKey, HttpMethod method, String uri) {
+        return client.request(method, uri).bearerTokenAuthentication(adminKey).send();
+    }
+
+    private static int randomSite(int sites) {
+        return Seeder.FIRST_SITE_ID + ThreadLocalRandom.current().nextInt(sites);
+    }
+
+    private static void waitUntilHealthy(WebClient client) throws InterruptedException {
+        for (int attempt = 0; attempt < 600; attempt++) {
+            final CountDownLatch done = new CountDownLatch(1);
+            final boolean[] healthy = {false};
+            client.get("/ops/healthcheck").send().onComplete(ar -> {
+                healthy[0] = ar.succeeded() && ar.result().statusCode() == 200;
+                done.countDown();
+            });
+            done.await();
+            if (healthy[0]) {
+                return;
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("the admin service did not become healthy");
+    }
+
+    private synchronized void sample() {
+        maxHeapUsed = Math.max(maxHeapUsed, memory.getHeapMemoryUsage().getUsed());
+        final Gauge blockedThreads = registry.find("uid2.admin.write_lock.blocked_threads").gauge();
+        if (blockedThreads != null) {
+            final int blocked = (int) blockedThreads.value();
+            maxBlockedThreads = Math.max(maxBlockedThreads, blocked);
+            blockedThreadSamples += blocked;
+        }
+        samples++;
+    }
+
+    private synchronized JsonObject report(double elapsedSeconds, long storageRequests, long gcTimeMs) {
+        final JsonObject operationsJson = new JsonObject();
+        stats.forEach((name, operationStats) -> operationsJson.put(name, operationStats.toJson(elapsedSeconds)));
+
+        double lockWaitTotalMs = 0;
+        double lockWaitMaxMs = 0;
+        long lockWaits = 0;
+        for (Timer timer : registry.find("uid2.admin.request.section.duration").tag("section", "lock_wait").timers()) {
+            lockWaitTotalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+            lockWaitMaxMs = Math.max(lockWaitMaxMs, timer.max(TimeUnit.MILLISECONDS));
+            lockWaits += timer.count();
+        }
+
+        return new JsonObject()
+                .put("options", new JsonObject(new HashMap<>(options)))
+                .put("duration_seconds", elapsedSeconds)
+                .put("operations", operationsJson)
+                .put("write_lock", new JsonObject()
+                        .put("max_blocked_threads", maxBlockedThreads)
+                        .put("mean_blocked_threads", samples == 0 ? 0 : (double) blockedThreadSamples / samples)
+                        .put("requests_that_waited", lockWaits)
+                        .put("total_wait_ms", lockWaitTotalMs)
+                        .put("max_wait_ms", lockWaitMaxMs))
+                .put("heap", new JsonObject()
+                        .put("max_used_mb", maxHeapUsed / (1024 * 1024))
+                        .put("final_used_mb", memory.getHeapMemoryUsage().getUsed() / (1024 * 1024))
+                        .put("gc_time_ms", gcTimeMs))
+                .put("storage", new JsonObject()
+                        .put("requests", storageRequests));
+    }
+
+    private static long gcTimeMs() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    private static class Operation {
+        private final String name;
+        private final int weight;
+        private final Supplier<Future<HttpResponse<Buffer>>> request;
+
+        private Operation(String name, int weight, Supplier<Future<HttpResponse<Buffer>>> request) {
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.uid2.admin.loadtest;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Arrays;
+
+// latencies and failures of one kind of operation, safe to record from several threads
+class OperationStats {
+    private long[] latenciesMicros = new long[1024];
+    private int count;
+    private int failures;
+
+    synchronized void record(long latencyMicros, boolean failed) {
+        if (count == latenciesMicros.length) {
+            latenciesMicros = Arrays.copyOf(latenciesMicros, count * 2);
+        }
+        latenciesMicros[count++] = latencyMicros;
+        if (failed) {
+            failures++;
+        }
+    }
+
+    synchronized JsonObject toJson(double durationSeconds) {
+        final long[] sorted = Arrays.copyOf(latenciesMicros, count);
+        Arrays.sort(sorted);
+        return new JsonObject()
+                .put("count", count)
+                .put("failures", failures)
+                .put("throughput_per_second", count / durationSeconds)
+                .put("p50_ms", percentileMs(sorted, 0.50))
+                .put("p90_ms", percentileMs(sorted, 0.90))
+                .put("p99_ms", percentileMs(sorted, 0.99))
+                .put("max_ms", count == 0 ? 0 : sorted[count - 1] / 1000.0);
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+}
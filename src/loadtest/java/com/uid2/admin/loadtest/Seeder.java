@@ -0,0 +1,160 @@
+package com.uid2.admin.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.uid2.admin.legacy.LegacyClientKey;
+import com.uid2.shared.auth.OperatorKey;
+import com.uid2.shared.auth.OperatorType;
+import com.uid2.shared.auth.Role;
+import com.uid2.shared.cloud.CloudStorageException;
+import com.uid2.shared.cloud.TaggableCloudStorage;
+import com.uid2.shared.model.Site;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.uid2.admin.vertx.JsonUtil.createJsonWriter;
+
+/*
+ * Seeds a bucket with the local development data, then adds generated sites with their clients, site keys
+ * and private operators, and replaces the salts with a generated snapshot.
+ */
+class Seeder {
+    static final int FIRST_SITE_ID = 10_000;
+    private static final Path LOCAL_DATA = Path.of("src/main/resources/localstack/s3");
+
+    private final TaggableCloudStorage storage;
+    private final ObjectWriter jsonWriter = createJsonWriter();
+    private final Random random = new Random(1);
+    private final Instant now = Instant.now();
+
+    Seeder(TaggableCloudStorage storage) {
+        this.storage = storage;
+    }
+
+    void seed(int sites, int clients, int salts, int privateOperatorEvery) throws Exception {
+        copyLocalData();
+        append("sites/sites.json", generateSites(sites));
+        append("clients/clients.json", generateClients(sites, clients));
+        append("keys/keys.json", generateSiteKeys(sites));
+        append("operators/operators.json", generatePrivateOperators(sites, privateOperatorEvery));
+        replaceSalts(salts);
+    }
+
+    // the key of the first admin of the local data, which has every role
+    String adminKey() throws Exception {
+        return read("admins/admins.json").getJsonObject(0).getString("key");
+    }
+
+    private void copyLocalData() throws IOException, CloudStorageException {
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(LOCAL_DATA)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            storage.upload(file.toString(), LOCAL_DATA.relativize(file).toString().replace('\\', '/'));
+        }
+    }
+
+    private JsonArray generateSites(int count) throws Exception {
+        final JsonArray sites = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            sites.add(toJson(new Site(FIRST_SITE_ID + i, "load test site " + i, true)));
+        }
+        return sites;
+    }
+
+    private JsonArray generateClients(int sites, int count) throws Exception {
+        final Role[] roles = {Role.GENERATOR, Role.MAPPER, Role.ID_READER, Role.SHARER};
+        final JsonArray clients = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            clients.add(toJson(new LegacyClientKey("UID2-C-L-LT-" + i, base64(64), base64(32), base64(32),
+                    "load test client " + i, "loadtest" + i + "@example.com", now,
+                    Set.of(roles[random.nextInt(roles.length)]), FIRST_SITE_ID + random.nextInt(sites), false, "UID2-C-L-LT-" + i)));
+        }
+        return clients;
+    }
+
+    // one site key per generated site, so site keys can be rotated
+    private JsonArray generateSiteKeys(int sites) throws Exception {
+        final int firstId = read("keys/keys.json").stream()
+                .mapToInt(key -> ((JsonObject) key).getInteger("id"))
+                .max().orElse(0) + 1;
+        final JsonArray keys = new JsonArray();
+        for (int i = 0; i < sites; i++) {
+            keys.add(new JsonObject()
+                    .put("id", firstId + i)
+                    .put("site_id", FIRST_SITE_ID + i)
+                    .put("created", now.minus(Duration.ofDays(1)).getEpochSecond())
+                    .put("activates", now.minus(Duration.ofDays(1)).getEpochSecond())
+                    .put("expires", now.plus(Duration.ofDays(30)).getEpochSecond())
+                    .put("secret", base64(32)));
+        }
+        return keys;
+    }
+
+    // a private operator for every privateOperatorEvery-th site, so private site data is generated for those
+    private JsonArray generatePrivateOperators(int sites, int privateOperatorEvery) throws Exception {
+        final JsonArray operators = new JsonArray();
+        for (int i = 0; privateOperatorEvery > 0 && i < sites; i += privateOperatorEvery) {
+            operators.add(toJson(new OperatorKey(base64(64), base64(32), "load test operator " + i, "loadtest", "trusted",
+                    now.getEpochSecond(), false, FIRST_SITE_ID + i, Set.of(Role.OPERATOR), OperatorType.PRIVATE, "UID2-O-L-LT-" + i)));
+        }
+        return operators;
+    }
+
+    private void replaceSalts(int count) throws Exception {
+        final long effective = now.minus(Duration.ofDays(1)).toEpochMilli();
+        final String location = "salts/salts.txt." + effective;
+        final StringBuilder content = new StringBuilder(count * 64);
+        for (int i = 0; i < count; i++) {
+            final long lastUpdated = now.minus(Duration.ofDays(random.nextInt(365))).toEpochMilli();
+            content.append(1_000_000 + i).append(',').append(lastUpdated).append(',').append(base64(32)).append('\n');
+        }
+        write(location, content.toString());
+
+        final JsonObject metadata = new JsonObject(new String(storage.download("salts/metadata.json").readAllBytes(), StandardCharsets.UTF_8));
+        metadata.put("salts", new JsonArray().add(new JsonObject()
+                .put("effective", effective)
+                .put("expires", now.plus(Duration.ofDays(30)).toEpochMilli())
+                .put("location", location)
+                .put("size", count)));
+        write("salts/metadata.json", metadata.encodePrettily());
+    }
+
+    private void append(String path, JsonArray generated) throws Exception {
+        final JsonArray all = read(path);
+        all.addAll(generated);
+        write(path, all.encode());
+    }
+
+    private JsonArray read(String path) throws Exception {
+        try (InputStream input = storage.download(path)) {
+            return new JsonArray(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private void write(String path, String content) throws CloudStorageException {
+        storage.upload(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), path);
+    }
+
+    private JsonObject toJson(Object value) throws Exception {
+        return new JsonObject(jsonWriter.writeValueAsString(value));
+    }
+
+    private String base64(int bytes) {
+        final byte[] value = new byte[bytes];
+        random.nextBytes(value);
+        return Base64.getEncoder().encodeToString(value);
+    }
+}
@@ -6,19 +6,24 @@ import com.uid2.admin.auth.GithubAuthFactory;
 import com.uid2.admin.auth.AuthFactory;
 import com.uid2.admin.job.JobDispatcher;
 import com.uid2.admin.job.jobsync.PrivateSiteDataSyncJob;
+import com.uid2.admin.job.jobsync.PrivateSiteDataSyncTrigger;
 import com.uid2.admin.job.jobsync.keyset.ReplaceSharingTypesWithSitesJob;
 import com.uid2.admin.legacy.LegacyClientKeyStoreWriter;
 import com.uid2.admin.legacy.RotatingLegacyClientKeyProvider;
 import com.uid2.admin.managers.KeysetManager;
 import com.uid2.admin.monitoring.DataStoreMetrics;
+import com.uid2.admin.monitoring.TracingAuthMiddleware;
+import com.uid2.admin.monitoring.WriteLockMonitor;
 import com.uid2.admin.secret.*;
 import com.uid2.admin.store.*;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.reader.RotatingAdminKeysetStore;
 import com.uid2.admin.store.reader.RotatingPartnerStore;
 import com.uid2.admin.store.version.EpochVersionGenerator;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.admin.store.writer.*;
 import com.uid2.admin.vertx.AdminVerticle;
+import com.uid2.admin.vertx.BlockingExecutionMode;
 import com.uid2.admin.vertx.JsonUtil;
 import com.uid2.admin.vertx.WriteLock;
 import com.uid2.admin.vertx.api.V2RouterModule;
@@ -72,62 +77,73 @@ public class Main {
 
     private final Vertx vertx;
     private final JsonObject config;
+    private final TaggableCloudStorage cloudStorage;
 
     public Main(Vertx vertx, JsonObject config) {
+        this(vertx, config, null);
+    }
+
+    // cloudStorage replaces the core bucket named in the config, e.g. for load tests; null uses the bucket
+    public Main(Vertx vertx, JsonObject config, TaggableCloudStorage cloudStorage) {
         this.vertx = vertx;
         this.config = config;
+        this.cloudStorage = cloudStorage;
     }
 
     public void run() {
         try {
             boolean enableKeysets = config.getBoolean(enableKeysetConfigProp);
             AuthFactory authFactory = new GithubAuthFactory(config);
-            TaggableCloudStorage cloudStorage = CloudUtils.createStorage(config.getString(Const.Config.CoreS3BucketProp), config);
+            TaggableCloudStorage cloudStorage = this.cloudStorage != null
+                    ? this.cloudStorage
+                    : CloudUtils.createStorage(config.getString(Const.Config.CoreS3BucketProp), config);
             FileStorage fileStorage = new TmpFileStorage();
             ObjectWriter jsonWriter = JsonUtil.createJsonWriter();
             FileManager fileManager = new FileManager(cloudStorage, fileStorage);
             Clock clock = new InstantClock();
             VersionGenerator versionGenerator = new EpochVersionGenerator(clock);
+            StoreChangePublisher storeChangePublisher = new StoreChangePublisher();
+            StoreLoader storeLoader = new StoreLoader(clock);
 
             String adminsMetadataPath = config.getString(AdminUserProvider.ADMINS_METADATA_PATH);
             AdminUserProvider adminUserProvider = new AdminUserProvider(cloudStorage, adminsMetadataPath);
-            adminUserProvider.loadContent(adminUserProvider.getMetadata());
-            AdminUserStoreWriter adminUserStoreWriter = new AdminUserStoreWriter(adminUserProvider, fileManager, jsonWriter, versionGenerator);
+            storeLoader.load(adminUserProvider);
+            AdminUserStoreWriter adminUserStoreWriter = new AdminUserStoreWriter(adminUserProvider, fileManager, jsonWriter, versionGenerator, storeLoader);
 
             CloudPath sitesMetadataPath = new CloudPath(config.getString(RotatingSiteStore.SITES_METADATA_PATH));
             GlobalScope siteGlobalScope = new GlobalScope(sitesMetadataPath);
             RotatingSiteStore siteProvider = new RotatingSiteStore(cloudStorage, siteGlobalScope);
-            siteProvider.loadContent(siteProvider.getMetadata());
-            StoreWriter<Collection<Site>> siteStoreWriter = new SiteStoreWriter(siteProvider, fileManager, jsonWriter, versionGenerator, clock, siteGlobalScope);
+            storeLoader.load(siteProvider);
+            StoreWriter<Collection<Site>> siteStoreWriter = new SiteStoreWriter(siteProvider, fileManager, jsonWriter, versionGenerator, clock, siteGlobalScope, storeChangePublisher, storeLoader);
 
             CloudPath clientMetadataPath = new CloudPath(config.getString(Const.Config.ClientsMetadataPathProp));
             GlobalScope clientGlobalScope = new GlobalScope(clientMetadataPath);
             RotatingLegacyClientKeyProvider clientKeyProvider = new RotatingLegacyClientKeyProvider(cloudStorage, clientGlobalScope);
-            clientKeyProvider.loadContent();
-            LegacyClientKeyStoreWriter clientKeyStoreWriter = new LegacyClientKeyStoreWriter(clientKeyProvider, fileManager, jsonWriter, versionGenerator, clock, clientGlobalScope);
+            storeLoader.load(clientKeyProvider);
+            LegacyClientKeyStoreWriter clientKeyStoreWriter = new LegacyClientKeyStoreWriter(clientKeyProvider, fileManager, jsonWriter, versionGenerator, clock, clientGlobalScope, storeChangePublisher, storeLoader);
 
             CloudPath keyMetadataPath = new CloudPath(config.getString(Const.Config.KeysMetadataPathProp));
             GlobalScope keyGlobalScope = new GlobalScope(keyMetadataPath);
             RotatingKeyStore keyProvider = new RotatingKeyStore(cloudStorage, keyGlobalScope);
-            keyProvider.loadContent();
-            EncryptionKeyStoreWriter encryptionKeyStoreWriter = new EncryptionKeyStoreWriter(keyProvider, fileManager, versionGenerator, clock, keyGlobalScope);
+            storeLoader.load(keyProvider);
+            EncryptionKeyStoreWriter encryptionKeyStoreWriter = new EncryptionKeyStoreWriter(keyProvider, fileManager, versionGenerator, clock, keyGlobalScope, storeChangePublisher, storeLoader);
 
             CloudPath keyAclMetadataPath = new CloudPath(config.getString(Const.Config.KeysAclMetadataPathProp));
             GlobalScope keyAclGlobalScope = new GlobalScope(keyAclMetadataPath);
             RotatingKeyAclProvider keyAclProvider = new RotatingKeyAclProvider(cloudStorage, keyAclGlobalScope);
-            keyAclProvider.loadContent();
-            KeyAclStoreWriter keyAclStoreWriter = new KeyAclStoreWriter(keyAclProvider, fileManager, jsonWriter, versionGenerator, clock, keyAclGlobalScope);
+            storeLoader.load(keyAclProvider);
+            KeyAclStoreWriter keyAclStoreWriter = new KeyAclStoreWriter(keyAclProvider, fileManager, jsonWriter, versionGenerator, clock, keyAclGlobalScope, storeChangePublisher, storeLoader);
 
             CloudPath adminKeysetMetadataPath = new CloudPath(config.getString("admin_keysets_metadata_path"));
             GlobalScope adminKeysetGlobalScope = new GlobalScope(adminKeysetMetadataPath);
             RotatingAdminKeysetStore adminKeysetProvider = new RotatingAdminKeysetStore(cloudStorage, adminKeysetGlobalScope);
-            AdminKeysetWriter adminKeysetStoreWriter = new AdminKeysetWriter(adminKeysetProvider, fileManager, jsonWriter, versionGenerator, clock, adminKeysetGlobalScope);
+            AdminKeysetWriter adminKeysetStoreWriter = new AdminKeysetWriter(adminKeysetProvider, fileManager, jsonWriter, versionGenerator, clock, adminKeysetGlobalScope, storeLoader);
             try {
-                adminKeysetProvider.loadContent();
+                storeLoader.load(adminKeysetProvider);
             } catch (CloudStorageException e) {
                 if(e.getMessage().contains("The specified key does not exist")){
                     adminKeysetStoreWriter.upload(new HashMap<>(), null);
-                    adminKeysetProvider.loadContent();
+                    storeLoader.load(adminKeysetProvider);
                 } else {
                     throw e;
                 }
@@ -136,14 +152,14 @@ public class Main {
             CloudPath keysetKeyMetadataPath = new CloudPath(config.getString(Const.Config.KeysetKeysMetadataPathProp));
             GlobalScope keysetKeysGlobalScope = new GlobalScope(keysetKeyMetadataPath);
             RotatingKeysetKeyStore keysetKeysProvider = new RotatingKeysetKeyStore(cloudStorage, keysetKeysGlobalScope);
-            KeysetKeyStoreWriter keysetKeyStoreWriter = new KeysetKeyStoreWriter(keysetKeysProvider, fileManager, versionGenerator, clock, keysetKeysGlobalScope, enableKeysets);
+            KeysetKeyStoreWriter keysetKeyStoreWriter = new KeysetKeyStoreWriter(keysetKeysProvider, fileManager, versionGenerator, clock, keysetKeysGlobalScope, enableKeysets, storeChangePublisher, storeLoader);
             if(enableKeysets) {
                 try {
-                    keysetKeysProvider.loadContent();
+                    storeLoader.load(keysetKeysProvider);
                 } catch (CloudStorageException e) {
                     if (e.getMessage().contains("The specified key does not exist")) {
                         keysetKeyStoreWriter.upload(new HashSet<>(), 0);
-                        keysetKeysProvider.loadContent();
+                        storeLoader.load(keysetKeysProvider);
                     } else {
                         throw e;
                     }
@@ -153,101 +169,76 @@ public class Main {
             CloudPath clientSideKeypairMetadataPath = new CloudPath(config.getString(Const.Config.ClientSideKeypairsMetadataPathProp));
             GlobalScope clientSideKeypairGlobalScope = new GlobalScope(clientSideKeypairMetadataPath);
             RotatingClientSideKeypairStore clientSideKeypairProvider = new RotatingClientSideKeypairStore(cloudStorage, clientSideKeypairGlobalScope);
-            ClientSideKeypairStoreWriter clientSideKeypairStoreWriter = new ClientSideKeypairStoreWriter(clientSideKeypairProvider, fileManager, versionGenerator, clock, clientSideKeypairGlobalScope);
-            try {
-                clientSideKeypairProvider.loadContent();
-            } catch (CloudStorageException e) {
-                if(e.getMessage().contains("The specified key does not exist")) {
-                    clientSideKeypairStoreWriter.upload(new HashSet<>(), null);
-                    clientSideKeypairProvider.loadContent();
-                } else {
-                    throw e;
-                }
-            }
+            ClientSideKeypairStoreWriter clientSideKeypairStoreWriter = new ClientSideKeypairStoreWriter(clientSideKeypairProvider, fileManager, versionGenerator, clock, clientSideKeypairGlobalScope, storeLoader);
+            storeLoader.loadLazily(new LazyStore("cskeypair", clientSideKeypairProvider, () -> clientSideKeypairStoreWriter.upload(new HashSet<>(), null), clock));
 
             CloudPath serviceMetadataPath = new CloudPath(config.getString(Const.Config.ServiceMetadataPathProp));
             GlobalScope serviceGlobalScope= new GlobalScope(serviceMetadataPath);
             RotatingServiceStore serviceProvider = new RotatingServiceStore(cloudStorage, serviceGlobalScope);
-            ServiceStoreWriter serviceStoreWriter = new ServiceStoreWriter(serviceProvider, fileManager, jsonWriter, versionGenerator, clock, serviceGlobalScope);
-            try {
-                serviceProvider.loadContent();
-            } catch (CloudStorageException e) {
-                if(e.getMessage().contains("The specified key does not exist")) {
-                    serviceStoreWriter.upload(new HashSet<>(), null);
-                    serviceProvider.loadContent();
-                } else {
-                    throw e;
-                }
-            }
+            ServiceStoreWriter serviceStoreWriter = new ServiceStoreWriter(serviceProvider, fileManager, jsonWriter, versionGenerator, clock, serviceGlobalScope, storeLoader);
+            storeLoader.loadLazily(new LazyStore("service", serviceProvider, () -> serviceStoreWriter.upload(new HashSet<>(), null), clock));
 
             CloudPath serviceLinkMetadataPath = new CloudPath(config.getString(Const.Config.ServiceLinkMetadataPathProp));
             GlobalScope serviceLinkGlobalScope= new GlobalScope(serviceLinkMetadataPath);
             RotatingServiceLinkStore serviceLinkProvider = new RotatingServiceLinkStore(cloudStorage, serviceLinkGlobalScope);
-            ServiceLinkStoreWriter serviceLinkStoreWriter = new ServiceLinkStoreWriter(serviceLinkProvider, fileManager, jsonWriter, versionGenerator, clock, serviceLinkGlobalScope);
-            try {
-                serviceLinkProvider.loadContent();
-            } catch (CloudStorageException e) {
-                if(e.getMessage().contains("The specified key does not exist")) {
-                    serviceLinkStoreWriter.upload(new HashSet<>(), null);
-                    serviceLinkProvider.loadContent();
-                } else {
-                    throw e;
-                }
-            }
+            ServiceLinkStoreWriter serviceLinkStoreWriter = new ServiceLinkStoreWriter(serviceLinkProvider, fileManager, jsonWriter, versionGenerator, clock, serviceLinkGlobalScope, storeLoader);
+            storeLoader.loadLazily(new LazyStore("service_link", serviceLinkProvider, () -> serviceLinkStoreWriter.upload(new HashSet<>(), null), clock));
 
             CloudPath operatorMetadataPath = new CloudPath(config.getString(Const.Config.OperatorsMetadataPathProp));
             GlobalScope operatorScope = new GlobalScope(operatorMetadataPath);
             RotatingOperatorKeyProvider operatorKeyProvider = new RotatingOperatorKeyProvider(cloudStorage, cloudStorage, operatorScope);
-            operatorKeyProvider.loadContent(operatorKeyProvider.getMetadata());
-            OperatorKeyStoreWriter operatorKeyStoreWriter = new OperatorKeyStoreWriter(operatorKeyProvider, fileManager, jsonWriter, versionGenerator);
+            storeLoader.load(operatorKeyProvider);
+            OperatorKeyStoreWriter operatorKeyStoreWriter = new OperatorKeyStoreWriter(operatorKeyProvider, fileManager, jsonWriter, versionGenerator, storeChangePublisher, storeLoader);
 
             String enclaveMetadataPath = config.getString(EnclaveIdentifierProvider.ENCLAVES_METADATA_PATH);
             EnclaveIdentifierProvider enclaveIdProvider = new EnclaveIdentifierProvider(cloudStorage, enclaveMetadataPath);
-            enclaveIdProvider.loadContent(enclaveIdProvider.getMetadata());
-            EnclaveStoreWriter enclaveStoreWriter = new EnclaveStoreWriter(enclaveIdProvider, fileManager, jsonWriter, versionGenerator);
+            storeLoader.loadLazily(new LazyStore("enclaves", enclaveIdProvider, clock));
+            EnclaveStoreWriter enclaveStoreWriter = new EnclaveStoreWriter(enclaveIdProvider, fileManager, jsonWriter, versionGenerator, storeLoader);
 
             String saltMetadataPath = config.getString(Const.Config.SaltsMetadataPathProp);
             RotatingSaltProvider saltProvider = new RotatingSaltProvider(cloudStorage, saltMetadataPath);
-            saltProvider.loadContent();
-            SaltStoreWriter saltStoreWriter = new SaltStoreWriter(config, saltProvider, fileManager, cloudStorage, versionGenerator);
+            storeLoader.load(saltProvider);
+            SaltStoreWriter saltStoreWriter = new SaltStoreWriter(config, saltProvider, fileManager, cloudStorage, versionGenerator, storeLoader);
 
             String partnerMetadataPath = config.getString(RotatingPartnerStore.PARTNERS_METADATA_PATH);
             RotatingPartnerStore partnerConfigProvider = new RotatingPartnerStore(cloudStorage, partnerMetadataPath);
-            partnerConfigProvider.loadContent();
-            PartnerStoreWriter partnerStoreWriter = new PartnerStoreWriter(partnerConfigProvider, fileManager, versionGenerator);
+            storeLoader.loadLazily(new LazyStore("partners", partnerConfigProvider, clock));
+            PartnerStoreWriter partnerStoreWriter = new PartnerStoreWriter(partnerConfigProvider, fileManager, versionGenerator, storeLoader);
 
-            AuthMiddleware auth = new AuthMiddleware(adminUserProvider);
+            AuthMiddleware auth = new TracingAuthMiddleware(adminUserProvider, config.getLong("slow_request_threshold_ms", 2000L));
             WriteLock writeLock = new WriteLock();
             IKeyGenerator keyGenerator = new SecureKeyGenerator();
             KeyHasher keyHasher = new KeyHasher();
             IKeypairGenerator keypairGenerator = new SecureKeypairGenerator();
             ISaltRotation saltRotation = new SaltRotation(config, keyGenerator);
             EncryptionKeyService encryptionKeyService = new EncryptionKeyService(
-                    config, auth, writeLock, encryptionKeyStoreWriter, keysetKeyStoreWriter, keyProvider, keysetKeysProvider, adminKeysetProvider, adminKeysetStoreWriter, keyGenerator, clock);
+                    config, auth, writeLock, storeLoader, encryptionKeyStoreWriter, keysetKeyStoreWriter, keyProvider, keysetKeysProvider, adminKeysetProvider, adminKeysetStoreWriter, keyGenerator, clock);
             KeysetManager keysetManager = new KeysetManager(
-                    adminKeysetProvider, adminKeysetStoreWriter, encryptionKeyService, enableKeysets
+                    adminKeysetProvider, adminKeysetStoreWriter, encryptionKeyService, storeLoader, enableKeysets
             );
 
-            JobDispatcher jobDispatcher = new JobDispatcher("job-dispatcher", 1000 * 60, 3, clock);
+            long jobDispatcherDebounceMs = config.getLong("job_dispatcher_debounce_ms", 0L);
+            JobDispatcher jobDispatcher = new JobDispatcher("job-dispatcher", 1000 * 60, 3, jobDispatcherDebounceMs,
+                    config.getLong("job_dispatcher_max_wait_ms", jobDispatcherDebounceMs * 10), clock);
             jobDispatcher.start();
 
-            val clientSideKeypairService = new ClientSideKeypairService(config, auth, writeLock, clientSideKeypairStoreWriter, clientSideKeypairProvider, siteProvider, keysetManager, keypairGenerator, clock);
+            val clientSideKeypairService = new ClientSideKeypairService(config, auth, writeLock, storeLoader, clientSideKeypairStoreWriter, clientSideKeypairProvider, siteProvider, keysetManager, keypairGenerator, clock);
 
             IService[] services = {
-                    new AdminKeyService(config, auth, writeLock, adminUserStoreWriter, adminUserProvider, keyGenerator, keyHasher, clientKeyStoreWriter, encryptionKeyStoreWriter, keyAclStoreWriter),
-                    new ClientKeyService(config, auth, writeLock, clientKeyStoreWriter, clientKeyProvider, siteProvider, keysetManager, keyGenerator, keyHasher),
-                    new EnclaveIdService(auth, writeLock, enclaveStoreWriter, enclaveIdProvider),
+                    new AdminKeyService(config, auth, writeLock, storeLoader, adminUserStoreWriter, adminUserProvider, keyGenerator, keyHasher, clientKeyStoreWriter, encryptionKeyStoreWriter, keyAclStoreWriter),
+                    new ClientKeyService(config, auth, writeLock, storeLoader, clientKeyStoreWriter, clientKeyProvider, siteProvider, keysetManager, keyGenerator, keyHasher),
+                    new EnclaveIdService(auth, writeLock, storeLoader, enclaveStoreWriter, enclaveIdProvider),
                     encryptionKeyService,
-                    new KeyAclService(auth, writeLock, keyAclStoreWriter, keyAclProvider, siteProvider, encryptionKeyService),
-                    new SharingService(auth, writeLock, adminKeysetProvider, keysetManager, siteProvider, enableKeysets),
+                    new KeyAclService(auth, writeLock, storeLoader, keyAclStoreWriter, keyAclProvider, siteProvider, encryptionKeyService),
+                    new SharingService(auth, writeLock, storeLoader, adminKeysetProvider, keysetManager, siteProvider, enableKeysets),
                     clientSideKeypairService,
-                    new ServiceService(auth, writeLock, serviceStoreWriter, serviceProvider, siteProvider),
-                    new ServiceLinkService(auth, writeLock, serviceLinkStoreWriter, serviceLinkProvider, serviceProvider, siteProvider),
-                    new OperatorKeyService(config, auth, writeLock, operatorKeyStoreWriter, operatorKeyProvider, siteProvider, keyGenerator, keyHasher),
-                    new SaltService(auth, writeLock, saltStoreWriter, saltProvider, saltRotation),
-                    new SiteService(auth, writeLock, siteStoreWriter, siteProvider, clientKeyProvider),
-                    new PartnerConfigService(auth, writeLock, partnerStoreWriter, partnerConfigProvider),
-                    new PrivateSiteDataRefreshService(auth, jobDispatcher, writeLock, config),
+                    new ServiceService(auth, storeLoader, serviceStoreWriter, serviceProvider, siteProvider),
+                    new ServiceLinkService(auth, writeLock, storeLoader, serviceLinkStoreWriter, serviceLinkProvider, serviceProvider, siteProvider),
+                    new OperatorKeyService(config, auth, writeLock, storeLoader, operatorKeyStoreWriter, operatorKeyProvider, siteProvider, keyGenerator, keyHasher),
+                    new SaltService(auth, writeLock, storeLoader, saltStoreWriter, saltProvider, saltRotation),
+                    new SiteService(auth, writeLock, storeLoader, siteStoreWriter, siteProvider, clientKeyProvider, keysetManager, clock),
+                    new PartnerConfigService(auth, writeLock, storeLoader, partnerStoreWriter, partnerConfigProvider),
+                    new PrivateSiteDataRefreshService(auth, jobDispatcher, writeLock, storeLoader, config, cloudStorage, siteProvider, operatorKeyProvider),
                     new JobDispatcherService(auth, jobDispatcher),
                     new SearchService(auth, clientKeyProvider, operatorKeyProvider, adminUserProvider)
             };
@@ -256,21 +247,33 @@ public class Main {
                     "admins", 10000, adminUserProvider);
             vertx.deployVerticle(rotatingAdminUserStoreVerticle);
 
-            val v2RouterModule = new V2RouterModule(clientSideKeypairService, auth);
-
-            AdminVerticle adminVerticle = new AdminVerticle(config, authFactory, adminUserProvider, services, v2RouterModule.getRouter());
-            vertx.deployVerticle(adminVerticle);
+            val v2RouterModule = new V2RouterModule(clientSideKeypairService, storeLoader, clientSideKeypairProvider, auth);
+
+            BlockingExecutionMode blockingExecutionMode = BlockingExecutionMode.fromConfig(config);
+            LOGGER.info("Running blocking handlers in {} mode", blockingExecutionMode);
+            vertx.deployVerticle(
+                    () -> new AdminVerticle(config, authFactory, adminUserProvider, services, v2RouterModule.getRouter()),
+                    blockingExecutionMode.adminVerticleOptions(config));
+
+            long writeLockMonitorIntervalMs = config.getLong("write_lock_monitor_interval_ms", 1000L);
+            if (writeLockMonitorIntervalMs > 0) {
+                WriteLockMonitor writeLockMonitor = new WriteLockMonitor(writeLock, clock, config.getLong("write_lock_warn_after_ms", 5000L));
+                vertx.setPeriodic(writeLockMonitorIntervalMs, id -> vertx.executeBlocking(promise -> {
+                    writeLockMonitor.sample();
+                    promise.complete();
+                }, false));
+            }
 
             CloudPath keysetMetadataPath = new CloudPath(config.getString("keysets_metadata_path"));
             GlobalScope keysetGlobalScope = new GlobalScope(keysetMetadataPath);
             RotatingKeysetProvider keysetProvider = new RotatingKeysetProvider(cloudStorage, keysetGlobalScope);
-            KeysetStoreWriter keysetStoreWriter = new KeysetStoreWriter(keysetProvider, fileManager, jsonWriter, versionGenerator, clock, keysetGlobalScope, enableKeysets);
+            KeysetStoreWriter keysetStoreWriter = new KeysetStoreWriter(keysetProvider, fileManager, jsonWriter, versionGenerator, clock, keysetGlobalScope, enableKeysets, storeChangePublisher, storeLoader);
             try {
-                keysetProvider.loadContent();
+                storeLoader.load(keysetProvider);
             } catch (CloudStorageException e) {
                 if(e.getMessage().contains("The specified key does not exist")){
                     keysetStoreWriter.upload(new HashMap<>(), null);
-                    keysetProvider.loadContent();
+                    storeLoader.load(keysetProvider);
                 } else {
                     throw e;
                 }
@@ -288,33 +291,60 @@ public class Main {
             if(enableKeysets) {
                 synchronized (writeLock) {
                     //UID2-628 keep keys.json and keyset_keys.json in sync. This function syncs them on start up
-                    keysetProvider.loadContent();
+                    storeLoader.loadIfChanged(keysetProvider);
                     keysetManager.createAdminKeysets(keysetProvider.getAll());
                     encryptionKeyService.createKeysetKeys();
                 }
             }
 
-            ReplaceSharingTypesWithSitesJob replaceSharingTypesWithSitesJob = new ReplaceSharingTypesWithSitesJob(config, writeLock, adminKeysetProvider, keysetProvider, keysetStoreWriter, siteProvider);
+            ReplaceSharingTypesWithSitesJob replaceSharingTypesWithSitesJob = new ReplaceSharingTypesWithSitesJob(config, writeLock, storeLoader, adminKeysetProvider, keysetProvider, keysetStoreWriter, siteProvider);
             jobDispatcher.enqueue(replaceSharingTypesWithSitesJob);
             jobDispatcher.executeNextJob();
             // Data type keys should be matching uid2_config_store_version reported by operator, core, etc
-            DataStoreMetrics.addDataStoreMetrics("admins", adminUserProvider);
-            DataStoreMetrics.addDataStoreMetrics("site", siteProvider);
-            DataStoreMetrics.addDataStoreMetrics("auth", clientKeyProvider);
-            DataStoreMetrics.addDataStoreMetrics("key", keyProvider);
-            DataStoreMetrics.addDataStoreMetrics("keys_acl", keyAclProvider);
-            DataStoreMetrics.addDataStoreMetrics("keyset", keysetProvider);
-            DataStoreMetrics.addDataStoreMetrics("keysetkey", keysetKeysProvider);
-            DataStoreMetrics.addDataStoreMetrics("cskeypair", clientSideKeypairProvider);
-            DataStoreMetrics.addDataStoreMetrics("operators", operatorKeyProvider);
-            DataStoreMetrics.addDataStoreMetrics("enclaves", enclaveIdProvider);
-            DataStoreMetrics.addDataStoreMetrics("salt", saltProvider);
-            DataStoreMetrics.addDataStoreMetrics("partners", partnerConfigProvider);
+            // admins are reported by their RotatingStoreVerticle, which reloads them outside of the store loader
+            DataStoreMetrics dataStoreMetrics = new DataStoreMetrics(storeLoader, clock);
+            dataStoreMetrics.addDataStoreMetrics("site", siteProvider);
+            dataStoreMetrics.addDataStoreMetrics("auth", clientKeyProvider);
+            dataStoreMetrics.addDataStoreMetrics("key", keyProvider);
+            dataStoreMetrics.addDataStoreMetrics("keys_acl", keyAclProvider);
+            dataStoreMetrics.addDataStoreMetrics("keyset", keysetProvider);
+            dataStoreMetrics.addDataStoreMetrics("keysetkey", keysetKeysProvider);
+            dataStoreMetrics.addDataStoreMetrics("cskeypair", clientSideKeypairProvider);
+            dataStoreMetrics.addDataStoreMetrics("operators", operatorKeyProvider);
+            dataStoreMetrics.addDataStoreMetrics("enclaves", enclaveIdProvider);
+            dataStoreMetrics.addDataStoreMetrics("salt", saltProvider);
+            dataStoreMetrics.addDataStoreMetrics("partners", partnerConfigProvider);
+
+            // admins are refreshed by their RotatingStoreVerticle, handlers only check the version of the others
+            // lazy stores are left unloaded until first used, unless warm_lazy_stores is set
+            StoreRefresher storeRefresher = new StoreRefresher(storeLoader, config.getBoolean("warm_lazy_stores", false));
+            storeRefresher.addStore("site", siteProvider);
+            storeRefresher.addStore("auth", clientKeyProvider);
+            storeRefresher.addStore("key", keyProvider);
+            storeRefresher.addStore("keys_acl", keyAclProvider);
+            storeRefresher.addStore("admin_keyset", adminKeysetProvider);
+            storeRefresher.addStore("keyset", keysetProvider);
+            if (enableKeysets) {
+                storeRefresher.addStore("keysetkey", keysetKeysProvider);
+            }
+            storeRefresher.addStore("cskeypair", clientSideKeypairProvider);
+            storeRefresher.addStore("service", serviceProvider);
+            storeRefresher.addStore("service_link", serviceLinkProvider);
+            storeRefresher.addStore("operators", operatorKeyProvider);
+            storeRefresher.addStore("enclaves", enclaveIdProvider);
+            storeRefresher.addStore("salt", saltProvider);
+            storeRefresher.addStore("partners", partnerConfigProvider);
+            vertx.setPeriodic(config.getLong("store_refresh_interval_ms", 10000L), id -> vertx.executeBlocking(promise -> {
+                storeRefresher.refresh();
+                promise.complete();
+            }, false));
 
             //UID2-575 set up a job dispatcher that will write private site data periodically if there is any changes
             //check job for every minute
-            PrivateSiteDataSyncJob job = new PrivateSiteDataSyncJob(config, writeLock);
+            PrivateSiteDataSyncJob job = new PrivateSiteDataSyncJob(config, writeLock, cloudStorage);
             jobDispatcher.enqueue(job);
+            // sync private site data as soon as global data changes rather than waiting for the next interval
+            storeChangePublisher.addListener(new PrivateSiteDataSyncTrigger(config, writeLock, cloudStorage, jobDispatcher));
             jobDispatcher.executeNextJob();
 
         } catch (Exception e) {
@@ -1,11 +1,67 @@
 package com.uid2.admin.auth;
 
-import java.util.Map;
+import java.util.*;
 
+/*
+ * The keysets by id, indexed by site so that finding a site's keysets or default keyset and the next keyset id
+ * don't scan every keyset. A snapshot never changes once built, so readers don't need locks: writers upload a
+ * changed copy, see withKeyset, and the reload that follows the upload replaces the snapshot.
+ * The map given to the constructor is owned by the snapshot and must not be changed afterwards.
+ */
 public class AdminKeysetSnapshot {
     private final Map<Integer, AdminKeyset> keysetIdToAdminKeyset;
+    private final Map<Integer, List<AdminKeyset>> keysetsBySite = new HashMap<>();
+    private final Map<Integer, AdminKeyset> defaultKeysetBySite = new HashMap<>();
+    private final int maxKeysetId;
 
-    public AdminKeysetSnapshot(Map<Integer, AdminKeyset> keysetIdToAdminKeyset) {this.keysetIdToAdminKeyset = keysetIdToAdminKeyset;}
+    public AdminKeysetSnapshot(Map<Integer, AdminKeyset> keysetIdToAdminKeyset) {
+        this.keysetIdToAdminKeyset = Collections.unmodifiableMap(keysetIdToAdminKeyset);
+
+        int maxKeysetId = 0;
+        for (AdminKeyset keyset : keysetIdToAdminKeyset.values()) {
+            keysetsBySite.computeIfAbsent(keyset.getSiteId(), siteId -> new ArrayList<>(1)).add(keyset);
+            maxKeysetId = Math.max(maxKeysetId, keyset.getKeysetId());
+        }
+        for (List<AdminKeyset> siteKeysets : keysetsBySite.values()) {
+            siteKeysets.sort(Comparator.comparingInt(AdminKeyset::getKeysetId));
+            for (AdminKeyset keyset : siteKeysets) {
+                if (keyset.isDefault()) {
+                    defaultKeysetBySite.put(keyset.getSiteId(), keyset);
+                    break;
+                }
+            }
+        }
+        this.maxKeysetId = maxKeysetId;
+    }
 
     public Map<Integer, AdminKeyset> getAllKeysets() { return keysetIdToAdminKeyset; }
+
+    // the site's keysets ordered by keyset id
+    public Collection<AdminKeyset> getKeysetsBySiteId(int siteId) {
+        final List<AdminKeyset> keysets = keysetsBySite.get(siteId);
+        return keysets == null ? Collections.emptyList() : Collections.unmodifiableList(keysets);
+    }
+
+    // the site's default keyset with the lowest keyset id, null if it has none
+    public AdminKeyset getDefaultKeyset(int siteId) {
+        return defaultKeysetBySite.get(siteId);
+    }
+
+    // 0 when there are no keysets
+    public int getMaxKeysetId() {
+        return maxKeysetId;
+    }
+
+    // the keysets to upload to add or replace the given ones, this snapshot is left as it is
+    public Map<Integer, AdminKeyset> withKeysets(Collection<AdminKeyset> keysets) {
+        final Map<Integer, AdminKeyset> changed = new HashMap<>(keysetIdToAdminKeyset);
+        for (AdminKeyset keyset : keysets) {
+            changed.put(keyset.getKeysetId(), keyset);
+        }
+        return changed;
+    }
+
+    public Map<Integer, AdminKeyset> withKeyset(AdminKeyset keyset) {
+        return withKeysets(List.of(keyset));
+    }
 }
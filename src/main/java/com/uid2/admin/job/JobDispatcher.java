@@ -8,6 +8,7 @@ import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.*;
@@ -15,18 +16,33 @@ import java.util.stream.Collectors;
 
 public class JobDispatcher {
     private static final Logger LOGGER = LoggerFactory.getLogger(JobDispatcher.class);
+    private static final int MAX_FINISHED_JOBS = 100;
 
-    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
-    private final Queue<Job> jobQueue = new ConcurrentLinkedQueue<>();
+    private final ExecutorService jobExecutor;
+    private final Deque<Job> jobQueue = new ConcurrentLinkedDeque<>();
+    private final Map<String, Instant> lastEnqueuedAt = new HashMap<>();
+    // ids of queued jobs that are run without waiting for their debounce window
+    private final Set<String> immediateJobIds = new HashSet<>();
+    // the last execution of the most recently finished job ids, oldest first
+    private final Map<String, JobInfo> finishedJobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JobInfo> eldest) {
+            return size() > MAX_FINISHED_JOBS;
+        }
+    };
     private final Object jobLock = new Object();
 
     private final String id;
     private final int intervalMs;
     private final int maxRetries;
+    private final long debounceMs;
+    private final long maxWaitMs;
     private final Clock clock;
 
     private boolean started = false;
     private Job currentJob = null;
+    // a newer instance of the running job, enqueued while it was executing
+    private Job rerunJob = null;
     private ScheduledExecutorService scheduler;
 
     public JobDispatcher(
@@ -34,10 +50,39 @@ public class JobDispatcher {
             int intervalMs,
             int maxRetries,
             Clock clock) {
+        this(id, intervalMs, maxRetries, 0, clock);
+    }
+
+    public JobDispatcher(
+            String id,
+            int intervalMs,
+            int maxRetries,
+            long debounceMs,
+            Clock clock) {
+        this(id, intervalMs, maxRetries, debounceMs, debounceMs * 10, clock);
+    }
+
+    /*
+     * A job is only picked up once no duplicate of it has been enqueued for debounceMs,
+     * so bursts of enqueues for the same job id are merged into a single execution.
+     * A job is never held back for more than maxWaitMs after it was first queued, so a steady stream
+     * of duplicates can't postpone it indefinitely.
+     */
+    public JobDispatcher(
+            String id,
+            int intervalMs,
+            int maxRetries,
+            long debounceMs,
+            long maxWaitMs,
+            Clock clock) {
         this.id = id;
         this.intervalMs = intervalMs;
         this.maxRetries = maxRetries;
+        this.debounceMs = debounceMs;
+        this.maxWaitMs = maxWaitMs;
         this.clock = clock;
+        // named so that the thread running a job can be told apart, e.g. by the write lock monitor
+        this.jobExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, id + "-job"));
 
         Gauge.builder("uid2.job_dispatcher.execution_duration_ms", this::getExecutionDuration)
                 .tag("job_dispatcher", id)
@@ -49,7 +94,7 @@ public class JobDispatcher {
         synchronized (jobLock) {
             if (!started) {
                 LOGGER.info("Starting job dispatcher (Interval: {}ms | Max retries: {})", intervalMs, maxRetries);
-                scheduler = Executors.newScheduledThreadPool(1);
+                scheduler = Executors.newScheduledThreadPool(1, r -> new Thread(r, id + "-scheduler"));
                 scheduler.scheduleAtFixedRate(this::executeNextJob, 0, intervalMs, TimeUnit.MILLISECONDS);
                 started = true;
             } else {
@@ -63,7 +108,10 @@ public class JobDispatcher {
         synchronized (jobLock) {
             started = false;
             currentJob = null;
+            rerunJob = null;
             jobQueue.clear();
+            lastEnqueuedAt.clear();
+            immediateJobIds.clear();
 
             if (scheduler != null) {
                 scheduler.shutdown();
@@ -74,25 +122,65 @@ public class JobDispatcher {
 
     public void clear() {
         LOGGER.info("Clearing job dispatcher queue");
-        jobQueue.clear();
+        synchronized (jobLock) {
+            jobQueue.clear();
+            rerunJob = null;
+            lastEnqueuedAt.clear();
+            immediateJobIds.clear();
+        }
     }
 
+    /*
+     * Duplicates (by job id) are coalesced:
+     * - if the job is already queued, the queued entry is kept and its debounce window restarts
+     * - if the job is currently running, it is marked dirty and runs exactly once more after the current run
+     */
     public void enqueue(Job job) {
+        enqueue(job, false);
+    }
+
+    // an immediate job, and any duplicate it is merged with, is ready to run without waiting for its debounce window
+    public void enqueue(Job job, boolean immediate) {
         String id = job.getId();
 
         synchronized (jobLock) {
-            if ((currentJob == null || !currentJob.getId().equals(id))
-                    && jobQueue.stream().noneMatch(queuedJob -> queuedJob.getId().equals(id))) {
+            Instant now = clock.now();
+            if (immediate) {
+                immediateJobIds.add(id);
+            }
+            if (jobQueue.stream().anyMatch(queuedJob -> queuedJob.getId().equals(id))) {
+                LOGGER.info("Already queued job, coalescing: {}", id);
+                lastEnqueuedAt.put(id, now);
+            } else if (currentJob != null && currentJob.getId().equals(id)) {
+                LOGGER.info("Job is running, scheduling re-run: {}", id);
+                if (rerunJob == null) {
+                    job.setAddedToQueueAt(now);
+                    rerunJob = job;
+                }
+                lastEnqueuedAt.put(id, now);
+            } else {
                 LOGGER.info("Queueing new job: {}", id);
                 jobQueue.add(job);
-                job.setAddedToQueueAt(clock.now());
-            } else {
-                LOGGER.warn("Already queued job: {}", id);
+                job.setAddedToQueueAt(now);
+                lastEnqueuedAt.put(id, now);
+            }
+        }
+    }
+
+    /*
+     * Runs the next job as soon as its debounce window allows, instead of waiting for the next interval.
+     * Has no effect until the dispatcher is started.
+     */
+    public void scheduleNextJob() {
+        synchronized (jobLock) {
+            if (started && scheduler != null) {
+                scheduler.schedule(this::executeNextJob, debounceMs, TimeUnit.MILLISECONDS);
             }
         }
     }
 
     public void executeNextJob() {
+        Job executingJob;
         String currentJobId;
 
         synchronized (jobLock) {
@@ -106,27 +194,36 @@ public class JobDispatcher {
                 return;
             }
 
-            currentJob = jobQueue.poll();
-            assert currentJob != null;
+            Instant now = clock.now();
+            currentJob = pollReadyJob(now);
+            if (currentJob == null) {
+                LOGGER.debug("No jobs ready to run");
+                return;
+            }
+            executingJob = currentJob;
             currentJobId = currentJob.getId();
-            currentJob.setStartedExecutingAt(clock.now());
+            lastEnqueuedAt.remove(currentJobId);
+            immediateJobIds.remove(currentJobId);
+            currentJob.setStartedExecutingAt(now);
             LOGGER.info("Executing job: {} ({} jobs remaining in queue)", currentJobId, jobQueue.size());
         }
 
         jobExecutor.execute(() -> {
+            boolean succeeded = false;
             for (int retryCount = 1; retryCount <= maxRetries; retryCount++) {
                 try {
                     long before = System.currentTimeMillis();
-                    currentJob.execute();
+                    executingJob.execute();
                     long after = System.currentTimeMillis();
                     long durationMs = after - before;
                     LOGGER.info("Job successfully executed: {} in {}ms", currentJobId, durationMs);
+                    succeeded = true;
                     break;
                 } catch (Throwable t) {
                     if (retryCount < maxRetries) {
                         LOGGER.error(
                                 String.format("Found error, retrying job: %s (%d/%d attempts)",
-                                        currentJob.getId(), retryCount, maxRetries), t);
+                                        currentJobId, retryCount, maxRetries), t);
                     } else {
                         LOGGER.error(String.format("Found error, but reached max retries for job: %s", currentJobId), t);
                     }
@@ -134,11 +231,51 @@ public class JobDispatcher {
             }
 
             synchronized (jobLock) {
+                executingJob.setFinishedExecutingAt(clock.now());
+                executingJob.setSucceeded(succeeded);
+                finishedJobs.remove(currentJobId);
+                finishedJobs.put(currentJobId, new JobInfo(executingJob, false));
                 currentJob = null;
+                if (rerunJob != null) {
+                    LOGGER.info("Re-queueing job enqueued during execution: {}", rerunJob.getId());
+                    jobQueue.addFirst(rerunJob);
+                    rerunJob = null;
+                    scheduleNextJob();
+                } else if (started && scheduler != null && jobQueue.stream().anyMatch(job -> immediateJobIds.contains(job.getId()))) {
+                    scheduler.execute(this::executeNextJob);
+                }
             }
         });
     }
 
+    // must be called while holding jobLock
+    private Job pollReadyJob(Instant now) {
+        Iterator<Job> iterator = jobQueue.iterator();
+        while (iterator.hasNext()) {
+            Job job = iterator.next();
+            if (immediateJobIds.contains(job.getId()) || !now.isBefore(readyAt(job))) {
+                iterator.remove();
+                return job;
+            }
+        }
+        return null;
+    }
+
+    // must be called while holding jobLock
+    private Instant readyAt(Job job) {
+        Instant addedToQueueAt = job.getAddedToQueueAt();
+        Instant enqueuedAt = lastEnqueuedAt.getOrDefault(job.getId(), addedToQueueAt);
+        if (enqueuedAt == null) {
+            return Instant.MIN;
+        }
+        Instant debouncedAt = enqueuedAt.plusMillis(debounceMs);
+        if (addedToQueueAt == null) {
+            return debouncedAt;
+        }
+        Instant latest = addedToQueueAt.plusMillis(maxWaitMs);
+        return debouncedAt.isBefore(latest) ? debouncedAt : latest;
+    }
+
     public List<JobInfo> getJobQueueInfo() {
         List<JobInfo> jobInfos = new ArrayList<>();
 
@@ -146,6 +283,9 @@ public class JobDispatcher {
             if (isExecutingJob()) {
                 jobInfos.add(new JobInfo(currentJob, true));
             }
+            if (rerunJob != null) {
+                jobInfos.add(new JobInfo(rerunJob, false));
+            }
             jobInfos.addAll(jobQueue.stream()
                     .map(job -> new JobInfo(job, false))
                     .collect(Collectors.toList()));
@@ -153,6 +293,12 @@ public class JobDispatcher {
         return jobInfos;
     }
 
+    public List<JobInfo> getFinishedJobsInfo() {
+        synchronized (jobLock) {
+            return new ArrayList<>(finishedJobs.values());
+        }
+    }
+
     public JobInfo getExecutingJobInfo() {
         synchronized (jobLock) {
             return currentJob == null ? null : new JobInfo(currentJob, true);
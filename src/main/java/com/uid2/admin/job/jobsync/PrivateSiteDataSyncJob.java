@@ -9,6 +9,7 @@ import com.uid2.admin.job.jobsync.keyset.SiteKeysetSyncJob;
 import com.uid2.admin.job.jobsync.site.SiteSyncJob;
 import com.uid2.admin.job.model.Job;
 import com.uid2.admin.legacy.LegacyClientKey;
+import com.uid2.admin.model.PrivateSiteTopology;
 import com.uid2.admin.store.*;
 import com.uid2.admin.store.factory.*;
 import com.uid2.admin.store.version.EpochVersionGenerator;
@@ -17,7 +18,6 @@ import com.uid2.admin.vertx.JsonUtil;
 import com.uid2.admin.vertx.WriteLock;
 import com.uid2.shared.Const;
 import com.uid2.shared.auth.*;
-import com.uid2.shared.cloud.CloudUtils;
 import com.uid2.shared.cloud.ICloudStorage;
 import com.uid2.shared.model.EncryptionKey;
 import com.uid2.shared.model.KeysetKey;
@@ -26,33 +26,80 @@ import com.uid2.shared.store.CloudPath;
 import com.uid2.shared.store.reader.RotatingSiteStore;
 import com.uid2.shared.store.scope.GlobalScope;
 import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import static com.uid2.admin.AdminConst.enableKeysetConfigProp;
 
 /*
  * The single job that would refresh private sites data for Site/Client/EncryptionKey/KeyAcl data type
+ * If site ids are given, only the data of those private sites is regenerated
  */
 public class PrivateSiteDataSyncJob extends Job {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrivateSiteDataSyncJob.class);
+    // jobs can also be executed outside the job dispatcher, this stops them writing the same site files concurrently
+    private static final Object EXECUTION_LOCK = new Object();
+
     public final JsonObject config;
     private final WriteLock writeLock;
+    private final ICloudStorage cloudStorage;
+    private final FileStorage fileStorage;
+    private final Set<Integer> siteIds;
+    // read by the job dispatcher while the job runs
+    private final Map<String, Long> durationsMs = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public PrivateSiteDataSyncJob(JsonObject config, WriteLock writeLock, ICloudStorage cloudStorage) {
+        this(config, writeLock, cloudStorage, null);
+    }
+
+    public PrivateSiteDataSyncJob(JsonObject config, WriteLock writeLock, ICloudStorage cloudStorage, Set<Integer> siteIds) {
+        this(config, writeLock, cloudStorage, new TmpFileStorage(), siteIds);
+    }
 
-    public PrivateSiteDataSyncJob(JsonObject config, WriteLock writeLock) {
+    public PrivateSiteDataSyncJob(JsonObject config, WriteLock writeLock, ICloudStorage cloudStorage, FileStorage fileStorage, Set<Integer> siteIds) {
         this.config = config;
         this.writeLock = writeLock;
+        this.cloudStorage = cloudStorage;
+        this.fileStorage = fileStorage;
+        this.siteIds = siteIds == null ? null : new TreeSet<>(siteIds);
     }
 
     @Override
     public String getId() {
-        return "global-to-site-scope-sync-private-site-data";
+        if (siteIds == null) {
+            return "global-to-site-scope-sync-private-site-data";
+        }
+        return "global-to-site-scope-sync-private-site-data-sites-" + siteIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    // milliseconds spent loading global data and writing each data type during the last execution
+    @Override
+    public Map<String, Long> getDurationsMs() {
+        synchronized (durationsMs) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(durationsMs));
+        }
     }
 
     @Override
     public void execute() throws Exception {
-        ICloudStorage cloudStorage = CloudUtils.createStorage(config.getString(Const.Config.CoreS3BucketProp), config);
-        FileStorage fileStorage = new TmpFileStorage();
+        synchronized (EXECUTION_LOCK) {
+            durationsMs.clear();
+            sync();
+        }
+        LOGGER.info("Synced private site data for {}, durations in ms: {}", siteIds == null ? "all sites" : "sites " + siteIds, durationsMs);
+    }
+
+    private void sync() throws Exception {
         ObjectWriter jsonWriter = JsonUtil.createJsonWriter();
         Clock clock = new InstantClock();
         VersionGenerator versionGenerator = new EpochVersionGenerator(clock);
@@ -111,6 +158,7 @@ public class PrivateSiteDataSyncJob extends Job {
         RotatingOperatorKeyProvider operatorKeyProvider = new RotatingOperatorKeyProvider(cloudStorage, cloudStorage, operatorScope);
 
         // so that we will get a single consistent version of everything before generating private site data
+        long loadStartMs = clock.getEpochMillis();
         synchronized (writeLock) {
             operatorKeyProvider.loadContent(operatorKeyProvider.getMetadata());
             siteStoreFactory.getGlobalReader().loadContent(siteStoreFactory.getGlobalReader().getMetadata());
@@ -122,8 +170,16 @@ public class PrivateSiteDataSyncJob extends Job {
                 keysetKeyStoreFactory.getGlobalReader().loadContent();
             }
         }
-
-        Collection<OperatorKey> globalOperators = operatorKeyProvider.getAll();
+        durationsMs.put("load", clock.getEpochMillis() - loadStartMs);
+
+        // restricting the operators to the requested sites restricts every generated data type to those sites
+        Collection<OperatorKey> globalOperators = siteIds == null
+                ? operatorKeyProvider.getAll()
+                : operatorKeyProvider.getAll().stream()
+                        .filter(o -> siteIds.contains(o.getSiteId()))
+                        .collect(Collectors.toList());
+        // built once and shared by every data type below
+        PrivateSiteTopology topology = PrivateSiteTopology.fromOperators(globalOperators);
         Collection<Site> globalSites = siteStoreFactory.getGlobalReader().getAllSites();
         Collection<LegacyClientKey> globalClients = clientKeyStoreFactory.getGlobalReader().getAll();
         Collection<EncryptionKey> globalEncryptionKeys = encryptionKeyStoreFactory.getGlobalReader().getSnapshot().getActiveKeySet();
@@ -147,22 +203,22 @@ public class PrivateSiteDataSyncJob extends Job {
                 keyAclStoreFactory,
                 MultiScopeStoreWriter::areMapsEqual);
 
-        SiteSyncJob siteSyncJob = new SiteSyncJob(siteWriter, globalSites, globalOperators);
-        ClientKeySyncJob clientSyncJob = new ClientKeySyncJob(clientWriter, globalClients, globalOperators);
+        SiteSyncJob siteSyncJob = new SiteSyncJob(siteWriter, globalSites, topology);
+        ClientKeySyncJob clientSyncJob = new ClientKeySyncJob(clientWriter, globalClients, topology);
         EncryptionKeySyncJob encryptionKeySyncJob = new EncryptionKeySyncJob(
                 globalEncryptionKeys,
                 globalClients,
-                globalOperators,
+                topology,
                 globalKeyAcls,
                 globalMaxKeyId,
                 encryptionKeyWriter
         );
-        KeyAclSyncJob keyAclSyncJob = new KeyAclSyncJob(keyAclWriter, globalOperators, globalKeyAcls);
+        KeyAclSyncJob keyAclSyncJob = new KeyAclSyncJob(keyAclWriter, topology, globalKeyAcls);
 
-        siteSyncJob.execute();
-        clientSyncJob.execute();
-        encryptionKeySyncJob.execute();
-        keyAclSyncJob.execute();
+        executeTimed("sites", siteSyncJob, clock);
+        executeTimed("clients", clientSyncJob, clock);
+        executeTimed("keys", encryptionKeySyncJob, clock);
+        executeTimed("keys_acl", keyAclSyncJob, clock);
         if(config.getBoolean(enableKeysetConfigProp)) {
             Map<Integer, Keyset> globalKeysets = keysetStoreFactory.getGlobalReader().getSnapshot().getAllKeysets();
             Collection<KeysetKey> globalKeysetKeys = keysetKeyStoreFactory.getGlobalReader().getSnapshot().getAllKeysetKeys();
@@ -175,11 +231,17 @@ public class PrivateSiteDataSyncJob extends Job {
                     fileManager,
                     keysetKeyStoreFactory,
                     MultiScopeStoreWriter::areCollectionsEqual);
-            SiteKeysetSyncJob keysetSyncJob = new SiteKeysetSyncJob(keysetWriter, globalOperators, globalKeysets);
-            KeysetKeySyncJob keysetKeySyncJob = new KeysetKeySyncJob(globalOperators, globalKeysetKeys, globalKeysets, globalMaxKeysetKeyId, keysetKeyWriter);
+            SiteKeysetSyncJob keysetSyncJob = new SiteKeysetSyncJob(keysetWriter, topology, globalKeysets);
+            KeysetKeySyncJob keysetKeySyncJob = new KeysetKeySyncJob(topology, globalKeysetKeys, globalKeysets, globalMaxKeysetKeyId, keysetKeyWriter);
 
-            keysetSyncJob.execute();
-            keysetKeySyncJob.execute();
+            executeTimed("keysets", keysetSyncJob, clock);
+            executeTimed("keyset_keys", keysetKeySyncJob, clock);
         }
     }
+
+    private void executeTimed(String dataType, Job job, Clock clock) throws Exception {
+        long startMs = clock.getEpochMillis();
+        job.execute();
+        durationsMs.put(dataType, clock.getEpochMillis() - startMs);
+    }
 }
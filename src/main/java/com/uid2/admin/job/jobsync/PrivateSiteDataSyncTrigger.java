@@ -0,0 +1,103 @@
+package com.uid2.admin.job.jobsync;
+
+import com.uid2.admin.job.JobDispatcher;
+import com.uid2.admin.job.model.Job;
+import com.uid2.admin.store.event.StoreChangeEvent;
+import com.uid2.admin.store.event.StoreChangeListener;
+import com.uid2.admin.vertx.WriteLock;
+import com.uid2.shared.cloud.ICloudStorage;
+import com.uid2.shared.model.SiteUtil;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * Schedules private site data syncs when global stores are written.
+ * Sites and operators are only distributed to their own site, so changes to them are synced for the affected
+ * sites only. Every other data type can be shared across sites (key ACLs, reader roles, keyset allowed sites),
+ * so changes to them schedule a full sync.
+ */
+public class PrivateSiteDataSyncTrigger implements StoreChangeListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrivateSiteDataSyncTrigger.class);
+    private static final Set<String> SITE_LOCAL_DATA_TYPES = Set.of("sites", "operators");
+
+    private final JsonObject config;
+    private final WriteLock writeLock;
+    private final ICloudStorage cloudStorage;
+    private final JobDispatcher jobDispatcher;
+    private final Set<Integer> pendingSiteIds = new HashSet<>();
+
+    public PrivateSiteDataSyncTrigger(JsonObject config, WriteLock writeLock, ICloudStorage cloudStorage, JobDispatcher jobDispatcher) {
+        this.config = config;
+        this.writeLock = writeLock;
+        this.cloudStorage = cloudStorage;
+        this.jobDispatcher = jobDispatcher;
+    }
+
+    @Override
+    public void onStoreChange(StoreChangeEvent event) {
+        if (event.hasKnownSiteIds() && event.getSiteIds().isEmpty()) {
+            LOGGER.debug("No site changed in {}, skipping private site data sync", event.getDataType());
+            return;
+        }
+
+        if (isSiteLocalChange(event)) {
+            LOGGER.info("Scheduling private site data sync for sites {} after {} change", event.getSiteIds(), event.getDataType());
+            synchronized (pendingSiteIds) {
+                pendingSiteIds.addAll(event.getSiteIds());
+            }
+            jobDispatcher.enqueue(new PendingSitesSyncJob());
+        } else {
+            LOGGER.info("Scheduling full private site data sync after {} change", event.getDataType());
+            jobDispatcher.enqueue(new PrivateSiteDataSyncJob(config, writeLock, cloudStorage));
+        }
+        jobDispatcher.scheduleNextJob();
+    }
+
+    private static boolean isSiteLocalChange(StoreChangeEvent event) {
+        return SITE_LOCAL_DATA_TYPES.contains(event.getDataType())
+                && event.hasKnownSiteIds()
+                && event.getSiteIds().stream().allMatch(SiteUtil::isValidSiteId);
+    }
+
+    private Set<Integer> drainPendingSiteIds() {
+        synchronized (pendingSiteIds) {
+            Set<Integer> siteIds = new HashSet<>(pendingSiteIds);
+            pendingSiteIds.clear();
+            return siteIds;
+        }
+    }
+
+    private void restorePendingSiteIds(Set<Integer> siteIds) {
+        synchronized (pendingSiteIds) {
+            pendingSiteIds.addAll(siteIds);
+        }
+    }
+
+    // Picks up whichever sites are pending when it runs, so all enqueues coalesce into the same job id
+    private class PendingSitesSyncJob extends Job {
+        @Override
+        public String getId() {
+            return "global-to-site-scope-sync-private-site-data-pending-sites";
+        }
+
+        @Override
+        public void execute() throws Exception {
+            Set<Integer> siteIds = drainPendingSiteIds();
+            if (siteIds.isEmpty()) {
+                return;
+            }
+
+            try {
+                new PrivateSiteDataSyncJob(config, writeLock, cloudStorage, siteIds).execute();
+            } catch (Exception e) {
+                // keep the sites pending so that a retry or the next enqueue picks them up again
+                restorePendingSiteIds(siteIds);
+                throw e;
+            }
+        }
+    }
+}
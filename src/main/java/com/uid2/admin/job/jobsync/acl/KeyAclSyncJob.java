@@ -1,6 +1,7 @@
 package com.uid2.admin.job.jobsync.acl;
 
 import com.uid2.admin.job.model.Job;
+import com.uid2.admin.model.PrivateSiteTopology;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.MultiScopeStoreWriter;
 import com.uid2.admin.util.PrivateSiteUtil;
@@ -12,7 +13,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class KeyAclSyncJob extends Job {
-    private final Collection<OperatorKey> globalOperators;
+    private final PrivateSiteTopology topology;
     private final Map<Integer, EncryptionKeyAcl> globalAcls;
     private final MultiScopeStoreWriter<Map<Integer, EncryptionKeyAcl>> multiScopeStoreWriter;
 
@@ -20,7 +21,14 @@ public class KeyAclSyncJob extends Job {
             MultiScopeStoreWriter<Map<Integer, EncryptionKeyAcl>> multiScopeStoreWriter,
             Collection<OperatorKey> globalOperators,
             Map<Integer, EncryptionKeyAcl> globalAcls) {
-        this.globalOperators = globalOperators;
+        this(multiScopeStoreWriter, PrivateSiteTopology.fromOperators(globalOperators), globalAcls);
+    }
+
+    public KeyAclSyncJob(
+            MultiScopeStoreWriter<Map<Integer, EncryptionKeyAcl>> multiScopeStoreWriter,
+            PrivateSiteTopology topology,
+            Map<Integer, EncryptionKeyAcl> globalAcls) {
+        this.topology = topology;
         this.globalAcls = globalAcls;
         this.multiScopeStoreWriter = multiScopeStoreWriter;
     }
@@ -33,7 +41,7 @@ public class KeyAclSyncJob extends Job {
     @Override
     public void execute() throws Exception {
         HashMap<Integer, Map<Integer, EncryptionKeyAcl>> desiredState = PrivateSiteUtil.getEncryptionKeyAclsForEachSite(
-                globalOperators,
+                topology,
                 globalAcls);
         multiScopeStoreWriter.uploadIfChanged(desiredState, null);
     }
@@ -3,6 +3,7 @@ package com.uid2.admin.job.jobsync.client;
 import com.uid2.admin.job.model.Job;
 import com.uid2.admin.legacy.LegacyClientKey;
 import com.uid2.admin.model.PrivateSiteDataMap;
+import com.uid2.admin.model.PrivateSiteTopology;
 import com.uid2.admin.store.MultiScopeStoreWriter;
 import com.uid2.admin.util.PrivateSiteUtil;
 import com.uid2.shared.auth.OperatorKey;
@@ -10,7 +11,7 @@ import com.uid2.shared.auth.OperatorKey;
 import java.util.Collection;
 
 public class ClientKeySyncJob extends Job {
-    private final Collection<OperatorKey> globalOperators;
+    private final PrivateSiteTopology topology;
     private final Collection<LegacyClientKey> globalClientKeys;
     private final MultiScopeStoreWriter<Collection<LegacyClientKey>> multiScopeStoreWriter;
 
@@ -18,8 +19,15 @@ public class ClientKeySyncJob extends Job {
             MultiScopeStoreWriter<Collection<LegacyClientKey>> multiScopeStoreWriter,
             Collection<LegacyClientKey> globalClientKeys,
             Collection<OperatorKey> globalOperators) {
+        this(multiScopeStoreWriter, globalClientKeys, PrivateSiteTopology.fromOperators(globalOperators));
+    }
+
+    public ClientKeySyncJob(
+            MultiScopeStoreWriter<Collection<LegacyClientKey>> multiScopeStoreWriter,
+            Collection<LegacyClientKey> globalClientKeys,
+            PrivateSiteTopology topology) {
         this.globalClientKeys = globalClientKeys;
-        this.globalOperators = globalOperators;
+        this.topology = topology;
         this.multiScopeStoreWriter = multiScopeStoreWriter;
     }
 
@@ -30,7 +38,7 @@ public class ClientKeySyncJob extends Job {
 
     @Override
     public void execute() throws Exception {
-        PrivateSiteDataMap<LegacyClientKey> desiredState = PrivateSiteUtil.getClientKeys(globalOperators, globalClientKeys);
+        PrivateSiteDataMap<LegacyClientKey> desiredState = PrivateSiteUtil.getClientKeys(topology, globalClientKeys);
         multiScopeStoreWriter.uploadIfChanged(desiredState, null);
     }
 }
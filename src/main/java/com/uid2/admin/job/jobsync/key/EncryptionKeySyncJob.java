@@ -3,6 +3,7 @@ package com.uid2.admin.job.jobsync.key;
 import com.uid2.admin.job.model.Job;
 import com.uid2.admin.legacy.LegacyClientKey;
 import com.uid2.admin.model.PrivateSiteDataMap;
+import com.uid2.admin.model.PrivateSiteTopology;
 import com.uid2.admin.store.MultiScopeStoreWriter;
 import com.uid2.admin.store.writer.EncryptionKeyStoreWriter;
 import com.uid2.admin.util.PrivateSiteUtil;
@@ -14,7 +15,7 @@ import java.util.Collection;
 import java.util.Map;
 
 public class EncryptionKeySyncJob extends Job {
-    private final Collection<OperatorKey> globalOperators;
+    private final PrivateSiteTopology topology;
     private final Collection<EncryptionKey> globalEncryptionKeys;
     private final Collection<LegacyClientKey> globalClientKeys;
     private final Map<Integer, EncryptionKeyAcl> globalAcls;
@@ -29,9 +30,19 @@ public class EncryptionKeySyncJob extends Job {
             Map<Integer, EncryptionKeyAcl> globalAcls,
             Integer globalMaxKeyId,
             MultiScopeStoreWriter<Collection<EncryptionKey>> multiScopeStoreWriter) {
+        this(globalEncryptionKeys, globalClientKeys, PrivateSiteTopology.fromOperators(globalOperators), globalAcls, globalMaxKeyId, multiScopeStoreWriter);
+    }
+
+    public EncryptionKeySyncJob(
+            Collection<EncryptionKey> globalEncryptionKeys,
+            Collection<LegacyClientKey> globalClientKeys,
+            PrivateSiteTopology topology,
+            Map<Integer, EncryptionKeyAcl> globalAcls,
+            Integer globalMaxKeyId,
+            MultiScopeStoreWriter<Collection<EncryptionKey>> multiScopeStoreWriter) {
         this.globalEncryptionKeys = globalEncryptionKeys;
         this.globalClientKeys = globalClientKeys;
-        this.globalOperators = globalOperators;
+        this.topology = topology;
         this.globalAcls = globalAcls;
         this.globalMaxKeyId = globalMaxKeyId;
         this.multiScopeStoreWriter = multiScopeStoreWriter;
@@ -44,7 +55,7 @@ public class EncryptionKeySyncJob extends Job {
 
     @Override
     public void execute() throws Exception {
-        PrivateSiteDataMap<EncryptionKey> desiredState = PrivateSiteUtil.getEncryptionKeys(globalOperators, globalEncryptionKeys, globalAcls, globalClientKeys);
+        PrivateSiteDataMap<EncryptionKey> desiredState = PrivateSiteUtil.getEncryptionKeys(topology, globalEncryptionKeys, globalAcls, globalClientKeys);
         multiScopeStoreWriter.uploadIfChanged(desiredState, EncryptionKeyStoreWriter.maxKeyMeta(globalMaxKeyId));
     }
 }
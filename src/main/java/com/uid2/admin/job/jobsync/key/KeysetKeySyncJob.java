@@ -2,6 +2,7 @@ package com.uid2.admin.job.jobsync.key;
 
 import com.uid2.admin.job.model.Job;
 import com.uid2.admin.model.PrivateSiteDataMap;
+import com.uid2.admin.model.PrivateSiteTopology;
 import com.uid2.admin.store.MultiScopeStoreWriter;
 import com.uid2.admin.store.writer.KeysetKeyStoreWriter;
 import com.uid2.admin.store.writer.KeysetStoreWriter;
@@ -14,7 +15,7 @@ import java.util.Collection;
 import java.util.Map;
 
 public class KeysetKeySyncJob extends Job {
-    private final Collection<OperatorKey> globalOperators;
+    private final PrivateSiteTopology topology;
     private final Collection<KeysetKey> globalKeysetKeys;
     private final Map<Integer, Keyset> globalKeysets;
     private final Integer globalMaxKeyId;
@@ -26,7 +27,15 @@ public class KeysetKeySyncJob extends Job {
                             Map<Integer, Keyset> globalKeysets,
                             Integer globalMaxKeyId,
                             MultiScopeStoreWriter<Collection<KeysetKey>> multiScopeStoreWriter) {
-        this.globalOperators = globalOperators;
+        this(PrivateSiteTopology.fromOperators(globalOperators), globalKeysetKeys, globalKeysets, globalMaxKeyId, multiScopeStoreWriter);
+    }
+
+    public KeysetKeySyncJob(PrivateSiteTopology topology,
+                            Collection<KeysetKey> globalKeysetKeys,
+                            Map<Integer, Keyset> globalKeysets,
+                            Integer globalMaxKeyId,
+                            MultiScopeStoreWriter<Collection<KeysetKey>> multiScopeStoreWriter) {
+        this.topology = topology;
         this.globalKeysetKeys = globalKeysetKeys;
         this.globalKeysets = globalKeysets;
         this.globalMaxKeyId = globalMaxKeyId;
@@ -40,7 +49,7 @@ public class KeysetKeySyncJob extends Job {
 
     @Override
     public void execute() throws Exception {
-        PrivateSiteDataMap<KeysetKey> desiredState = PrivateSiteUtil.getKeysetKeys(globalOperators, globalKeysetKeys, globalKeysets);
+        PrivateSiteDataMap<KeysetKey> desiredState = PrivateSiteUtil.getKeysetKeys(topology, globalKeysetKeys, globalKeysets);
         multiScopeStoreWriter.uploadIfChanged(desiredState, KeysetKeyStoreWriter.maxKeyMeta(globalMaxKeyId));
     }
 }
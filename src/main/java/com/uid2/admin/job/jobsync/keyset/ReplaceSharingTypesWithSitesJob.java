@@ -4,7 +4,6 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import com.uid2.admin.AdminConst;
 import com.uid2.admin.auth.AdminKeyset;
 import com.uid2.admin.job.model.Job;
-import com.uid2.admin.managers.KeysetManager;
 import com.uid2.admin.store.*;
 import com.uid2.admin.store.factory.AdminKeysetStoreFactory;
 import com.uid2.admin.store.factory.KeysetStoreFactory;
@@ -13,11 +12,11 @@ import com.uid2.admin.store.version.EpochVersionGenerator;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.admin.store.writer.KeysetStoreWriter;
 import com.uid2.admin.store.writer.StoreWriter;
+import com.uid2.admin.util.SortedIntSet;
 import com.uid2.admin.vertx.JsonUtil;
 import com.uid2.admin.vertx.WriteLock;
 import com.uid2.shared.Const;
 import com.uid2.shared.auth.Keyset;
-import com.uid2.shared.cloud.CloudUtils;
 import com.uid2.shared.cloud.ICloudStorage;
 import com.uid2.shared.model.ClientType;
 import com.uid2.shared.model.Site;
@@ -27,14 +26,25 @@ import com.uid2.shared.store.reader.RotatingSiteStore;
 import io.vertx.core.json.JsonObject;
 import com.uid2.admin.store.reader.RotatingAdminKeysetStore;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
+/*
+ * Publishes the operators' keysets, where the admin keysets' allowed types are replaced by the sites of those types.
+ * Keysets that come out the same as the published ones are kept as they are, and nothing is uploaded when none changed.
+ */
 public class ReplaceSharingTypesWithSitesJob extends Job {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplaceSharingTypesWithSitesJob.class);
+
     public final JsonObject config;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final boolean enableKeysets;
 
     private final RotatingAdminKeysetStore adminKeysetGlobalReader;
@@ -42,13 +52,13 @@ public class ReplaceSharingTypesWithSitesJob extends Job {
     private final StoreWriter keysetGlobalWriter;
     private final RotatingSiteStore siteGlobalReader;
 
-    public ReplaceSharingTypesWithSitesJob(JsonObject config, WriteLock writeLock) {
+    public ReplaceSharingTypesWithSitesJob(JsonObject config, WriteLock writeLock, ICloudStorage cloudStorage) {
 
         this.config = config;
         this.writeLock = writeLock;
+        this.storeLoader = new StoreLoader();
         this.enableKeysets = config.getBoolean(AdminConst.enableKeysetConfigProp);
 
-        ICloudStorage cloudStorage = CloudUtils.createStorage(config.getString(Const.Config.CoreS3BucketProp), config);
         FileStorage fileStorage = new TmpFileStorage();
         ObjectWriter jsonWriter = JsonUtil.createJsonWriter();
         Clock clock = new InstantClock();
@@ -86,13 +96,14 @@ public class ReplaceSharingTypesWithSitesJob extends Job {
         this.siteGlobalReader = siteStoreFactory.getGlobalReader();
     }
 
-    public ReplaceSharingTypesWithSitesJob(JsonObject config, WriteLock writeLock,
+    public ReplaceSharingTypesWithSitesJob(JsonObject config, WriteLock writeLock, StoreLoader storeLoader,
                                            RotatingAdminKeysetStore adminKeysetGlobalReader,
                                            RotatingKeysetProvider keysetGlobalReader,
                                            KeysetStoreWriter keysetGlobalWriter,
                                            RotatingSiteStore siteGlobalReader) {
         this.config = config;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.enableKeysets = config.getBoolean(AdminConst.enableKeysetConfigProp);
         this.adminKeysetGlobalReader = adminKeysetGlobalReader;
         this.keysetGlobalReader = keysetGlobalReader;
@@ -108,9 +119,9 @@ public class ReplaceSharingTypesWithSitesJob extends Job {
     public void execute() throws Exception {
         if(!enableKeysets) return;
         synchronized (writeLock) {
-            this.adminKeysetGlobalReader.loadContent();
-            this.keysetGlobalReader.loadContent();
-            this.siteGlobalReader.loadContent();
+            storeLoader.loadIfChanged(this.adminKeysetGlobalReader);
+            storeLoader.loadIfChanged(this.keysetGlobalReader);
+            storeLoader.loadIfChanged(this.siteGlobalReader);
         }
 
         Map<Integer, AdminKeyset> allAdminKeysets = this.adminKeysetGlobalReader.getAll();
@@ -127,13 +138,100 @@ public class ReplaceSharingTypesWithSitesJob extends Job {
             }
         }
 
+        // the keysets currently published, a keyset that would come out the same is reused as it is
+        Map<Integer, Keyset> publishedKeysets = this.keysetGlobalReader.getAll();
+        Map<Set<ClientType>, SortedIntSet> siteIdsByAllowedTypes = new HashMap<>();
         Map<Integer, Keyset> keysetMap = new HashMap<>();
+        int changedKeysets = 0;
 
         for (AdminKeyset adminKeyset : allAdminKeysets.values()) {
-            Keyset keyset = KeysetManager.adminKeysetToKeyset(adminKeyset, siteIdsByClientType);
+            SortedIntSet typeSiteIds = siteIdsByAllowedTypes.computeIfAbsent(adminKeyset.getAllowedTypes(),
+                    types -> siteIdsOfTypes(types, siteIdsByClientType));
+            Keyset published = publishedKeysets.get(adminKeyset.getKeysetId());
+            Keyset keyset;
+            if (published != null && isExpandedTo(adminKeyset, typeSiteIds, published)) {
+                keyset = published;
+            } else {
+                keyset = expand(adminKeyset, typeSiteIds);
+                changedKeysets++;
+            }
             keysetMap.put(keyset.getKeysetId(), keyset);
         }
 
+        if (changedKeysets == 0 && keysetMap.size() == publishedKeysets.size()) {
+            LOGGER.info("Keysets unchanged, skipping upload of {} keysets", keysetMap.size());
+            return;
+        }
+        LOGGER.info("Uploading keysets, {} of {} changed", changedKeysets, keysetMap.size());
         this.keysetGlobalWriter.upload(keysetMap, null);
     }
+
+    // shared by every keyset with the same allowed types
+    private static SortedIntSet siteIdsOfTypes(Set<ClientType> types, Map<ClientType, Set<Integer>> siteIdsByClientType) {
+        int size = 0;
+        for (ClientType type : types) {
+            size += siteIdsByClientType.get(type).size();
+        }
+        int[] siteIds = new int[size];
+        int length = 0;
+        for (ClientType type : types) {
+            for (int siteId : siteIdsByClientType.get(type)) {
+                siteIds[length++] = siteId;
+            }
+        }
+        return SortedIntSet.of(siteIds, length);
+    }
+
+    // the same keyset as KeysetManager.adminKeysetToKeyset, with sets that are not copied when nothing is added to them
+    private static Keyset expand(AdminKeyset adminKeyset, SortedIntSet typeSiteIds) {
+        Set<Integer> allowedSites = adminKeyset.getAllowedSites();
+        if (allowedSites == null) {
+            return adminKeyset.getKeyset();
+        }
+
+        Set<Integer> expanded;
+        if (allowedSites.isEmpty()) {
+            expanded = typeSiteIds;
+        } else {
+            int[] siteIds = new int[allowedSites.size() + typeSiteIds.size()];
+            int length = 0;
+            for (int siteId : allowedSites) {
+                siteIds[length++] = siteId;
+            }
+            for (int siteId : typeSiteIds) {
+                siteIds[length++] = siteId;
+            }
+            expanded = SortedIntSet.of(siteIds, length);
+        }
+        return new Keyset(adminKeyset.getKeysetId(), adminKeyset.getSiteId(), adminKeyset.getName(), expanded,
+                adminKeyset.getCreated(), adminKeyset.isEnabled(), adminKeyset.isDefault());
+    }
+
+    // whether expand would give a keyset equal to published, without building it
+    private static boolean isExpandedTo(AdminKeyset adminKeyset, SortedIntSet typeSiteIds, Keyset published) {
+        if (published.getSiteId() != adminKeyset.getSiteId()
+                || !Objects.equals(published.getName(), adminKeyset.getName())
+                || published.getCreated() != adminKeyset.getCreated()
+                || published.isEnabled() != adminKeyset.isEnabled()
+                || published.isDefault() != adminKeyset.isDefault()) {
+            return false;
+        }
+
+        Set<Integer> allowedSites = adminKeyset.getAllowedSites();
+        Set<Integer> publishedSites = published.getAllowedSites();
+        if (allowedSites == null || publishedSites == null) {
+            return allowedSites == publishedSites;
+        }
+        // the expanded sites are the type sites plus the allowed sites of no such type
+        int expandedSize = typeSiteIds.size();
+        for (int siteId : allowedSites) {
+            if (!typeSiteIds.containsInt(siteId)) {
+                if (!publishedSites.contains(siteId)) {
+                    return false;
+                }
+                expandedSize++;
+            }
+        }
+        return publishedSites.size() == expandedSize && publishedSites.containsAll(typeSiteIds);
+    }
 }
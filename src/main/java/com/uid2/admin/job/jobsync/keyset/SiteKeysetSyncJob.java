@@ -1,6 +1,7 @@
 package com.uid2.admin.job.jobsync.keyset;
 
 import com.uid2.admin.job.model.Job;
+import com.uid2.admin.model.PrivateSiteTopology;
 import com.uid2.admin.store.MultiScopeStoreWriter;
 import com.uid2.admin.util.PrivateSiteUtil;
 import com.uid2.shared.auth.Keyset;
@@ -11,7 +12,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class SiteKeysetSyncJob extends Job {
-    private final Collection<OperatorKey> globalOperators;
+    private final PrivateSiteTopology topology;
     private final Map<Integer, Keyset> globalKeysets;
     private final MultiScopeStoreWriter<Map<Integer, Keyset>> multiScopeStoreWriter;
 
@@ -19,7 +20,14 @@ public class SiteKeysetSyncJob extends Job {
             MultiScopeStoreWriter<Map<Integer, Keyset>> multiScopeStoreWriter,
             Collection<OperatorKey> globalOperators,
             Map<Integer, Keyset> globalKeysets) {
-        this.globalOperators = globalOperators;
+        this(multiScopeStoreWriter, PrivateSiteTopology.fromOperators(globalOperators), globalKeysets);
+    }
+
+    public SiteKeysetSyncJob(
+            MultiScopeStoreWriter<Map<Integer, Keyset>> multiScopeStoreWriter,
+            PrivateSiteTopology topology,
+            Map<Integer, Keyset> globalKeysets) {
+        this.topology = topology;
         this.globalKeysets = globalKeysets;
         this.multiScopeStoreWriter = multiScopeStoreWriter;
     }
@@ -31,7 +39,7 @@ public class SiteKeysetSyncJob extends Job {
 
     @Override
     public void execute() throws Exception {
-        HashMap<Integer, Map<Integer, Keyset>> desiredState = PrivateSiteUtil.getKeysetForEachSite(globalOperators, globalKeysets);
+        HashMap<Integer, Map<Integer, Keyset>> desiredState = PrivateSiteUtil.getKeysetForEachSite(topology, globalKeysets);
         multiScopeStoreWriter.uploadIfChanged(desiredState, null);
     }
 }
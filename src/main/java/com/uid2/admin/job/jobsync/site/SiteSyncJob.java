@@ -2,6 +2,7 @@ package com.uid2.admin.job.jobsync.site;
 
 import com.uid2.admin.job.model.Job;
 import com.uid2.admin.model.PrivateSiteDataMap;
+import com.uid2.admin.model.PrivateSiteTopology;
 import com.uid2.admin.store.MultiScopeStoreWriter;
 import com.uid2.admin.util.PrivateSiteUtil;
 import com.uid2.shared.auth.OperatorKey;
@@ -10,15 +11,21 @@ import com.uid2.shared.model.Site;
 import java.util.Collection;
 
 public class SiteSyncJob extends Job {
-    private final Collection<OperatorKey> globalOperators;
+    private final PrivateSiteTopology topology;
     private final Collection<Site> globalSites;
     private final MultiScopeStoreWriter<Collection<Site>> multiScopeStoreWriter;
 
     public SiteSyncJob(
             MultiScopeStoreWriter<Collection<Site>> multiScopeStoreWriter, Collection<Site> globalSites,
             Collection<OperatorKey> globalOperators) {
+        this(multiScopeStoreWriter, globalSites, PrivateSiteTopology.fromOperators(globalOperators));
+    }
+
+    public SiteSyncJob(
+            MultiScopeStoreWriter<Collection<Site>> multiScopeStoreWriter, Collection<Site> globalSites,
+            PrivateSiteTopology topology) {
         this.globalSites = globalSites;
-        this.globalOperators = globalOperators;
+        this.topology = topology;
         this.multiScopeStoreWriter = multiScopeStoreWriter;
     }
 
@@ -29,7 +36,7 @@ public class SiteSyncJob extends Job {
 
     @Override
     public void execute() throws Exception {
-        PrivateSiteDataMap<Site> desiredState = PrivateSiteUtil.getSites(globalSites, globalOperators);
+        PrivateSiteDataMap<Site> desiredState = PrivateSiteUtil.getSites(globalSites, topology);
         multiScopeStoreWriter.uploadIfChanged(desiredState, null);
     }
 }
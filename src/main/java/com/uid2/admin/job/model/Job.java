@@ -1,10 +1,13 @@
 package com.uid2.admin.job.model;
 
 import java.time.Instant;
+import java.util.Map;
 
 public abstract class Job {
     private Instant addedToQueueAt;
     private Instant startedExecutingAt;
+    private Instant finishedExecutingAt;
+    private boolean succeeded;
 
     public Instant getAddedToQueueAt() {
         return addedToQueueAt;
@@ -22,6 +25,27 @@ public abstract class Job {
         this.startedExecutingAt = startedExecutingAt;
     }
 
+    public Instant getFinishedExecutingAt() {
+        return finishedExecutingAt;
+    }
+
+    public void setFinishedExecutingAt(Instant finishedExecutingAt) {
+        this.finishedExecutingAt = finishedExecutingAt;
+    }
+
+    public boolean isSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(boolean succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    // milliseconds spent in each step of the last execution, empty for jobs that don't time their steps
+    public Map<String, Long> getDurationsMs() {
+        return Map.of();
+    }
+
     abstract public String getId();
     abstract public void execute() throws Exception;
 }
@@ -1,6 +1,7 @@
 package com.uid2.admin.job.model;
 
 import java.time.Instant;
+import java.util.Map;
 import java.util.Objects;
 
 public class JobInfo {
@@ -8,12 +9,18 @@ public class JobInfo {
     private final boolean executing;
     private final Instant addedToQueueAt;
     private final Instant startedExecutingAt;
+    private final Instant finishedExecutingAt;
+    private final boolean succeeded;
+    private final Map<String, Long> durationsMs;
 
     public JobInfo(Job job, boolean executing) {
         this.id = job.getId();
         this.executing = executing;
         this.addedToQueueAt = job.getAddedToQueueAt();
         this.startedExecutingAt = job.getStartedExecutingAt();
+        this.finishedExecutingAt = job.getFinishedExecutingAt();
+        this.succeeded = job.isSucceeded();
+        this.durationsMs = job.getDurationsMs();
     }
 
     public String getId() {
@@ -32,6 +39,18 @@ public class JobInfo {
         return startedExecutingAt;
     }
 
+    public Instant getFinishedExecutingAt() {
+        return finishedExecutingAt;
+    }
+
+    public boolean isSucceeded() {
+        return succeeded;
+    }
+
+    public Map<String, Long> getDurationsMs() {
+        return durationsMs;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -46,11 +65,14 @@ public class JobInfo {
         return executing == jobInfo.executing
                 && id.equals(jobInfo.id)
                 && Objects.equals(addedToQueueAt, jobInfo.addedToQueueAt)
-                && Objects.equals(startedExecutingAt, jobInfo.startedExecutingAt);
+                && Objects.equals(startedExecutingAt, jobInfo.startedExecutingAt)
+                && Objects.equals(finishedExecutingAt, jobInfo.finishedExecutingAt)
+                && succeeded == jobInfo.succeeded
+                && durationsMs.equals(jobInfo.durationsMs);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, executing, addedToQueueAt, startedExecutingAt);
+        return Objects.hash(id, executing, addedToQueueAt, startedExecutingAt, finishedExecutingAt, succeeded, durationsMs);
     }
 }
@@ -7,6 +7,8 @@ import java.util.Collection;
 public interface ILegacyClientKeyProvider extends IAuthorizableProvider {
     LegacyClientKey getClientKey(String key);
     LegacyClientKey getClientKeyFromHash(String hash);
+    LegacyClientKey getClientKeyByName(String name);
+    LegacyClientKey getClientKeyByKeyId(String keyId);
     Collection<LegacyClientKey> getAll();
     LegacyClientKey getOldestClientKey(int siteId);
 }
@@ -6,28 +6,52 @@ import com.uid2.admin.legacy.RotatingLegacyClientKeyProvider;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
 import com.uid2.admin.store.FileName;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.SiteChangeTracker;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.admin.store.writer.ScopedStoreWriter;
 import com.uid2.admin.store.writer.StoreWriter;
 import com.uid2.shared.store.scope.StoreScope;
 import io.vertx.core.json.JsonObject;
 
-import java.util.Collection;
+import java.util.*;
 
 public class LegacyClientKeyStoreWriter implements StoreWriter<Collection<LegacyClientKey>> {
     private final ScopedStoreWriter writer;
     private final ObjectWriter jsonWriter;
+    private final SiteChangeTracker<LegacyClientKey> changeTracker = new SiteChangeTracker<>(LegacyClientKey::getSiteId);
 
     public LegacyClientKeyStoreWriter(RotatingLegacyClientKeyProvider provider, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope) {
+        this(provider, fileManager, jsonWriter, versionGenerator, clock, scope, new StoreChangePublisher(), new StoreLoader());
+    }
+
+    public LegacyClientKeyStoreWriter(RotatingLegacyClientKeyProvider provider, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope, StoreChangePublisher changePublisher, StoreLoader storeLoader) {
         this.jsonWriter = jsonWriter;
         FileName dataFile = new FileName("clients", ".json");
         String dataType = "client_keys";
-        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, scope, dataFile, dataType);
+        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, scope, dataFile, dataType, changePublisher, storeLoader);
     }
 
     @Override
     public void upload(Collection<LegacyClientKey> data, JsonObject extraMeta) throws Exception {
-        writer.upload(jsonWriter.writeValueAsString(data), extraMeta);
+        Map<Integer, Integer> digests = changeTracker.digest(data);
+        writer.upload(serialize(data), extraMeta, changeTracker.getChangedSiteIds(digests));
+        changeTracker.commit(digests);
+    }
+
+    @Override
+    public boolean uploadIfChanged(Collection<LegacyClientKey> data, JsonObject extraMeta, String currentContentDigest) throws Exception {
+        return writer.uploadIfChanged(serialize(data), extraMeta, currentContentDigest);
+    }
+
+    // sorted so that the same client keys always serialize to the same content
+    private String serialize(Collection<LegacyClientKey> data) throws Exception {
+        return writer.serialize(() -> {
+            List<LegacyClientKey> sorted = new ArrayList<>(data);
+            sorted.sort(Comparator.comparing(LegacyClientKey::getKeyHash, Comparator.nullsFirst(Comparator.naturalOrder())));
+            return jsonWriter.writeValueAsString(sorted);
+        });
     }
 
     @Override
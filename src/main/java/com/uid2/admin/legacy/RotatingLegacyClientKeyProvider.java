@@ -1,5 +1,6 @@
 package com.uid2.admin.legacy;
 
+import com.uid2.admin.model.NameAndKeyIdIndex;
 import com.uid2.shared.auth.AuthorizableStore;
 import com.uid2.shared.auth.IAuthorizable;
 import com.uid2.shared.cloud.DownloadCloudStorage;
@@ -11,6 +12,7 @@ import io.vertx.core.json.JsonObject;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 
 /*
   1. metadata.json format
@@ -39,6 +41,7 @@ import java.util.Comparator;
 public class RotatingLegacyClientKeyProvider implements ILegacyClientKeyProvider, StoreReader<Collection<LegacyClientKey>> {
     private final ScopedStoreReader<Collection<LegacyClientKey>> reader;
     private final AuthorizableStore<LegacyClientKey> authorizableStore;
+    private volatile NameAndKeyIdIndex<LegacyClientKey> index = buildIndex(List.of());
 
     public RotatingLegacyClientKeyProvider(DownloadCloudStorage fileStreamProvider, StoreScope scope) {
         this.reader = new ScopedStoreReader<>(fileStreamProvider, scope, new LegacyClientParser(), "auth keys");
@@ -59,9 +62,19 @@ public class RotatingLegacyClientKeyProvider implements ILegacyClientKeyProvider
     public long loadContent(JsonObject metadata) throws Exception {
         long version = reader.loadContent(metadata, "client_keys");
         authorizableStore.refresh(getAll());
+        refreshIndex();
         return version;
     }
 
+    // to be called after a key of the current snapshot is changed in place, e.g. renamed
+    public void refreshIndex() {
+        index = buildIndex(getAll());
+    }
+
+    private static NameAndKeyIdIndex<LegacyClientKey> buildIndex(Collection<LegacyClientKey> clientKeys) {
+        return NameAndKeyIdIndex.build(clientKeys, LegacyClientKey::getName, LegacyClientKey::getKeyId);
+    }
+
     @Override
     public LegacyClientKey getClientKey(String key) {
         return authorizableStore.getAuthorizableByKey(key);
@@ -72,6 +85,16 @@ public class RotatingLegacyClientKeyProvider implements ILegacyClientKeyProvider
         return authorizableStore.getAuthorizableByHash(hash);
     }
 
+    @Override
+    public LegacyClientKey getClientKeyByName(String name) {
+        return index.getByName(name);
+    }
+
+    @Override
+    public LegacyClientKey getClientKeyByKeyId(String keyId) {
+        return index.getByKeyId(keyId);
+    }
+
     @Override
     public Collection<LegacyClientKey> getAll() {
         return reader.getSnapshot();
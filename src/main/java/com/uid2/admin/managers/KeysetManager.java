@@ -1,6 +1,7 @@
 package com.uid2.admin.managers;
 
 import com.uid2.admin.secret.IKeysetKeyManager;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.reader.RotatingAdminKeysetStore;
 import com.uid2.admin.store.writer.AdminKeysetWriter;
 import com.uid2.shared.Const;
@@ -8,10 +9,12 @@ import com.uid2.shared.auth.ClientKey;
 import com.uid2.shared.auth.Keyset;
 import com.uid2.shared.auth.Role;
 import com.uid2.admin.auth.AdminKeyset;
+import com.uid2.admin.auth.AdminKeysetSnapshot;
 import com.uid2.shared.model.ClientType;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static java.lang.Math.max;
 
@@ -20,14 +23,16 @@ public class KeysetManager {
     private final RotatingAdminKeysetStore keysetProvider;
     private final AdminKeysetWriter keysetStoreWriter;
     private final IKeysetKeyManager keysetKeyManager;
+    private final StoreLoader storeLoader;
 
     private final boolean enableKeysets;
 
     public KeysetManager(RotatingAdminKeysetStore keysetProvider, AdminKeysetWriter keysetStoreWriter,
-                         IKeysetKeyManager keysetKeyManager, boolean enableKeysets) {
+                         IKeysetKeyManager keysetKeyManager, StoreLoader storeLoader, boolean enableKeysets) {
         this.keysetProvider = keysetProvider;
         this.keysetStoreWriter = keysetStoreWriter;
         this.keysetKeyManager  = keysetKeyManager;
+        this.storeLoader = storeLoader;
         this.enableKeysets = enableKeysets;
     }
 
@@ -37,15 +42,6 @@ public class KeysetManager {
     public static final String FallbackPublisherKeysetName = "Fallback Publisher";
 
 
-    public static AdminKeyset lookUpKeyset(int siteId, Map<Integer, AdminKeyset> keysets) {
-        for (AdminKeyset keyset: keysets.values()) {
-            if(keyset.getSiteId() == siteId && keyset.isDefault()) {
-                return keyset;
-            }
-        }
-        return null;
-    }
-
     public static Integer getMaxKeyset(Map<Integer, AdminKeyset> keysets) {
         // keyset id 1/2/3 are assigned for master/refresh/default publisher encryption key ids,
         // so we always reserve these 3 keyset ids for them
@@ -53,6 +49,11 @@ public class KeysetManager {
         return max(Collections.max(keysets.keySet()), 3);
     }
 
+    public static int getMaxKeyset(AdminKeysetSnapshot keysets) {
+        // same reservation as above, with the max id kept by the snapshot
+        return max(keysets.getMaxKeysetId(), 3);
+    }
+
     public static AdminKeyset createDefaultKeyset(int siteId, int keysetId) {
         String name = "";
 
@@ -113,10 +114,8 @@ public class KeysetManager {
 
     private Optional<AdminKeyset> getAdminKeysetBySiteId(int siteId) {
         return this.keysetProvider.getSnapshot()
-                .getAllKeysets()
-                .values()
+                .getKeysetsBySiteId(siteId)
                 .stream()
-                .filter(keyset -> keyset.getSiteId() == siteId)
                 .findFirst();
     }
 
@@ -130,41 +129,64 @@ public class KeysetManager {
     }
 
     public int getNextKeysetId() {
-        return KeysetManager.getMaxKeyset(this.keysetProvider.getSnapshot().getAllKeysets()) + 1;
+        return KeysetManager.getMaxKeyset(this.keysetProvider.getSnapshot()) + 1;
     }
 
     public AdminKeyset createAndAddDefaultKeyset(Integer siteId) throws Exception{
         if(!enableKeysets) return null;
 
-        this.keysetProvider.loadContent();
+        storeLoader.loadIfChanged(this.keysetProvider);
         int newKeysetId = getNextKeysetId();
         AdminKeyset newKeyset = KeysetManager.createDefaultKeyset(siteId, newKeysetId);
         addOrReplaceKeyset(newKeyset);
         return newKeyset;
     }
 
+    // the default keysets createKeysetForSite would add for each site, for addOrReplaceKeysets to upload;
+    // sites that already have a keyset are skipped
+    public List<AdminKeyset> buildKeysetsForSites(Collection<Integer> siteIds) throws Exception{
+        if(!enableKeysets) return Collections.emptyList();
+
+        storeLoader.loadIfChanged(this.keysetProvider);
+        AdminKeysetSnapshot snapshot = this.keysetProvider.getSnapshot();
+        int newKeysetId = getNextKeysetId();
+        List<AdminKeyset> added = new ArrayList<>();
+        for (int siteId : siteIds) {
+            if (snapshot.getKeysetsBySiteId(siteId).isEmpty()) {
+                added.add(KeysetManager.createDefaultKeyset(siteId, newKeysetId++));
+            }
+        }
+        return added;
+    }
+
     public void addOrReplaceKeyset(AdminKeyset keyset) throws Exception{
         if(!enableKeysets) return;
 
-        Map<Integer, AdminKeyset> collection = this.keysetProvider.getSnapshot().getAllKeysets();
-
-        collection.put(keyset.getKeysetId(), keyset);
-        keysetStoreWriter.upload(collection, null);
+        keysetStoreWriter.upload(this.keysetProvider.getSnapshot().withKeyset(keyset), null);
         this.keysetKeyManager.addKeysetKey(keyset.getKeysetId());
     }
 
+    // as addOrReplaceKeyset for each keyset, with one upload of the keysets and of the keyset keys
+    public void addOrReplaceKeysets(Collection<AdminKeyset> keysets) throws Exception{
+        if(!enableKeysets || keysets.isEmpty()) return;
+
+        keysetStoreWriter.upload(this.keysetProvider.getSnapshot().withKeysets(keysets), null);
+        this.keysetKeyManager.addKeysetKeys(keysets.stream().map(AdminKeyset::getKeysetId).collect(Collectors.toList()));
+    }
+
     public void createAdminKeysets(Map<Integer, Keyset> keysets) throws  Exception{
-        this.keysetProvider.loadContent();
+        storeLoader.loadIfChanged(this.keysetProvider);
 
-        Map<Integer, AdminKeyset> collection = this.keysetProvider.getSnapshot().getAllKeysets();
+        AdminKeysetSnapshot snapshot = this.keysetProvider.getSnapshot();
+        List<AdminKeyset> added = new ArrayList<>();
 
         for (Keyset keyset: keysets.values()) {
-            if(!collection.keySet().contains(keyset.getKeysetId())) {
-                collection.put(keyset.getKeysetId(),  new AdminKeyset(keyset));
+            if(!snapshot.getAllKeysets().containsKey(keyset.getKeysetId())) {
+                added.add(new AdminKeyset(keyset));
                 this.keysetKeyManager.addKeysetKey(keyset.getKeysetId());
             }
         }
 
-        keysetStoreWriter.upload(collection, null);
+        keysetStoreWriter.upload(snapshot.withKeysets(added), null);
     }
 }
@@ -0,0 +1,52 @@
+package com.uid2.admin.model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Name and key id lookups over a snapshot of keys, replacing scans of the whole snapshot.
+ * When several keys share a name or key id the first one in snapshot order is kept, as findFirst() on the
+ * snapshot would return. Immutable once built.
+ */
+public final class NameAndKeyIdIndex<T> {
+    private final Collection<T> snapshot;
+    private final Map<String, T> byName;
+    private final Map<String, T> byKeyId;
+
+    private NameAndKeyIdIndex(Collection<T> snapshot, Map<String, T> byName, Map<String, T> byKeyId) {
+        this.snapshot = snapshot;
+        this.byName = byName;
+        this.byKeyId = byKeyId;
+    }
+
+    public static <T> NameAndKeyIdIndex<T> build(Collection<T> snapshot, Function<T, String> nameOf, Function<T, String> keyIdOf) {
+        final Map<String, T> byName = new HashMap<>(snapshot.size() * 2);
+        final Map<String, T> byKeyId = new HashMap<>(snapshot.size() * 2);
+        for (T key : snapshot) {
+            if (nameOf.apply(key) != null) {
+                byName.putIfAbsent(nameOf.apply(key), key);
+            }
+            if (keyIdOf.apply(key) != null) {
+                byKeyId.putIfAbsent(keyIdOf.apply(key), key);
+            }
+        }
+        return new NameAndKeyIdIndex<>(snapshot, byName, byKeyId);
+    }
+
+    // snapshots are compared by identity, as stores replace them on reload
+    public boolean isBuiltFrom(Collection<T> snapshot) {
+        return this.snapshot == snapshot;
+    }
+
+    // returns null if there is no such key
+    public T getByName(String name) {
+        return byName.get(name);
+    }
+
+    // returns null if there is no such key
+    public T getByKeyId(String keyId) {
+        return byKeyId.get(keyId);
+    }
+}
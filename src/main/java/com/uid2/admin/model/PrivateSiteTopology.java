@@ -0,0 +1,53 @@
+package com.uid2.admin.model;
+
+import com.uid2.shared.auth.OperatorKey;
+import com.uid2.shared.auth.OperatorType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * The private sites (sites with at least 1 private operator) of a set of operators.
+ * Each private site gets a dense index in [0, size()) so that per site data can be kept in arrays or lists.
+ * Built once per sync and shared by every data type, it is immutable.
+ */
+public final class PrivateSiteTopology {
+    // sorted, so the index of a site can be found with a binary search
+    private final int[] siteIds;
+
+    private PrivateSiteTopology(int[] siteIds) {
+        this.siteIds = siteIds;
+    }
+
+    public static PrivateSiteTopology fromOperators(Collection<OperatorKey> operators) {
+        // TODO: Should we check if site is disabled?
+        int[] siteIds = operators.stream()
+                .filter(o -> o.getOperatorType() == OperatorType.PRIVATE)
+                .map(OperatorKey::getSiteId)
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .distinct()
+                .toArray();
+        return new PrivateSiteTopology(siteIds);
+    }
+
+    public int size() {
+        return siteIds.length;
+    }
+
+    public int getSiteId(int index) {
+        return siteIds[index];
+    }
+
+    // returns -1 if the site is not a private site
+    public int indexOf(int siteId) {
+        int index = Arrays.binarySearch(siteIds, siteId);
+        return index >= 0 ? index : -1;
+    }
+
+    public boolean contains(int siteId) {
+        return indexOf(siteId) >= 0;
+    }
+}
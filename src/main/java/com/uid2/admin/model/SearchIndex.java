@@ -0,0 +1,145 @@
+package com.uid2.admin.model;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Substring search over a few string fields of each item of a store snapshot.
+ * Every trigram of every field maps to the sorted positions of the items containing it, so a query is answered
+ * by intersecting the postings of its trigrams and checking only the items left, instead of scanning all of them.
+ * Matches are ranked exact over prefix over infix, then by snapshot order. Immutable once built.
+ */
+public final class SearchIndex<T> {
+    private static final int GRAM = 3;
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int INFIX = 1;
+
+    private final Collection<T> snapshot;
+    private final List<T> items;
+    private final List<String[]> fields;
+    private final Map<String, int[]> postings;
+
+    private SearchIndex(Collection<T> snapshot, List<T> items, List<String[]> fields, Map<String, int[]> postings) {
+        this.snapshot = snapshot;
+        this.items = items;
+        this.fields = fields;
+        this.postings = postings;
+    }
+
+    // fieldsOf returns the searchable values of an item, null values are skipped
+    public static <T> SearchIndex<T> build(Collection<T> snapshot, Function<T, String[]> fieldsOf) {
+        final List<T> items = new ArrayList<>(snapshot);
+        final List<String[]> fields = new ArrayList<>(items.size());
+        final Map<String, List<Integer>> building = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            final String[] values = fieldsOf.apply(items.get(i));
+            fields.add(values);
+            final Set<String> grams = new HashSet<>();
+            for (String value : values) {
+                if (value == null) {
+                    continue;
+                }
+                for (int start = 0; start + GRAM <= value.length(); start++) {
+                    grams.add(value.substring(start, start + GRAM));
+                }
+            }
+            // positions are added in increasing order, so every posting list ends up sorted
+            for (String gram : grams) {
+                building.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+            }
+        }
+
+        final Map<String, int[]> postings = new HashMap<>(building.size() * 2);
+        building.forEach((gram, positions) -> postings.put(gram, positions.stream().mapToInt(Integer::intValue).toArray()));
+        return new SearchIndex<>(snapshot, items, fields, postings);
+    }
+
+    // snapshots are compared by identity, as stores replace them on reload
+    public boolean isBuiltFrom(Collection<T> snapshot) {
+        return this.snapshot == snapshot;
+    }
+
+    // returns at most limit items with a field containing query, best matches first
+    public List<T> search(String query, int limit) {
+        final List<Integer> candidates = candidates(query);
+        final List<int[]> matches = new ArrayList<>();
+        for (int position : candidates) {
+            final int score = score(fields.get(position), query);
+            if (score > 0) {
+                matches.add(new int[]{score, position});
+            }
+        }
+        matches.sort((a, b) -> a[0] != b[0] ? Integer.compare(b[0], a[0]) : Integer.compare(a[1], b[1]));
+
+        final List<T> results = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            results.add(items.get(matches.get(i)[1]));
+        }
+        return results;
+    }
+
+    private List<Integer> candidates(String query) {
+        final List<Integer> candidates = new ArrayList<>();
+        if (query.length() < GRAM) {
+            for (int i = 0; i < items.size(); i++) {
+                candidates.add(i);
+            }
+            return candidates;
+        }
+
+        // intersecting from the rarest trigram keeps the intermediate results small
+        final List<int[]> lists = new ArrayList<>();
+        for (int start = 0; start + GRAM <= query.length(); start++) {
+            final int[] posting = postings.get(query.substring(start, start + GRAM));
+            if (posting == null) {
+                return candidates;
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(l -> l.length));
+
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        for (int position : result) {
+            candidates.add(position);
+        }
+        return candidates;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        final int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int score(String[] values, String query) {
+        int best = 0;
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            if (value.equals(query)) {
+                return EXACT;
+            } else if (value.startsWith(query)) {
+                best = Math.max(best, PREFIX);
+            } else if (value.contains(query)) {
+                best = Math.max(best, INFIX);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,80 @@
+package com.uid2.admin.model;
+
+import com.uid2.admin.legacy.LegacyClientKey;
+import com.uid2.shared.auth.Role;
+import com.uid2.shared.model.Site;
+
+import java.util.*;
+
+/**
+ * The sites of a site store snapshot together with what the site list shows about their clients,
+ * derived once from a pair of site and client key snapshots instead of on every request.
+ * Immutable, so a new instance is swapped in when either snapshot is reloaded.
+ */
+public final class SiteSummaries {
+    private final Collection<Site> siteSnapshot;
+    private final Collection<LegacyClientKey> clientSnapshot;
+    private final List<SiteSummary> byName;
+
+    private SiteSummaries(Collection<Site> siteSnapshot, Collection<LegacyClientKey> clientSnapshot, List<SiteSummary> byName) {
+        this.siteSnapshot = siteSnapshot;
+        this.clientSnapshot = clientSnapshot;
+        this.byName = byName;
+    }
+
+    public static SiteSummaries build(Collection<Site> sites, Collection<LegacyClientKey> clients) {
+        final Map<Integer, Set<Role>> roles = new HashMap<>();
+        final Map<Integer, Integer> clientCounts = new HashMap<>();
+        for (LegacyClientKey client : clients) {
+            if (client.getSiteId() == null) {
+                continue;
+            }
+            roles.computeIfAbsent(client.getSiteId(), id -> EnumSet.noneOf(Role.class)).addAll(client.getRoles());
+            clientCounts.merge(client.getSiteId(), 1, Integer::sum);
+        }
+
+        final List<SiteSummary> summaries = new ArrayList<>(sites.size());
+        for (Site site : sites) {
+            summaries.add(new SiteSummary(
+                    site,
+                    Collections.unmodifiableSet(roles.getOrDefault(site.getId(), EnumSet.noneOf(Role.class))),
+                    clientCounts.getOrDefault(site.getId(), 0)));
+        }
+        summaries.sort(Comparator.comparing(s -> s.getSite().getName()));
+        return new SiteSummaries(sites, clients, Collections.unmodifiableList(summaries));
+    }
+
+    // snapshots are compared by identity, as stores replace them on reload
+    public boolean isBuiltFrom(Collection<Site> sites, Collection<LegacyClientKey> clients) {
+        return siteSnapshot == sites && clientSnapshot == clients;
+    }
+
+    public List<SiteSummary> getByName() {
+        return byName;
+    }
+
+    public static final class SiteSummary {
+        private final Site site;
+        private final Set<Role> roles;
+        private final int clientCount;
+
+        private SiteSummary(Site site, Set<Role> roles, int clientCount) {
+            this.site = site;
+            this.roles = roles;
+            this.clientCount = clientCount;
+        }
+
+        public Site getSite() {
+            return site;
+        }
+
+        // the union of the roles of the site's client keys
+        public Set<Role> getRoles() {
+            return roles;
+        }
+
+        public int getClientCount() {
+            return clientCount;
+        }
+    }
+}
@@ -1,24 +1,43 @@
 package com.uid2.admin.monitoring;
 
+import com.uid2.admin.store.Clock;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.shared.store.reader.IMetadataVersionedStore;
 import io.micrometer.core.instrument.Gauge;
 
 import static io.micrometer.core.instrument.Metrics.globalRegistry;
 
+/*
+ * Version gauges of the data stores, served from the versions their StoreLoader holds.
+ * The loader learns them as the stores are loaded and checked by writers, handlers and the StoreRefresher,
+ * so scrapes read memory only; failures to refresh a store are counted by the StoreRefresher.
+ * A store that holds nothing loaded, e.g. a lazy store not used yet, reports NaN.
+ */
 public final class DataStoreMetrics {
+    private final StoreLoader storeLoader;
+    private final Clock clock;
 
-    public static void addDataStoreMetrics(String dataType, IMetadataVersionedStore dataStore) {
+    public DataStoreMetrics(StoreLoader storeLoader, Clock clock) {
+        this.storeLoader = storeLoader;
+        this.clock = clock;
+    }
+
+    public void addDataStoreMetrics(String dataType, IMetadataVersionedStore dataStore) {
         Gauge
                 .builder("uid2_data_store_version", () -> {
-                    try {
-                        // Warning: this downloads metadata from the underlying remote data store
-                        return dataStore.getVersion(dataStore.getMetadata());
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
+                    final Long version = storeLoader.getLoadedVersion(dataStore);
+                    return version == null ? Double.NaN : version;
+                })
+                .tag("store", dataType)
+                .description("metadata version of the content a data store holds")
+                .register(globalRegistry);
+        Gauge
+                .builder("uid2_data_store_last_refresh_age_seconds", () -> {
+                    final Long checkedAtMs = storeLoader.getCheckedAtMs(dataStore);
+                    return checkedAtMs == null ? Double.NaN : (clock.getEpochMillis() - checkedAtMs) / 1000.0;
                 })
                 .tag("store", dataType)
-                .description("version from metadata of a data store")
+                .description("seconds since a data store was last loaded or found to hold the current version")
                 .register(globalRegistry);
     }
 }
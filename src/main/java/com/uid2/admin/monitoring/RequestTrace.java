@@ -0,0 +1,98 @@
+package com.uid2.admin.monitoring;
+
+import io.micrometer.core.instrument.Timer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.micrometer.core.instrument.Metrics.globalRegistry;
+
+/*
+ * Where the time of an admin request goes.
+ * Sections such as cloud uploads and store reloads are timed with a Micrometer timer tagged by section, data type
+ * and route, and added to the trace of the request running on the current thread, if any.
+ * Outside of a traced request, e.g. in jobs, sections are still timed with route "none".
+ */
+public final class RequestTrace {
+    static final String SECTION_TIMER = "uid2.admin.request.section.duration";
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final String route;
+    // section[data type] -> total nanos, in the order sections first ran
+    private final Map<String, Long> sections = new LinkedHashMap<>();
+
+    RequestTrace(String route) {
+        this.route = route;
+    }
+
+    @FunctionalInterface
+    public interface Section<T> {
+        T call() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface VoidSection {
+        void run() throws Exception;
+    }
+
+    public static <T> T time(String section, String dataType, Section<T> call) throws Exception {
+        final long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            record(section, dataType, System.nanoTime() - start);
+        }
+    }
+
+    public static void time(String section, String dataType, VoidSection run) throws Exception {
+        time(section, dataType, () -> {
+            run.run();
+            return null;
+        });
+    }
+
+    static void record(String section, String dataType, long nanos) {
+        final RequestTrace trace = CURRENT.get();
+        Timer.builder(SECTION_TIMER)
+                .tag("section", section)
+                .tag("data_type", dataType == null ? "none" : dataType)
+                .tag("route", trace == null ? "none" : trace.route)
+                .register(globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (trace != null) {
+            trace.sections.merge(dataType == null ? section : section + "[" + dataType + "]", nanos, Long::sum);
+        }
+    }
+
+    // binds the trace to the current thread while run executes
+    void bind(Runnable run) {
+        final RequestTrace previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            run.run();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    String getRoute() {
+        return route;
+    }
+
+    Map<String, Long> getSections() {
+        return sections;
+    }
+
+    // e.g. "lock_wait=6000ms load_content[client_keys]=1200ms"
+    String describe() {
+        final StringBuilder sb = new StringBuilder();
+        sections.forEach((section, nanos) -> {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(section).append('=').append(TimeUnit.NANOSECONDS.toMillis(nanos)).append("ms");
+        });
+        return sb.toString();
+    }
+}
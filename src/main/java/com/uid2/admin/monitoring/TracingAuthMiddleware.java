@@ -0,0 +1,95 @@
+package com.uid2.admin.monitoring;
+
+import com.uid2.shared.auth.IAuthorizableProvider;
+import com.uid2.shared.middleware.AuthMiddleware;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+import static io.micrometer.core.instrument.Metrics.globalRegistry;
+
+/*
+ * AuthMiddleware that traces every handler it wraps, see RequestTrace.
+ * The time the handler thread spends blocked on monitors, which in admin handlers is waiting for the write lock,
+ * is added as the lock_wait section. Every request, including the ones rejected by auth, is timed by route and
+ * status. The breakdown of a request is logged at debug level, and at warn level once the request took longer
+ * than slowRequestMs.
+ */
+public class TracingAuthMiddleware extends AuthMiddleware {
+    static final String REQUEST_TIMER = "uid2.admin.request.duration";
+    private static final Logger LOGGER = LoggerFactory.getLogger(TracingAuthMiddleware.class);
+
+    private final long slowRequestMs;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    public TracingAuthMiddleware(IAuthorizableProvider authKeyStore, long slowRequestMs) {
+        super(authKeyStore);
+        this.slowRequestMs = slowRequestMs;
+        if (threads.isThreadContentionMonitoringSupported()) {
+            threads.setThreadContentionMonitoringEnabled(true);
+        }
+    }
+
+    @Override
+    @SafeVarargs
+    public final <E> Handler<RoutingContext> handle(Handler<RoutingContext> handler, E... roles) {
+        final Handler<RoutingContext> authorized = super.handle(handler, roles);
+        return rc -> {
+            final RequestTrace trace = new RequestTrace(routeOf(rc));
+            final long start = System.nanoTime();
+            trace.bind(() -> {
+                final long blockedMsBefore = blockedTimeMs();
+                try {
+                    authorized.handle(rc);
+                } finally {
+                    final long blockedMsAfter = blockedTimeMs();
+                    if (blockedMsBefore >= 0 && blockedMsAfter > blockedMsBefore) {
+                        RequestTrace.record("lock_wait", null, TimeUnit.MILLISECONDS.toNanos(blockedMsAfter - blockedMsBefore));
+                    }
+                }
+            });
+
+            final long handlerNanos = System.nanoTime() - start;
+            if (rc.response().ended()) {
+                finish(rc, trace, handlerNanos);
+            } else {
+                // e.g. a streamed response, which ends after the handler returned
+                rc.addBodyEndHandler(v -> finish(rc, trace, System.nanoTime() - start));
+            }
+        };
+    }
+
+    private void finish(RoutingContext rc, RequestTrace trace, long totalNanos) {
+        Timer.builder(REQUEST_TIMER)
+                .tag("route", trace.getRoute())
+                .tag("status", String.valueOf(rc.response().getStatusCode()))
+                .register(globalRegistry)
+                .record(totalNanos, TimeUnit.NANOSECONDS);
+
+        final long totalMs = TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        if (totalMs >= slowRequestMs) {
+            LOGGER.warn("{} {} took {}ms: {}", rc.request().method(), trace.getRoute(), totalMs, trace.describe());
+        } else if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("{} {} took {}ms: {}", rc.request().method(), trace.getRoute(), totalMs, trace.describe());
+        }
+    }
+
+    // cumulative, -1 if contention monitoring is not available
+    private long blockedTimeMs() {
+        final ThreadInfo info = threads.getThreadInfo(Thread.currentThread().getId());
+        return info == null ? -1 : info.getBlockedTime();
+    }
+
+    private static String routeOf(RoutingContext rc) {
+        final Route route = rc.currentRoute();
+        return route != null && route.getPath() != null ? route.getPath() : "unknown";
+    }
+}
@@ -0,0 +1,88 @@
+package com.uid2.admin.monitoring;
+
+import com.uid2.admin.store.Clock;
+import com.uid2.admin.vertx.WriteLock;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static io.micrometer.core.instrument.Metrics.globalRegistry;
+
+/*
+ * Periodically samples the threads blocked entering synchronized (writeLock) blocks.
+ * Every blocked thread holds a worker thread while it waits, so a steady count here is what saturates the pool.
+ * A thread blocked for longer than warnAfterMs is logged once, together with the thread holding the lock.
+ */
+public class WriteLockMonitor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteLockMonitor.class);
+
+    private final WriteLock writeLock;
+    private final Clock clock;
+    private final long warnAfterMs;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    // thread id -> when it was first seen blocked on the lock
+    private final Map<Long, Long> blockedSince = new HashMap<>();
+    private final Set<Long> warned = new HashSet<>();
+
+    private volatile int blockedThreads;
+    private volatile long longestWaitMs;
+
+    public WriteLockMonitor(WriteLock writeLock, Clock clock, long warnAfterMs) {
+        this.writeLock = writeLock;
+        this.clock = clock;
+        this.warnAfterMs = warnAfterMs;
+
+        Gauge.builder("uid2.admin.write_lock.blocked_threads", () -> blockedThreads)
+                .description("threads waiting to enter the write lock when last sampled")
+                .register(globalRegistry);
+        Gauge.builder("uid2.admin.write_lock.longest_wait_ms", () -> longestWaitMs)
+                .description("longest time a thread waiting for the write lock had been waiting when last sampled")
+                .register(globalRegistry);
+    }
+
+    public synchronized void sample() {
+        final long now = clock.getEpochMillis();
+        final int lockHash = System.identityHashCode(writeLock);
+        final Map<Long, ThreadInfo> blocked = new HashMap<>();
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null || info.getThreadState() != Thread.State.BLOCKED) {
+                continue;
+            }
+            final LockInfo lock = info.getLockInfo();
+            if (lock != null && lock.getIdentityHashCode() == lockHash && WriteLock.class.getName().equals(lock.getClassName())) {
+                blocked.put(info.getThreadId(), info);
+            }
+        }
+
+        blockedSince.keySet().retainAll(blocked.keySet());
+        warned.retainAll(blocked.keySet());
+        long longest = 0;
+        for (ThreadInfo info : blocked.values()) {
+            final long waitMs = now - blockedSince.computeIfAbsent(info.getThreadId(), id -> now);
+            longest = Math.max(longest, waitMs);
+            if (waitMs >= warnAfterMs && warned.add(info.getThreadId())) {
+                LOGGER.warn("Thread {} has been waiting {}ms for the write lock held by {}, {} threads waiting",
+                        info.getThreadName(), waitMs, info.getLockOwnerName(), blocked.size());
+            }
+        }
+        blockedThreads = blocked.size();
+        longestWaitMs = longest;
+    }
+
+    public int getBlockedThreads() {
+        return blockedThreads;
+    }
+
+    public long getLongestWaitMs() {
+        return longestWaitMs;
+    }
+}
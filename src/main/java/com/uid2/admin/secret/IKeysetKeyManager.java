@@ -2,7 +2,13 @@ package com.uid2.admin.secret;
 
 import com.uid2.shared.model.KeysetKey;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface IKeysetKeyManager {
 
     public KeysetKey addKeysetKey(int keysetId) throws Exception;
+
+    // adds a key to each keyset, uploading the keyset keys once
+    public List<KeysetKey> addKeysetKeys(Collection<Integer> keysetIds) throws Exception;
 }
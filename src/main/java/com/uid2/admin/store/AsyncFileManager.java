@@ -0,0 +1,52 @@
+package com.uid2.admin.store;
+
+import com.uid2.shared.store.CloudPath;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.Callable;
+
+/*
+ * FileManager operations as futures, so that a store write can be composed from them on the event loop.
+ * The cloud storage client is synchronous, so each call runs on a worker thread and only holds it
+ * for the duration of that call instead of for a whole handler.
+ */
+public class AsyncFileManager {
+    private final FileManager fileManager;
+    private final Vertx vertx;
+
+    public AsyncFileManager(FileManager fileManager, Vertx vertx) {
+        this.fileManager = fileManager;
+        this.vertx = vertx;
+    }
+
+    public Future<Void> uploadFile(CloudPath location, FileName fileName, String content, String dataType) {
+        return run(() -> {
+            fileManager.uploadFile(location, fileName, content, dataType);
+            return null;
+        });
+    }
+
+    public Future<Void> uploadMetadata(JsonObject metadata, String name, CloudPath location) {
+        return run(() -> {
+            fileManager.uploadMetadata(metadata, name, location);
+            return null;
+        });
+    }
+
+    public Future<Boolean> isPresent(CloudPath path) {
+        return run(() -> fileManager.isPresent(path));
+    }
+
+    // runs any other blocking call, such as a store reading its metadata, on a worker thread
+    public <T> Future<T> run(Callable<T> call) {
+        return vertx.executeBlocking(promise -> {
+            try {
+                promise.complete(call.call());
+            } catch (Exception e) {
+                promise.fail(e);
+            }
+        }, false);
+    }
+}
@@ -1,5 +1,6 @@
 package com.uid2.admin.store;
 
+import com.uid2.admin.monitoring.RequestTrace;
 import com.uid2.shared.cloud.CloudStorageException;
 import com.uid2.shared.cloud.ICloudStorage;
 import com.uid2.shared.store.CloudPath;
@@ -18,19 +19,25 @@ public class FileManager {
         this.fileStorage = fileStorage;
     }
 
-    public void uploadFile(CloudPath location, FileName fileName, String content) throws IOException, CloudStorageException {
-        String newFile = fileStorage.create(fileName, content);
-        cloudStorage.upload(newFile, location.toString());
+    // timed as the upload_data section of the data type, see RequestTrace
+    public void uploadFile(CloudPath location, FileName fileName, String content, String dataType) throws Exception {
+        RequestTrace.time("upload_data", dataType, () -> upload(location, fileName, content));
     }
 
+    // timed as the upload_metadata section of the data type named by name, see RequestTrace
     public void uploadMetadata(JsonObject metadata, String name, CloudPath location) throws Exception {
         FileName fileName = new FileName(name + "-metadata", ".json");
         String content = Json.encodePrettily(metadata);
-        uploadFile(location, fileName, content);
+        RequestTrace.time("upload_metadata", name, () -> upload(location, fileName, content));
     }
 
     public boolean isPresent(CloudPath path) throws CloudStorageException {
         List<String> files = cloudStorage.list(path.toString());
         return !files.isEmpty();
     }
+
+    private void upload(CloudPath location, FileName fileName, String content) throws IOException, CloudStorageException {
+        String newFile = fileStorage.create(fileName, content);
+        cloudStorage.upload(newFile, location.toString());
+    }
 }
@@ -0,0 +1,87 @@
+package com.uid2.admin.store;
+
+import com.uid2.shared.cloud.CloudStorageException;
+import com.uid2.shared.store.reader.IMetadataVersionedStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.micrometer.core.instrument.Metrics.globalRegistry;
+
+/*
+ * A store that isn't loaded at startup but on its first use, through StoreLoader.ensureLoaded or
+ * StoreLoader.loadIfChanged of the loader it is registered with, so replicas that never serve it don't pay for it.
+ * When the store doesn't exist yet, bootstrap creates it first, as the eagerly loaded stores are created at startup.
+ */
+public final class LazyStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LazyStore.class);
+
+    private final String dataType;
+    private final IMetadataVersionedStore store;
+    private final Bootstrap bootstrap;
+    private final Clock clock;
+    private final long createdAtMs;
+    private final Timer loadDuration;
+    private volatile double readySeconds = Double.NaN;
+
+    public LazyStore(String dataType, IMetadataVersionedStore store, Bootstrap bootstrap, Clock clock) {
+        this.dataType = dataType;
+        this.store = store;
+        this.bootstrap = bootstrap;
+        this.clock = clock;
+        this.createdAtMs = clock.getEpochMillis();
+        this.loadDuration = Timer
+                .builder("uid2_data_store_lazy_load_duration")
+                .tag("store", dataType)
+                .description("time to load a lazily loaded data store when it was not loaded yet")
+                .register(globalRegistry);
+        Gauge
+                .builder("uid2_data_store_ready_seconds", () -> readySeconds)
+                .tag("store", dataType)
+                .description("seconds from startup until a lazily loaded data store was first loaded, NaN until then")
+                .register(globalRegistry);
+    }
+
+    public LazyStore(String dataType, IMetadataVersionedStore store, Clock clock) {
+        this(dataType, store, null, clock);
+    }
+
+    public IMetadataVersionedStore getStore() {
+        return store;
+    }
+
+    public boolean isReady() {
+        return !Double.isNaN(readySeconds);
+    }
+
+    // called by the StoreLoader it was registered with, holding the store's lock
+    void load(StoreLoader loader) throws Exception {
+        final long startMs = clock.getEpochMillis();
+        try {
+            loader.load(store);
+        } catch (CloudStorageException e) {
+            if (bootstrap == null || !e.getMessage().contains("The specified key does not exist")) {
+                throw e;
+            }
+            bootstrap.run();
+            if (!loader.isLoaded(store)) {
+                loader.load(store);
+            }
+        }
+
+        final long readyMs = clock.getEpochMillis();
+        loadDuration.record(readyMs - startMs, TimeUnit.MILLISECONDS);
+        if (!isReady()) {
+            readySeconds = (readyMs - createdAtMs) / 1000.0;
+            LOGGER.info("Data store {} ready {}s after startup, loading took {}ms", dataType, readySeconds, readyMs - startMs);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Bootstrap {
+        void run() throws Exception;
+    }
+}
@@ -1,12 +1,13 @@
 package com.uid2.admin.store;
 
 import com.uid2.admin.store.factory.StoreFactory;
+import com.uid2.admin.store.writer.Metadata;
+import com.uid2.admin.store.writer.StoreWriter;
 import com.uid2.shared.store.reader.StoreReader;
 import io.vertx.core.json.JsonObject;
 
 import java.util.*;
 import java.util.function.BiFunction;
-import java.util.stream.Collectors;
 
 public class MultiScopeStoreWriter<T> {
     private final FileManager fileManager;
@@ -19,47 +20,41 @@ public class MultiScopeStoreWriter<T> {
     }
 
     public void uploadIfChanged(Map<Integer, T> desiredState, JsonObject extraMeta) throws Exception {
-        Map<Integer, T> currentState = getCurrentState(desiredState.keySet());
-        List<Integer> sitesToWrite = getSitesToWrite(desiredState, currentState);
-        write(desiredState, sitesToWrite, extraMeta);
+        for (Map.Entry<Integer, T> entry : desiredState.entrySet()) {
+            uploadIfChanged(entry.getKey(), entry.getValue(), extraMeta);
+        }
     }
 
-    private List<Integer> getSitesToWrite(
-            Map<Integer, T> desiredState,
-            Map<Integer, T> currentState) {
-        return desiredState.keySet().stream().filter(siteId -> {
-            boolean isNewSite = !currentState.containsKey(siteId);
-            if (isNewSite) {
-                return true;
-            }
-
-            return !this.areEqual.apply(desiredState.get(siteId), currentState.get(siteId));
-        }).collect(Collectors.toList());
-    }
+    private void uploadIfChanged(Integer siteId, T desired, JsonObject extraMeta) throws Exception {
+        StoreWriter<T> writer = factory.getWriter(siteId);
+        StoreReader<T> reader = factory.getReader(siteId);
+        boolean isNewSite = !fileManager.isPresent(reader.getMetadataPath());
+        if (isNewSite) {
+            writer.upload(desired, extraMeta);
+            return;
+        }
 
-    private Map<Integer, T> getCurrentState(Collection<Integer> siteIds) throws Exception {
-        Map<Integer, T> currentState = new HashMap<>();
-        for (Integer siteId : siteIds) {
-            StoreReader<T> reader = factory.getReader(siteId);
-            if (fileManager.isPresent(reader.getMetadataPath())) {
-                reader.loadContent();
-                currentState.put(siteId, reader.getAll());
-            }
+        // compare digests of the serialized content so that the current data does not need to be downloaded
+        JsonObject metadata = reader.getMetadata();
+        String currentContentDigest = new Metadata(metadata).getContentDigest();
+        if (currentContentDigest != null) {
+            writer.uploadIfChanged(desired, extraMeta, currentContentDigest);
+            return;
         }
-        return currentState;
-    }
 
-    private void write(Map<Integer, T> desiredState, Collection<Integer> sitesToWrite, JsonObject extraMeta) throws Exception {
-        for (Integer addedSite : sitesToWrite) {
-            factory.getWriter(addedSite).upload(desiredState.get(addedSite), extraMeta);
+        // data written before content digests were recorded
+        reader.loadContent(metadata);
+        if (!this.areEqual.apply(desired, reader.getAll())) {
+            writer.upload(desired, extraMeta);
         }
     }
 
     public static <K, V> boolean areMapsEqual(Map<K, V> a, Map<K, V> b) {
-        return a.size() == b.size() && a.entrySet().stream().allMatch(b.entrySet()::contains);
+        return a.equals(b);
     }
 
     public static <T> boolean areCollectionsEqual(Collection<T> a, Collection<T> b) {
-        return a.size() == b.size() && a.stream().allMatch(b::contains);
+        // b is usually a list, so look elements up in a set to stay linear
+        return a.size() == b.size() && new HashSet<>(b).containsAll(a);
     }
 }
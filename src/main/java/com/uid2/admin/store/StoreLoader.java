@@ -0,0 +1,125 @@
+package com.uid2.admin.store;
+
+import com.uid2.admin.monitoring.RequestTrace;
+import com.uid2.shared.store.reader.IMetadataVersionedStore;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Loads stores and remembers which metadata version each one holds, so checking a store for changes
+ * costs a metadata download and its content is only downloaded and parsed again when the version moved.
+ * The stores don't keep their version, hence the table kept here for every store loaded through this loader.
+ * Main creates one loader for the stores it serves and passes it to their writers, handlers and refresher,
+ * so that a load by any of them is seen by the others; jobs reading stores of their own use a loader of their own.
+ * Loads of the same store are serialized, so a slow load of an older version can't overwrite a newer one.
+ * Stores registered with loadLazily are only loaded on their first check or ensureLoaded.
+ * Every load, whether by a writer, a handler or the refresher, is timed as the load_content section of RequestTrace,
+ * tagged with the data type the store's writer registered.
+ * The loaded versions, and when each was last loaded or found current, are what the data store metrics report.
+ */
+public class StoreLoader {
+    private final Clock clock;
+    private final Map<IMetadataVersionedStore, Long> loadedVersions = new ConcurrentHashMap<>();
+    private final Map<IMetadataVersionedStore, Long> checkedAtMs = new ConcurrentHashMap<>();
+    private final Map<IMetadataVersionedStore, LazyStore> lazyStores = new ConcurrentHashMap<>();
+    private final Map<IMetadataVersionedStore, String> dataTypes = new ConcurrentHashMap<>();
+
+    public StoreLoader() {
+        this(new InstantClock());
+    }
+
+    public StoreLoader(Clock clock) {
+        this.clock = clock;
+    }
+
+    // names the store in the timings of its loads
+    public void setDataType(IMetadataVersionedStore store, String dataType) {
+        dataTypes.put(store, dataType);
+    }
+
+    // loads the content described by metadata, returns the number of entries loaded
+    public long load(IMetadataVersionedStore store, JsonObject metadata) throws Exception {
+        synchronized (store) {
+            return RequestTrace.time("load_content", dataTypes.get(store), () -> loadContent(store, metadata));
+        }
+    }
+
+    public long load(IMetadataVersionedStore store) throws Exception {
+        synchronized (store) {
+            return RequestTrace.time("load_content", dataTypes.get(store), () -> loadContent(store, store.getMetadata()));
+        }
+    }
+
+    public void loadLazily(LazyStore lazyStore) {
+        lazyStores.put(lazyStore.getStore(), lazyStore);
+    }
+
+    public boolean isLazy(IMetadataVersionedStore store) {
+        return lazyStores.containsKey(store);
+    }
+
+    public boolean isLoaded(IMetadataVersionedStore store) {
+        return loadedVersions.containsKey(store);
+    }
+
+    // loads the store if it holds nothing yet, e.g. a lazy store on its first use, without checking its version otherwise
+    public void ensureLoaded(IMetadataVersionedStore store) throws Exception {
+        if (isLoaded(store)) {
+            return;
+        }
+        synchronized (store) {
+            if (isLoaded(store)) {
+                return;
+            }
+            final LazyStore lazyStore = lazyStores.get(store);
+            if (lazyStore != null) {
+                lazyStore.load(this);
+            } else {
+                load(store);
+            }
+        }
+    }
+
+    // loads the store unless it already holds the current version, returns whether it loaded
+    public boolean loadIfChanged(IMetadataVersionedStore store) throws Exception {
+        synchronized (store) {
+            if (!isLoaded(store)) {
+                ensureLoaded(store);
+                return true;
+            }
+            final JsonObject metadata = RequestTrace.time("read_metadata", dataTypes.get(store), store::getMetadata);
+            final Long loadedVersion = loadedVersions.get(store);
+            if (loadedVersion != null && loadedVersion == store.getVersion(metadata)) {
+                checkedAtMs.put(store, clock.getEpochMillis());
+                return false;
+            }
+            load(store, metadata);
+            return true;
+        }
+    }
+
+    // makes the next check load the store again, e.g. when its snapshot may have been changed without being written
+    public void invalidate(IMetadataVersionedStore store) {
+        loadedVersions.remove(store);
+        checkedAtMs.remove(store);
+    }
+
+    private long loadContent(IMetadataVersionedStore store, JsonObject metadata) throws Exception {
+        final long count = store.loadContent(metadata);
+        loadedVersions.put(store, store.getVersion(metadata));
+        checkedAtMs.put(store, clock.getEpochMillis());
+        return count;
+    }
+
+    // the metadata version of the content the store holds, null if it holds nothing loaded through this loader
+    public Long getLoadedVersion(IMetadataVersionedStore store) {
+        return loadedVersions.get(store);
+    }
+
+    // when the store was last loaded or found to hold the current version, null if it holds nothing
+    public Long getCheckedAtMs(IMetadataVersionedStore store) {
+        return checkedAtMs.get(store);
+    }
+}
@@ -0,0 +1,82 @@
+package com.uid2.admin.store;
+
+import com.uid2.shared.store.reader.IMetadataVersionedStore;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.micrometer.core.instrument.Metrics.globalRegistry;
+
+/*
+ * Keeps the stores fresh in the background: refresh() is called periodically off the event loop and reloads
+ * every store whose metadata version changed, so handlers only need the cheap check of StoreLoader.loadIfChanged.
+ * Lazy stores that weren't used yet are left alone, unless warmLazyStores is set to load them in the background.
+ */
+public final class StoreRefresher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoreRefresher.class);
+
+    private final List<RefreshedStore> stores = new ArrayList<>();
+    private final StoreLoader storeLoader;
+    private final boolean warmLazyStores;
+
+    public StoreRefresher(StoreLoader storeLoader, boolean warmLazyStores) {
+        this.storeLoader = storeLoader;
+        this.warmLazyStores = warmLazyStores;
+    }
+
+    public StoreRefresher(StoreLoader storeLoader) {
+        this(storeLoader, false);
+    }
+
+    public synchronized void addStore(String dataType, IMetadataVersionedStore store) {
+        final RefreshedStore refreshed = new RefreshedStore(dataType, store);
+        refreshed.reloads = Counter
+                .builder("uid2_data_store_background_reloads")
+                .tag("store", dataType)
+                .description("reloads of a data store by the background refresh, after its version changed")
+                .register(globalRegistry);
+        refreshed.failures = Counter
+                .builder("uid2_data_store_background_refresh_failures")
+                .tag("store", dataType)
+                .description("failures to refresh a data store in the background")
+                .register(globalRegistry);
+        stores.add(refreshed);
+    }
+
+    // reloads the stores that changed, a store that fails keeps its content until the next refresh
+    public void refresh() {
+        final List<RefreshedStore> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(stores);
+        }
+        for (RefreshedStore refreshed : snapshot) {
+            if (!warmLazyStores && storeLoader.isLazy(refreshed.store) && !storeLoader.isLoaded(refreshed.store)) {
+                continue;
+            }
+            try {
+                if (storeLoader.loadIfChanged(refreshed.store)) {
+                    refreshed.reloads.increment();
+                    LOGGER.info("Reloaded data store {} after its version changed", refreshed.dataType);
+                }
+            } catch (Exception e) {
+                refreshed.failures.increment();
+                LOGGER.warn("Failed to refresh data store {}", refreshed.dataType, e);
+            }
+        }
+    }
+
+    private static class RefreshedStore {
+        private final String dataType;
+        private final IMetadataVersionedStore store;
+        private Counter reloads;
+        private Counter failures;
+
+        private RefreshedStore(String dataType, IMetadataVersionedStore store) {
+            this.dataType = dataType;
+            this.store = store;
+        }
+    }
+}
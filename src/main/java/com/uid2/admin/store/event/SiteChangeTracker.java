@@ -0,0 +1,49 @@
+package com.uid2.admin.store.event;
+
+import java.util.*;
+import java.util.function.Function;
+
+/*
+ * Remembers a per-site digest of the last uploaded content of a store so that the next upload
+ * can tell which sites it changed. Digests are computed from the entries at upload time, so
+ * entries mutated in place before the upload are still detected.
+ */
+public class SiteChangeTracker<T> {
+    private final Function<T, Integer> siteIdOf;
+    private Map<Integer, Integer> lastDigests = null;
+
+    public SiteChangeTracker(Function<T, Integer> siteIdOf) {
+        this.siteIdOf = siteIdOf;
+    }
+
+    public Map<Integer, Integer> digest(Collection<T> entries) {
+        Map<Integer, Integer> digests = new HashMap<>();
+        for (T entry : entries) {
+            digests.merge(siteIdOf.apply(entry), entry.hashCode(), Integer::sum);
+        }
+        return digests;
+    }
+
+    // returns null if nothing has been uploaded through this tracker yet
+    public synchronized Set<Integer> getChangedSiteIds(Map<Integer, Integer> digests) {
+        if (lastDigests == null) {
+            return null;
+        }
+
+        Set<Integer> changed = new HashSet<>();
+        digests.forEach((siteId, digest) -> {
+            if (!digest.equals(lastDigests.get(siteId))) {
+                changed.add(siteId);
+            }
+        });
+        lastDigests.keySet().stream()
+                .filter(siteId -> !digests.containsKey(siteId))
+                .forEach(changed::add);
+        changed.remove(null);
+        return changed;
+    }
+
+    public synchronized void commit(Map<Integer, Integer> digests) {
+        lastDigests = digests;
+    }
+}
@@ -0,0 +1,35 @@
+package com.uid2.admin.store.event;
+
+import java.util.Collections;
+import java.util.Set;
+
+public class StoreChangeEvent {
+    private final String dataType;
+    private final Set<Integer> siteIds;
+
+    /*
+     * siteIds are the ids of the sites owning the changed entries,
+     * or null if the writer could not tell which sites were affected
+     */
+    public StoreChangeEvent(String dataType, Set<Integer> siteIds) {
+        this.dataType = dataType;
+        this.siteIds = siteIds == null ? null : Collections.unmodifiableSet(siteIds);
+    }
+
+    public String getDataType() {
+        return dataType;
+    }
+
+    public Set<Integer> getSiteIds() {
+        return siteIds;
+    }
+
+    public boolean hasKnownSiteIds() {
+        return siteIds != null;
+    }
+
+    @Override
+    public String toString() {
+        return "StoreChangeEvent{dataType=" + dataType + ", siteIds=" + siteIds + "}";
+    }
+}
@@ -0,0 +1,5 @@
+package com.uid2.admin.store.event;
+
+public interface StoreChangeListener {
+    void onStoreChange(StoreChangeEvent event);
+}
@@ -0,0 +1,28 @@
+package com.uid2.admin.store.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class StoreChangePublisher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoreChangePublisher.class);
+
+    private final List<StoreChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(StoreChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void publish(StoreChangeEvent event) {
+        for (StoreChangeListener listener : listeners) {
+            // a failing listener must never fail the write that has already been uploaded
+            try {
+                listener.onStoreChange(event);
+            } catch (Exception e) {
+                LOGGER.error("Store change listener failed for " + event, e);
+            }
+        }
+    }
+}
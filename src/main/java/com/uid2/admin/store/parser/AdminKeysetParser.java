@@ -1,56 +1,151 @@
 package com.uid2.admin.store.parser;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.uid2.admin.auth.AdminKeyset;
 import com.uid2.admin.auth.AdminKeysetSnapshot;
+import com.uid2.admin.util.SortedIntSet;
 import com.uid2.shared.model.ClientType;
 import com.uid2.shared.store.parser.Parser;
 import com.uid2.shared.store.parser.ParsingResult;
-import com.uid2.shared.Utils;
-import com.uid2.shared.auth.KeysetSnapshot;
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
+import com.uid2.shared.util.Mapper;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
+/*
+ * Reads the keysets token by token instead of building a JsonArray of the whole file first, and keeps
+ * allowed sites in a SortedIntSet and allowed types in an EnumSet, which matters with 100k keysets.
+ * The snapshot equals the one parsed through JsonArray; fields other than "keyset" and "allowed_types" are skipped.
+ */
 public class AdminKeysetParser implements Parser<AdminKeysetSnapshot> {
+    private static final JsonFactory JSON_FACTORY = Mapper.getInstance().getFactory();
+    private static final Map<String, ClientType> CLIENT_TYPES = new HashMap<>();
+
+    static {
+        for (ClientType type : ClientType.values()) {
+            CLIENT_TYPES.put(type.name(), type);
+        }
+    }
+
     @Override
     public ParsingResult<AdminKeysetSnapshot> deserialize(InputStream inputStream) throws IOException {
-        final JsonArray adminKeysetsSpec = Utils.toJsonArray(inputStream);
         final HashMap<Integer, AdminKeyset> keysetIdToAdminKeyset = new HashMap<>();
-        for(int i = 0; i < adminKeysetsSpec.size(); i++) {
-            final JsonObject adminKeysetSpec = adminKeysetsSpec.getJsonObject(i);
-            final JsonObject keysetSpec = adminKeysetSpec.getJsonObject("keyset");
-            final Integer keysetId = keysetSpec.getInteger("keyset_id");
-            final Integer siteId = keysetSpec.getInteger("site_id");
-            final String name = keysetSpec.getString("name");
-
-            final JsonArray allowedSitesSpec = keysetSpec.getJsonArray("allowed_sites");
-            HashSet<Integer> allowedSites = new HashSet<>();
-            if (allowedSitesSpec == null) {
-                allowedSites = null;
-            } else {
-                for (int j = 0; j < allowedSitesSpec.size(); j++) {
-                    allowedSites.add(allowedSitesSpec.getInteger(j));
-                }
+        int count = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+            final SiteIdBuffer siteIdBuffer = new SiteIdBuffer();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                final AdminKeyset keyset = readAdminKeyset(parser, siteIdBuffer);
+                keysetIdToAdminKeyset.put(keyset.getKeysetId(), keyset);
+                count++;
             }
+        }
+        return new ParsingResult<>(new AdminKeysetSnapshot(keysetIdToAdminKeyset), count);
+    }
 
-            final JsonArray allowedTypeSpec = adminKeysetSpec.getJsonArray("allowed_types");
+    private static AdminKeyset readAdminKeyset(JsonParser parser, SiteIdBuffer siteIdBuffer) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        Integer keysetId = null;
+        Integer siteId = null;
+        String name = null;
+        Set<Integer> allowedSites = null;
+        Long created = null;
+        Boolean enabled = null;
+        Boolean isDefault = null;
+        boolean hasKeyset = false;
+        final Set<ClientType> allowedTypes = EnumSet.noneOf(ClientType.class);
 
-            HashSet<ClientType> allowedTypes = new HashSet<>();
-            for (int j = 0; j < allowedTypeSpec.size(); ++j) {
-                String value = allowedTypeSpec.getString(j).toUpperCase();
-                allowedTypes.add(Enum.valueOf(ClientType.class, value));
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if ("keyset".equals(field)) {
+                expect(parser, value, JsonToken.START_OBJECT);
+                hasKeyset = true;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String keysetField = parser.getCurrentName();
+                    final JsonToken keysetValue = parser.nextToken();
+                    switch (keysetField) {
+                        case "keyset_id":
+                            keysetId = keysetValue == JsonToken.VALUE_NULL ? null : parser.getIntValue();
+                            break;
+                        case "site_id":
+                            siteId = keysetValue == JsonToken.VALUE_NULL ? null : parser.getIntValue();
+                            break;
+                        case "name":
+                            name = keysetValue == JsonToken.VALUE_NULL ? null : parser.getText();
+                            break;
+                        case "allowed_sites":
+                            allowedSites = keysetValue == JsonToken.VALUE_NULL ? null : readSiteIds(parser, siteIdBuffer);
+                            break;
+                        case "created":
+                            created = keysetValue == JsonToken.VALUE_NULL ? null : parser.getLongValue();
+                            break;
+                        case "enabled":
+                            enabled = keysetValue == JsonToken.VALUE_NULL ? null : parser.getBooleanValue();
+                            break;
+                        case "default":
+                            isDefault = keysetValue == JsonToken.VALUE_NULL ? null : parser.getBooleanValue();
+                            break;
+                        default:
+                            parser.skipChildren();
+                    }
+                }
+            } else if ("allowed_types".equals(field)) {
+                if (value != JsonToken.VALUE_NULL) {
+                    expect(parser, value, JsonToken.START_ARRAY);
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        allowedTypes.add(toClientType(parser.getText()));
+                    }
+                }
+            } else {
+                parser.skipChildren();
             }
+        }
 
-            long created = keysetSpec.getLong("created");
-            final boolean enabled = keysetSpec.getBoolean("enabled");
-            final boolean isDefault = keysetSpec.getBoolean("default");
+        if (!hasKeyset || keysetId == null || siteId == null || created == null || enabled == null || isDefault == null) {
+            throw new JsonParseException(parser, "Admin keyset is missing keyset_id, site_id, created, enabled or default");
+        }
+        return new AdminKeyset(keysetId, siteId, name, allowedSites, created, enabled, isDefault, allowedTypes);
+    }
+
+    private static SortedIntSet readSiteIds(JsonParser parser, SiteIdBuffer buffer) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        buffer.length = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            buffer.add(parser.getIntValue());
+        }
+        return SortedIntSet.of(Arrays.copyOf(buffer.values, buffer.length), buffer.length);
+    }
+
+    private static ClientType toClientType(String value) {
+        final ClientType type = CLIENT_TYPES.get(value);
+        return type != null ? type : Enum.valueOf(ClientType.class, value.toUpperCase());
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+
+    // reused across keysets so that reading allowed sites allocates only the resulting array
+    private static class SiteIdBuffer {
+        private int[] values = new int[64];
+        private int length;
 
-            keysetIdToAdminKeyset.put(keysetId, new AdminKeyset(keysetId, siteId, name, allowedSites, created, enabled, isDefault, allowedTypes));
+        private void add(int value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, length * 2);
+            }
+            values[length++] = value;
         }
-        return new ParsingResult<>(new AdminKeysetSnapshot(keysetIdToAdminKeyset), adminKeysetsSpec.size());
     }
 }
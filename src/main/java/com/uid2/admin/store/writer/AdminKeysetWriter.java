@@ -5,6 +5,8 @@ import com.uid2.admin.auth.AdminKeyset;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
 import com.uid2.admin.store.FileName;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.store.reader.StoreReader;
 import com.uid2.shared.store.scope.StoreScope;
@@ -21,10 +23,16 @@ public class AdminKeysetWriter implements StoreWriter<Map<Integer, AdminKeyset>>
 
     public AdminKeysetWriter(StoreReader<Map<Integer, AdminKeyset>> provider, FileManager fileManager,
                              ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope storeScope) {
+        this(provider, fileManager, jsonWriter, versionGenerator, clock, storeScope, new StoreLoader());
+    }
+
+    public AdminKeysetWriter(StoreReader<Map<Integer, AdminKeyset>> provider, FileManager fileManager,
+                             ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope storeScope,
+                             StoreLoader storeLoader) {
         this.jsonWriter = jsonWriter;
         FileName dataFile = new FileName("admin_keysets", ".json");
         String dataType = "admin_keysets";
-        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, storeScope, dataFile, dataType);
+        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, storeScope, dataFile, dataType, new StoreChangePublisher(), storeLoader);
     }
 
     @Override
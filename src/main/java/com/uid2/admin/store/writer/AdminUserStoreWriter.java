@@ -1,9 +1,11 @@
 package com.uid2.admin.store.writer;
 
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.uid2.admin.monitoring.RequestTrace;
 import com.uid2.admin.auth.AdminUser;
 import com.uid2.admin.auth.AdminUserProvider;
 import com.uid2.admin.store.FileManager;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.store.CloudPath;
 import com.uid2.admin.store.FileName;
@@ -17,13 +19,20 @@ public class AdminUserStoreWriter {
     private final FileManager fileManager;
     private final ObjectWriter jsonWriter;
     private final VersionGenerator versionGenerator;
+    private final StoreLoader storeLoader;
 
 
     public AdminUserStoreWriter(AdminUserProvider provider, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator) {
+        this(provider, fileManager, jsonWriter, versionGenerator, new StoreLoader());
+    }
+
+    public AdminUserStoreWriter(AdminUserProvider provider, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator, StoreLoader storeLoader) {
         this.provider = provider;
         this.fileManager = fileManager;
         this.jsonWriter = jsonWriter;
         this.versionGenerator = versionGenerator;
+        this.storeLoader = storeLoader;
+        storeLoader.setDataType(provider, "admins");
     }
 
     public void upload(Collection<AdminUser> data) throws Exception {
@@ -39,11 +48,11 @@ public class AdminUserStoreWriter {
         CloudPath location = new CloudPath(metadata.getJsonObject("admins").getString("location"));
 
         // generate new admins
-        String content = jsonWriter.writeValueAsString(data);
-        fileManager.uploadFile(location, dataFile, content);
+        String content = RequestTrace.time("serialize", "admins", () -> jsonWriter.writeValueAsString(data));
+        fileManager.uploadFile(location, dataFile, content, "admins");
         fileManager.uploadMetadata(metadata, "admins", new CloudPath(provider.getMetadataPath()));
 
         // refresh manually
-        provider.loadContent(provider.getMetadata());
+        storeLoader.load(provider);
     }
 }
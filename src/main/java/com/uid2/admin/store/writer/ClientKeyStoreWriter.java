@@ -25,7 +25,7 @@ public class ClientKeyStoreWriter implements StoreWriter<Collection<ClientKey>>
 
     @Override
     public void upload(Collection<ClientKey> data, JsonObject extraMeta) throws Exception {
-        writer.upload(jsonWriter.writeValueAsString(data), extraMeta);
+        writer.upload(writer.serialize(() -> jsonWriter.writeValueAsString(data)), extraMeta);
     }
 
     @Override
@@ -3,6 +3,8 @@ package com.uid2.admin.store.writer;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
 import com.uid2.admin.store.FileName;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.model.ClientSideKeypair;
 import com.uid2.shared.store.reader.RotatingClientSideKeypairStore;
@@ -18,9 +20,13 @@ public class ClientSideKeypairStoreWriter implements StoreWriter<Collection<Clie
     private final ScopedStoreWriter writer;
 
     public ClientSideKeypairStoreWriter(RotatingClientSideKeypairStore store, FileManager fileManager, VersionGenerator versionGenerator, Clock clock, StoreScope scope) {
+        this(store, fileManager, versionGenerator, clock, scope, new StoreLoader());
+    }
+
+    public ClientSideKeypairStoreWriter(RotatingClientSideKeypairStore store, FileManager fileManager, VersionGenerator versionGenerator, Clock clock, StoreScope scope, StoreLoader storeLoader) {
         FileName dataFile = new FileName("client_side_keypairs", ".json");
         String dataType = "client_side_keypairs";
-        writer = new ScopedStoreWriter(store, fileManager, versionGenerator, clock, scope, dataFile, dataType);
+        writer = new ScopedStoreWriter(store, fileManager, versionGenerator, clock, scope, dataFile, dataType, new StoreChangePublisher(), storeLoader);
     }
 
     @Override
@@ -1,7 +1,9 @@
 package com.uid2.admin.store.writer;
 
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.uid2.admin.monitoring.RequestTrace;
 import com.uid2.admin.store.FileManager;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.auth.EnclaveIdentifierProvider;
 import com.uid2.shared.model.EnclaveIdentifier;
@@ -17,12 +19,19 @@ public class EnclaveStoreWriter {
     private final FileManager fileManager;
     private final ObjectWriter jsonWriter;
     private final VersionGenerator versionGenerator;
+    private final StoreLoader storeLoader;
 
     public EnclaveStoreWriter(EnclaveIdentifierProvider provider, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator) {
+        this(provider, fileManager, jsonWriter, versionGenerator, new StoreLoader());
+    }
+
+    public EnclaveStoreWriter(EnclaveIdentifierProvider provider, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator, StoreLoader storeLoader) {
         this.provider = provider;
         this.fileManager = fileManager;
         this.jsonWriter = jsonWriter;
         this.versionGenerator = versionGenerator;
+        this.storeLoader = storeLoader;
+        storeLoader.setDataType(provider, "enclaves");
     }
 
     public void upload(Collection<EnclaveIdentifier> data) throws Exception {
@@ -35,11 +44,11 @@ public class EnclaveStoreWriter {
         CloudPath location = new CloudPath(metadata.getJsonObject("enclaves").getString("location"));
 
         // generate new clients
-        String content = jsonWriter.writeValueAsString(data);
-        fileManager.uploadFile(location, dataFile, content);
+        String content = RequestTrace.time("serialize", "enclaves", () -> jsonWriter.writeValueAsString(data));
+        fileManager.uploadFile(location, dataFile, content, "enclaves");
         fileManager.uploadMetadata(metadata, "enclaves", new CloudPath(provider.getMetadataPath()));
 
         // refresh manually
-        provider.loadContent(provider.getMetadata());
+        storeLoader.load(provider);
     }
 }
@@ -3,6 +3,9 @@ package com.uid2.admin.store.writer;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
 import com.uid2.admin.store.FileName;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.SiteChangeTracker;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.model.EncryptionKey;
 import com.uid2.shared.store.reader.RotatingKeyStore;
@@ -10,22 +13,40 @@ import com.uid2.shared.store.scope.StoreScope;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
-import java.util.Base64;
-import java.util.Collection;
+import java.util.*;
 
 public class EncryptionKeyStoreWriter implements StoreWriter<Collection<EncryptionKey>> {
     private final ScopedStoreWriter writer;
+    private final SiteChangeTracker<EncryptionKey> changeTracker = new SiteChangeTracker<>(EncryptionKey::getSiteId);
 
     public EncryptionKeyStoreWriter(RotatingKeyStore provider, FileManager fileManager, VersionGenerator versionGenerator, Clock clock, StoreScope scope) {
+        this(provider, fileManager, versionGenerator, clock, scope, new StoreChangePublisher(), new StoreLoader());
+    }
+
+    public EncryptionKeyStoreWriter(RotatingKeyStore provider, FileManager fileManager, VersionGenerator versionGenerator, Clock clock, StoreScope scope, StoreChangePublisher changePublisher, StoreLoader storeLoader) {
         FileName dataFile = new FileName("keys", ".json");
         String dataType = "keys";
-        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, scope, dataFile, dataType);
+        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, scope, dataFile, dataType, changePublisher, storeLoader);
     }
 
     @Override
     public void upload(Collection<EncryptionKey> data, JsonObject extraMeta) throws Exception {
+        Map<Integer, Integer> digests = changeTracker.digest(data);
+        writer.upload(writer.serialize(() -> serialize(data)), extraMeta, changeTracker.getChangedSiteIds(digests));
+        changeTracker.commit(digests);
+    }
+
+    @Override
+    public boolean uploadIfChanged(Collection<EncryptionKey> data, JsonObject extraMeta, String currentContentDigest) throws Exception {
+        return writer.uploadIfChanged(writer.serialize(() -> serialize(data)), extraMeta, currentContentDigest);
+    }
+
+    // sorted so that the same keys always serialize to the same content
+    static String serialize(Collection<EncryptionKey> data) {
+        List<EncryptionKey> sorted = new ArrayList<>(data);
+        sorted.sort(Comparator.comparingInt(EncryptionKey::getId));
         final JsonArray jsonKeys = new JsonArray();
-        for (EncryptionKey key : data) {
+        for (EncryptionKey key : sorted) {
             JsonObject json = new JsonObject();
             json.put("id", key.getId());
             json.put("site_id", key.getSiteId());
@@ -35,8 +56,7 @@ public class EncryptionKeyStoreWriter implements StoreWriter<Collection<Encrypti
             json.put("secret", Base64.getEncoder().encodeToString(key.getKeyBytes()));
             jsonKeys.add(json);
         }
-        String content = jsonKeys.encodePrettily();
-        writer.upload(content, extraMeta);
+        return jsonKeys.encodePrettily();
     }
 
     public void upload(Collection<EncryptionKey> data, Integer newMaxKeyId) throws Exception {
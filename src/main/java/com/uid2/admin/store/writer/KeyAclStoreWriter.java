@@ -4,6 +4,9 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
 import com.uid2.admin.store.FileName;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.SiteChangeTracker;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.auth.EncryptionKeyAcl;
 import com.uid2.shared.store.reader.StoreReader;
@@ -13,29 +16,49 @@ import io.vertx.core.json.JsonObject;
 
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 public class KeyAclStoreWriter implements StoreWriter<Map<Integer, EncryptionKeyAcl>> {
     private final ScopedStoreWriter writer;
+    private final SiteChangeTracker<Map.Entry<Integer, EncryptionKeyAcl>> changeTracker = new SiteChangeTracker<>(Map.Entry::getKey);
 
     public KeyAclStoreWriter(StoreReader<Map<Integer, EncryptionKeyAcl>> provider, FileManager fileManager,
                              ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope) {
+        this(provider, fileManager, jsonWriter, versionGenerator, clock, scope, new StoreChangePublisher(), new StoreLoader());
+    }
+
+    public KeyAclStoreWriter(StoreReader<Map<Integer, EncryptionKeyAcl>> provider, FileManager fileManager,
+                             ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope,
+                             StoreChangePublisher changePublisher, StoreLoader storeLoader) {
         FileName dataFile = new FileName("keys_acl", ".json");
         String dataType = "keys_acl";
-        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, scope, dataFile, dataType);
+        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, scope, dataFile, dataType, changePublisher, storeLoader);
     }
 
     @Override
     public void upload(Map<Integer, EncryptionKeyAcl> data, JsonObject extraMeta) throws Exception {
-        // generate new acls
+        Map<Integer, Integer> digests = changeTracker.digest(data.entrySet());
+        writer.upload(writer.serialize(() -> serialize(data)), extraMeta, changeTracker.getChangedSiteIds(digests));
+        changeTracker.commit(digests);
+    }
+
+    @Override
+    public boolean uploadIfChanged(Map<Integer, EncryptionKeyAcl> data, JsonObject extraMeta, String currentContentDigest) throws Exception {
+        return writer.uploadIfChanged(writer.serialize(() -> serialize(data)), extraMeta, currentContentDigest);
+    }
+
+    // sites and access lists are sorted so that the same acls always serialize to the same content
+    static String serialize(Map<Integer, EncryptionKeyAcl> data) {
         JsonArray jsonAcls = new JsonArray();
-        for (Map.Entry<Integer, EncryptionKeyAcl> acl : data.entrySet()) {
+        for (Map.Entry<Integer, EncryptionKeyAcl> acl : new TreeMap<>(data).entrySet()) {
             JsonObject jsonAcl = new JsonObject();
             jsonAcl.put("site_id", acl.getKey());
             jsonAcl.put((acl.getValue().getIsWhitelist() ? "whitelist" : "blacklist"),
-                    new JsonArray(new ArrayList<>(acl.getValue().getAccessList())));
+                    new JsonArray(new ArrayList<>(new TreeSet<>(acl.getValue().getAccessList()))));
             jsonAcls.add(jsonAcl);
         }
-        writer.upload(jsonAcls.encodePrettily(), extraMeta);
+        return jsonAcls.encodePrettily();
     }
 
     @Override
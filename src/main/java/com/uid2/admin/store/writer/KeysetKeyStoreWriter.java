@@ -3,6 +3,8 @@ package com.uid2.admin.store.writer;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
 import com.uid2.admin.store.FileName;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.model.KeysetKey;
 import com.uid2.shared.store.reader.RotatingKeysetKeyStore;
@@ -12,8 +14,7 @@ import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Base64;
-import java.util.Collection;
+import java.util.*;
 
 public class KeysetKeyStoreWriter implements StoreWriter<Collection<KeysetKey>> {
     private final ScopedStoreWriter writer;
@@ -22,9 +23,16 @@ public class KeysetKeyStoreWriter implements StoreWriter<Collection<KeysetKey>>
 
     public KeysetKeyStoreWriter(RotatingKeysetKeyStore provider, FileManager fileManager,
                                 VersionGenerator versionGenerator, Clock clock, StoreScope scope, boolean enableKeysets) {
+        this(provider, fileManager, versionGenerator, clock, scope, enableKeysets, new StoreChangePublisher(), new StoreLoader());
+    }
+
+    // keyset keys do not carry their site id, so change events are published without affected site ids
+    public KeysetKeyStoreWriter(RotatingKeysetKeyStore provider, FileManager fileManager,
+                                VersionGenerator versionGenerator, Clock clock, StoreScope scope, boolean enableKeysets,
+                                StoreChangePublisher changePublisher, StoreLoader storeLoader) {
         FileName dataFile = new FileName("keyset_keys", ".json");
         String dataType = "keyset_keys";
-        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, scope, dataFile, dataType);
+        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, scope, dataFile, dataType, changePublisher, storeLoader);
         this.enableKeysets = enableKeysets;
     }
 
@@ -34,8 +42,24 @@ public class KeysetKeyStoreWriter implements StoreWriter<Collection<KeysetKey>>
             LOGGER.error("Uploaded Attempted to Keysets Keys with keysets disabled");
             return;
         }
+        writer.upload(writer.serialize(() -> serialize(data)), extraMeta);
+    }
+
+    @Override
+    public boolean uploadIfChanged(Collection<KeysetKey> data, JsonObject extraMeta, String currentContentDigest) throws Exception {
+        if(!enableKeysets) {
+            LOGGER.error("Uploaded Attempted to Keysets Keys with keysets disabled");
+            return false;
+        }
+        return writer.uploadIfChanged(writer.serialize(() -> serialize(data)), extraMeta, currentContentDigest);
+    }
+
+    // sorted so that the same keys always serialize to the same content
+    static String serialize(Collection<KeysetKey> data) {
+        List<KeysetKey> sorted = new ArrayList<>(data);
+        sorted.sort(Comparator.comparingInt(KeysetKey::getId));
         final JsonArray jsonKeys = new JsonArray();
-        for (KeysetKey key : data) {
+        for (KeysetKey key : sorted) {
             JsonObject json = new JsonObject();
             json.put("id", key.getId());
             json.put("keyset_id", key.getKeysetId());
@@ -45,8 +69,7 @@ public class KeysetKeyStoreWriter implements StoreWriter<Collection<KeysetKey>>
             json.put("secret", Base64.getEncoder().encodeToString(key.getKeyBytes()));
             jsonKeys.add(json);
         }
-        String content = jsonKeys.encodePrettily();
-        writer.upload(content, extraMeta);
+        return jsonKeys.encodePrettily();
     }
 
     public void upload(Collection<KeysetKey> data, Integer newMaxKeyId) throws Exception {
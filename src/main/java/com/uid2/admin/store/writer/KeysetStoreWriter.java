@@ -4,6 +4,9 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
 import com.uid2.admin.store.FileName;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.SiteChangeTracker;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.auth.Keyset;
 import com.uid2.shared.store.reader.StoreReader;
@@ -14,21 +17,32 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 public class KeysetStoreWriter implements StoreWriter<Map<Integer, Keyset>> {
 
     private final ScopedStoreWriter writer;
     private final ObjectWriter jsonWriter;
     private final boolean enableKeysets;
+    private final SiteChangeTracker<Keyset> changeTracker = new SiteChangeTracker<>(Keyset::getSiteId);
     private static final Logger LOGGER = LoggerFactory.getLogger(KeysetStoreWriter.class);
 
     public KeysetStoreWriter(StoreReader<Map<Integer, Keyset>> provider, FileManager fileManager,
                              ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope,
                              boolean enableKeysets) {
+        this(provider, fileManager, jsonWriter, versionGenerator, clock, scope, enableKeysets, new StoreChangePublisher(), new StoreLoader());
+    }
+
+    public KeysetStoreWriter(StoreReader<Map<Integer, Keyset>> provider, FileManager fileManager,
+                             ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope,
+                             boolean enableKeysets, StoreChangePublisher changePublisher, StoreLoader storeLoader) {
         this.jsonWriter = jsonWriter;
         FileName dataFile = new FileName("keysets", ".json");
         String dataType = "keysets";
-        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, scope, dataFile, dataType);
+        writer = new ScopedStoreWriter(provider, fileManager, versionGenerator, clock, scope, dataFile, dataType, changePublisher, storeLoader);
         this.enableKeysets = enableKeysets;
     }
 
@@ -38,11 +52,37 @@ public class KeysetStoreWriter implements StoreWriter<Map<Integer, Keyset>> {
             LOGGER.error("Uploaded Attempted to Keysets with keysets disabled");
             return;
         }
+        Map<Integer, Integer> digests = changeTracker.digest(data.values());
+        writer.upload(writer.serialize(() -> serialize(data)), extraMeta, changeTracker.getChangedSiteIds(digests));
+        changeTracker.commit(digests);
+    }
+
+    @Override
+    public boolean uploadIfChanged(Map<Integer, Keyset> data, JsonObject extraMeta, String currentContentDigest) throws Exception {
+        if(!enableKeysets) {
+            LOGGER.error("Uploaded Attempted to Keysets with keysets disabled");
+            return false;
+        }
+        return writer.uploadIfChanged(writer.serialize(() -> serialize(data)), extraMeta, currentContentDigest);
+    }
+
+    // sorted by keyset id and allowed site so that the same keysets always serialize to the same content,
+    // however their allowed sites sets were built
+    static String serialize(Map<Integer, Keyset> data) {
         JsonArray jsonKeysets = new JsonArray();
-        for (Map.Entry<Integer, Keyset> keyset: data.entrySet()) {
-            jsonKeysets.add(keyset.getValue());
+        for (Keyset keyset: new TreeMap<>(data).values()) {
+            jsonKeysets.add(withSortedAllowedSites(keyset));
+        }
+        return jsonKeysets.encodePrettily();
+    }
+
+    private static Keyset withSortedAllowedSites(Keyset keyset) {
+        Set<Integer> allowedSites = keyset.getAllowedSites();
+        if (allowedSites == null || allowedSites instanceof SortedSet) {
+            return keyset;
         }
-        writer.upload(jsonKeysets.encodePrettily(), extraMeta);
+        return new Keyset(keyset.getKeysetId(), keyset.getSiteId(), keyset.getName(), new TreeSet<>(allowedSites),
+                keyset.getCreated(), keyset.isEnabled(), keyset.isDefault());
     }
 
     @Override
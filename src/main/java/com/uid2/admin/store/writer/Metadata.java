@@ -22,6 +22,15 @@ public class Metadata {
         metadata.put("generated", generated);
     }
 
+    // digest of the data file content, lets writers skip uploads that would not change anything
+    public void setContentDigest(String contentDigest) {
+        metadata.put("content_digest", contentDigest);
+    }
+
+    public String getContentDigest() {
+        return metadata.getString("content_digest");
+    }
+
     public void addExtra(JsonObject extraMeta) {
         extraMeta.forEach(pair -> metadata.put(pair.getKey(), pair.getValue()));
     }
@@ -1,7 +1,12 @@
 package com.uid2.admin.store.writer;
 
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.uid2.admin.monitoring.RequestTrace;
 import com.uid2.admin.store.FileManager;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.SiteChangeTracker;
+import com.uid2.admin.store.event.StoreChangeEvent;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.auth.OperatorKey;
 import com.uid2.shared.auth.RotatingOperatorKeyProvider;
@@ -11,18 +16,29 @@ import io.vertx.core.json.JsonObject;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Map;
 
 public class OperatorKeyStoreWriter {
     private final RotatingOperatorKeyProvider provider;
     private final FileManager fileManager;
     private final ObjectWriter jsonWriter;
     private final VersionGenerator versionGenerator;
+    private final StoreChangePublisher changePublisher;
+    private final StoreLoader storeLoader;
+    private final SiteChangeTracker<OperatorKey> changeTracker = new SiteChangeTracker<>(OperatorKey::getSiteId);
 
     public OperatorKeyStoreWriter(RotatingOperatorKeyProvider provider, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator) {
+        this(provider, fileManager, jsonWriter, versionGenerator, new StoreChangePublisher(), new StoreLoader());
+    }
+
+    public OperatorKeyStoreWriter(RotatingOperatorKeyProvider provider, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator, StoreChangePublisher changePublisher, StoreLoader storeLoader) {
         this.provider = provider;
         this.fileManager = fileManager;
         this.jsonWriter = jsonWriter;
         this.versionGenerator = versionGenerator;
+        this.changePublisher = changePublisher;
+        this.storeLoader = storeLoader;
+        storeLoader.setDataType(provider, "operators");
     }
 
     public void upload(Collection<OperatorKey> data) throws Exception {
@@ -38,11 +54,15 @@ public class OperatorKeyStoreWriter {
         CloudPath location = new CloudPath(metadata.getJsonObject("operators").getString("location"));
 
         // generate new operators
-        String content = jsonWriter.writeValueAsString(data);
-        fileManager.uploadFile(location, dataFile, content);
+        String content = RequestTrace.time("serialize", "operators", () -> jsonWriter.writeValueAsString(data));
+        Map<Integer, Integer> digests = changeTracker.digest(data);
+        fileManager.uploadFile(location, dataFile, content, "operators");
         fileManager.uploadMetadata(metadata, "operators", provider.getMetadataPath());
 
         // refresh manually
-        provider.loadContent(provider.getMetadata());
+        storeLoader.load(provider);
+
+        changePublisher.publish(new StoreChangeEvent("operators", changeTracker.getChangedSiteIds(digests)));
+        changeTracker.commit(digests);
     }
 }
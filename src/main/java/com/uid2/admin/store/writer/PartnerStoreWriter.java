@@ -1,6 +1,7 @@
 package com.uid2.admin.store.writer;
 
 import com.uid2.admin.store.FileManager;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.reader.RotatingPartnerStore;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.store.CloudPath;
@@ -14,12 +15,19 @@ public class PartnerStoreWriter {
     private final RotatingPartnerStore provider;
     private final FileManager fileManager;
     private final VersionGenerator versionGenerator;
+    private final StoreLoader storeLoader;
 
 
     public PartnerStoreWriter(RotatingPartnerStore provider, FileManager fileManager, VersionGenerator versionGenerator) {
+        this(provider, fileManager, versionGenerator, new StoreLoader());
+    }
+
+    public PartnerStoreWriter(RotatingPartnerStore provider, FileManager fileManager, VersionGenerator versionGenerator, StoreLoader storeLoader) {
         this.provider = provider;
         this.fileManager = fileManager;
         this.versionGenerator = versionGenerator;
+        this.storeLoader = storeLoader;
+        storeLoader.setDataType(provider, "partners");
     }
 
     public void upload(JsonArray partners) throws Exception {
@@ -36,10 +44,10 @@ public class PartnerStoreWriter {
 
         // generate new partners
         String content = partners.encodePrettily();
-        fileManager.uploadFile(location, dataFile, content);
+        fileManager.uploadFile(location, dataFile, content, "partners");
         fileManager.uploadMetadata(metadata, "partners", new CloudPath(provider.getMetadataPath()));
 
         // refresh manually
-        provider.loadContent(provider.getMetadata());
+        storeLoader.load(provider);
     }
 }
@@ -1,6 +1,8 @@
 package com.uid2.admin.store.writer;
 
+import com.uid2.admin.monitoring.RequestTrace;
 import com.uid2.admin.store.FileManager;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.cloud.CloudStorageException;
 import com.uid2.shared.cloud.TaggableCloudStorage;
@@ -13,6 +15,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
@@ -28,6 +32,7 @@ public class SaltStoreWriter {
     private final FileManager fileManager;
     private final String saltSnapshotLocationPrefix;
     private final VersionGenerator versionGenerator;
+    private final StoreLoader storeLoader;
 
     private final TaggableCloudStorage cloudStorage;
 
@@ -35,11 +40,17 @@ public class SaltStoreWriter {
     private final Map<String, String> obsoleteTags = Map.of("status", "obsolete");
 
     public SaltStoreWriter(JsonObject config, RotatingSaltProvider provider, FileManager fileManager, TaggableCloudStorage cloudStorage, VersionGenerator versionGenerator) {
+        this(config, provider, fileManager, cloudStorage, versionGenerator, new StoreLoader());
+    }
+
+    public SaltStoreWriter(JsonObject config, RotatingSaltProvider provider, FileManager fileManager, TaggableCloudStorage cloudStorage, VersionGenerator versionGenerator, StoreLoader storeLoader) {
         this.provider = provider;
         this.fileManager = fileManager;
         this.cloudStorage = cloudStorage;
         this.saltSnapshotLocationPrefix = config.getString("salt_snapshot_location_prefix");
         this.versionGenerator = versionGenerator;
+        this.storeLoader = storeLoader;
+        storeLoader.setDataType(provider, "salts");
     }
 
     public void upload(RotatingSaltProvider.SaltSnapshot data) throws Exception {
@@ -89,7 +100,7 @@ public class SaltStoreWriter {
         fileManager.uploadMetadata(metadata, "salts", new CloudPath(provider.getMetadataPath()));
 
         // refresh manually
-        provider.loadContent();
+        storeLoader.load(provider);
     }
 
     /**
@@ -125,12 +136,18 @@ public class SaltStoreWriter {
 
         final Path newSaltsFile = Files.createTempFile("operators", ".txt");
         try (BufferedWriter w = Files.newBufferedWriter(newSaltsFile)) {
-            for (SaltEntry entry : snapshot.getAllRotatingSalts()) {
-                w.write(entry.getId() + "," + entry.getLastUpdated() + "," + entry.getSalt() + "\n");
-            }
+            writeSalts(snapshot, w);
         }
 
-        cloudStorage.upload(newSaltsFile.toString(), location, this.currentTags);
+        // tagged, so uploaded through the cloud storage directly rather than the file manager
+        RequestTrace.time("upload_data", "salts", () -> cloudStorage.upload(newSaltsFile.toString(), location, this.currentTags));
+    }
+
+    // one "id,last updated,salt" line per entry
+    static void writeSalts(RotatingSaltProvider.SaltSnapshot snapshot, Writer w) throws IOException {
+        for (SaltEntry entry : snapshot.getAllRotatingSalts()) {
+            w.write(entry.getId() + "," + entry.getLastUpdated() + "," + entry.getSalt() + "\n");
+        }
     }
 
     private void setStatusTagToCurrent(String location) throws CloudStorageException {
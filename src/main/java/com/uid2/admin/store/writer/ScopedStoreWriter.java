@@ -1,14 +1,25 @@
 package com.uid2.admin.store.writer;
 
+import com.google.common.hash.Hashing;
+import com.uid2.admin.monitoring.RequestTrace;
+import com.uid2.admin.store.AsyncFileManager;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.StoreChangeEvent;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.store.CloudPath;
 import com.uid2.admin.store.FileName;
 import com.uid2.shared.store.reader.IMetadataVersionedStore;
 import com.uid2.shared.store.scope.StoreScope;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
 public class ScopedStoreWriter {
     private final IMetadataVersionedStore provider;
     private final FileManager fileManager;
@@ -17,6 +28,8 @@ public class ScopedStoreWriter {
     private final StoreScope scope;
     private final FileName dataFile;
     private final String dataType;
+    private final StoreChangePublisher changePublisher;
+    private final StoreLoader storeLoader;
 
     public ScopedStoreWriter(
             IMetadataVersionedStore provider,
@@ -26,6 +39,20 @@ public class ScopedStoreWriter {
             StoreScope scope,
             FileName dataFile,
             String dataType
+    ) {
+        this(provider, fileManager, versionGenerator, clock, scope, dataFile, dataType, new StoreChangePublisher(), new StoreLoader());
+    }
+
+    public ScopedStoreWriter(
+            IMetadataVersionedStore provider,
+            FileManager fileManager,
+            VersionGenerator versionGenerator,
+            Clock clock,
+            StoreScope scope,
+            FileName dataFile,
+            String dataType,
+            StoreChangePublisher changePublisher,
+            StoreLoader storeLoader
     ) {
         this.provider = provider;
         this.fileManager = fileManager;
@@ -34,32 +61,118 @@ public class ScopedStoreWriter {
         this.scope = scope;
         this.dataFile = dataFile;
         this.dataType = dataType;
+        this.changePublisher = changePublisher;
+        this.storeLoader = storeLoader;
+        storeLoader.setDataType(provider, dataType);
     }
 
     public void upload(String data, JsonObject extraMeta) throws Exception {
+        upload(data, extraMeta, null);
+    }
+
+    // changedSiteIds is published with the change event, null if unknown
+    public void upload(String data, JsonObject extraMeta, Set<Integer> changedSiteIds) throws Exception {
+        upload(data, contentDigest(data), extraMeta, changedSiteIds);
+    }
+
+    // uploads data unless it has the same digest as the current content, returns whether it uploaded
+    public boolean uploadIfChanged(String data, JsonObject extraMeta, String currentContentDigest) throws Exception {
+        String digest = contentDigest(data);
+        if (digest.equals(currentContentDigest)) {
+            return false;
+        }
+        upload(data, digest, extraMeta, null);
+        return true;
+    }
+
+    // serializes data, timed as the serialize section of this writer's data type
+    public String serialize(RequestTrace.Section<String> serializer) throws Exception {
+        return RequestTrace.time("serialize", dataType, serializer);
+    }
+
+    public static String contentDigest(String data) {
+        return Hashing.sha256().hashString(data, StandardCharsets.UTF_8).toString();
+    }
+
+    private void upload(String data, String contentDigest, JsonObject extraMeta, Set<Integer> changedSiteIds) throws Exception {
         final long generated = clock.getEpochSecond();
-        boolean isFirstWrite = !fileManager.isPresent(scope.getMetadataPath());
-        CloudPath location;
-        Metadata metadata;
-        if (isFirstWrite) {
-            metadata = new Metadata(new JsonObject());
-            location = scope.resolve(new CloudPath(dataFile.toString()));
-            metadata.setLocation(dataType, location);
-        } else {
-            metadata = new Metadata(provider.getMetadata());
-            location = metadata.locationOf(dataType);
+        try {
+            Metadata metadata = RequestTrace.time("read_metadata", dataType, () -> {
+                boolean isFirstWrite = !fileManager.isPresent(scope.getMetadataPath());
+                return isFirstWrite ? firstMetadata() : new Metadata(provider.getMetadata());
+            });
+            stamp(metadata, generated, contentDigest, extraMeta);
+
+            fileManager.uploadFile(metadata.locationOf(dataType), dataFile, data, dataType);
+            fileManager.uploadMetadata(metadata.getJson(), dataType, scope.getMetadataPath());
+
+            storeLoader.load(provider);
+        } catch (Exception e) {
+            // the snapshot may have been changed in place for this write, load it again right away so that it
+            // neither serves the unwritten change nor keeps the identity response caches version it by
+            try {
+                storeLoader.load(provider);
+            } catch (Exception reloadFailure) {
+                e.addSuppressed(reloadFailure);
+                storeLoader.invalidate(provider);
+            }
+            throw e;
         }
 
+        changePublisher.publish(new StoreChangeEvent(dataType, changedSiteIds));
+    }
+
+    /*
+     * Same as upload, but composed of futures: every cloud call runs on a worker thread
+     * and no thread is held between them, so it can be started from the event loop.
+     */
+    public Future<Void> uploadAsync(String data, JsonObject extraMeta, Vertx vertx) {
+        final AsyncFileManager files = new AsyncFileManager(fileManager, vertx);
+        final long generated = clock.getEpochSecond();
+        final String contentDigest = contentDigest(data);
+        return files.isPresent(scope.getMetadataPath())
+                .compose(isPresent -> isPresent
+                        ? files.run(provider::getMetadata).map(Metadata::new)
+                        : Future.succeededFuture(firstMetadata()))
+                .compose(metadata -> {
+                    try {
+                        stamp(metadata, generated, contentDigest, extraMeta);
+                    } catch (Exception e) {
+                        return Future.failedFuture(e);
+                    }
+                    return files.uploadFile(metadata.locationOf(dataType), dataFile, data, dataType)
+                            .compose(v -> files.uploadMetadata(metadata.getJson(), dataType, scope.getMetadataPath()));
+                })
+                .compose(v -> files.run(() -> storeLoader.load(provider)))
+                .recover(e -> files.run(() -> {
+                    // same as upload: drop any in place change to the snapshot before failing the write
+                    try {
+                        storeLoader.load(provider);
+                    } catch (Exception reloadFailure) {
+                        e.addSuppressed(reloadFailure);
+                        storeLoader.invalidate(provider);
+                    }
+                    return null;
+                }).transform(ar -> Future.<Long>failedFuture(e)))
+                .map(version -> {
+                    changePublisher.publish(new StoreChangeEvent(dataType, null));
+                    return null;
+                });
+    }
+
+    private Metadata firstMetadata() {
+        Metadata metadata = new Metadata(new JsonObject());
+        metadata.setLocation(dataType, scope.resolve(new CloudPath(dataFile.toString())));
+        return metadata;
+    }
+
+    private void stamp(Metadata metadata, long generated, String contentDigest, JsonObject extraMeta) throws Exception {
         metadata.setVersion(versionGenerator.getVersion());
         metadata.setGenerated(generated);
+        metadata.setContentDigest(contentDigest);
         if (extraMeta != null) {
             metadata.addExtra(extraMeta);
         }
-
-        fileManager.uploadFile(location, dataFile, data);
-        fileManager.uploadMetadata(metadata.getJson(), dataType, scope.getMetadataPath());
-
-        provider.loadContent(provider.getMetadata());
     }
 
     public void upload(String data) throws Exception {
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
 import com.uid2.admin.store.FileName;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.model.ServiceLink;
 import com.uid2.shared.store.reader.IMetadataVersionedStore;
@@ -18,15 +20,19 @@ public class ServiceLinkStoreWriter implements StoreWriter<Collection<ServiceLin
     private final ObjectWriter jsonWriter;
 
     public ServiceLinkStoreWriter(IMetadataVersionedStore reader, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope) {
+        this(reader, fileManager, jsonWriter, versionGenerator, clock, scope, new StoreLoader());
+    }
+
+    public ServiceLinkStoreWriter(IMetadataVersionedStore reader, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope, StoreLoader storeLoader) {
         this.jsonWriter = jsonWriter;
         FileName dataFile = new FileName("service_links", ".json");
         String dataType = "service_links";
-        writer = new ScopedStoreWriter(reader, fileManager, versionGenerator, clock, scope, dataFile, dataType);
+        writer = new ScopedStoreWriter(reader, fileManager, versionGenerator, clock, scope, dataFile, dataType, new StoreChangePublisher(), storeLoader);
     }
 
     @Override
     public void upload(Collection<ServiceLink> data, JsonObject extraMeta) throws Exception {
-        writer.upload(jsonWriter.writeValueAsString(data), extraMeta);
+        writer.upload(writer.serialize(() -> jsonWriter.writeValueAsString(data)), extraMeta);
     }
 
     @Override
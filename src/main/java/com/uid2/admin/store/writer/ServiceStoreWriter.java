@@ -4,10 +4,14 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
 import com.uid2.admin.store.FileName;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.model.Service;
 import com.uid2.shared.store.reader.IMetadataVersionedStore;
 import com.uid2.shared.store.scope.StoreScope;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 
 import java.util.Collection;
@@ -18,15 +22,29 @@ public class ServiceStoreWriter implements StoreWriter<Collection<Service>> {
     private final ObjectWriter jsonWriter;
 
     public ServiceStoreWriter(IMetadataVersionedStore reader, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope) {
+        this(reader, fileManager, jsonWriter, versionGenerator, clock, scope, new StoreLoader());
+    }
+
+    public ServiceStoreWriter(IMetadataVersionedStore reader, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope, StoreLoader storeLoader) {
         this.jsonWriter = jsonWriter;
         FileName dataFile = new FileName("services", ".json");
         String dataType = "services";
-        writer = new ScopedStoreWriter(reader, fileManager, versionGenerator, clock, scope, dataFile, dataType);
+        writer = new ScopedStoreWriter(reader, fileManager, versionGenerator, clock, scope, dataFile, dataType, new StoreChangePublisher(), storeLoader);
     }
 
     @Override
     public void upload(Collection<Service> data, JsonObject extraMeta) throws Exception {
-        writer.upload(jsonWriter.writeValueAsString(data), extraMeta);
+        writer.upload(writer.serialize(() -> jsonWriter.writeValueAsString(data)), extraMeta);
+    }
+
+    public Future<Void> uploadAsync(Collection<Service> data, JsonObject extraMeta, Vertx vertx) {
+        final String json;
+        try {
+            json = writer.serialize(() -> jsonWriter.writeValueAsString(data));
+        } catch (Exception e) {
+            return Future.failedFuture(e);
+        }
+        return writer.uploadAsync(json, extraMeta, vertx);
     }
 
     @Override
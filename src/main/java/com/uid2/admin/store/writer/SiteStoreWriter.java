@@ -1,31 +1,54 @@
 package com.uid2.admin.store.writer;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
 import com.uid2.admin.store.FileName;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.SiteChangeTracker;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.shared.model.Site;
 import com.uid2.shared.store.reader.IMetadataVersionedStore;
 import com.uid2.shared.store.scope.StoreScope;
 import io.vertx.core.json.JsonObject;
 
-import java.util.Collection;
+import java.util.*;
 
 public class SiteStoreWriter implements StoreWriter<Collection<Site>> {
     private final ScopedStoreWriter writer;
     private final ObjectWriter jsonWriter;
+    private final SiteChangeTracker<Site> changeTracker = new SiteChangeTracker<>(Site::getId);
 
     public SiteStoreWriter(IMetadataVersionedStore reader, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope) {
+        this(reader, fileManager, jsonWriter, versionGenerator, clock, scope, new StoreChangePublisher(), new StoreLoader());
+    }
+
+    public SiteStoreWriter(IMetadataVersionedStore reader, FileManager fileManager, ObjectWriter jsonWriter, VersionGenerator versionGenerator, Clock clock, StoreScope scope, StoreChangePublisher changePublisher, StoreLoader storeLoader) {
         this.jsonWriter = jsonWriter;
         FileName dataFile = new FileName("sites", ".json");
         String dataType = "sites";
-        writer = new ScopedStoreWriter(reader, fileManager, versionGenerator, clock, scope, dataFile, dataType);
+        writer = new ScopedStoreWriter(reader, fileManager, versionGenerator, clock, scope, dataFile, dataType, changePublisher, storeLoader);
     }
 
     @Override
     public void upload(Collection<Site> data, JsonObject extraMeta) throws Exception {
-        writer.upload(jsonWriter.writeValueAsString(data), extraMeta);
+        Map<Integer, Integer> digests = changeTracker.digest(data);
+        writer.upload(writer.serialize(() -> serialize(jsonWriter, data)), extraMeta, changeTracker.getChangedSiteIds(digests));
+        changeTracker.commit(digests);
+    }
+
+    @Override
+    public boolean uploadIfChanged(Collection<Site> data, JsonObject extraMeta, String currentContentDigest) throws Exception {
+        return writer.uploadIfChanged(writer.serialize(() -> serialize(jsonWriter, data)), extraMeta, currentContentDigest);
+    }
+
+    // sorted so that the same sites always serialize to the same content
+    static String serialize(ObjectWriter jsonWriter, Collection<Site> data) throws JsonProcessingException {
+        List<Site> sorted = new ArrayList<>(data);
+        sorted.sort(Comparator.comparingInt(Site::getId));
+        return jsonWriter.writeValueAsString(sorted);
     }
 
     @Override
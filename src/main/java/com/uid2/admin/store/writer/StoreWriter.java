@@ -5,5 +5,14 @@ import io.vertx.core.json.JsonObject;
 public interface StoreWriter<T> {
     void upload(T data, JsonObject extraMeta) throws Exception;
 
+    /*
+     * Uploads data unless its content has the given digest, returns whether it uploaded.
+     * Writers that do not record content digests always upload.
+     */
+    default boolean uploadIfChanged(T data, JsonObject extraMeta, String currentContentDigest) throws Exception {
+        upload(data, extraMeta);
+        return true;
+    }
+
     void rewriteMeta() throws Exception;
 }
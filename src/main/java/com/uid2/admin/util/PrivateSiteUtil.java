@@ -2,6 +2,7 @@ package com.uid2.admin.util;
 
 import com.uid2.admin.legacy.LegacyClientKey;
 import com.uid2.admin.model.PrivateSiteDataMap;
+import com.uid2.admin.model.PrivateSiteTopology;
 import com.uid2.shared.Const;
 import com.uid2.shared.auth.*;
 import com.uid2.shared.model.EncryptionKey;
@@ -11,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -27,19 +29,22 @@ public final class PrivateSiteUtil {
     public static PrivateSiteDataMap<LegacyClientKey> getClientKeys(
             Collection<OperatorKey> operators,
             Collection<LegacyClientKey> clients) {
-        final PrivateSiteDataMap<LegacyClientKey> result = getPrivateSites(operators);
+        return getClientKeys(PrivateSiteTopology.fromOperators(operators), clients);
+    }
+
+    public static PrivateSiteDataMap<LegacyClientKey> getClientKeys(
+            PrivateSiteTopology topology,
+            Collection<LegacyClientKey> clients) {
+        final List<Set<LegacyClientKey>> result = newSetPerSite(topology);
 
         // For each client key that is enabled, add it to every Synced Site
         clients.forEach(c -> {
-            if (!c.isDisabled()) {
-                result.computeIfPresent(c.getSiteId(), (privateSiteId, privateSiteSet) -> {
-                    privateSiteSet.add(c);
-                    return privateSiteSet;
-                });
+            if (!c.isDisabled() && c.getSiteId() != null) {
+                addToSite(topology, result, c.getSiteId(), c);
             }
         });
 
-        return result;
+        return toDataMap(topology, result);
     }
 
     public static PrivateSiteDataMap<EncryptionKey> getEncryptionKeys(
@@ -47,68 +52,51 @@ public final class PrivateSiteUtil {
             Collection<EncryptionKey> keys,
             Map<Integer, EncryptionKeyAcl> acls,
             Collection<LegacyClientKey> clients) {
-        final PrivateSiteDataMap<EncryptionKey> result = getPrivateSites(operators);
-
-        // If it is for a Special Site, add this key to every Private Site
-        keys.stream()
-                .filter(k -> isSpecialSite(k.getSiteId()))
-                .forEach(k -> result.forEach((privateSiteId, privateSiteSet) -> privateSiteSet.add(k)));
-
-        // Else, add it to corresponding Private Site
-        keys.stream()
-                .filter(k -> !isSpecialSite(k.getSiteId()))
-                .forEach(k -> result.computeIfPresent(k.getSiteId(), (privateSiteId, privateSiteSet) -> {
-                    privateSiteSet.add(k);
-                    return privateSiteSet;
-                }));
-
-        // Filter OUT special keys and filter IN Reader Site keys ONLY
+        return getEncryptionKeys(PrivateSiteTopology.fromOperators(operators), keys, acls, clients);
+    }
+
+    public static PrivateSiteDataMap<EncryptionKey> getEncryptionKeys(
+            PrivateSiteTopology topology,
+            Collection<EncryptionKey> keys,
+            Map<Integer, EncryptionKeyAcl> acls,
+            Collection<LegacyClientKey> clients) {
+        final List<Set<EncryptionKey>> result = newSetPerSite(topology);
         final Set<Integer> readerSites = clients.stream()
                 .filter(c -> c.hasRole(Role.ID_READER))
                 .map(LegacyClientKey::getSiteId)
                 .collect(Collectors.toSet());
-        keys.stream()
-                .filter(k -> !isSpecialSite(k.getSiteId()) && readerSites.contains(k.getSiteId()))
-                .forEach(encryptionKey -> processAclPermissionsForEncryptionKey(encryptionKey, result, acls));
 
-        return result;
+        keys.forEach(k -> {
+            if (isSpecialSite(k.getSiteId())) {
+                // If it is for a Special Site, add this key to every Private Site
+                result.forEach(privateSiteSet -> privateSiteSet.add(k));
+            } else {
+                // Else, add it to corresponding Private Site
+                addToSite(topology, result, k.getSiteId(), k);
+
+                // Reader Site keys are also shared according to the ACLs
+                if (readerSites.contains(k.getSiteId())) {
+                    processAclPermissionsForEncryptionKey(k, topology, result, acls);
+                }
+            }
+        });
+
+        return toDataMap(topology, result);
     }
 
     // acls is Map<SiteId, EncryptionKeyAcl>
     public static PrivateSiteDataMap<EncryptionKeyAcl> getEncryptionKeyAcls(
             Collection<OperatorKey> operators,
             Map<Integer, EncryptionKeyAcl> acls) {
-        final PrivateSiteDataMap<EncryptionKeyAcl> result = getPrivateSites(operators);
-
-        acls.forEach((siteId, acl) -> {
-            // Add it to site file for its site_id
-            result.computeIfPresent(siteId, (privateSiteId, privateSiteSet) -> {
-                privateSiteSet.add(acl);
-                return privateSiteSet;
-            });
+        return getEncryptionKeyAcls(PrivateSiteTopology.fromOperators(operators), acls);
+    }
 
-            if (acl.getIsWhitelist()) {
-                // If it's a whitelist, also write it to every site file for the whitelist
-                acl.getAccessList().forEach(whiteListedSiteId ->
-                        result.computeIfPresent(whiteListedSiteId, (privateSiteId, privateSiteSet) -> {
-                            // Avoid adding duplicate as it could be added above already
-                            if(privateSiteId.intValue() != siteId.intValue()) {
-                                privateSiteSet.add(acl);
-                            }
-                            return privateSiteSet;
-                        }));
-            } else { // Blacklisted
-                // If it's a blacklist, also write it to every site file except those on the blacklist
-                final Set<Integer> blacklisted = acl.getAccessList();
-                result.forEach((privateSiteId, privateSiteSet) -> {
-                    // Avoid adding duplicate as it could be added above already
-                    if (!blacklisted.contains(privateSiteId) && privateSiteId.intValue() != siteId.intValue()) {
-                        privateSiteSet.add(acl);
-                    }
-                });
-            }
-        });
-        return result;
+    public static PrivateSiteDataMap<EncryptionKeyAcl> getEncryptionKeyAcls(
+            PrivateSiteTopology topology,
+            Map<Integer, EncryptionKeyAcl> acls) {
+        final List<Set<EncryptionKeyAcl>> result = newSetPerSite(topology);
+        acls.forEach((siteId, acl) -> forEachSiteSeeingAcl(topology, siteId, acl, index -> result.get(index).add(acl)));
+        return toDataMap(topology, result);
     }
 
     //returns <SiteId, Map<SiteId, EncryptionKeyAcl>> - so for each site (id) X, returns
@@ -116,198 +104,220 @@ public final class PrivateSiteUtil {
     public static HashMap<Integer, Map<Integer, EncryptionKeyAcl>> getEncryptionKeyAclsForEachSite(
             Collection<OperatorKey> operators,
             Map<Integer, EncryptionKeyAcl> acls) {
-        final HashMap<Integer, Map<Integer, EncryptionKeyAcl>> result = getPrivateSiteMap(operators);
-
-        acls.forEach((siteId, acl) -> {
-            // Add it to site file for its site_id
-            result.computeIfPresent(siteId, (privateSiteId, privateSiteMap) -> {
-                privateSiteMap.put(siteId, acl);
-                return privateSiteMap;
-            });
+        return getEncryptionKeyAclsForEachSite(PrivateSiteTopology.fromOperators(operators), acls);
+    }
 
-            if (acl.getIsWhitelist()) {
-                // If it's a whitelist, also write it to every site file for the whitelist
-                acl.getAccessList().forEach(whiteListedSiteId ->
-                        result.computeIfPresent(whiteListedSiteId, (privateSiteId, privateSiteMap) -> {
-                            // Avoid adding duplicate as it could be added above already
-                            if(privateSiteId.intValue() != siteId.intValue()) {
-                                privateSiteMap.put(siteId, acl);
-                            }
-                            return privateSiteMap;
-                        }));
-            } else { // Blacklisted
-                // If it's a blacklist, also write it to every site file except those on the blacklist
-                final Set<Integer> blacklisted = acl.getAccessList();
-                result.forEach((privateSiteId, privateSiteMap) -> {
-                    // Avoid adding duplicate as it could be added above already
-                    if (!blacklisted.contains(privateSiteId) && privateSiteId.intValue() != siteId.intValue()) {
-                        privateSiteMap.put(siteId, acl);
-                    }
-                });
-            }
-        });
-        return result;
+    public static HashMap<Integer, Map<Integer, EncryptionKeyAcl>> getEncryptionKeyAclsForEachSite(
+            PrivateSiteTopology topology,
+            Map<Integer, EncryptionKeyAcl> acls) {
+        final List<Map<Integer, EncryptionKeyAcl>> result = newMapPerSite(topology);
+        acls.forEach((siteId, acl) -> forEachSiteSeeingAcl(topology, siteId, acl, index -> result.get(index).put(siteId, acl)));
+        return toSiteMap(topology, result);
     }
 
     public static HashMap<Integer, Map<Integer, Keyset>> getKeysetForEachSite(Collection<OperatorKey> operators,
         Map<Integer, Keyset> keysets) {
-        final HashMap<Integer, Map<Integer, Keyset>> result = getPrivateSiteMap(operators);
+        return getKeysetForEachSite(PrivateSiteTopology.fromOperators(operators), keysets);
+    }
+
+    public static HashMap<Integer, Map<Integer, Keyset>> getKeysetForEachSite(PrivateSiteTopology topology,
+        Map<Integer, Keyset> keysets) {
+        final List<Map<Integer, Keyset>> result = newMapPerSite(topology);
 
         keysets.forEach((keysetId, keyset) -> {
             int siteId = keyset.getSiteId();
             // Add to list for own site
-            result.computeIfPresent(siteId, (privateSiteId, privateKeysetMap) -> {
-                privateKeysetMap.put(keysetId, keyset);
-                return privateKeysetMap;
-            });
+            int ownIndex = topology.indexOf(siteId);
+            if (ownIndex >= 0) {
+                result.get(ownIndex).put(keysetId, keyset);
+            }
 
             // Add special sites to all operators
             if(isSpecialSite(siteId)) {
-                result.forEach((privateSiteId, privateSiteMap) -> {
-                    privateSiteMap.put(keysetId, keyset);
-                });
+                result.forEach(privateSiteMap -> privateSiteMap.put(keysetId, keyset));
             }
             // Add to list of all allowed sites
             Set<Integer> allowedSites = keyset.getAllowedSites();
             if(allowedSites != null)
             {
-                allowedSites.forEach(allowedSiteId ->
-                        result.computeIfPresent(allowedSiteId, (privateSiteId, privateSiteMap) -> {
-                            if(privateSiteId.intValue() != siteId) {
-                                privateSiteMap.put(keysetId, keyset);
-                            }
-                            return privateSiteMap;
-                        }));
+                allowedSites.forEach(allowedSiteId -> {
+                    if (allowedSiteId != siteId) {
+                        int index = topology.indexOf(allowedSiteId);
+                        if (index >= 0) {
+                            result.get(index).put(keysetId, keyset);
+                        }
+                    }
+                });
             }
         });
 
-        return result;
+        return toSiteMap(topology, result);
     }
 
     public static PrivateSiteDataMap<Site> getSites(
             Collection<Site> sites,
             Collection<OperatorKey> operators) {
-        final PrivateSiteDataMap<Site> result = getPrivateSites(operators);
+        return getSites(sites, PrivateSiteTopology.fromOperators(operators));
+    }
+
+    public static PrivateSiteDataMap<Site> getSites(
+            Collection<Site> sites,
+            PrivateSiteTopology topology) {
+        final List<Set<Site>> result = newSetPerSite(topology);
 
         sites.forEach(s -> {
             // Special case
             if (s.getId() == Const.Data.AdvertisingTokenSiteId) {
                 // If its id is 2, add it for every site
-                result.forEach((privateSiteId, privateSiteData) -> privateSiteData.add(s));
+                result.forEach(privateSiteData -> privateSiteData.add(s));
             } else {
                 // Add it to its own site data file only
-                result.computeIfPresent(s.getId(), (privateSiteId, privateSiteSet) -> {
-                    privateSiteSet.add(s);
-                    return privateSiteSet;
-                });
+                addToSite(topology, result, s.getId(), s);
             }
         });
 
-        return result;
+        return toDataMap(topology, result);
     }
 
-    private static <T> PrivateSiteDataMap<T> getPrivateSites(Collection<OperatorKey> operators) {
-        PrivateSiteDataMap<T> result = new PrivateSiteDataMap<>();
-        operators.forEach(o -> {
-            // TODO: Should we check if site is disabled?
-            if (o.getOperatorType() == OperatorType.PRIVATE
-                    && o.getSiteId() != null && !result.containsKey(o.getSiteId())) {
-                result.put(o.getSiteId(), new HashSet<>());
-            }
-        });
-        return result;
-    }
-
-    private static <T> HashMap<Integer, Map<Integer, T>> getPrivateSiteMap(Collection<OperatorKey> operators) {
-        HashMap<Integer, Map<Integer, T>> result = new HashMap<>();
-        operators.forEach(o -> {
-            // TODO: Should we check if site is disabled?
-            if (o.getOperatorType() == OperatorType.PRIVATE
-                    && o.getSiteId() != null && !result.containsKey(o.getSiteId())) {
-                result.put(o.getSiteId(), new HashMap<>());
-            }
-        });
-        return result;
-    }
-
-    private static boolean isSpecialSite(int siteId) {
-        return siteId == Const.Data.RefreshKeySiteId
-                || siteId == Const.Data.MasterKeySiteId
-                || siteId == Const.Data.AdvertisingTokenSiteId;
-    }
-
-    private static void processAclPermissionsForEncryptionKey(
-            EncryptionKey encryptionKey,
-            PrivateSiteDataMap<EncryptionKey> privateSiteEncryptionKeyMap,
-            Map<Integer, EncryptionKeyAcl> acls) {
-        if(acls.containsKey(encryptionKey.getSiteId())) {
-            final EncryptionKeyAcl acl = acls.get(encryptionKey.getSiteId());
-            if (acl.getIsWhitelist()) {
-                // If it is a whitelist, write this key to every site_id on the whitelist
-                // The filter below is to avoid adding duplicate as it could be added above already
-                acl.getAccessList().stream()
-                        .filter(whiteListedSiteId -> whiteListedSiteId != encryptionKey.getSiteId())
-                        .forEach(whiteListedSiteId ->
-                                privateSiteEncryptionKeyMap.computeIfPresent(whiteListedSiteId, (privateSiteId, privateSiteSet) -> {
-                                    privateSiteSet.add(encryptionKey);
-                                    return privateSiteSet;
-                                }));
-            } else { // Blacklisted
-                // If it is a blacklist, write this key to every site_id that is not on the blacklist
-                final Set<Integer> blacklisted = acl.getAccessList();
-                privateSiteEncryptionKeyMap.forEach((privateSiteId, privateSiteSet) -> {
-                    // Avoid adding duplicate as it could be added above already
-                    if (!blacklisted.contains(privateSiteId) && privateSiteId != encryptionKey.getSiteId()) {
-                        privateSiteSet.add(encryptionKey);
-                    }
-                });
-            }
-        } else {
-            // If no keys_acl are for this site_id, add it to each site
-            privateSiteEncryptionKeyMap.forEach((privateSiteId, privateSiteSet) -> {
-                // Avoid adding duplicate as it could be added above already
-                if (privateSiteId != encryptionKey.getSiteId()) {
-                    privateSiteSet.add(encryptionKey);
-                }
-            });
-        }
+    public static PrivateSiteDataMap<KeysetKey> getKeysetKeys(Collection<OperatorKey> globalOperators,
+                                                              Collection<KeysetKey> globalKeysetKeys,
+                                                              Map<Integer, Keyset> globalKeysets) {
+        return getKeysetKeys(PrivateSiteTopology.fromOperators(globalOperators), globalKeysetKeys, globalKeysets);
     }
 
-    public static PrivateSiteDataMap<KeysetKey> getKeysetKeys(Collection<OperatorKey> globalOperators,
+    public static PrivateSiteDataMap<KeysetKey> getKeysetKeys(PrivateSiteTopology topology,
                                                               Collection<KeysetKey> globalKeysetKeys,
                                                               Map<Integer, Keyset> globalKeysets) {
-        final PrivateSiteDataMap<KeysetKey> result = getPrivateSites(globalOperators);
+        final List<Set<KeysetKey>> result = newSetPerSite(topology);
 
-        globalKeysetKeys.stream().forEach(keysetKey -> {
+        globalKeysetKeys.forEach(keysetKey -> {
             //Add the key from keysets for its own site
             Keyset keyset = globalKeysets.get(keysetKey.getKeysetId());
             if (keyset == null) {
                 LOGGER.error("Unable to find keyset with keyset id " + keysetKey.getKeysetId());
                 return;
-            };
+            }
             int siteId = keyset.getSiteId();
-            result.computeIfPresent(siteId, (privateSiteId, privateSiteSet) -> {
-                privateSiteSet.add(keysetKey);
-                return privateSiteSet;
-            });
+            addToSite(topology, result, siteId, keysetKey);
             // Add special site keyset keys to all operators
             if(isSpecialSite(siteId)) {
-                result.forEach((privateSiteId, privateSiteSet) -> {
-                    privateSiteSet.add(keysetKey);
-                });
+                result.forEach(privateSiteSet -> privateSiteSet.add(keysetKey));
             }
             //Add the key to all allowed sites
             Set<Integer> allowedSites = keyset.getAllowedSites();
             if(allowedSites != null)
             {
-                allowedSites.forEach(allowedSiteId -> {
-                    result.computeIfPresent(allowedSiteId, (privateSiteId, privateSiteSet) -> {
-                        privateSiteSet.add(keysetKey);
-                        return privateSiteSet;
-                    });
-                });
+                allowedSites.forEach(allowedSiteId -> addToSite(topology, result, allowedSiteId, keysetKey));
             }
         });
+        return toDataMap(topology, result);
+    }
+
+    private static boolean isSpecialSite(int siteId) {
+        return siteId == Const.Data.RefreshKeySiteId
+                || siteId == Const.Data.MasterKeySiteId
+                || siteId == Const.Data.AdvertisingTokenSiteId;
+    }
+
+    // calls action with the index of every private site that needs to know about the acl of siteId
+    private static void forEachSiteSeeingAcl(
+            PrivateSiteTopology topology,
+            int siteId,
+            EncryptionKeyAcl acl,
+            IntConsumer action) {
+        // Add it to site file for its site_id
+        int ownIndex = topology.indexOf(siteId);
+        if (ownIndex >= 0) {
+            action.accept(ownIndex);
+        }
+
+        if (acl.getIsWhitelist()) {
+            // If it's a whitelist, also write it to every site file for the whitelist
+            acl.getAccessList().forEach(whiteListedSiteId -> {
+                // Avoid adding duplicate as it could be added above already
+                if (whiteListedSiteId != siteId) {
+                    int index = topology.indexOf(whiteListedSiteId);
+                    if (index >= 0) {
+                        action.accept(index);
+                    }
+                }
+            });
+        } else { // Blacklisted
+            // If it's a blacklist, also write it to every site file except those on the blacklist
+            final Set<Integer> blacklisted = acl.getAccessList();
+            for (int index = 0; index < topology.size(); index++) {
+                int privateSiteId = topology.getSiteId(index);
+                // Avoid adding duplicate as it could be added above already
+                if (!blacklisted.contains(privateSiteId) && privateSiteId != siteId) {
+                    action.accept(index);
+                }
+            }
+        }
+    }
+
+    private static void processAclPermissionsForEncryptionKey(
+            EncryptionKey encryptionKey,
+            PrivateSiteTopology topology,
+            List<Set<EncryptionKey>> privateSiteEncryptionKeys,
+            Map<Integer, EncryptionKeyAcl> acls) {
+        final EncryptionKeyAcl acl = acls.get(encryptionKey.getSiteId());
+        if (acl != null && acl.getIsWhitelist()) {
+            // If it is a whitelist, write this key to every site_id on the whitelist
+            // The filter below is to avoid adding duplicate as it could be added above already
+            acl.getAccessList().stream()
+                    .filter(whiteListedSiteId -> whiteListedSiteId != encryptionKey.getSiteId())
+                    .forEach(whiteListedSiteId -> addToSite(topology, privateSiteEncryptionKeys, whiteListedSiteId, encryptionKey));
+            return;
+        }
+
+        // If it is a blacklist, write this key to every site_id that is not on the blacklist
+        // If no keys_acl are for this site_id, add it to each site
+        final Set<Integer> blacklisted = acl != null ? acl.getAccessList() : Collections.emptySet();
+        for (int index = 0; index < topology.size(); index++) {
+            int privateSiteId = topology.getSiteId(index);
+            // Avoid adding duplicate as it could be added above already
+            if (!blacklisted.contains(privateSiteId) && privateSiteId != encryptionKey.getSiteId()) {
+                privateSiteEncryptionKeys.get(index).add(encryptionKey);
+            }
+        }
+    }
+
+    private static <T> void addToSite(PrivateSiteTopology topology, List<Set<T>> dataPerSite, int siteId, T data) {
+        int index = topology.indexOf(siteId);
+        if (index >= 0) {
+            dataPerSite.get(index).add(data);
+        }
+    }
+
+    private static <T> List<Set<T>> newSetPerSite(PrivateSiteTopology topology) {
+        List<Set<T>> result = new ArrayList<>(topology.size());
+        for (int index = 0; index < topology.size(); index++) {
+            result.add(new HashSet<>());
+        }
+        return result;
+    }
+
+    private static <T> List<Map<Integer, T>> newMapPerSite(PrivateSiteTopology topology) {
+        List<Map<Integer, T>> result = new ArrayList<>(topology.size());
+        for (int index = 0; index < topology.size(); index++) {
+            result.add(new HashMap<>());
+        }
+        return result;
+    }
+
+    private static <T> PrivateSiteDataMap<T> toDataMap(PrivateSiteTopology topology, List<Set<T>> dataPerSite) {
+        PrivateSiteDataMap<T> result = new PrivateSiteDataMap<>();
+        for (int index = 0; index < topology.size(); index++) {
+            result.put(topology.getSiteId(index), dataPerSite.get(index));
+        }
+        return result;
+    }
+
+    private static <T> HashMap<Integer, Map<Integer, T>> toSiteMap(PrivateSiteTopology topology, List<Map<Integer, T>> dataPerSite) {
+        HashMap<Integer, Map<Integer, T>> result = new HashMap<>();
+        for (int index = 0; index < topology.size(); index++) {
+            result.put(topology.getSiteId(index), dataPerSite.get(index));
+        }
         return result;
     }
 }
@@ -0,0 +1,96 @@
+package com.uid2.admin.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ * An immutable set of ints kept as a sorted array: a fraction of the memory of a HashSet<Integer> and no boxing on
+ * contains. It equals and hashes like any other Set<Integer> with the same ids, so it can stand in for one.
+ */
+public final class SortedIntSet extends AbstractSet<Integer> {
+    private static final SortedIntSet EMPTY = new SortedIntSet(new int[0]);
+
+    private final int[] values;
+
+    private SortedIntSet(int[] values) {
+        this.values = values;
+    }
+
+    public static SortedIntSet empty() {
+        return EMPTY;
+    }
+
+    // takes ownership of values, which may be unsorted and hold duplicates
+    public static SortedIntSet of(int[] values, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        final int[] sorted = length == values.length ? values : Arrays.copyOf(values, length);
+        Arrays.sort(sorted);
+        int distinct = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return new SortedIntSet(distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct));
+    }
+
+    public static SortedIntSet of(int... values) {
+        return of(values.clone(), values.length);
+    }
+
+    public boolean containsInt(int value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && containsInt((Integer) o);
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < values.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (next >= values.length) {
+                    throw new NoSuchElementException();
+                }
+                return values[next++];
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof SortedIntSet) {
+            return Arrays.equals(values, ((SortedIntSet) o).values);
+        }
+        return super.equals(o);
+    }
+
+    // the sum of the ids, as for every Set<Integer>
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int value : values) {
+            hash += value;
+        }
+        return hash;
+    }
+}
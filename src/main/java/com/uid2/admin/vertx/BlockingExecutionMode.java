@@ -0,0 +1,32 @@
+package com.uid2.admin.vertx;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+
+/*
+ * Where blocking handlers of the admin api run.
+ * SHARED runs them on the default Vert.x worker pool, one ordered queue for the whole api.
+ * DEDICATED deploys admin_verticle_instances verticles on a worker pool of their own, so blocking handlers
+ * of different instances run in parallel and do not compete with other verticles for workers.
+ */
+public enum BlockingExecutionMode {
+    SHARED,
+    DEDICATED;
+
+    public static final String CONFIG_PROP = "blocking_execution_mode";
+    public static final String WORKER_POOL_NAME = "admin-blocking";
+
+    public static BlockingExecutionMode fromConfig(JsonObject config) {
+        return valueOf(config.getString(CONFIG_PROP, SHARED.name()).trim().toUpperCase());
+    }
+
+    public DeploymentOptions adminVerticleOptions(JsonObject config) {
+        final DeploymentOptions options = new DeploymentOptions();
+        if (this == DEDICATED) {
+            options.setInstances(config.getInteger("admin_verticle_instances", 2))
+                    .setWorkerPoolName(WORKER_POOL_NAME)
+                    .setWorkerPoolSize(config.getInteger("blocking_worker_pool_size", 20));
+        }
+        return options;
+    }
+}
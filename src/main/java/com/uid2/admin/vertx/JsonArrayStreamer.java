@@ -0,0 +1,103 @@
+package com.uid2.admin.vertx;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.jackson.DatabindCodec;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/*
+ * Writes a json array to a chunked response one element at a time.
+ * Elements are generated into a buffer which is written out whenever it reaches CHUNK_SIZE,
+ * and generation pauses while the response write queue is full.
+ */
+class JsonArrayStreamer<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JsonArrayStreamer.class);
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final RoutingContext rc;
+    private final HttpServerResponse response;
+    private final Iterator<T> items;
+    private final Function<T, ?> toJson;
+    private final BufferOutputStream sink = new BufferOutputStream();
+    private final JsonGenerator generator;
+
+    JsonArrayStreamer(RoutingContext rc, Iterator<T> items, Function<T, ?> toJson) throws IOException {
+        this.rc = rc;
+        this.response = rc.response();
+        this.items = items;
+        this.toJson = toJson;
+        this.generator = DatabindCodec.mapper().getFactory().createGenerator(sink);
+    }
+
+    void start() throws IOException {
+        response.setChunked(true);
+        generator.writeStartArray();
+        pump();
+    }
+
+    private void pump() {
+        try {
+            while (items.hasNext()) {
+                if (response.closed()) {
+                    generator.close();
+                    return;
+                }
+                if (response.writeQueueFull()) {
+                    response.drainHandler(v -> pump());
+                    return;
+                }
+
+                generator.writeObject(toJson.apply(items.next()));
+                if (sink.size() >= CHUNK_SIZE) {
+                    generator.flush();
+                    response.write(record(sink.take()));
+                }
+            }
+
+            generator.writeEndArray();
+            generator.close();
+            response.end(record(sink.take()));
+        } catch (Exception e) {
+            // the status has already been sent, so the only way to signal the failure is to drop the connection
+            LOGGER.error("Failed to stream json array response", e);
+            response.reset();
+        }
+    }
+
+    private Buffer record(Buffer chunk) {
+        SnapshotResponseCache.record(rc, chunk);
+        return chunk;
+    }
+
+    private static class BufferOutputStream extends OutputStream {
+        private Buffer buffer = Buffer.buffer(CHUNK_SIZE);
+
+        @Override
+        public void write(int b) {
+            buffer.appendByte((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.appendBytes(b, off, len);
+        }
+
+        int size() {
+            return buffer.length();
+        }
+
+        Buffer take() {
+            Buffer taken = buffer;
+            buffer = Buffer.buffer(CHUNK_SIZE);
+            return taken;
+        }
+    }
+}
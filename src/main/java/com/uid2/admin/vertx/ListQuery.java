@@ -0,0 +1,167 @@
+package com.uid2.admin.vertx;
+
+import com.uid2.shared.auth.Role;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Optional filters and cursor based pagination of list endpoints.
+ * Without a limit the whole filtered list is returned as a json array, as it always has been.
+ * With a limit, items are ordered by a unique sort key and returned as {"items": [...], "next_cursor": ...},
+ * next_cursor is passed back as cursor to get the following page and is null on the last page.
+ */
+public class ListQuery {
+    public static final int MAX_LIMIT = 1000;
+
+    private final Integer siteId;
+    private final Role role;
+    private final Boolean disabled;
+    private final Long createdAfter;
+    private final Long createdBefore;
+    private final Integer limit;
+    private final String cursor;
+
+    private ListQuery(Integer siteId, Role role, Boolean disabled, Long createdAfter, Long createdBefore, Integer limit, String cursor) {
+        this.siteId = siteId;
+        this.role = role;
+        this.disabled = disabled;
+        this.createdAfter = createdAfter;
+        this.createdBefore = createdBefore;
+        this.limit = limit;
+        this.cursor = cursor;
+    }
+
+    // responds with 400 and returns null if any parameter is invalid
+    public static ListQuery fromRequest(RoutingContext rc) {
+        try {
+            Integer limit = getInteger(rc, "limit");
+            if (limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+                ResponseUtil.error(rc, 400, "limit must be between 1 and " + MAX_LIMIT);
+                return null;
+            }
+            String cursor = getParam(rc, "cursor");
+            if (cursor != null && limit == null) {
+                ResponseUtil.error(rc, 400, "cursor requires a limit");
+                return null;
+            }
+            String role = getParam(rc, "role");
+            return new ListQuery(
+                    getInteger(rc, "site_id"),
+                    role == null ? null : Role.valueOf(role.trim().toUpperCase()),
+                    getBoolean(rc, "disabled"),
+                    getLong(rc, "created_after"),
+                    getLong(rc, "created_before"),
+                    limit,
+                    cursor);
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.error(rc, 400, "invalid list parameter: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public boolean matchesSiteId(Integer siteId) {
+        return this.siteId == null || this.siteId.equals(siteId);
+    }
+
+    public boolean matchesRoles(Set<Role> roles) {
+        return role == null || roles.contains(role);
+    }
+
+    public boolean matchesDisabled(boolean disabled) {
+        return this.disabled == null || this.disabled == disabled;
+    }
+
+    // created range is in epoch seconds, created_after is inclusive and created_before exclusive
+    public boolean matchesCreated(long created) {
+        return (createdAfter == null || created >= createdAfter)
+                && (createdBefore == null || created < createdBefore);
+    }
+
+    public boolean isPaged() {
+        return limit != null;
+    }
+
+    /*
+     * Responds with the items in the order given, or with the requested page of them ordered by sortKey.
+     * sortKey must be unique among the items so that pages neither skip nor repeat items.
+     */
+    public <T, K extends Comparable<K>> void respond(
+            RoutingContext rc,
+            Stream<T> items,
+            Function<T, K> sortKey,
+            Function<String, K> parseCursor,
+            Function<T, JsonObject> toJson) throws IOException {
+        if (!isPaged()) {
+            ResponseUtil.streamJsonArray(rc, items.iterator(), toJson);
+            return;
+        }
+
+        K after;
+        try {
+            after = cursor == null ? null : parseCursor.apply(cursor);
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.error(rc, 400, "invalid cursor " + cursor);
+            return;
+        }
+
+        // one more than the limit is read to tell whether there is a next page
+        List<T> page = items
+                .filter(item -> after == null || sortKey.apply(item).compareTo(after) > 0)
+                .sorted((a, b) -> sortKey.apply(a).compareTo(sortKey.apply(b)))
+                .limit(limit + 1)
+                .collect(Collectors.toList());
+        boolean hasNext = page.size() > limit;
+        if (hasNext) {
+            page = page.subList(0, limit);
+        }
+
+        JsonArray ja = new JsonArray();
+        page.forEach(item -> ja.add(toJson.apply(item)));
+        JsonObject response = new JsonObject()
+                .put("items", ja)
+                .put("next_cursor", hasNext ? String.valueOf(sortKey.apply(page.get(page.size() - 1))) : null);
+        end(rc, response.encode());
+    }
+
+    private static void end(RoutingContext rc, String body) {
+        Buffer buffer = Buffer.buffer(body);
+        SnapshotResponseCache.record(rc, buffer);
+        rc.response()
+                .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                .end(buffer);
+    }
+
+    private static String getParam(RoutingContext rc, String name) {
+        List<String> values = rc.queryParam(name);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    private static Integer getInteger(RoutingContext rc, String name) {
+        String value = getParam(rc, name);
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    // only true or false, so that a typo is rejected rather than read as false
+    private static Boolean getBoolean(RoutingContext rc, String name) {
+        String value = getParam(rc, name);
+        if (value == null) return null;
+        if (value.equalsIgnoreCase("true")) return true;
+        if (value.equalsIgnoreCase("false")) return false;
+        throw new IllegalArgumentException(name + " must be true or false");
+    }
+
+    private static Long getLong(RoutingContext rc, String name) {
+        String value = getParam(rc, name);
+        return value == null ? null : Long.valueOf(value);
+    }
+}
@@ -6,7 +6,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.vertx.ext.web.RoutingContext;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.function.Function;
 
 public class ResponseUtil {
     private static final Logger LOGGER = LoggerFactory.getLogger(ResponseUtil.class);
@@ -30,4 +33,10 @@ public class ResponseUtil {
         LOGGER.error(message, e);
         rc.fail(500);
     }
+
+    // streams the items as a chunked json array instead of encoding the whole array in memory first
+    public static <T> void streamJsonArray(RoutingContext rc, Iterator<T> items, Function<T, ?> toJson) throws IOException {
+        rc.response().putHeader(HttpHeaders.CONTENT_TYPE, "application/json");
+        new JsonArrayStreamer<>(rc, items, toJson).start();
+    }
 }
@@ -0,0 +1,134 @@
+package com.uid2.admin.vertx;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * ETags and cached bodies for GET endpoints whose response only depends on store snapshots.
+ * Stores swap in a new snapshot object on every reload, so the snapshots a response is built from version it:
+ * every snapshot object seen gets a sequence number, which is kept for as long as the snapshot is alive.
+ * A write that fails reloads its store, so a snapshot changed in place for it is replaced and versioned anew.
+ * A request with a matching If-None-Match gets a 304 and a repeated request gets the body serialized for
+ * the same snapshots, without the handler running at all.
+ */
+public class SnapshotResponseCache {
+    static final int MAX_CACHED_RESPONSE_BYTES = 16 * 1024 * 1024;
+    static final long MAX_CACHED_BYTES = 64L * 1024 * 1024;
+    private static final String CAPTURE_KEY = SnapshotResponseCache.class.getName() + ".capture";
+
+    // distinguishes the tags of this process from those of other instances or of a previous run
+    private final String instanceId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong lastVersion = new AtomicLong();
+    private final Cache<Object, Long> snapshotVersions = CacheBuilder.newBuilder().weakKeys().build();
+    private final Cache<String, CachedResponse> responses = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_BYTES)
+            .<String, CachedResponse>weigher((uri, response) -> response.body.length())
+            .build();
+
+    /*
+     * Responds to rc from the cache if possible and calls handler otherwise.
+     * The snapshots must be the objects the handler reads its data from, e.g. the collection returned by getAll().
+     */
+    public void handle(RoutingContext rc, Handler<RoutingContext> handler, Object... snapshots) {
+        final String etag = etag(snapshots);
+        final HttpServerResponse response = rc.response();
+
+        if (matches(rc.request().getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatusCode(304).putHeader(HttpHeaders.ETAG, etag).end();
+            return;
+        }
+
+        final String uri = rc.request().uri();
+        final CachedResponse cached = responses.getIfPresent(uri);
+        if (cached != null && cached.etag.equals(etag)) {
+            response.putHeader(HttpHeaders.CONTENT_TYPE, cached.contentType)
+                    .putHeader(HttpHeaders.ETAG, etag)
+                    .end(cached.body);
+            return;
+        }
+
+        final Capture capture = new Capture();
+        rc.put(CAPTURE_KEY, capture);
+        response.headersEndHandler(v -> {
+            if (response.getStatusCode() == 200) {
+                response.putHeader(HttpHeaders.ETAG, etag);
+            }
+        });
+        rc.addBodyEndHandler(v -> {
+            // a body that was not written through record, or that was too large to keep, is not cached
+            if (response.getStatusCode() == 200 && capture.recorded && !capture.overflowed) {
+                responses.put(uri, new CachedResponse(etag, response.headers().get(HttpHeaders.CONTENT_TYPE), capture.body));
+            }
+        });
+        handler.handle(rc);
+    }
+
+    // records a part of the body of a response that may be cached, the whole body must go through here
+    static void record(RoutingContext rc, Buffer chunk) {
+        final Capture capture = rc.get(CAPTURE_KEY);
+        if (capture == null || capture.overflowed) {
+            return;
+        }
+        capture.recorded = true;
+        if (capture.body.length() + chunk.length() > MAX_CACHED_RESPONSE_BYTES) {
+            capture.overflowed = true;
+            capture.body = null;
+            return;
+        }
+        capture.body.appendBuffer(chunk);
+    }
+
+    String etag(Object... snapshots) {
+        final StringBuilder sb = new StringBuilder("\"").append(instanceId);
+        for (Object snapshot : snapshots) {
+            sb.append('-').append(versionOf(snapshot));
+        }
+        return sb.append('"').toString();
+    }
+
+    private long versionOf(Object snapshot) {
+        return snapshotVersions.asMap().computeIfAbsent(snapshot, s -> lastVersion.incrementAndGet());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Capture {
+        private Buffer body = Buffer.buffer();
+        private boolean recorded;
+        private boolean overflowed;
+    }
+
+    private static class CachedResponse {
+        private final String etag;
+        private final String contentType;
+        private final Buffer body;
+
+        private CachedResponse(String etag, String contentType, Buffer body) {
+            this.etag = etag;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.uid2.admin.vertx;
+
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.shared.store.reader.IMetadataVersionedStore;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+
+/*
+ * Calls the wrapped handler once the stores are loaded. A lazy store is loaded on a worker thread by the first
+ * request that needs it, so event loop handlers can read it as if it was loaded at startup; blocking handlers,
+ * already on a worker thread, load it in place.
+ * Wrap the handler given to AuthMiddleware.handle, so that only authorized requests can load a store.
+ */
+public class StoreReadyHandler implements Handler<RoutingContext> {
+    private final StoreLoader storeLoader;
+    private final Handler<RoutingContext> handler;
+    private final IMetadataVersionedStore[] stores;
+
+    public StoreReadyHandler(StoreLoader storeLoader, Handler<RoutingContext> handler, IMetadataVersionedStore... stores) {
+        this.storeLoader = storeLoader;
+        this.handler = handler;
+        this.stores = stores;
+    }
+
+    @Override
+    public void handle(RoutingContext rc) {
+        if (allLoaded()) {
+            handler.handle(rc);
+            return;
+        }
+        if (Context.isOnWorkerThread()) {
+            try {
+                ensureLoaded();
+            } catch (Exception e) {
+                rc.fail(500, e);
+                return;
+            }
+            handler.handle(rc);
+            return;
+        }
+        rc.vertx().<Void>executeBlocking(promise -> {
+            try {
+                ensureLoaded();
+                promise.complete();
+            } catch (Exception e) {
+                promise.fail(e);
+            }
+        }, false, ar -> {
+            if (ar.succeeded()) {
+                handler.handle(rc);
+            } else {
+                rc.fail(500, ar.cause());
+            }
+        });
+    }
+
+    private void ensureLoaded() throws Exception {
+        for (IMetadataVersionedStore store : stores) {
+            storeLoader.ensureLoaded(store);
+        }
+    }
+
+    private boolean allLoaded() {
+        for (IMetadataVersionedStore store : stores) {
+            if (!storeLoader.isLoaded(store)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
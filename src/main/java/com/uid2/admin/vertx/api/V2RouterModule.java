@@ -1,8 +1,10 @@
 package com.uid2.admin.vertx.api;
 
 import com.uid2.admin.secret.IKeypairManager;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.vertx.api.cstg.GetClientSideKeypairsBySite;
 import com.uid2.shared.middleware.AuthMiddleware;
+import com.uid2.shared.store.reader.IMetadataVersionedStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,16 +12,20 @@ public class V2RouterModule {
     private static final Logger LOGGER = LoggerFactory.getLogger(V2RouterModule.class);
 
     private final IKeypairManager keypairManager;
+    private final StoreLoader storeLoader;
+    private final IMetadataVersionedStore keypairStore;
     private final AuthMiddleware authMiddleware;
 
-    public V2RouterModule(IKeypairManager keypairManager, AuthMiddleware authMiddleware) {
+    public V2RouterModule(IKeypairManager keypairManager, StoreLoader storeLoader, IMetadataVersionedStore keypairStore, AuthMiddleware authMiddleware) {
         this.keypairManager = keypairManager;
+        this.storeLoader = storeLoader;
+        this.keypairStore = keypairStore;
         this.authMiddleware = authMiddleware;
     }
 
     protected IRouteProvider[] getRouteProviders() {
         return new IRouteProvider[] {
-                new GetClientSideKeypairsBySite(keypairManager)
+                new GetClientSideKeypairsBySite(keypairManager, storeLoader, keypairStore)
         };
     }
 
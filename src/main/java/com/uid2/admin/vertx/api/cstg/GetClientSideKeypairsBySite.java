@@ -2,7 +2,9 @@ package com.uid2.admin.vertx.api.cstg;
 
 import com.google.common.collect.Streams;
 import com.uid2.admin.secret.IKeypairManager;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.vertx.ResponseUtil;
+import com.uid2.admin.vertx.StoreReadyHandler;
 import com.uid2.admin.vertx.api.IRouteProvider;
 import com.uid2.admin.vertx.api.UrlParameterProviders;
 import com.uid2.admin.vertx.api.annotations.ApiMethod;
@@ -10,6 +12,7 @@ import com.uid2.admin.vertx.api.annotations.Method;
 import com.uid2.admin.vertx.api.annotations.Path;
 import com.uid2.admin.vertx.api.annotations.Roles;
 import com.uid2.shared.auth.Role;
+import com.uid2.shared.store.reader.IMetadataVersionedStore;
 import io.vertx.core.Handler;
 import io.vertx.ext.web.RoutingContext;
 import lombok.val;
@@ -20,16 +23,21 @@ public class GetClientSideKeypairsBySite implements IRouteProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(GetClientSideKeypairsBySite.class);
 
     private final IKeypairManager keypairManager;
+    private final StoreLoader storeLoader;
+    private final IMetadataVersionedStore[] keypairStores;
 
-    public GetClientSideKeypairsBySite(IKeypairManager keypairManager) {
+    // keypairStores are the stores keypairManager reads, loaded by storeLoader before the first request is handled
+    public GetClientSideKeypairsBySite(IKeypairManager keypairManager, StoreLoader storeLoader, IMetadataVersionedStore... keypairStores) {
         this.keypairManager = keypairManager;
+        this.storeLoader = storeLoader;
+        this.keypairStores = keypairStores;
     }
 
     @Path("/sites/:siteId/client-side-keypairs")
     @Method(ApiMethod.GET)
     @Roles({Role.ADMINISTRATOR, Role.SHARING_PORTAL})
     public Handler<RoutingContext> getHandler() {
-        return UrlParameterProviders.provideSiteId(this::handleGetClientSideKeys);
+        return new StoreReadyHandler(storeLoader, UrlParameterProviders.provideSiteId(this::handleGetClientSideKeys), keypairStores);
     }
 
     public void handleGetClientSideKeys(RoutingContext rc, int siteId) {
@@ -5,6 +5,7 @@ import com.uid2.admin.auth.AdminUser;
 import com.uid2.admin.auth.AdminUserProvider;
 import com.uid2.admin.legacy.LegacyClientKeyStoreWriter;
 import com.uid2.shared.secret.IKeyGenerator;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.writer.AdminUserStoreWriter;
 import com.uid2.admin.store.writer.EncryptionKeyStoreWriter;
 import com.uid2.admin.store.writer.KeyAclStoreWriter;
@@ -34,6 +35,7 @@ public class AdminKeyService implements IService {
 
     private final AuthMiddleware auth;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final AdminUserStoreWriter storeWriter;
     private final AdminUserProvider adminUserProvider;
     private final IKeyGenerator keyGenerator;
@@ -47,6 +49,7 @@ public class AdminKeyService implements IService {
             JsonObject config,
             AuthMiddleware auth,
             WriteLock writeLock,
+            StoreLoader storeLoader,
             AdminUserStoreWriter storeWriter,
             AdminUserProvider adminUserProvider,
             IKeyGenerator keyGenerator,
@@ -56,6 +59,7 @@ public class AdminKeyService implements IService {
             KeyAclStoreWriter keyAclStoreWriter) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.storeWriter = storeWriter;
         this.adminUserProvider = adminUserProvider;
         this.keyGenerator = keyGenerator;
@@ -184,8 +188,8 @@ public class AdminKeyService implements IService {
 
     private void handleAdminAdd(RoutingContext rc) {
         try {
-            // refresh manually
-            adminUserProvider.loadContent(adminUserProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(adminUserProvider);
 
             final String name = rc.queryParam("name").isEmpty() ? "" : rc.queryParam("name").get(0).trim();
             if (name.isEmpty()) {
@@ -238,8 +242,8 @@ public class AdminKeyService implements IService {
 
     private void handleAdminDel(RoutingContext rc) {
         try {
-            // refresh manually
-            adminUserProvider.loadContent(adminUserProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(adminUserProvider);
 
             final String name = rc.queryParam("name").get(0);
             Optional<AdminUser> existingAdmin = this.adminUserProvider.getAll()
@@ -279,8 +283,8 @@ public class AdminKeyService implements IService {
 
     private void handleAdminDisable(RoutingContext rc, boolean disableFlag) {
         try {
-            // refresh manually
-            adminUserProvider.loadContent(adminUserProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(adminUserProvider);
 
             final String name = rc.queryParam("name").get(0);
             Optional<AdminUser> existingAdmin = this.adminUserProvider.getAll()
@@ -322,8 +326,8 @@ public class AdminKeyService implements IService {
 
     private void handleAdminRoles(RoutingContext rc) {
         try {
-            // refresh manually
-            adminUserProvider.loadContent(adminUserProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(adminUserProvider);
 
             final String name = rc.queryParam("name").get(0);
             Optional<AdminUser> existingAdmin = this.adminUserProvider.getAll()
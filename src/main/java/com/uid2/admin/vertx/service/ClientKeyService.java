@@ -8,9 +8,12 @@ import com.uid2.admin.legacy.RotatingLegacyClientKeyProvider;
 import com.uid2.admin.managers.KeysetManager;
 import com.uid2.shared.model.Site;
 import com.uid2.shared.secret.IKeyGenerator;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.vertx.JsonUtil;
+import com.uid2.admin.vertx.ListQuery;
 import com.uid2.admin.vertx.RequestUtil;
 import com.uid2.admin.vertx.ResponseUtil;
+import com.uid2.admin.vertx.SnapshotResponseCache;
 import com.uid2.admin.vertx.WriteLock;
 import com.uid2.shared.auth.Role;
 import com.uid2.shared.middleware.AuthMiddleware;
@@ -35,6 +38,7 @@ public class ClientKeyService implements IService {
 
     private final AuthMiddleware auth;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final LegacyClientKeyStoreWriter storeWriter;
     private final RotatingLegacyClientKeyProvider clientKeyProvider;
     private final ISiteStore siteProvider;
@@ -42,10 +46,12 @@ public class ClientKeyService implements IService {
     private final IKeyGenerator keyGenerator;
     private final KeyHasher keyHasher;
     private final String clientKeyPrefix;
+    private final SnapshotResponseCache responseCache = new SnapshotResponseCache();
 
     public ClientKeyService(JsonObject config,
                             AuthMiddleware auth,
                             WriteLock writeLock,
+                            StoreLoader storeLoader,
                             LegacyClientKeyStoreWriter storeWriter,
                             RotatingLegacyClientKeyProvider clientKeyProvider,
                             ISiteStore siteProvider,
@@ -54,6 +60,7 @@ public class ClientKeyService implements IService {
                             KeyHasher keyHasher) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.storeWriter = storeWriter;
         this.clientKeyProvider = clientKeyProvider;
         this.siteProvider = siteProvider;
@@ -73,7 +80,7 @@ public class ClientKeyService implements IService {
             }
         }, Role.CLIENTKEY_ISSUER));
         router.get("/api/client/list").handler(
-                auth.handle(this::handleClientList, Role.CLIENTKEY_ISSUER));
+                auth.handle(rc -> responseCache.handle(rc, this::handleClientList, clientKeyProvider.getAll()), Role.CLIENTKEY_ISSUER));
         router.get("/api/client/reveal").handler(
                 auth.handle(this::handleClientReveal, Role.CLIENTKEY_ISSUER));
 
@@ -142,25 +149,32 @@ public class ClientKeyService implements IService {
 
     private void handleClientList(RoutingContext rc) {
         try {
-            JsonArray ja = new JsonArray();
-            Collection<LegacyClientKey> collection = this.clientKeyProvider.getAll();
-            for (LegacyClientKey c : collection) {
-                JsonObject jo = new JsonObject();
-                ja.add(jo);
-
-                jo.put("key_id", c.getKeyId());
-                jo.put("name", c.getName());
-                jo.put("contact", c.getContact());
-                jo.put("roles", RequestUtil.getRolesSpec(c.getRoles()));
-                jo.put("created", c.getCreated());
-                jo.put("site_id", c.getSiteId());
-                jo.put("disabled", c.isDisabled());
-                jo.put("service_id", c.getServiceId());
+            final ListQuery query = ListQuery.fromRequest(rc);
+            if (query == null) {
+                return;
             }
 
-            rc.response()
-                    .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                    .end(ja.encode());
+            // client names are unique, so they are used as the sort key of pages
+            query.respond(rc,
+                    this.clientKeyProvider.getAll().stream()
+                            .filter(c -> query.matchesSiteId(c.getSiteId())
+                                    && query.matchesRoles(c.getRoles())
+                                    && query.matchesDisabled(c.isDisabled())
+                                    && query.matchesCreated(c.getCreated())),
+                    LegacyClientKey::getName,
+                    cursor -> cursor,
+                    c -> {
+                        JsonObject jo = new JsonObject();
+                        jo.put("key_id", c.getKeyId());
+                        jo.put("name", c.getName());
+                        jo.put("contact", c.getContact());
+                        jo.put("roles", RequestUtil.getRolesSpec(c.getRoles()));
+                        jo.put("created", c.getCreated());
+                        jo.put("site_id", c.getSiteId());
+                        jo.put("disabled", c.isDisabled());
+                        jo.put("service_id", c.getServiceId());
+                        return jo;
+                    });
         } catch (Exception e) {
             rc.fail(500, e);
         }
@@ -169,9 +183,7 @@ public class ClientKeyService implements IService {
     private void handleClientReveal(RoutingContext rc) {
         try {
             final String name = rc.queryParam("name").get(0);
-            Optional<LegacyClientKey> existingClient = this.clientKeyProvider.getAll()
-                    .stream().filter(c -> c.getName().equals(name))
-                    .findFirst();
+            Optional<LegacyClientKey> existingClient = Optional.ofNullable(this.clientKeyProvider.getClientKeyByName(name));
             if (existingClient.isEmpty()) {
                 ResponseUtil.error(rc, 404, "client not found");
                 return;
@@ -187,28 +199,24 @@ public class ClientKeyService implements IService {
 
     private String[] generateKeyAndKeyId(Site site) throws Exception {
         String keyCommonPrefix = this.clientKeyPrefix != null ? (this.clientKeyPrefix + site.getId() + "-") : "";
-        String key = keyCommonPrefix + keyGenerator.generateFormattedKeyString(32);
-        String keyId = key.substring(0, keyCommonPrefix.length() + 5);
-
-        // Check if keyId is duplicated
-        Optional<LegacyClientKey> existingClientKeyId = this.clientKeyProvider.getAll()
-                .stream().filter(c -> c.getKeyId().equals(keyId))
-                .findFirst();
-        if (existingClientKeyId.isPresent()) {
-            return generateKeyAndKeyId(site);
+        while (true) {
+            String key = keyCommonPrefix + keyGenerator.generateFormattedKeyString(32);
+            String keyId = key.substring(0, keyCommonPrefix.length() + 5);
+
+            // regenerate if keyId is duplicated
+            if (this.clientKeyProvider.getClientKeyByKeyId(keyId) == null) {
+                return new String[]{ key, keyId };
+            }
         }
-        return new String[]{ key, keyId };
     }
 
     private void handleClientAdd(RoutingContext rc) {
         try {
-            // refresh manually
-            clientKeyProvider.loadContent(clientKeyProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(clientKeyProvider);
 
             final String name = rc.queryParam("name").get(0);
-            Optional<LegacyClientKey> existingClient = this.clientKeyProvider.getAll()
-                    .stream().filter(c -> c.getName().equals(name))
-                    .findFirst();
+            Optional<LegacyClientKey> existingClient = Optional.ofNullable(this.clientKeyProvider.getClientKeyByName(name));
             if (existingClient.isPresent()) {
                 ResponseUtil.error(rc, 400, "key existed");
                 return;
@@ -273,13 +281,11 @@ public class ClientKeyService implements IService {
 
     private void handleClientDel(RoutingContext rc) {
         try {
-            // refresh manually
-            clientKeyProvider.loadContent(clientKeyProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(clientKeyProvider);
 
             final String name = rc.queryParam("name").get(0);
-            Optional<LegacyClientKey> existingClient = this.clientKeyProvider.getAll()
-                    .stream().filter(c -> c.getName().equals(name))
-                    .findFirst();
+            Optional<LegacyClientKey> existingClient = Optional.ofNullable(this.clientKeyProvider.getClientKeyByName(name));
             if (existingClient.isEmpty()) {
                 ResponseUtil.error(rc, 404, "client key not found");
                 return;
@@ -305,13 +311,11 @@ public class ClientKeyService implements IService {
 
     private void handleClientUpdate(RoutingContext rc) {
         try {
-            // refresh manually
-            clientKeyProvider.loadContent(clientKeyProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(clientKeyProvider);
 
             final String name = rc.queryParam("name").get(0);
-            final LegacyClientKey existingClient = this.clientKeyProvider.getAll()
-                    .stream().filter(c -> c.getName().equals(name))
-                    .findFirst().orElse(null);
+            final LegacyClientKey existingClient = this.clientKeyProvider.getClientKeyByName(name);
             if (existingClient == null) {
                 ResponseUtil.error(rc, 404, "client not found");
                 return;
@@ -350,13 +354,11 @@ public class ClientKeyService implements IService {
 
     private void handleClientDisable(RoutingContext rc, boolean disableFlag) {
         try {
-            // refresh manually
-            clientKeyProvider.loadContent(clientKeyProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(clientKeyProvider);
 
             final String name = rc.queryParam("name").get(0);
-            Optional<LegacyClientKey> existingClient = this.clientKeyProvider.getAll()
-                    .stream().filter(c -> c.getName().equals(name))
-                    .findFirst();
+            Optional<LegacyClientKey> existingClient = Optional.ofNullable(this.clientKeyProvider.getClientKeyByName(name));
             if (existingClient.isEmpty()) {
                 ResponseUtil.error(rc, 404, "client key not found");
                 return;
@@ -390,13 +392,11 @@ public class ClientKeyService implements IService {
 
     private void handleClientRoles(RoutingContext rc) {
         try {
-            // refresh manually
-            clientKeyProvider.loadContent(clientKeyProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(clientKeyProvider);
 
             final String name = rc.queryParam("name").get(0);
-            Optional<LegacyClientKey> existingClient = this.clientKeyProvider.getAll()
-                    .stream().filter(c -> c.getName().equals(name))
-                    .findFirst();
+            Optional<LegacyClientKey> existingClient = Optional.ofNullable(this.clientKeyProvider.getClientKeyByName(name));
             if (existingClient.isEmpty()) {
                 ResponseUtil.error(rc, 404, "client not found");
                 return;
@@ -427,27 +427,24 @@ public class ClientKeyService implements IService {
 
     private void handleClientRename(RoutingContext rc) {
         try {
-            // refresh manually
-            clientKeyProvider.loadContent(clientKeyProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(clientKeyProvider);
 
             final String oldName = rc.queryParam("oldName").get(0);
             final String newName = rc.queryParam("newName").get(0);
-            final LegacyClientKey existingClient = this.clientKeyProvider.getAll()
-                    .stream().filter(c -> c.getName().equals(oldName))
-                    .findFirst().orElse(null);
+            final LegacyClientKey existingClient = this.clientKeyProvider.getClientKeyByName(oldName);
             if (existingClient == null) {
                 ResponseUtil.error(rc, 404, "client not found");
                 return;
             }
-            final LegacyClientKey existingClientWithNewName = this.clientKeyProvider.getAll()
-                    .stream().filter(c -> c.getName().equals(newName))
-                    .findFirst().orElse(null);
+            final LegacyClientKey existingClientWithNewName = this.clientKeyProvider.getClientKeyByName(newName);
             if (existingClientWithNewName != null) {
                 ResponseUtil.error(rc, 400, "already exist a client with name " + newName);
                 return;
             }
 
             existingClient.withNameAndContact(newName);
+            clientKeyProvider.refreshIndex();
 
             List<LegacyClientKey> clients = getAllClientKeys();
 
@@ -4,8 +4,10 @@ import com.uid2.admin.managers.KeysetManager;
 import com.uid2.admin.secret.IKeypairGenerator;
 import com.uid2.admin.secret.IKeypairManager;
 import com.uid2.admin.store.Clock;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.writer.ClientSideKeypairStoreWriter;
 import com.uid2.admin.vertx.ResponseUtil;
+import com.uid2.admin.vertx.StoreReadyHandler;
 import com.uid2.admin.vertx.WriteLock;
 import com.uid2.shared.auth.Role;
 import com.uid2.shared.middleware.AuthMiddleware;
@@ -32,6 +34,7 @@ public class ClientSideKeypairService implements IService, IKeypairManager {
     private final AuthMiddleware auth;
     private final Clock clock;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final ClientSideKeypairStoreWriter storeWriter;
     private final RotatingClientSideKeypairStore keypairStore;
     private final RotatingSiteStore siteProvider;
@@ -44,6 +47,7 @@ public class ClientSideKeypairService implements IService, IKeypairManager {
     public ClientSideKeypairService(JsonObject config,
                                     AuthMiddleware auth,
                                     WriteLock writeLock,
+                                    StoreLoader storeLoader,
                                     ClientSideKeypairStoreWriter storeWriter,
                                     RotatingClientSideKeypairStore keypairStore,
                                     RotatingSiteStore siteProvider,
@@ -52,6 +56,7 @@ public class ClientSideKeypairService implements IService, IKeypairManager {
                                     Clock clock) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.storeWriter = storeWriter;
         this.keypairStore = keypairStore;
         this.keypairGenerator = keypairGenerator;
@@ -64,20 +69,20 @@ public class ClientSideKeypairService implements IService, IKeypairManager {
 
     @Override
     public void setupRoutes(Router router) {
-        router.post("/api/client_side_keypairs/add").blockingHandler(auth.handle((ctx) -> {
+        router.post("/api/client_side_keypairs/add").blockingHandler(auth.handle(new StoreReadyHandler(storeLoader, (ctx) -> {
             synchronized (writeLock) {
                 this.handleAddKeypair(ctx);
             }
-        }, Role.ADMINISTRATOR));
-        router.post("/api/client_side_keypairs/update").blockingHandler(auth.handle((ctx) -> {
+        }, keypairStore), Role.ADMINISTRATOR));
+        router.post("/api/client_side_keypairs/update").blockingHandler(auth.handle(new StoreReadyHandler(storeLoader, (ctx) -> {
             synchronized (writeLock) {
                 this.handleUpdateKeypair(ctx);
             }
-        }, Role.ADMINISTRATOR));
+        }, keypairStore), Role.ADMINISTRATOR));
         router.get("/api/client_side_keypairs/list").handler(
-                auth.handle(this::handleListAllKeypairs, Role.ADMINISTRATOR));
+                auth.handle(new StoreReadyHandler(storeLoader, this::handleListAllKeypairs, keypairStore), Role.ADMINISTRATOR));
         router.get("/api/client_side_keypairs/:subscriptionId").handler(
-                auth.handle(this::handleListKeypair, Role.ADMINISTRATOR)
+                auth.handle(new StoreReadyHandler(storeLoader, this::handleListKeypair, keypairStore), Role.ADMINISTRATOR)
         );
     }
 
@@ -210,7 +215,7 @@ public class ClientSideKeypairService implements IService, IKeypairManager {
 
         final Instant now = clock.now();
 
-        this.keypairStore.loadContent();
+        storeLoader.loadIfChanged(this.keypairStore);
         final Set<String> existingIds = this.keypairStore.getAll().stream().map(ClientSideKeypair::getSubscriptionId).collect(Collectors.toSet());
         final List<ClientSideKeypair> keypairs = new ArrayList<>(this.keypairStore.getAll());
         KeyPair pair = keypairGenerator.generateKeypair();
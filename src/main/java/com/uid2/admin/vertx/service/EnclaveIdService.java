@@ -1,10 +1,12 @@
 package com.uid2.admin.vertx.service;
 
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.writer.EnclaveStoreWriter;
 import com.uid2.admin.vertx.JsonUtil;
 import com.uid2.admin.vertx.RequestUtil;
 import com.uid2.admin.vertx.ResponseUtil;
+import com.uid2.admin.vertx.StoreReadyHandler;
 import com.uid2.admin.vertx.WriteLock;
 import com.uid2.shared.auth.EnclaveIdentifierProvider;
 import com.uid2.shared.auth.Role;
@@ -25,16 +27,19 @@ import java.util.stream.Collectors;
 public class EnclaveIdService implements IService {
     private final AuthMiddleware auth;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final EnclaveStoreWriter storeWriter;
     private final EnclaveIdentifierProvider enclaveIdProvider;
     private final ObjectWriter jsonWriter = JsonUtil.createJsonWriter();
 
     public EnclaveIdService(AuthMiddleware auth,
                             WriteLock writeLock,
+                            StoreLoader storeLoader,
                             EnclaveStoreWriter storeWriter,
                             EnclaveIdentifierProvider enclaveIdProvider) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.storeWriter = storeWriter;
         this.enclaveIdProvider = enclaveIdProvider;
     }
@@ -42,20 +47,20 @@ public class EnclaveIdService implements IService {
     @Override
     public void setupRoutes(Router router) {
         router.get("/api/enclave/metadata").handler(
-                auth.handle(this::handleEnclaveMetadata, Role.OPERATOR_MANAGER));
+                auth.handle(new StoreReadyHandler(storeLoader, this::handleEnclaveMetadata, enclaveIdProvider), Role.OPERATOR_MANAGER));
         router.get("/api/enclave/list").handler(
-                auth.handle(this::handleEnclaveList, Role.OPERATOR_MANAGER));
+                auth.handle(new StoreReadyHandler(storeLoader, this::handleEnclaveList, enclaveIdProvider), Role.OPERATOR_MANAGER));
 
-        router.post("/api/enclave/add").blockingHandler(auth.handle((ctx) -> {
+        router.post("/api/enclave/add").blockingHandler(auth.handle(new StoreReadyHandler(storeLoader, (ctx) -> {
             synchronized (writeLock) {
                 this.handleEnclaveAdd(ctx);
             }
-        }, Role.OPERATOR_MANAGER));
-        router.post("/api/enclave/del").blockingHandler(auth.handle((ctx) -> {
+        }, enclaveIdProvider), Role.OPERATOR_MANAGER));
+        router.post("/api/enclave/del").blockingHandler(auth.handle(new StoreReadyHandler(storeLoader, (ctx) -> {
             synchronized (writeLock) {
                 this.handleEnclaveDel(ctx);
             }
-        }, Role.ADMINISTRATOR));
+        }, enclaveIdProvider), Role.ADMINISTRATOR));
     }
 
     private void handleEnclaveMetadata(RoutingContext rc) {
@@ -92,8 +97,8 @@ public class EnclaveIdService implements IService {
 
     private void handleEnclaveAdd(RoutingContext rc) {
         try {
-            // refresh manually
-            enclaveIdProvider.loadContent(enclaveIdProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(enclaveIdProvider);
 
             final String name = rc.queryParam("name").get(0);
             Optional<EnclaveIdentifier> existingEnclaveId = this.enclaveIdProvider.getAll()
@@ -139,8 +144,8 @@ public class EnclaveIdService implements IService {
 
     private void handleEnclaveDel(RoutingContext rc) {
         try {
-            // refresh manually
-            enclaveIdProvider.loadContent(enclaveIdProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(enclaveIdProvider);
 
             final String name = rc.queryParam("name").get(0);
             Optional<EnclaveIdentifier> existingEnclaveId = this.enclaveIdProvider.getAll()
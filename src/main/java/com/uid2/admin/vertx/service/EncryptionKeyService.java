@@ -1,14 +1,17 @@
 package com.uid2.admin.vertx.service;
 
 import com.uid2.admin.auth.AdminKeyset;
+import com.uid2.admin.auth.AdminKeysetSnapshot;
 import com.uid2.admin.secret.IEncryptionKeyManager;
 import com.uid2.admin.secret.IKeysetKeyManager;
 import com.uid2.admin.store.Clock;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.reader.RotatingAdminKeysetStore;
 import com.uid2.admin.store.writer.AdminKeysetWriter;
 import com.uid2.admin.store.writer.EncryptionKeyStoreWriter;
 import com.uid2.admin.store.writer.KeysetKeyStoreWriter;
 import com.uid2.admin.util.MaxKeyUtil;
+import com.uid2.admin.vertx.ListQuery;
 import com.uid2.admin.vertx.RequestUtil;
 import com.uid2.admin.vertx.ResponseUtil;
 import com.uid2.admin.vertx.WriteLock;
@@ -35,6 +38,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.uid2.admin.AdminConst.enableKeysetConfigProp;
 import static com.uid2.admin.managers.KeysetManager.*;
@@ -59,6 +63,7 @@ public class EncryptionKeyService implements IService, IEncryptionKeyManager, IK
     private final AuthMiddleware auth;
     private final Clock clock;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final EncryptionKeyStoreWriter storeWriter;
     private final KeysetKeyStoreWriter keysetKeyStoreWriter;
     private final RotatingKeyStore keyProvider;
@@ -82,6 +87,7 @@ public class EncryptionKeyService implements IService, IEncryptionKeyManager, IK
     public EncryptionKeyService(JsonObject config,
                                 AuthMiddleware auth,
                                 WriteLock writeLock,
+                                StoreLoader storeLoader,
                                 EncryptionKeyStoreWriter storeWriter,
                                 KeysetKeyStoreWriter keysetKeyStoreWriter,
                                 RotatingKeyStore keyProvider,
@@ -92,6 +98,7 @@ public class EncryptionKeyService implements IService, IEncryptionKeyManager, IK
                                 Clock clock) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.storeWriter = storeWriter;
         this.keysetKeyStoreWriter = keysetKeyStoreWriter;
         this.keyProvider = keyProvider;
@@ -187,8 +194,8 @@ public class EncryptionKeyService implements IService, IEncryptionKeyManager, IK
     }
 
     private EncryptionKey addSiteKey(int siteId, Duration activatesIn) throws Exception {
-        // force refresh manually
-        this.keyProvider.loadContent();
+        // refresh if changed since last loaded
+        storeLoader.loadIfChanged(this.keyProvider);
 
         return addSiteKeys(Arrays.asList(siteId), activatesIn, siteKeyExpiresAfter, false).get(0);
     }
@@ -199,6 +206,13 @@ public class EncryptionKeyService implements IService, IEncryptionKeyManager, IK
         return addKeysetKeys(Arrays.asList(keysetId), siteKeyActivatesIn, siteKeyExpiresAfter, false).get(0);
     }
 
+    @Override
+    public List<KeysetKey> addKeysetKeys(Collection<Integer> keysetIds) throws Exception {
+        if (keysetIds.isEmpty()) return List.of();
+        loadKeysetKeys();
+        return addKeysetKeys(keysetIds, siteKeyActivatesIn, siteKeyExpiresAfter, false);
+    }
+
     public void createKeysetKeys() throws Exception {
         loadAllContent();
 
@@ -217,14 +231,17 @@ public class EncryptionKeyService implements IService, IEncryptionKeyManager, IK
 
     private void handleKeyList(RoutingContext rc) {
         try {
-            final JsonArray ja = new JsonArray();
-            this.keyProvider.getSnapshot().getActiveKeySet().stream()
-                    .sorted(Comparator.comparingInt(EncryptionKey::getSiteId).thenComparing(EncryptionKey::getActivates))
-                    .forEachOrdered(k -> ja.add(toJson(k)));
+            final ListQuery query = ListQuery.fromRequest(rc);
+            if (query == null) {
+                return;
+            }
 
-            rc.response()
-                    .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                    .end(ja.encode());
+            Stream<EncryptionKey> keys = this.keyProvider.getSnapshot().getActiveKeySet().stream()
+                    .filter(k -> query.matchesSiteId(k.getSiteId()) && query.matchesCreated(k.getCreated().getEpochSecond()));
+            if (!query.isPaged()) {
+                keys = keys.sorted(Comparator.comparingInt(EncryptionKey::getSiteId).thenComparing(EncryptionKey::getActivates));
+            }
+            query.respond(rc, keys, EncryptionKey::getId, Integer::valueOf, this::toJson);
         } catch (Exception e) {
             rc.fail(500, e);
         }
@@ -232,14 +249,17 @@ public class EncryptionKeyService implements IService, IEncryptionKeyManager, IK
 
     private void handleKeysetKeyList(RoutingContext rc) {
         try {
-            final JsonArray ja = new JsonArray();
-            this.keysetKeyProvider.getSnapshot().getAllKeysetKeys().stream()
-                    .sorted(Comparator.comparingInt(KeysetKey::getKeysetId).thenComparing(KeysetKey::getActivates))
-                    .forEachOrdered(k -> ja.add(toJson(k)));
+            final ListQuery query = ListQuery.fromRequest(rc);
+            if (query == null) {
+                return;
+            }
 
-            rc.response()
-                    .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                    .end(ja.encode());
+            Stream<KeysetKey> keys = this.keysetKeyProvider.getSnapshot().getAllKeysetKeys().stream()
+                    .filter(k -> query.matchesCreated(k.getCreated().getEpochSecond()));
+            if (!query.isPaged()) {
+                keys = keys.sorted(Comparator.comparingInt(KeysetKey::getKeysetId).thenComparing(KeysetKey::getActivates));
+            }
+            query.respond(rc, keys, KeysetKey::getId, Integer::valueOf, this::toJson);
         } catch (Exception e) {
             rc.fail(500, e);
         }
@@ -533,10 +553,10 @@ public class EncryptionKeyService implements IService, IEncryptionKeyManager, IK
 
     private int getOrCreateKeysetId(int siteId)
         throws Exception {
-        Map<Integer, AdminKeyset> currentKeysets = keysetProvider.getSnapshot().getAllKeysets();
-        AdminKeyset keyset = lookUpKeyset(siteId, currentKeysets);
+        AdminKeysetSnapshot snapshot = keysetProvider.getSnapshot();
+        AdminKeyset keyset = snapshot.getDefaultKeyset(siteId);
         if(keyset == null) {
-            int newKeysetId = getMaxKeyset(currentKeysets)+1;
+            int newKeysetId = getMaxKeyset(snapshot)+1;
             if(siteId == Const.Data.MasterKeySiteId) {
                 newKeysetId = Const.Data.MasterKeysetId;
             }
@@ -547,8 +567,7 @@ public class EncryptionKeyService implements IService, IEncryptionKeyManager, IK
                 newKeysetId = Const.Data.FallbackPublisherKeysetId;
             }
             keyset = createDefaultKeyset(siteId, newKeysetId);
-            currentKeysets.put(newKeysetId, keyset);
-            keysetStoreWriter.upload(currentKeysets, null);
+            keysetStoreWriter.upload(snapshot.withKeyset(keyset), null);
         }
 
         return keyset.getKeysetId();
@@ -660,20 +679,20 @@ public class EncryptionKeyService implements IService, IEncryptionKeyManager, IK
     }
 
     private void loadAllContent() throws Exception {
-        this.keyProvider.loadContent();
+        storeLoader.loadIfChanged(this.keyProvider);
         loadKeysets();
         loadKeysetKeys();
     }
 
     private void loadKeysetKeys() throws Exception {
         if(enableKeysets){
-            this.keysetKeyProvider.loadContent();
+            storeLoader.loadIfChanged(this.keysetKeyProvider);
         }
     }
 
     private void loadKeysets() throws Exception {
         if(enableKeysets) {
-            this.keysetProvider.loadContent();
+            storeLoader.loadIfChanged(this.keysetProvider);
         }
     }
 }
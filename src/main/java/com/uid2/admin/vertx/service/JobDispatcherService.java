@@ -38,5 +38,16 @@ public class JobDispatcherService implements IService {
                 },
                 //can be other role
                 Role.ADMINISTRATOR, Role.SECRET_MANAGER));
+
+        // the last execution of recently finished jobs, with the time spent in each step of the jobs that time them
+        router.get("/api/job-dispatcher/finished-jobs").blockingHandler(auth.handle((ctx) -> {
+                    try {
+                        ctx.response().end(jsonWriter.writeValueAsString(jobDispatcher.getFinishedJobsInfo()));
+                    } catch (Exception ex) {
+                        ctx.fail(ex);
+                    }
+                },
+                //can be other role
+                Role.ADMINISTRATOR, Role.SECRET_MANAGER));
     }
 }
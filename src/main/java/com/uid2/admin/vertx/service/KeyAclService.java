@@ -1,6 +1,7 @@
 package com.uid2.admin.vertx.service;
 
 import com.uid2.admin.secret.IEncryptionKeyManager;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.writer.KeyAclStoreWriter;
 import com.uid2.admin.vertx.RequestUtil;
 import com.uid2.admin.vertx.ResponseUtil;
@@ -25,6 +26,7 @@ import java.util.*;
 public class KeyAclService implements IService {
     private final AuthMiddleware auth;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final KeyAclStoreWriter storeWriter;
     private final RotatingKeyAclProvider keyAclProvider;
     private final ISiteStore siteProvider;
@@ -33,12 +35,14 @@ public class KeyAclService implements IService {
 
     public KeyAclService(AuthMiddleware auth,
                          WriteLock writeLock,
+                         StoreLoader storeLoader,
                          KeyAclStoreWriter storeWriter,
                          RotatingKeyAclProvider keyAclProvider,
                          ISiteStore siteProvider,
                          IEncryptionKeyManager keyManager) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.storeWriter = storeWriter;
         this.keyAclProvider = keyAclProvider;
         this.siteProvider = siteProvider;
@@ -96,8 +100,8 @@ public class KeyAclService implements IService {
 
     private void handleKeyAclReset(RoutingContext rc) {
         try {
-            // refresh manually
-            keyAclProvider.loadContent();
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(keyAclProvider);
 
             final Site existingSite = RequestUtil.getSite(rc, "site_id", siteProvider);
             if (existingSite == null) return;
@@ -108,7 +112,8 @@ public class KeyAclService implements IService {
             this.keyManager.addSiteKey(existingSite.getId());
 
             final EncryptionKeyAcl newAcl = new EncryptionKeyAcl(isWhitelist, new HashSet<>());
-            final Map<Integer, EncryptionKeyAcl> collection = this.keyAclProvider.getSnapshot().getAllAcls();
+            // a changed copy, the snapshot may be read by other requests meanwhile
+            final Map<Integer, EncryptionKeyAcl> collection = new HashMap<>(this.keyAclProvider.getSnapshot().getAllAcls());
             collection.put(existingSite.getId(), newAcl);
 
             storeWriter.upload(collection, null);
@@ -123,15 +128,15 @@ public class KeyAclService implements IService {
 
     private void handleKeyAclUpdate(RoutingContext rc) {
         try {
-            // refresh manually
-            keyAclProvider.loadContent();
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(keyAclProvider);
 
             final Site site = RequestUtil.getSite(rc, "site_id", siteProvider);
             if (site == null) return;
 
-            final Map<Integer, EncryptionKeyAcl> collection = this.keyAclProvider.getSnapshot().getAllAcls();
-            final EncryptionKeyAcl acl = collection.get(site.getId());
-            if (acl == null) {
+            final Map<Integer, EncryptionKeyAcl> acls = this.keyAclProvider.getSnapshot().getAllAcls();
+            final EncryptionKeyAcl existingAcl = acls.get(site.getId());
+            if (existingAcl == null) {
                 ResponseUtil.error(rc, 404, "ACL not found");
                 return;
             }
@@ -148,6 +153,8 @@ public class KeyAclService implements IService {
                 return;
             }
 
+            // the sites are changed on a copy of the acl, the snapshot may be read by other requests meanwhile
+            final EncryptionKeyAcl acl = new EncryptionKeyAcl(existingAcl.getIsWhitelist(), new HashSet<>(existingAcl.getAccessList()));
             boolean added = false;
             boolean removed = false;
             for (int addedSiteId : addedSites) {
@@ -176,6 +183,8 @@ public class KeyAclService implements IService {
             }
 
             if (added || removed) {
+                final Map<Integer, EncryptionKeyAcl> collection = new HashMap<>(acls);
+                collection.put(site.getId(), acl);
                 storeWriter.upload(collection, null);
             }
 
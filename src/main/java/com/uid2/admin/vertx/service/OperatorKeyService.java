@@ -2,10 +2,13 @@ package com.uid2.admin.vertx.service;
 
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.uid2.admin.auth.RevealedKey;
+import com.uid2.admin.model.NameAndKeyIdIndex;
 import com.uid2.shared.model.Site;
 import com.uid2.shared.secret.IKeyGenerator;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.writer.OperatorKeyStoreWriter;
 import com.uid2.admin.vertx.JsonUtil;
+import com.uid2.admin.vertx.ListQuery;
 import com.uid2.admin.vertx.RequestUtil;
 import com.uid2.admin.vertx.ResponseUtil;
 import com.uid2.admin.vertx.WriteLock;
@@ -24,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 public class OperatorKeyService implements IService {
@@ -39,16 +43,19 @@ public class OperatorKeyService implements IService {
 
     private final AuthMiddleware auth;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final OperatorKeyStoreWriter operatorKeyStoreWriter;
     private final RotatingOperatorKeyProvider operatorKeyProvider;
     private final RotatingSiteStore siteProvider;
     private final IKeyGenerator keyGenerator;
     private final KeyHasher keyHasher;
     private final String operatorKeyPrefix;
+    private final AtomicReference<NameAndKeyIdIndex<OperatorKey>> operatorIndex = new AtomicReference<>();
 
     public OperatorKeyService(JsonObject config,
                               AuthMiddleware auth,
                               WriteLock writeLock,
+                              StoreLoader storeLoader,
                               OperatorKeyStoreWriter operatorKeyStoreWriter,
                               RotatingOperatorKeyProvider operatorKeyProvider,
                               RotatingSiteStore siteProvider,
@@ -56,6 +63,7 @@ public class OperatorKeyService implements IService {
                               KeyHasher keyHasher) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.operatorKeyStoreWriter = operatorKeyStoreWriter;
         this.operatorKeyProvider = operatorKeyProvider;
         this.siteProvider = siteProvider;
@@ -123,26 +131,33 @@ public class OperatorKeyService implements IService {
 
     private void handleOperatorList(RoutingContext rc) {
         try {
-            final JsonArray ja = new JsonArray();
-            final Collection<OperatorKey> collection = this.operatorKeyProvider.getAll();
-            for (OperatorKey o : collection) {
-                final JsonObject jo = new JsonObject();
-                ja.add(jo);
-
-                jo.put("key_id", o.getKeyId());
-                jo.put("name", o.getName());
-                jo.put("contact", o.getContact());
-                jo.put("roles", RequestUtil.getRolesSpec(o.getRoles()));
-                jo.put("protocol", o.getProtocol());
-                jo.put("created", o.getCreated());
-                jo.put("disabled", o.isDisabled());
-                jo.put("site_id", o.getSiteId());
-                jo.put("operator_type", o.getOperatorType());
+            final ListQuery query = ListQuery.fromRequest(rc);
+            if (query == null) {
+                return;
             }
 
-            rc.response()
-                    .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                    .end(ja.encode());
+            // operator names are unique, so they are used as the sort key of pages
+            query.respond(rc,
+                    this.operatorKeyProvider.getAll().stream()
+                            .filter(o -> query.matchesSiteId(o.getSiteId())
+                                    && query.matchesRoles(o.getRoles())
+                                    && query.matchesDisabled(o.isDisabled())
+                                    && query.matchesCreated(o.getCreated())),
+                    OperatorKey::getName,
+                    cursor -> cursor,
+                    o -> {
+                        final JsonObject jo = new JsonObject();
+                        jo.put("key_id", o.getKeyId());
+                        jo.put("name", o.getName());
+                        jo.put("contact", o.getContact());
+                        jo.put("roles", RequestUtil.getRolesSpec(o.getRoles()));
+                        jo.put("protocol", o.getProtocol());
+                        jo.put("created", o.getCreated());
+                        jo.put("disabled", o.isDisabled());
+                        jo.put("site_id", o.getSiteId());
+                        jo.put("operator_type", o.getOperatorType());
+                        return jo;
+                    });
         } catch (Exception e) {
             rc.fail(500, e);
         }
@@ -151,9 +166,7 @@ public class OperatorKeyService implements IService {
     private void handleOperatorReveal(RoutingContext rc) {
         try {
             final String name = rc.queryParam("name").get(0);
-            Optional<OperatorKey> existingOperator = this.operatorKeyProvider.getAll()
-                    .stream().filter(o -> o.getName().equals(name))
-                    .findFirst();
+            Optional<OperatorKey> existingOperator = Optional.ofNullable(getOperatorIndex().getByName(name));
             if (existingOperator.isEmpty()) {
                 ResponseUtil.error(rc, 404, "operator not exist");
                 return;
@@ -169,23 +182,33 @@ public class OperatorKeyService implements IService {
 
     private String[] generateKeyAndKeyId(Integer finalSiteId) throws Exception {
         String keyCommonPrefix = this.operatorKeyPrefix != null ? (this.operatorKeyPrefix + finalSiteId + "-") : "";
-        String key = keyCommonPrefix + keyGenerator.generateFormattedKeyString(32);
-        String keyId = key.substring(0, keyCommonPrefix.length() + 5);
-
-        // Check if keyId is duplicated
-        Optional<OperatorKey> existingOperatorKeyId = this.operatorKeyProvider.getAll()
-                .stream().filter(o -> o.getKeyId().equals(keyId))
-                .findFirst();
-        if (existingOperatorKeyId.isPresent()) {
-            return generateKeyAndKeyId(finalSiteId);
+        NameAndKeyIdIndex<OperatorKey> index = getOperatorIndex();
+        while (true) {
+            String key = keyCommonPrefix + keyGenerator.generateFormattedKeyString(32);
+            String keyId = key.substring(0, keyCommonPrefix.length() + 5);
+
+            // regenerate if keyId is duplicated
+            if (index.getByKeyId(keyId) == null) {
+                return new String[]{ key, keyId };
+            }
+        }
+    }
+
+    // rebuilt when the operator store has been reloaded since the last call
+    private NameAndKeyIdIndex<OperatorKey> getOperatorIndex() {
+        final Collection<OperatorKey> operators = this.operatorKeyProvider.getAll();
+        NameAndKeyIdIndex<OperatorKey> index = this.operatorIndex.get();
+        if (index == null || !index.isBuiltFrom(operators)) {
+            index = NameAndKeyIdIndex.build(operators, OperatorKey::getName, OperatorKey::getKeyId);
+            this.operatorIndex.set(index);
         }
-        return new String[]{ key, keyId };
+        return index;
     }
 
     private void handleOperatorAdd(RoutingContext rc) {
         try {
-            // refresh manually
-            operatorKeyProvider.loadContent(operatorKeyProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(operatorKeyProvider);
 
             if (!rc.queryParams().contains("name")) {
                 ResponseUtil.error(rc, 400, "no name specified");
@@ -193,9 +216,7 @@ public class OperatorKeyService implements IService {
             }
             final String name = rc.queryParam("name").get(0);
 
-            final Optional<OperatorKey> existingOperator = this.operatorKeyProvider.getAll()
-                    .stream().filter(o -> o.getName().equals(name))
-                    .findFirst();
+            final Optional<OperatorKey> existingOperator = Optional.ofNullable(getOperatorIndex().getByName(name));
             if (existingOperator.isPresent()) {
                 ResponseUtil.error(rc, 400, "key existed");
                 return;
@@ -275,13 +296,11 @@ public class OperatorKeyService implements IService {
 
     private void handleOperatorDel(RoutingContext rc) {
         try {
-            // refresh manually
-            operatorKeyProvider.loadContent(operatorKeyProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(operatorKeyProvider);
 
             final String name = rc.queryParam("name").get(0);
-            Optional<OperatorKey> existingOperator = this.operatorKeyProvider.getAll()
-                    .stream().filter(o -> o.getName().equals(name))
-                    .findFirst();
+            Optional<OperatorKey> existingOperator = Optional.ofNullable(getOperatorIndex().getByName(name));
             if (existingOperator.isEmpty()) {
                 ResponseUtil.error(rc, 404, "operator name not found");
                 return;
@@ -315,13 +334,11 @@ public class OperatorKeyService implements IService {
 
     private void handleOperatorDisable(RoutingContext rc, boolean disableFlag) {
         try {
-            // refresh manually
-            operatorKeyProvider.loadContent(operatorKeyProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(operatorKeyProvider);
 
             final String name = rc.queryParam("name").get(0);
-            Optional<OperatorKey> existingOperator = this.operatorKeyProvider.getAll()
-                    .stream().filter(o -> o.getName().equals(name))
-                    .findFirst();
+            Optional<OperatorKey> existingOperator = Optional.ofNullable(getOperatorIndex().getByName(name));
             if (existingOperator.isEmpty()) {
                 ResponseUtil.error(rc, 404, "operator name not found");
                 return;
@@ -360,13 +377,11 @@ public class OperatorKeyService implements IService {
 
     private void handleOperatorUpdate(RoutingContext rc) {
         try {
-            // refresh manually
-            operatorKeyProvider.loadContent(operatorKeyProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(operatorKeyProvider);
 
             final String name = rc.queryParam("name").get(0);
-            OperatorKey existingOperator = this.operatorKeyProvider.getAll()
-                    .stream().filter(o -> o.getName().equals(name))
-                    .findFirst().orElse(null);
+            OperatorKey existingOperator = getOperatorIndex().getByName(name);
             if (existingOperator == null) {
                 ResponseUtil.error(rc, 404, "operator name not found");
                 return;
@@ -409,13 +424,11 @@ public class OperatorKeyService implements IService {
 
     private void handleOperatorRoles(RoutingContext rc) {
         try {
-            // refresh manually
-            operatorKeyProvider.loadContent(operatorKeyProvider.getMetadata());
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(operatorKeyProvider);
 
             final String name = rc.queryParam("name").get(0);
-            Optional<OperatorKey> existingOperator = this.operatorKeyProvider.getAll()
-                    .stream().filter(o -> o.getName().equals(name))
-                    .findFirst();
+            Optional<OperatorKey> existingOperator = Optional.ofNullable(getOperatorIndex().getByName(name));
             if (existingOperator.isEmpty()) {
                 ResponseUtil.error(rc, 404, "operator key not found");
                 return;
@@ -1,8 +1,10 @@
 package com.uid2.admin.vertx.service;
 
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.reader.RotatingPartnerStore;
 import com.uid2.admin.store.writer.PartnerStoreWriter;
 import com.uid2.admin.vertx.ResponseUtil;
+import com.uid2.admin.vertx.StoreReadyHandler;
 import com.uid2.admin.vertx.WriteLock;
 import com.uid2.shared.auth.Role;
 import com.uid2.shared.middleware.AuthMiddleware;
@@ -14,15 +16,18 @@ import io.vertx.ext.web.RoutingContext;
 public class PartnerConfigService implements IService {
     private final AuthMiddleware auth;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final PartnerStoreWriter storageManager;
     private final RotatingPartnerStore partnerConfigProvider;
 
     public PartnerConfigService(AuthMiddleware auth,
                                 WriteLock writeLock,
+                                StoreLoader storeLoader,
                                 PartnerStoreWriter storageManager,
                                 RotatingPartnerStore partnerConfigProvider) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.storageManager = storageManager;
         this.partnerConfigProvider = partnerConfigProvider;
     }
@@ -30,12 +35,12 @@ public class PartnerConfigService implements IService {
     @Override
     public void setupRoutes(Router router) {
         router.get("/api/partner_config/get").handler(
-                auth.handle(this::handlePartnerConfigGet, Role.ADMINISTRATOR));
-        router.post("/api/partner_config/update").blockingHandler(auth.handle((ctx) -> {
+                auth.handle(new StoreReadyHandler(storeLoader, this::handlePartnerConfigGet, partnerConfigProvider), Role.ADMINISTRATOR));
+        router.post("/api/partner_config/update").blockingHandler(auth.handle(new StoreReadyHandler(storeLoader, (ctx) -> {
             synchronized (writeLock) {
                 this.handlePartnerConfigUpdate(ctx);
             }
-        }, Role.ADMINISTRATOR));
+        }, partnerConfigProvider), Role.ADMINISTRATOR));
     }
 
     private void handlePartnerConfigGet(RoutingContext rc) {
@@ -51,8 +56,8 @@ public class PartnerConfigService implements IService {
 
     private void handlePartnerConfigUpdate(RoutingContext rc) {
         try {
-            // refresh manually
-            this.partnerConfigProvider.loadContent();
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(this.partnerConfigProvider);
             JsonArray partners = rc.body().asJsonArray();
             if (partners == null) {
                 ResponseUtil.error(rc, 400, "Body must be none empty");
@@ -3,59 +3,83 @@ package com.uid2.admin.vertx.service;
 import com.uid2.admin.job.JobDispatcher;
 import com.uid2.admin.job.jobsync.PrivateSiteDataSyncJob;
 import com.uid2.admin.job.jobsync.keyset.ReplaceSharingTypesWithSitesJob;
+import com.uid2.admin.model.PrivateSiteTopology;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.vertx.ResponseUtil;
 import com.uid2.admin.vertx.WriteLock;
 import com.uid2.shared.auth.Role;
+import com.uid2.shared.auth.RotatingOperatorKeyProvider;
+import com.uid2.shared.cloud.ICloudStorage;
 import com.uid2.shared.middleware.AuthMiddleware;
+import com.uid2.shared.model.SiteUtil;
+import com.uid2.shared.store.reader.RotatingSiteStore;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.TreeSet;
+
 public class PrivateSiteDataRefreshService implements IService {
     private static final Logger LOGGER = LoggerFactory.getLogger(PrivateSiteDataRefreshService.class);
 
     private final AuthMiddleware auth;
     private final JobDispatcher jobDispatcher;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final JsonObject config;
+    private final ICloudStorage cloudStorage;
+    private final RotatingSiteStore siteProvider;
+    private final RotatingOperatorKeyProvider operatorKeyProvider;
 
     public PrivateSiteDataRefreshService(
             AuthMiddleware auth,
             JobDispatcher jobDispatcher,
             WriteLock writeLock,
-            JsonObject config) {
+            StoreLoader storeLoader,
+            JsonObject config,
+            ICloudStorage cloudStorage,
+            RotatingSiteStore siteProvider,
+            RotatingOperatorKeyProvider operatorKeyProvider) {
         this.auth = auth;
         this.jobDispatcher = jobDispatcher;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.config = config;
+        this.cloudStorage = cloudStorage;
+        this.siteProvider = siteProvider;
+        this.operatorKeyProvider = operatorKeyProvider;
     }
 
     @Override
     public void setupRoutes(Router router) {
         // this can be called by a scheduled task
-        router.post("/api/private-sites/refresh").blockingHandler(auth.handle((ctx) -> {
-                    synchronized (writeLock) {
-                        this.handlePrivateSiteDataGenerate(ctx);
-                    }
-                },
+        // the jobs take the write lock themselves when they run, enqueueing them does not need it
+        router.post("/api/private-sites/refresh").blockingHandler(auth.handle(this::handlePrivateSiteDataGenerate,
                 //can be other role
                 Role.ADMINISTRATOR, Role.SECRET_MANAGER));
 
-        router.post("/api/private-sites/refreshNow").blockingHandler(auth.handle((ctx) -> {
-                    synchronized (writeLock) {
-                        this.handlePrivateSiteDataGenerateNow(ctx);
-                    }
-                },
+        router.post("/api/private-sites/refreshNow").blockingHandler(auth.handle(this::handlePrivateSiteDataGenerateNow,
                 //can be other role
                 Role.ADMINISTRATOR, Role.SECRET_MANAGER));
+
+        // regenerates only the given private sites, e.g. when onboarding a new private operator
+        // the job runs as soon as the dispatcher allows, the response returns its id without waiting for it,
+        // its durations per data type are listed by /api/job-dispatcher/finished-jobs once it's done
+        router.post("/api/private-sites/refresh/sites").blockingHandler(auth.handle(this::handlePrivateSiteDataGenerateForSites,
+                Role.ADMINISTRATOR, Role.SECRET_MANAGER));
     }
 
     private void handlePrivateSiteDataGenerate(RoutingContext rc) {
         try {
-            ReplaceSharingTypesWithSitesJob replaceSharingTypesWithSitesJob = new ReplaceSharingTypesWithSitesJob(config, writeLock);
+            ReplaceSharingTypesWithSitesJob replaceSharingTypesWithSitesJob = new ReplaceSharingTypesWithSitesJob(config, writeLock, cloudStorage);
             jobDispatcher.enqueue(replaceSharingTypesWithSitesJob);
-            PrivateSiteDataSyncJob job = new PrivateSiteDataSyncJob(config, writeLock);
+            PrivateSiteDataSyncJob job = new PrivateSiteDataSyncJob(config, writeLock, cloudStorage);
             jobDispatcher.enqueue(job);
             rc.response().end("OK");
         } catch (Exception e) {
@@ -64,13 +88,65 @@ public class PrivateSiteDataRefreshService implements IService {
         }
     }
 
+    private void handlePrivateSiteDataGenerateForSites(RoutingContext rc) {
+        final Set<Integer> siteIds = new TreeSet<>();
+        try {
+            for (String param : rc.queryParam("site_ids")) {
+                for (String siteId : param.split(",")) {
+                    siteIds.add(Integer.parseInt(siteId.trim()));
+                }
+            }
+        } catch (NumberFormatException e) {
+            ResponseUtil.error(rc, 400, "unable to parse site ids " + e.getMessage());
+            return;
+        }
+        if (siteIds.isEmpty()) {
+            ResponseUtil.error(rc, 400, "must specify site ids");
+            return;
+        }
+        if (!siteIds.stream().allMatch(SiteUtil::isValidSiteId)) {
+            ResponseUtil.error(rc, 400, "must specify valid site ids");
+            return;
+        }
+
+        try {
+            storeLoader.loadIfChanged(siteProvider);
+            storeLoader.loadIfChanged(operatorKeyProvider);
+            final PrivateSiteTopology topology = PrivateSiteTopology.fromOperators(operatorKeyProvider.getAll());
+            for (int siteId : siteIds) {
+                if (siteProvider.getSite(siteId) == null) {
+                    ResponseUtil.error(rc, 400, "site " + siteId + " does not exist");
+                    return;
+                }
+                if (!topology.contains(siteId)) {
+                    ResponseUtil.error(rc, 400, "site " + siteId + " has no private operator");
+                    return;
+                }
+            }
+
+            final PrivateSiteDataSyncJob job = new PrivateSiteDataSyncJob(config, writeLock, cloudStorage, siteIds);
+            jobDispatcher.enqueue(job);
+            jobDispatcher.scheduleNextJob();
+            JsonObject response = new JsonObject()
+                    .put("site_ids", new JsonArray(new ArrayList<>(siteIds)))
+                    .put("job_id", job.getId());
+            rc.response()
+                    .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                    .end(response.encode());
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            rc.fail(500, e);
+        }
+    }
+
     private void handlePrivateSiteDataGenerateNow(RoutingContext rc) {
         try {
-            ReplaceSharingTypesWithSitesJob replaceSharingTypesWithSitesJob = new ReplaceSharingTypesWithSitesJob(config, writeLock);
-            jobDispatcher.enqueue(replaceSharingTypesWithSitesJob);
+            ReplaceSharingTypesWithSitesJob replaceSharingTypesWithSitesJob = new ReplaceSharingTypesWithSitesJob(config, writeLock, cloudStorage);
+            // immediate, so that the jobs don't wait for the dispatcher's debounce window
+            jobDispatcher.enqueue(replaceSharingTypesWithSitesJob, true);
             jobDispatcher.executeNextJob();
-            PrivateSiteDataSyncJob job = new PrivateSiteDataSyncJob(config, writeLock);
-            jobDispatcher.enqueue(job);
+            PrivateSiteDataSyncJob job = new PrivateSiteDataSyncJob(config, writeLock, cloudStorage);
+            jobDispatcher.enqueue(job, true);
             jobDispatcher.executeNextJob();
             rc.response().end("OK");
         } catch (Exception e) {
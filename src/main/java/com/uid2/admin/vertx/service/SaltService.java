@@ -1,6 +1,7 @@
 package com.uid2.admin.vertx.service;
 
 import com.uid2.admin.secret.ISaltRotation;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.writer.SaltStoreWriter;
 import com.uid2.admin.vertx.RequestUtil;
 import com.uid2.admin.vertx.ResponseUtil;
@@ -27,17 +28,20 @@ public class SaltService implements IService {
 
     private final AuthMiddleware auth;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final SaltStoreWriter storageManager;
     private final RotatingSaltProvider saltProvider;
     private final ISaltRotation saltRotation;
 
     public SaltService(AuthMiddleware auth,
                        WriteLock writeLock,
+                       StoreLoader storeLoader,
                        SaltStoreWriter storageManager,
                        RotatingSaltProvider saltProvider,
                        ISaltRotation saltRotation) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.storageManager = storageManager;
         this.saltProvider = saltProvider;
         this.saltRotation = saltRotation;
@@ -77,8 +81,8 @@ public class SaltService implements IService {
             final Duration[] minAges = RequestUtil.getDurations(rc, "min_ages_in_seconds");
             if (minAges == null) return;
 
-            // force refresh
-            this.saltProvider.loadContent();
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(this.saltProvider);
 
             // mark all the referenced files as ready to archive
             storageManager.archiveSaltLocations();
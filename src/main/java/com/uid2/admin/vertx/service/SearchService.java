@@ -4,6 +4,7 @@ import com.uid2.admin.auth.AdminUser;
 import com.uid2.admin.auth.AdminUserProvider;
 import com.uid2.admin.legacy.LegacyClientKey;
 import com.uid2.admin.legacy.RotatingLegacyClientKeyProvider;
+import com.uid2.admin.model.SearchIndex;
 import com.uid2.admin.vertx.ResponseUtil;
 import com.uid2.shared.auth.*;
 import com.uid2.shared.middleware.AuthMiddleware;
@@ -16,14 +17,28 @@ import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
 public class SearchService implements IService {
     private static final Integer QUERY_PARAMETER_MIN_LENGTH = 6;
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SearchService.class);
     private final AuthMiddleware auth;
     private final RotatingLegacyClientKeyProvider clientKeyProvider;
     private final RotatingOperatorKeyProvider operatorKeyProvider;
     private final AdminUserProvider adminUserProvider;
+    // rebuilt when the store they were built from is reloaded
+    private final AtomicReference<SearchIndex<LegacyClientKey>> clientKeyIndex = new AtomicReference<>();
+    private final AtomicReference<SearchIndex<OperatorKey>> operatorKeyIndex = new AtomicReference<>();
+    private final AtomicReference<SearchIndex<AdminUser>> adminUserIndex = new AtomicReference<>();
 
     public SearchService(
             AuthMiddleware auth,
@@ -38,8 +53,8 @@ public class SearchService implements IService {
 
     @Override
     public void setupRoutes(Router router) {
-        router.post("/api/search").handler(
-                auth.handle(this::handleSearch, Role.ADMINISTRATOR));
+        router.post("/api/search").blockingHandler(
+                auth.handle(this::handleSearch, Role.ADMINISTRATOR), false);
     }
 
     private void handleSearch(RoutingContext rc) {
@@ -49,6 +64,19 @@ public class SearchService implements IService {
 
             if (queryParam.length() < QUERY_PARAMETER_MIN_LENGTH) {
                 ResponseUtil.error(rc, 400, String.format("Parameter too short. Must be %d or more characters.", QUERY_PARAMETER_MIN_LENGTH));
+                return;
+            }
+
+            final int limit;
+            try {
+                limit = rc.queryParam("limit").isEmpty() ? DEFAULT_LIMIT : Integer.parseInt(rc.queryParam("limit").get(0));
+            } catch (NumberFormatException e) {
+                ResponseUtil.error(rc, 400, "invalid limit");
+                return;
+            }
+            if (limit < 1 || limit > MAX_LIMIT) {
+                ResponseUtil.error(rc, 400, "limit must be between 1 and " + MAX_LIMIT);
+                return;
             }
 
             JsonArray clientKeyResults = new JsonArray();
@@ -59,41 +87,49 @@ public class SearchService implements IService {
             results.put("OperatorKeys", operatorKeyResults);
             results.put("AdministratorKeys", adminUserResults);
 
-            this.clientKeyProvider.getAll()
-                    .stream()
-                    .filter(c -> c.getSecret().contains(queryParam))
-                    .forEach(clientKeyResults::add);
+            // exact key and key hash matches come first, as they were looked up before the substring search
+            final Set<Object> found = Collections.newSetFromMap(new IdentityHashMap<>());
 
             LegacyClientKey clientKeyByKey = this.clientKeyProvider.getClientKey(queryParam);
-            if (clientKeyByKey != null) {
+            if (clientKeyByKey != null && found.add(clientKeyByKey)) {
                 clientKeyResults.add(clientKeyByKey.toClientKey());
             }
 
             OperatorKey operatorKeyByKey = this.operatorKeyProvider.getOperatorKey(queryParam);
-            if (operatorKeyByKey != null) {
+            if (operatorKeyByKey != null && found.add(operatorKeyByKey)) {
                 operatorKeyResults.add(operatorKeyByKey);
             }
 
             AdminUser adminUserByKey = this.adminUserProvider.getAdminUser(queryParam);
-            if (adminUserByKey != null) {
+            if (adminUserByKey != null && found.add(adminUserByKey)) {
                 adminUserResults.add(adminUserByKey);
             }
 
             LegacyClientKey clientKeyByHash = this.clientKeyProvider.getClientKeyFromHash(queryParam);
-            if (clientKeyByHash != null) {
+            if (clientKeyByHash != null && found.add(clientKeyByHash)) {
                 clientKeyResults.add(clientKeyByHash.toClientKey());
             }
 
             OperatorKey operatorKeyByHash = this.operatorKeyProvider.getOperatorKeyFromHash(queryParam);
-            if (operatorKeyByHash != null) {
+            if (operatorKeyByHash != null && found.add(operatorKeyByHash)) {
                 operatorKeyResults.add(operatorKeyByHash);
             }
 
             AdminUser adminUserByHash = this.adminUserProvider.getAdminUserFromHash(queryParam);
-            if (adminUserByHash != null) {
+            if (adminUserByHash != null && found.add(adminUserByHash)) {
                 adminUserResults.add(adminUserByHash);
             }
 
+            addMatches(clientKeyResults, found, limit, getIndex(clientKeyIndex, this.clientKeyProvider.getAll(),
+                    c -> new String[]{c.getKeyId(), c.getName(), c.getContact(), siteIdOf(c.getSiteId()), c.getKeyHash(), c.getSecret()})
+                    .search(queryParam, limit));
+            addMatches(operatorKeyResults, found, limit, getIndex(operatorKeyIndex, this.operatorKeyProvider.getAll(),
+                    o -> new String[]{o.getKeyId(), o.getName(), o.getContact(), siteIdOf(o.getSiteId()), o.getKeyHash()})
+                    .search(queryParam, limit));
+            addMatches(adminUserResults, found, limit, getIndex(adminUserIndex, this.adminUserProvider.getAll(),
+                    a -> new String[]{a.getKeyId(), a.getName(), a.getContact(), siteIdOf(a.getSiteId()), a.getKeyHash()})
+                    .search(queryParam, limit));
+
             rc.response()
                     .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
                     .end(results.encode());
@@ -102,4 +138,28 @@ public class SearchService implements IService {
             rc.fail(500, t);
         }
     }
+
+    private static <T> SearchIndex<T> getIndex(AtomicReference<SearchIndex<T>> index, Collection<T> snapshot, Function<T, String[]> fieldsOf) {
+        SearchIndex<T> current = index.get();
+        if (current == null || !current.isBuiltFrom(snapshot)) {
+            current = SearchIndex.build(snapshot, fieldsOf);
+            index.set(current);
+        }
+        return current;
+    }
+
+    private static <T> void addMatches(JsonArray results, Set<Object> found, int limit, List<T> matches) {
+        for (T match : matches) {
+            if (results.size() >= limit) {
+                return;
+            }
+            if (found.add(match)) {
+                results.add(match);
+            }
+        }
+    }
+
+    private static String siteIdOf(Integer siteId) {
+        return siteId == null ? null : siteId.toString();
+    }
 }
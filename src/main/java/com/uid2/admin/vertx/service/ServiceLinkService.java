@@ -1,7 +1,9 @@
 package com.uid2.admin.vertx.service;
 
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.writer.StoreWriter;
 import com.uid2.admin.vertx.ResponseUtil;
+import com.uid2.admin.vertx.StoreReadyHandler;
 import com.uid2.admin.vertx.WriteLock;
 import com.uid2.shared.auth.Role;
 import com.uid2.shared.middleware.AuthMiddleware;
@@ -26,6 +28,7 @@ public class ServiceLinkService implements IService {
 
     private final AuthMiddleware auth;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final StoreWriter<Collection<ServiceLink>> storeWriter;
     private final RotatingServiceLinkStore serviceLinkProvider;
     private final RotatingServiceStore serviceProvider;
@@ -34,12 +37,14 @@ public class ServiceLinkService implements IService {
 
     public ServiceLinkService(AuthMiddleware auth,
                               WriteLock writeLock,
+                              StoreLoader storeLoader,
                               StoreWriter<Collection<ServiceLink>> storeWriter,
                               RotatingServiceLinkStore serviceLinkProvider,
                               RotatingServiceStore serviceProvider,
                               RotatingSiteStore siteProvider) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.storeWriter = storeWriter;
         this.serviceLinkProvider = serviceLinkProvider;
         this.serviceProvider = serviceProvider;
@@ -48,22 +53,22 @@ public class ServiceLinkService implements IService {
 
     @Override
     public void setupRoutes(Router router) {
-        router.get("/api/service_link/list").handler(auth.handle(this::handleServiceLinkList, Role.ADMINISTRATOR));
-        router.post("/api/service_link/add").blockingHandler(auth.handle((ctx) -> {
+        router.get("/api/service_link/list").handler(auth.handle(new StoreReadyHandler(storeLoader, this::handleServiceLinkList, serviceLinkProvider, serviceProvider), Role.ADMINISTRATOR));
+        router.post("/api/service_link/add").blockingHandler(auth.handle(new StoreReadyHandler(storeLoader, (ctx) -> {
             synchronized (writeLock) {
                 this.handleServiceLinkAdd(ctx);
             }
-        }, Role.ADMINISTRATOR));
-        router.post("/api/service_link/update").blockingHandler(auth.handle((ctx) -> {
+        }, serviceLinkProvider, serviceProvider), Role.ADMINISTRATOR));
+        router.post("/api/service_link/update").blockingHandler(auth.handle(new StoreReadyHandler(storeLoader, (ctx) -> {
             synchronized (writeLock) {
                 this.handleServiceLinkUpdate(ctx);
             }
-        }, Role.ADMINISTRATOR));
-        router.post("/api/service_link/delete").blockingHandler(auth.handle((ctx) -> {
+        }, serviceLinkProvider, serviceProvider), Role.ADMINISTRATOR));
+        router.post("/api/service_link/delete").blockingHandler(auth.handle(new StoreReadyHandler(storeLoader, (ctx) -> {
             synchronized (writeLock) {
                 this.handleServiceLinkDelete(ctx);
             }
-        }, Role.ADMINISTRATOR));
+        }, serviceLinkProvider, serviceProvider), Role.ADMINISTRATOR));
     }
 
     private void handleServiceLinkList(RoutingContext rc) {
@@ -80,8 +85,8 @@ public class ServiceLinkService implements IService {
 
     private void handleServiceLinkAdd(RoutingContext rc) {
         try {
-            siteProvider.loadContent();
-            serviceProvider.loadContent();
+            storeLoader.loadIfChanged(siteProvider);
+            storeLoader.loadIfChanged(serviceProvider);
 
             JsonObject body = rc.body().asJsonObject();
             if (body == null) {
@@ -132,8 +137,8 @@ public class ServiceLinkService implements IService {
     private void handleServiceLinkUpdate(RoutingContext rc) {
 
         try {
-            siteProvider.loadContent();
-            serviceProvider.loadContent();
+            storeLoader.loadIfChanged(siteProvider);
+            storeLoader.loadIfChanged(serviceProvider);
 
             JsonObject body = rc.body().asJsonObject();
             if (body == null) {
@@ -184,7 +189,7 @@ public class ServiceLinkService implements IService {
 
     private void handleServiceLinkDelete(RoutingContext rc) {
         try {
-            serviceProvider.loadContent();
+            storeLoader.loadIfChanged(serviceProvider);
             JsonObject body = rc.body().asJsonObject();
             if (body == null) {
                 ResponseUtil.error(rc, 400, "json payload required but not provided");
@@ -1,13 +1,15 @@
 package com.uid2.admin.vertx.service;
 
-import com.uid2.admin.store.writer.StoreWriter;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.writer.ServiceStoreWriter;
 import com.uid2.admin.vertx.ResponseUtil;
-import com.uid2.admin.vertx.WriteLock;
+import com.uid2.admin.vertx.StoreReadyHandler;
 import com.uid2.shared.auth.Role;
 import com.uid2.shared.middleware.AuthMiddleware;
 import com.uid2.shared.model.Service;
 import com.uid2.shared.store.reader.RotatingServiceStore;
 import com.uid2.shared.store.reader.RotatingSiteStore;
+import io.vertx.core.Future;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -16,28 +18,32 @@ import io.vertx.ext.web.RoutingContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 public class ServiceService implements IService {
+    // Only this service writes the services store, so its writes hold a vertx lock of their own instead of the
+    // global write lock. The lock is released when the asynchronous upload completes, and no worker thread is
+    // held while the files are uploaded.
+    private static final String WRITE_LOCK_NAME = "services-store-write";
+    private static final long WRITE_LOCK_TIMEOUT_MS = 60000;
 
     private final AuthMiddleware auth;
-    private final WriteLock writeLock;
-    private final StoreWriter<Collection<Service>> storeWriter;
+    private final StoreLoader storeLoader;
+    private final ServiceStoreWriter storeWriter;
     private final RotatingServiceStore serviceProvider;
     private final RotatingSiteStore siteProvider;
     private static final Logger LOGGER = LoggerFactory.getLogger(ServiceService.class);
 
     public ServiceService(AuthMiddleware auth,
-                          WriteLock writeLock,
-                          StoreWriter<Collection<Service>> storeWriter,
+                          StoreLoader storeLoader,
+                          ServiceStoreWriter storeWriter,
                           RotatingServiceStore serviceProvider,
                           RotatingSiteStore siteProvider) {
         this.auth = auth;
-        this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.storeWriter = storeWriter;
         this.serviceProvider = serviceProvider;
         this.siteProvider = siteProvider;
@@ -45,23 +51,55 @@ public class ServiceService implements IService {
 
     @Override
     public void setupRoutes(Router router) {
-        router.get("/api/service/list").handler(auth.handle(this::handleServiceListAll, Role.ADMINISTRATOR));
-        router.get("/api/service/list/:service_id").handler(auth.handle(this::handleServiceList, Role.ADMINISTRATOR));
-        router.post("/api/service/add").blockingHandler(auth.handle((ctx) -> {
-            synchronized (writeLock) {
-                this.handleServiceAdd(ctx);
-            }
-        }, Role.ADMINISTRATOR));
-        router.post("/api/service/update").blockingHandler(auth.handle((ctx) -> {
-            synchronized (writeLock) {
-                this.handleUpdate(ctx);
-            }
-        }, Role.ADMINISTRATOR));
-        router.post("/api/service/delete").blockingHandler(auth.handle((ctx) -> {
-            synchronized (writeLock) {
-                this.handleDelete(ctx);
+        router.get("/api/service/list").handler(auth.handle(new StoreReadyHandler(storeLoader, this::handleServiceListAll, serviceProvider), Role.ADMINISTRATOR));
+        router.get("/api/service/list/:service_id").handler(auth.handle(new StoreReadyHandler(storeLoader, this::handleServiceList, serviceProvider), Role.ADMINISTRATOR));
+        router.post("/api/service/add").handler(auth.handle(new StoreReadyHandler(storeLoader, (ctx) -> {
+            this.handleWrite(ctx, this::prepareServiceAdd);
+        }, serviceProvider), Role.ADMINISTRATOR));
+        router.post("/api/service/update").handler(auth.handle(new StoreReadyHandler(storeLoader, (ctx) -> {
+            this.handleWrite(ctx, this::prepareUpdate);
+        }, serviceProvider), Role.ADMINISTRATOR));
+        router.post("/api/service/delete").handler(auth.handle(new StoreReadyHandler(storeLoader, (ctx) -> {
+            this.handleWrite(ctx, this::prepareDelete);
+        }, serviceProvider), Role.ADMINISTRATOR));
+    }
+
+    /*
+     * Under the services write lock, validates the request and builds the new services on a worker thread,
+     * then uploads them asynchronously and responds with the changed service.
+     */
+    private void handleWrite(RoutingContext rc, WritePreparation preparation) {
+        rc.vertx().sharedData().getLocalLockWithTimeout(WRITE_LOCK_NAME, WRITE_LOCK_TIMEOUT_MS).onComplete(lockResult -> {
+            if (lockResult.failed()) {
+                failInternal(rc, lockResult.cause());
+                return;
             }
-        }, Role.ADMINISTRATOR));
+            rc.vertx().<ServicesWrite>executeBlocking(promise -> {
+                try {
+                    promise.complete(preparation.prepare(rc));
+                } catch (Exception e) {
+                    promise.fail(e);
+                }
+            }, false).compose(write -> {
+                if (write == null) {
+                    // the request was rejected and has been responded to
+                    return Future.succeededFuture((Service) null);
+                }
+                return storeWriter.uploadAsync(write.services, null, rc.vertx()).map(v -> write.changed);
+            }).onComplete(ar -> {
+                lockResult.result().release();
+                if (ar.failed()) {
+                    failInternal(rc, ar.cause());
+                } else if (ar.result() != null) {
+                    rc.response().end(toJson(ar.result()).encodePrettily());
+                }
+            });
+        });
+    }
+
+    private void failInternal(RoutingContext rc, Throwable cause) {
+        LOGGER.error("Internal Server Error", cause);
+        rc.fail(500);
     }
 
     private void handleServiceListAll(RoutingContext rc) {
@@ -96,171 +134,152 @@ public class ServiceService implements IService {
                 .end(toJson(service).encodePrettily());
     }
 
-    private void handleServiceAdd(RoutingContext rc) {
-        try {
-            siteProvider.loadContent();
-
-            JsonObject body = rc.body().asJsonObject();
-            if (body == null) {
-                ResponseUtil.error(rc, 400, "json payload required but not provided");
-                return;
-            }
-            Integer siteId = body.getInteger("site_id");
-            String name = body.getString("name");
-            JsonArray rolesSpec = body.getJsonArray("roles");
-            if (siteId == null || name == null || rolesSpec == null) {
-                ResponseUtil.error(rc, 400, "required parameters: site_id, name, roles");
-                return;
-            }
+    private ServicesWrite prepareServiceAdd(RoutingContext rc) throws Exception {
+        storeLoader.loadIfChanged(siteProvider);
 
-            if (siteProvider.getSite(siteId) == null) {
-                ResponseUtil.error(rc, 404, "site_id " + siteId + " not valid");
-                return;
-            }
+        JsonObject body = rc.body().asJsonObject();
+        if (body == null) {
+            ResponseUtil.error(rc, 400, "json payload required but not provided");
+            return null;
+        }
+        Integer siteId = body.getInteger("site_id");
+        String name = body.getString("name");
+        JsonArray rolesSpec = body.getJsonArray("roles");
+        if (siteId == null || name == null || rolesSpec == null) {
+            ResponseUtil.error(rc, 400, "required parameters: site_id, name, roles");
+            return null;
+        }
 
-            if (name.equals("")) {
-                ResponseUtil.error(rc, 400, "name cannot be empty");
-                return;
-            }
+        if (siteProvider.getSite(siteId) == null) {
+            ResponseUtil.error(rc, 404, "site_id " + siteId + " not valid");
+            return null;
+        }
 
-            boolean exists = serviceProvider.getAllServices().stream().anyMatch(s -> s.getSiteId() == siteId && s.getName().equals(name));
-            if (exists) {
-                ResponseUtil.error(rc, 400, "site_id " + siteId + " already has service of name " + name);
-                return;
-            }
+        if (name.equals("")) {
+            ResponseUtil.error(rc, 400, "name cannot be empty");
+            return null;
+        }
 
-            final Set<Role> roles;
-            try {
-                roles = rolesSpec.stream().map(s -> Role.valueOf((String) s)).collect(Collectors.toSet());
-            } catch (IllegalArgumentException e) {
-                ResponseUtil.error(rc, 400, "invalid parameter: roles");
-                return;
-            }
+        boolean exists = serviceProvider.getAllServices().stream().anyMatch(s -> s.getSiteId() == siteId && s.getName().equals(name));
+        if (exists) {
+            ResponseUtil.error(rc, 400, "site_id " + siteId + " already has service of name " + name);
+            return null;
+        }
 
-            final List<Service> services = this.serviceProvider.getAllServices()
-                    .stream().sorted(Comparator.comparingInt(Service::getServiceId))
-                    .collect(Collectors.toList());
-            final int serviceId = 1 + services.stream().mapToInt(Service::getServiceId).max().orElse(0);
-            Service service = new Service(serviceId, siteId, name, roles);
+        final Set<Role> roles;
+        try {
+            roles = rolesSpec.stream().map(s -> Role.valueOf((String) s)).collect(Collectors.toSet());
+        } catch (IllegalArgumentException e) {
+            ResponseUtil.error(rc, 400, "invalid parameter: roles");
+            return null;
+        }
 
-            services.add(service);
+        final List<Service> services = this.serviceProvider.getAllServices()
+                .stream().sorted(Comparator.comparingInt(Service::getServiceId))
+                .collect(Collectors.toList());
+        final int serviceId = 1 + services.stream().mapToInt(Service::getServiceId).max().orElse(0);
+        Service service = new Service(serviceId, siteId, name, roles);
 
-            storeWriter.upload(services, null);
+        services.add(service);
 
-            rc.response().end(toJson(service).encodePrettily());
-        } catch (Exception e) {
-            ResponseUtil.errorInternal(rc, "Internal Server Error", e);
-        }
+        return new ServicesWrite(services, service);
     }
 
     // Can update the site_id, name and roles
-    private void handleUpdate(RoutingContext rc) {
-        try {
-            JsonObject body = rc.body().asJsonObject();
-            if (body == null) {
-                ResponseUtil.error(rc, 400, "json payload required but not provided");
-                return;
-            }
-            Integer serviceId = body.getInteger("service_id");
-            Integer siteId = body.getInteger("site_id");
-            String name = body.getString("name");
-
-            JsonArray rolesSpec = null;
-            if (body.getString("roles") != null && !body.getString("roles").isEmpty()) {
-                try {
-                    rolesSpec = body.getJsonArray("roles");
-                } catch (ClassCastException c) {
-                    ResponseUtil.error(rc, 400, "invalid parameter: roles");
-                    return;
-                }
-            }
+    private ServicesWrite prepareUpdate(RoutingContext rc) {
+        JsonObject body = rc.body().asJsonObject();
+        if (body == null) {
+            ResponseUtil.error(rc, 400, "json payload required but not provided");
+            return null;
+        }
+        Integer serviceId = body.getInteger("service_id");
+        Integer siteId = body.getInteger("site_id");
+        String name = body.getString("name");
 
-            if (serviceId == null) {
-                ResponseUtil.error(rc, 400, "required parameters: service_id");
-                return;
+        JsonArray rolesSpec = null;
+        if (body.getString("roles") != null && !body.getString("roles").isEmpty()) {
+            try {
+                rolesSpec = body.getJsonArray("roles");
+            } catch (ClassCastException c) {
+                ResponseUtil.error(rc, 400, "invalid parameter: roles");
+                return null;
             }
+        }
 
-            final Service service = serviceProvider.getService(serviceId);
-            if (service == null) {
-                ResponseUtil.error(rc, 404, "failed to find a service for service_id: " + serviceId);
-                return;
-            }
+        if (serviceId == null) {
+            ResponseUtil.error(rc, 400, "required parameters: service_id");
+            return null;
+        }
 
-            // check that this does not create a duplicate service
-            if (siteId != null && siteId != 0 && name != null && !name.isEmpty()) {
-                boolean exists = serviceProvider.getAllServices().stream().anyMatch(s -> s.getServiceId() != serviceId && s.getSiteId() == siteId && s.getName().equals(name));
-                if (exists) {
-                    ResponseUtil.error(rc, 400, "site_id " + siteId + " already has service of name " + name);
-                    return;
-                }
-            }
+        final Service service = serviceProvider.getService(serviceId);
+        if (service == null) {
+            ResponseUtil.error(rc, 404, "failed to find a service for service_id: " + serviceId);
+            return null;
+        }
 
-            if (rolesSpec != null) {
-                final Set<Role> roles;
-                try {
-                    roles = rolesSpec.stream().map(s -> Role.valueOf((String) s)).collect(Collectors.toSet());
-                } catch (IllegalArgumentException e) {
-                    ResponseUtil.error(rc, 400, "invalid parameter: roles");
-                    return;
-                }
-                service.setRoles(roles);
+        // check that this does not create a duplicate service
+        if (siteId != null && siteId != 0 && name != null && !name.isEmpty()) {
+            boolean exists = serviceProvider.getAllServices().stream().anyMatch(s -> s.getServiceId() != serviceId && s.getSiteId() == siteId && s.getName().equals(name));
+            if (exists) {
+                ResponseUtil.error(rc, 400, "site_id " + siteId + " already has service of name " + name);
+                return null;
             }
+        }
 
-            if (siteId != null && siteId != 0) {
-                service.setSiteId(siteId);
+        if (rolesSpec != null) {
+            final Set<Role> roles;
+            try {
+                roles = rolesSpec.stream().map(s -> Role.valueOf((String) s)).collect(Collectors.toSet());
+            } catch (IllegalArgumentException e) {
+                ResponseUtil.error(rc, 400, "invalid parameter: roles");
+                return null;
             }
+            service.setRoles(roles);
+        }
 
-            if (name != null && !name.isEmpty()) {
-                service.setName(name);
-            }
+        if (siteId != null && siteId != 0) {
+            service.setSiteId(siteId);
+        }
 
-            final List<Service> services = this.serviceProvider.getAllServices()
-                    .stream().sorted(Comparator.comparingInt(Service::getServiceId))
-                    .collect(Collectors.toList());
+        if (name != null && !name.isEmpty()) {
+            service.setName(name);
+        }
 
-            storeWriter.upload(services, null);
+        final List<Service> services = this.serviceProvider.getAllServices()
+                .stream().sorted(Comparator.comparingInt(Service::getServiceId))
+                .collect(Collectors.toList());
 
-            rc.response().end(toJson(service).encodePrettily());
-        } catch (Exception e) {
-            ResponseUtil.errorInternal(rc, "Internal Server Error", e);
-        }
+        return new ServicesWrite(services, service);
     }
 
-    private void handleDelete(RoutingContext rc) {
+    private ServicesWrite prepareDelete(RoutingContext rc) throws Exception {
         final int serviceId;
         JsonObject body = rc.body() != null ? rc.body().asJsonObject() : null;
         if (body == null) {
             ResponseUtil.error(rc, 400, "json payload required but not provided");
-            return;
+            return null;
         }
         serviceId = body.getInteger("service_id", -1);
         if (serviceId == -1) {
             ResponseUtil.error(rc, 400, "required parameters: service_id");
-            return;
+            return null;
         }
 
-        try {
-            serviceProvider.loadContent();
-
-            Service service = serviceProvider.getService(serviceId);
-            if (service == null) {
-                ResponseUtil.error(rc, 404, "failed to find a service for service_id: " + serviceId);
-                return;
-            }
-
-            final List<Service> services = this.serviceProvider.getAllServices()
-                    .stream().sorted(Comparator.comparingInt(Service::getServiceId))
-                    .collect(Collectors.toList());
+        storeLoader.loadIfChanged(serviceProvider);
 
-            services.remove(service);
+        Service service = serviceProvider.getService(serviceId);
+        if (service == null) {
+            ResponseUtil.error(rc, 404, "failed to find a service for service_id: " + serviceId);
+            return null;
+        }
 
-            storeWriter.upload(services, null);
+        final List<Service> services = this.serviceProvider.getAllServices()
+                .stream().sorted(Comparator.comparingInt(Service::getServiceId))
+                .collect(Collectors.toList());
 
-            rc.response().end(toJson(service).encodePrettily());
-        } catch (Exception e) {
-            ResponseUtil.errorInternal(rc, "Internal Server Error", e);
-        }
+        services.remove(service);
 
+        return new ServicesWrite(services, service);
     }
 
     private JsonObject toJson(Service s) {
@@ -271,4 +290,20 @@ public class ServiceService implements IService {
         jsonObject.put("roles", s.getRoles());
         return jsonObject;
     }
+
+    @FunctionalInterface
+    private interface WritePreparation {
+        // returns the services to upload, or null once the request has been rejected
+        ServicesWrite prepare(RoutingContext rc) throws Exception;
+    }
+
+    private static class ServicesWrite {
+        private final List<Service> services;
+        private final Service changed;
+
+        private ServicesWrite(List<Service> services, Service changed) {
+            this.services = services;
+            this.changed = changed;
+        }
+    }
 }
@@ -1,13 +1,16 @@
 package com.uid2.admin.vertx.service;
 
 import com.uid2.admin.auth.AdminKeyset;
+import com.uid2.admin.auth.AdminKeysetSnapshot;
 import com.uid2.admin.secret.IKeysetKeyManager;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.reader.RotatingAdminKeysetStore;
 import com.uid2.admin.store.writer.AdminKeysetWriter;
 import com.uid2.admin.vertx.WriteLock;
 import com.uid2.admin.managers.KeysetManager;
 import com.uid2.admin.store.writer.KeysetStoreWriter;
 import com.uid2.admin.vertx.ResponseUtil;
+import com.uid2.admin.vertx.SnapshotResponseCache;
 import com.uid2.shared.Const;
 import com.uid2.shared.auth.Role;
 import com.uid2.shared.middleware.AuthMiddleware;
@@ -30,21 +33,25 @@ public class SharingService implements IService {
     private final AuthMiddleware auth;
 
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final RotatingAdminKeysetStore keysetProvider;
     private final RotatingSiteStore siteProvider;
     private final KeysetManager keysetManager;
     private static final Logger LOGGER = LoggerFactory.getLogger(SharingService.class);
 
     private final boolean enableKeysets;
+    private final SnapshotResponseCache responseCache = new SnapshotResponseCache();
 
     public SharingService(AuthMiddleware auth,
                           WriteLock writeLock,
+                          StoreLoader storeLoader,
                           RotatingAdminKeysetStore keysetProvider,
                           KeysetManager keysetManager,
                           RotatingSiteStore siteProvider,
                           boolean enableKeyset) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.keysetProvider = keysetProvider;
         this.keysetManager = keysetManager;
         this.siteProvider = siteProvider;
@@ -63,9 +70,14 @@ public class SharingService implements IService {
         router.post("/api/sharing/list/:siteId").handler(
                 auth.handle(this::handleSetAllowedSites, Role.SHARING_PORTAL)
         );
+        // sets many sites' allowed sites and types at once, blocking as it publishes the keysets and keyset keys
+        router.post("/api/sharing/lists").blockingHandler(
+                auth.handle(this::handleSetAllowedSitesBulk, Role.SHARING_PORTAL)
+        );
 
         router.get("/api/sharing/keysets").handler(
-                auth.handle(this::handleListAllKeysets, Role.ADMINISTRATOR)
+                auth.handle(rc -> responseCache.handle(rc, this::handleListAllKeysets,
+                        keysetProvider.getSnapshot().getAllKeysets()), Role.ADMINISTRATOR)
         );
         router.post("/api/sharing/keyset").handler(
                 auth.handle(this::handleSetKeyset, Role.ADMINISTRATOR)
@@ -78,14 +90,15 @@ public class SharingService implements IService {
     private void handleSetKeyset(RoutingContext rc) {
         synchronized (writeLock) {
             try {
-                keysetProvider.loadContent();
-                siteProvider.loadContent();
+                storeLoader.loadIfChanged(keysetProvider);
+                storeLoader.loadIfChanged(siteProvider);
             } catch (Exception e) {
                 ResponseUtil.errorInternal(rc, "Failed to load keysets", e);
                 return;
             }
 
-            final Map<Integer, AdminKeyset> keysetsById = this.keysetProvider.getSnapshot().getAllKeysets();
+            final AdminKeysetSnapshot keysets = this.keysetProvider.getSnapshot();
+            final Map<Integer, AdminKeyset> keysetsById = keysets.getAllKeysets();
 
             final JsonObject body = rc.body().asJsonObject();
 
@@ -115,13 +128,13 @@ public class SharingService implements IService {
                 }
 
                 // Trying to add a keyset for a site that already has one
-                if (keysetsById.values().stream().anyMatch(k -> k.getSiteId() == siteId)) {
+                if (!keysets.getKeysetsBySiteId(siteId).isEmpty()) {
                     ResponseUtil.error(rc, 400, "Keyset already exists for site: " + siteId);
                     return;
                 }
                 keysetId = null;
-                if (keysetsById.values().stream().anyMatch(item -> // for multiple keysets. See commented out SharingServiceTest#KeysetSetNewIdenticalNameAndSiteId
-                        item.getSiteId() == siteId && item.getName().equalsIgnoreCase(name))) {
+                if (keysets.getKeysetsBySiteId(siteId).stream().anyMatch(item -> // for multiple keysets. See commented out SharingServiceTest#KeysetSetNewIdenticalNameAndSiteId
+                        item.getName().equalsIgnoreCase(name))) {
                     ResponseUtil.error(rc, 400, "Keyset with same site_id and name already exists");
                     return;
                 }
@@ -188,27 +201,10 @@ public class SharingService implements IService {
                 .end(jo.encode());
     }
 
-    private AdminKeyset getDefaultKeyset(Map<Integer, AdminKeyset> keysets, Integer siteId) {
-           for(AdminKeyset keyset: keysets.values()) {
-               if(keyset.getSiteId() == siteId && keyset.isDefault()) {
-                   return keyset;
-               }
-           }
-           return null;
-    }
-
     private void handleListAllKeysets(RoutingContext rc) {
         try {
-            JsonArray ja = new JsonArray();
             Map<Integer, AdminKeyset> collection = this.keysetProvider.getSnapshot().getAllKeysets();
-            for (Map.Entry<Integer, AdminKeyset> keyset : collection.entrySet()) {
-                JsonObject jo = jsonFullKeyset(keyset.getValue());
-                ja.add(jo);
-            }
-
-            rc.response()
-                    .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                    .end(ja.encode());
+            ResponseUtil.streamJsonArray(rc, collection.values().iterator(), this::jsonFullKeyset);
         } catch (Exception e) {
             rc.fail(500, e);
         }
@@ -224,7 +220,7 @@ public class SharingService implements IService {
             return;
         }
 
-        AdminKeyset keyset = getDefaultKeyset(this.keysetProvider.getSnapshot().getAllKeysets(), siteId);
+        AdminKeyset keyset = this.keysetProvider.getSnapshot().getDefaultKeyset(siteId);
 
         if (keyset == null) {
             LOGGER.warn("Failed to find keyset for site id: " + siteId);
@@ -283,15 +279,14 @@ public class SharingService implements IService {
             }
 
             try {
-                keysetProvider.loadContent();
+                storeLoader.loadIfChanged(keysetProvider);
             } catch (Exception e) {
                 ResponseUtil.errorInternal(rc, "Failed to load keysets", e);
                 return;
             }
 
 
-           final Map<Integer, AdminKeyset> keysetsById = this.keysetProvider.getSnapshot().getAllKeysets();
-           AdminKeyset keyset = getDefaultKeyset(keysetsById, siteId);
+           AdminKeyset keyset = this.keysetProvider.getSnapshot().getDefaultKeyset(siteId);
 
            final JsonObject body = rc.body().asJsonObject();
            final JsonArray allowedSites = body.getJsonArray("allowed_sites");
@@ -330,6 +325,131 @@ public class SharingService implements IService {
         }
     }
 
+    /*
+     * Takes an array of {"site_id", "allowed_sites", "allowed_types", "hash"} objects, each changing a site's default keyset
+     * as POST /api/sharing/list/:siteId does, except that hash is optional. Either every change is applied, with one
+     * upload of the keysets and one of the keyset keys, or none is and the results say which ones are invalid.
+     */
+    private void handleSetAllowedSitesBulk(RoutingContext rc) {
+        synchronized (writeLock) {
+            final JsonArray requests;
+            try {
+                requests = rc.body().asJsonArray();
+            } catch (Exception e) {
+                ResponseUtil.error(rc, 400, "Body must be an array of sharing lists");
+                return;
+            }
+            if (requests == null || requests.isEmpty()) {
+                ResponseUtil.error(rc, 400, "Body must be an array of sharing lists");
+                return;
+            }
+
+            try {
+                storeLoader.loadIfChanged(keysetProvider);
+                storeLoader.loadIfChanged(siteProvider);
+            } catch (Exception e) {
+                ResponseUtil.errorInternal(rc, "Failed to load keysets", e);
+                return;
+            }
+
+            final AdminKeysetSnapshot keysets = this.keysetProvider.getSnapshot();
+            int nextKeysetId = this.keysetManager.getNextKeysetId();
+            final Set<Integer> requestedSiteIds = new HashSet<>();
+            final List<AdminKeyset> newKeysets = new ArrayList<>();
+            final List<JsonObject> validResults = new ArrayList<>();
+            final JsonArray results = new JsonArray();
+            int invalid = 0;
+            int conflicts = 0;
+
+            for (int i = 0; i < requests.size(); i++) {
+                final JsonObject result = new JsonObject();
+                results.add(result);
+
+                final JsonObject request;
+                final Integer siteId;
+                final Integer hash;
+                final JsonArray allowedSites;
+                final JsonArray allowedTypes;
+                try {
+                    request = requests.getJsonObject(i);
+                    siteId = request.getInteger("site_id");
+                    hash = request.getInteger("hash");
+                    allowedSites = request.getJsonArray("allowed_sites");
+                    allowedTypes = request.getJsonArray("allowed_types");
+                } catch (ClassCastException | NullPointerException e) {
+                    result.put("status", "error").put("message", "Invalid sharing list");
+                    invalid++;
+                    continue;
+                }
+                result.put("site_id", siteId);
+
+                if (siteId == null || !isSiteIdEditable(siteId)) {
+                    result.put("status", "error").put("message", "Site id " + siteId + " not valid");
+                    invalid++;
+                    continue;
+                }
+                if (!requestedSiteIds.add(siteId)) {
+                    result.put("status", "error").put("message", "Duplicate site id " + siteId);
+                    invalid++;
+                    continue;
+                }
+
+                final AdminKeyset keyset = keysets.getDefaultKeyset(siteId);
+                if (keyset != null && hash != null && hash != keyset.hashCode()) {
+                    result.put("status", "error").put("message", "Keyset for site " + siteId + " was changed since it was read");
+                    conflicts++;
+                    continue;
+                }
+
+                final String error = validateSharing(allowedSites, allowedTypes, keyset == null ? null : keyset.getAllowedSites());
+                if (error != null) {
+                    result.put("status", "error").put("message", error);
+                    invalid++;
+                    continue;
+                }
+
+                final AdminKeyset newKeyset = keyset == null
+                        ? toAdminKeyset(allowedSites, allowedTypes, siteId, nextKeysetId++, "")
+                        : toAdminKeyset(allowedSites, allowedTypes, siteId, keyset.getKeysetId(), keyset.getName());
+                newKeysets.add(newKeyset);
+                validResults.add(result);
+            }
+
+            if (invalid > 0 || conflicts > 0) {
+                validResults.forEach(result -> result.put("status", "skipped"));
+                LOGGER.warn("Rejected sharing lists update: {} invalid, {} changed since read", invalid, conflicts);
+                final JsonObject response = new JsonObject()
+                        .put("status", "error")
+                        .put("message", "No sharing list was changed, " + (invalid + conflicts) + " of " + requests.size() + " cannot be applied")
+                        .put("results", results);
+                rc.response()
+                        .setStatusCode(invalid > 0 ? 400 : 409)
+                        .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .end(response.encode());
+                return;
+            }
+
+            try {
+                this.keysetManager.addOrReplaceKeysets(newKeysets);
+                for (int i = 0; i < newKeysets.size(); i++) {
+                    final AdminKeyset newKeyset = newKeysets.get(i);
+                    final Set<Integer> newAllowedSites = newKeyset.getAllowedSites();
+                    validResults.get(i)
+                            .put("status", "success")
+                            .put("keyset_id", newKeyset.getKeysetId())
+                            .put("allowed_sites", newAllowedSites != null ? newAllowedSites.stream().sorted().toArray() : null)
+                            .put("allowed_types", newKeyset.getAllowedTypes())
+                            .put("hash", newKeyset.hashCode());
+                }
+                rc.response()
+                        .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .end(results.encode());
+            } catch (Exception e) {
+                rc.fail(500, e);
+            }
+        }
+    }
+
     private AdminKeyset setAdminKeyset(RoutingContext rc, JsonArray allowedSites, JsonArray allowedTypes,
                                        Integer siteId, Integer keysetId, String name)
             throws Exception{
@@ -342,23 +462,51 @@ public class SharingService implements IService {
             existingSites = this.keysetProvider.getSnapshot().getAllKeysets().get(keysetId).getAllowedSites();
         }
 
-        final Set<Integer> newlist;
+        final String error = validateSharing(allowedSites, allowedTypes, existingSites);
+        if (error != null) {
+            ResponseUtil.error(rc, 400, error);
+            return null;
+        }
 
-        if (allowedSites != null){
-            final Set<Integer> existingAllowedSites = existingSites;
-            OptionalInt firstInvalidSite = allowedSites.stream()
-                    .mapToInt(s -> (Integer) s).filter(s -> !existingAllowedSites.contains(s) && !isSiteIdEditable(s)).findFirst();
+        final AdminKeyset newKeyset = toAdminKeyset(allowedSites, allowedTypes, siteId, keysetId, name);
+        this.keysetManager.addOrReplaceKeyset(newKeyset);
+        return newKeyset;
+    }
+
+    // returns why the allowed sites and types can't be set, null if they can
+    private String validateSharing(JsonArray allowedSites, JsonArray allowedTypes, Set<Integer> existingSites) {
+        if (allowedSites != null) {
+            final Set<Integer> existingAllowedSites = existingSites == null ? Set.of() : existingSites;
+            final OptionalInt firstInvalidSite;
+            try {
+                firstInvalidSite = allowedSites.stream()
+                        .mapToInt(s -> (Integer) s).filter(s -> !existingAllowedSites.contains(s) && !isSiteIdEditable(s)).findFirst();
+            } catch (ClassCastException | NullPointerException e) {
+                return "Site ids must be integers";
+            }
             if (firstInvalidSite.isPresent()) {
-                ResponseUtil.error(rc, 400, "Site id " + firstInvalidSite.getAsInt() + " not valid");
-                return null;
+                return "Site id " + firstInvalidSite.getAsInt() + " not valid";
             }
 
             boolean containsDuplicates = allowedSites.stream().distinct().count() < allowedSites.stream().count();
             if (containsDuplicates) {
-                ResponseUtil.error(rc, 400, "Duplicate site_ids not permitted");
-                return null;
+                return "Duplicate site_ids not permitted";
+            }
+        }
+
+        if (allowedTypes != null) {
+            try {
+                allowedTypes.forEach(s -> Enum.valueOf(ClientType.class, s.toString()));
+            } catch (Exception e) {
+                return "Invalid Client Type";
             }
+        }
+        return null;
+    }
 
+    private static AdminKeyset toAdminKeyset(JsonArray allowedSites, JsonArray allowedTypes, Integer siteId, Integer keysetId, String name) {
+        final Set<Integer> newlist;
+        if (allowedSites != null){
             newlist = allowedSites.stream()
                     .mapToInt(s -> (Integer) s)
                     .filter(s -> !Objects.equals(s, siteId))
@@ -368,25 +516,17 @@ public class SharingService implements IService {
             newlist = null;
         }
 
-        Set<ClientType> newAllowedTypes = null;
+        final Set<ClientType> newAllowedTypes;
         if(allowedTypes == null || allowedTypes.isEmpty()) {
             newAllowedTypes = new HashSet<>();
         } else {
-            try {
-                newAllowedTypes = allowedTypes.stream()
-                        .map(s -> Enum.valueOf(ClientType.class, s.toString()))
-                        .collect(Collectors.toSet());
-            } catch (Exception e) {
-                ResponseUtil.error(rc, 400, "Invalid Client Type");
-                return null;
-            }
+            newAllowedTypes = allowedTypes.stream()
+                    .map(s -> Enum.valueOf(ClientType.class, s.toString()))
+                    .collect(Collectors.toSet());
         }
 
-        final AdminKeyset newKeyset = new AdminKeyset(keysetId, siteId, name,
+        return new AdminKeyset(keysetId, siteId, name,
                 newlist, Instant.now().getEpochSecond(), true, true, newAllowedTypes);
-
-        this.keysetManager.addOrReplaceKeyset(newKeyset);
-        return newKeyset;
     }
 
     private JsonObject jsonFullKeyset(AdminKeyset keyset) {
@@ -3,19 +3,30 @@ package com.uid2.admin.vertx.service;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.uid2.admin.legacy.ILegacyClientKeyProvider;
 import com.uid2.admin.legacy.LegacyClientKey;
+import com.uid2.admin.auth.AdminKeyset;
+import com.uid2.admin.managers.KeysetManager;
+import com.uid2.admin.model.SiteSummaries;
+import com.uid2.admin.model.SiteSummaries.SiteSummary;
 import com.uid2.shared.model.ClientType;
 import com.google.common.net.InternetDomainName;
+import com.uid2.admin.store.Clock;
+import com.uid2.admin.store.InstantClock;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.writer.StoreWriter;
 import com.uid2.admin.vertx.JsonUtil;
+import com.uid2.admin.vertx.ListQuery;
 import com.uid2.admin.vertx.RequestUtil;
 import com.uid2.admin.vertx.ResponseUtil;
+import com.uid2.admin.vertx.SnapshotResponseCache;
 import com.uid2.admin.vertx.WriteLock;
 import com.uid2.shared.Const;
 import com.uid2.shared.auth.Role;
 import com.uid2.shared.middleware.AuthMiddleware;
 import com.uid2.shared.model.Site;
 import com.uid2.shared.store.reader.RotatingSiteStore;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
@@ -28,27 +39,49 @@ import static com.uid2.admin.vertx.RequestUtil.getTypes;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class SiteService implements IService {
     private final AuthMiddleware auth;
     private final WriteLock writeLock;
+    private final StoreLoader storeLoader;
     private final StoreWriter<Collection<Site>> storeWriter;
     private final RotatingSiteStore siteProvider;
     private final ILegacyClientKeyProvider legacyClientKeyProvider;
+    private final KeysetManager keysetManager;
+    private final Clock clock;
     private final ObjectWriter jsonWriter = JsonUtil.createJsonWriter();
+    private final SnapshotResponseCache responseCache = new SnapshotResponseCache();
+    private final AtomicReference<SiteSummaries> siteSummaries = new AtomicReference<>();
     private static final Logger LOGGER = LoggerFactory.getLogger(SiteService.class);
 
     public SiteService(AuthMiddleware auth,
                        WriteLock writeLock,
+                       StoreLoader storeLoader,
                        StoreWriter<Collection<Site>> storeWriter,
                        RotatingSiteStore siteProvider,
                        ILegacyClientKeyProvider legacyClientKeyProvider) {
+        this(auth, writeLock, storeLoader, storeWriter, siteProvider, legacyClientKeyProvider, null, new InstantClock());
+    }
+
+    public SiteService(AuthMiddleware auth,
+                       WriteLock writeLock,
+                       StoreLoader storeLoader,
+                       StoreWriter<Collection<Site>> storeWriter,
+                       RotatingSiteStore siteProvider,
+                       ILegacyClientKeyProvider legacyClientKeyProvider,
+                       KeysetManager keysetManager,
+                       Clock clock) {
         this.auth = auth;
         this.writeLock = writeLock;
+        this.storeLoader = storeLoader;
         this.storeWriter = storeWriter;
         this.siteProvider = siteProvider;
         this.legacyClientKeyProvider = legacyClientKeyProvider;
+        this.keysetManager = keysetManager;
+        this.clock = clock;
     }
 
     @Override
@@ -60,12 +93,18 @@ public class SiteService implements IService {
         }, Role.CLIENTKEY_ISSUER));
 
         router.get("/api/site/list").handler(
-                auth.handle(this::handleSiteList, Role.CLIENTKEY_ISSUER, Role.SHARING_PORTAL));
+                auth.handle(rc -> responseCache.handle(rc, this::handleSiteList,
+                        siteProvider.getAllSites(), legacyClientKeyProvider.getAll()), Role.CLIENTKEY_ISSUER, Role.SHARING_PORTAL));
         router.post("/api/site/add").blockingHandler(auth.handle((ctx) -> {
             synchronized (writeLock) {
                 this.handleSiteAdd(ctx);
             }
         }, Role.CLIENTKEY_ISSUER));
+        router.post("/api/site/bulk_add").blockingHandler(auth.handle((ctx) -> {
+            synchronized (writeLock) {
+                this.handleSiteBulkAdd(ctx);
+            }
+        }, Role.CLIENTKEY_ISSUER));
         router.post("/api/site/enable").blockingHandler(auth.handle((ctx) -> {
             synchronized (writeLock) {
                 this.handleSiteEnable(ctx);
@@ -100,16 +139,16 @@ public class SiteService implements IService {
 
     private void handleSiteList(RoutingContext rc) {
         try {
-            JsonArray ja = new JsonArray();
-            final Collection<Site> sites = this.siteProvider.getAllSites().stream()
-                    .sorted(Comparator.comparing(Site::getName))
-                    .collect(Collectors.toList());
-            final Map<Integer, List<LegacyClientKey>> clientKeys = this.legacyClientKeyProvider.getAll().stream()
-                    .collect(Collectors.groupingBy(LegacyClientKey::getSiteId));
-            final List<LegacyClientKey> emptySiteKeys = new ArrayList<>();
-            for (Site site : sites) {
+            final ListQuery query = ListQuery.fromRequest(rc);
+            if (query == null) {
+                return;
+            }
+
+            Stream<SiteSummary> sites = getSiteSummaries().getByName().stream()
+                    .filter(s -> query.matchesSiteId(s.getSite().getId()) && query.matchesCreated(s.getSite().getCreated()));
+            query.respond(rc, sites, s -> s.getSite().getId(), Integer::valueOf, summary -> {
+                final Site site = summary.getSite();
                 JsonObject jo = new JsonObject();
-                ja.add(jo);
 
                 JsonArray domainNamesJa = new JsonArray();
                 site.getDomainNames().forEach(domainNamesJa::add);
@@ -124,29 +163,33 @@ public class SiteService implements IService {
                 jo.put("created", site.getCreated());
 
                 JsonArray jr = new JsonArray();
-                List<LegacyClientKey> clients = clientKeys.getOrDefault(site.getId(), emptySiteKeys);
-                clients.stream()
-                        .map(LegacyClientKey::getRoles)
-                        .flatMap(Set::stream)
-                        .collect(Collectors.toSet())
-                        .forEach(jr::add);
+                summary.getRoles().forEach(jr::add);
 
                 jo.put("roles", jr);
-                jo.put("client_count", clients.size());
-            }
-
-            rc.response()
-                    .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                    .end(ja.encode());
+                jo.put("client_count", summary.getClientCount());
+                return jo;
+            });
         } catch (Exception e) {
             rc.fail(500, e);
         }
     }
 
+    // rebuilt only when the site or client key store has been reloaded since the last call
+    private SiteSummaries getSiteSummaries() {
+        final Collection<Site> sites = this.siteProvider.getAllSites();
+        final Collection<LegacyClientKey> clients = this.legacyClientKeyProvider.getAll();
+        SiteSummaries summaries = this.siteSummaries.get();
+        if (summaries == null || !summaries.isBuiltFrom(sites, clients)) {
+            summaries = SiteSummaries.build(sites, clients);
+            this.siteSummaries.set(summaries);
+        }
+        return summaries;
+    }
+
     private void handleSiteAdd(RoutingContext rc) {
         try {
-            // refresh manually
-            siteProvider.loadContent();
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(siteProvider);
 
             final String name = rc.queryParam("name").isEmpty() ? "" : rc.queryParam("name").get(0).trim();
             if (name == null || name.isEmpty()) {
@@ -210,6 +253,198 @@ public class SiteService implements IService {
         }
     }
 
+    /*
+     * Adds many sites with one upload of sites.json: the body is a JSON array of sites, or one site per line when the
+     * content type is application/x-ndjson. Each site has a name and optionally description, enabled, types and
+     * domain_names, validated as /api/site/add does. Nothing is added unless every site is valid. With
+     * create_keysets=true each new site also gets a default keyset, again with one upload.
+     * The keysets are built before sites.json is uploaded, so a failure up to that upload adds nothing. The keysets
+     * are uploaded after the sites: if that upload fails the sites stay added without keysets, as sites added without
+     * create_keysets are, and the response is a 500 that lists them. Their keysets are created when first needed,
+     * e.g. by a client or keypair of the site, or by the sharing endpoints.
+     */
+    private void handleSiteBulkAdd(RoutingContext rc) {
+        final List<Object> requests = readBulkSites(rc.body().buffer(), rc.request().getHeader(HttpHeaders.CONTENT_TYPE));
+        if (requests == null || requests.isEmpty()) {
+            ResponseUtil.error(rc, 400, "Body must be a JSON array or NDJSON of sites");
+            return;
+        }
+        final boolean createKeysets = rc.queryParam("create_keysets").stream().findFirst().map(Boolean::parseBoolean).orElse(false);
+        if (createKeysets && keysetManager == null) {
+            ResponseUtil.error(rc, 400, "Keysets cannot be created by this service");
+            return;
+        }
+
+        try {
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(siteProvider);
+
+            final List<Site> sites = this.siteProvider.getAllSites()
+                    .stream().sorted(Comparator.comparingInt(Site::getId))
+                    .collect(Collectors.toList());
+            final Set<String> names = new HashSet<>(sites.size() + requests.size());
+            for (Site site : sites) {
+                names.add(site.getName());
+            }
+            int nextSiteId = 1 + sites.stream().mapToInt(Site::getId).max().orElse(Const.Data.AdvertisingTokenSiteId);
+            final long created = clock.getEpochSecond();
+
+            final List<Site> newSites = new ArrayList<>();
+            final List<JsonObject> validResults = new ArrayList<>();
+            final JsonArray results = new JsonArray();
+            int invalid = 0;
+
+            for (Object request : requests) {
+                final JsonObject result = new JsonObject();
+                results.add(result);
+
+                final String name;
+                final String description;
+                final boolean enabled;
+                final JsonArray typesJa;
+                final JsonArray domainNamesJa;
+                try {
+                    final JsonObject jo = (JsonObject) request;
+                    name = jo.getString("name", "").trim();
+                    description = jo.getString("description");
+                    enabled = jo.getBoolean("enabled", false);
+                    typesJa = jo.getJsonArray("types");
+                    domainNamesJa = jo.getJsonArray("domain_names");
+                } catch (ClassCastException | NullPointerException e) {
+                    result.put("status", "error").put("message", "Invalid site");
+                    invalid++;
+                    continue;
+                }
+                result.put("name", name);
+
+                if (name.isEmpty()) {
+                    result.put("status", "error").put("message", "must specify a valid site name");
+                    invalid++;
+                    continue;
+                }
+                if (!names.add(name)) {
+                    result.put("status", "error").put("message", "site existed");
+                    invalid++;
+                    continue;
+                }
+
+                final Set<ClientType> types = typesJa == null ? new HashSet<>()
+                        : getTypes(typesJa.stream().map(String::valueOf).collect(Collectors.joining(",")));
+                if (types == null) {
+                    result.put("status", "error").put("message", "Invalid Types");
+                    invalid++;
+                    continue;
+                }
+
+                final List<String> normalizedDomainNames = new ArrayList<>();
+                if (domainNamesJa != null) {
+                    final String error = normalizeDomainNames(domainNamesJa, normalizedDomainNames);
+                    if (error != null) {
+                        result.put("status", "error").put("message", error);
+                        invalid++;
+                        continue;
+                    }
+                }
+
+                newSites.add(new Site(nextSiteId++, name, description, enabled, types, new HashSet<>(normalizedDomainNames), true, created));
+                validResults.add(result);
+            }
+
+            if (invalid > 0) {
+                validResults.forEach(result -> result.put("status", "skipped"));
+                LOGGER.warn("Rejected bulk site add: {} of {} sites invalid", invalid, requests.size());
+                final JsonObject response = new JsonObject()
+                        .put("status", "error")
+                        .put("message", "No site was added, " + invalid + " of " + requests.size() + " are not valid")
+                        .put("results", results);
+                rc.response()
+                        .setStatusCode(400)
+                        .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .end(response.encode());
+                return;
+            }
+
+            final List<AdminKeyset> newKeysets = createKeysets
+                    ? keysetManager.buildKeysetsForSites(newSites.stream().map(Site::getId).collect(Collectors.toList()))
+                    : Collections.emptyList();
+
+            sites.addAll(newSites);
+            storeWriter.upload(sites, null);
+
+            final Map<Integer, Integer> keysetIds = new HashMap<>();
+            String keysetError = null;
+            try {
+                if (!newKeysets.isEmpty()) {
+                    keysetManager.addOrReplaceKeysets(newKeysets);
+                }
+                for (AdminKeyset keyset : newKeysets) {
+                    keysetIds.put(keyset.getSiteId(), keyset.getKeysetId());
+                }
+            } catch (Exception e) {
+                LOGGER.error("Added {} sites but failed to add their keysets", newSites.size(), e);
+                keysetError = "Sites were added but their keysets were not: " + e.getMessage();
+            }
+
+            for (int i = 0; i < newSites.size(); i++) {
+                final Site site = newSites.get(i);
+                final JsonObject result = validResults.get(i)
+                        .put("status", "success")
+                        .put("id", site.getId())
+                        .put("domain_names", new JsonArray(site.getDomainNames().stream().sorted().collect(Collectors.toList())));
+                if (keysetIds.containsKey(site.getId())) {
+                    result.put("keyset_id", keysetIds.get(site.getId()));
+                }
+            }
+            if (keysetError != null) {
+                final JsonObject response = new JsonObject()
+                        .put("status", "error")
+                        .put("message", keysetError)
+                        .put("results", results);
+                rc.response()
+                        .setStatusCode(500)
+                        .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .end(response.encode());
+                return;
+            }
+            rc.response()
+                    .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                    .end(results.encode());
+        } catch (Exception e) {
+            rc.fail(500, e);
+        }
+    }
+
+    // the sites of a bulk add, a line that isn't a JSON object is kept as it is and reported as invalid; null if unreadable
+    private static List<Object> readBulkSites(Buffer body, String contentType) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            if (contentType != null && contentType.startsWith("application/x-ndjson")) {
+                final List<Object> sites = new ArrayList<>();
+                for (String line : body.toString().split("\\r?\\n")) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        sites.add(new JsonObject(line));
+                    } catch (DecodeException e) {
+                        sites.add(line);
+                    }
+                }
+                return sites;
+            }
+            final JsonArray array = body.toJsonArray();
+            final List<Object> sites = new ArrayList<>(array.size());
+            for (int i = 0; i < array.size(); i++) {
+                sites.add(array.getValue(i));
+            }
+            return sites;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     private void handleSiteTypesSet(RoutingContext rc) {
         try {
             final Site existingSite = RequestUtil.getSite(rc, "id", siteProvider);
@@ -239,8 +474,8 @@ public class SiteService implements IService {
 
     private void handleSiteEnable(RoutingContext rc) {
         try {
-            // refresh manually
-            siteProvider.loadContent();
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(siteProvider);
 
             final Site existingSite = RequestUtil.getSite(rc, "id", siteProvider);
             if (existingSite == null) {
@@ -275,8 +510,8 @@ public class SiteService implements IService {
 
     private void handleSiteDomains(RoutingContext rc) {
         try {
-            // refresh manually
-            siteProvider.loadContent();
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(siteProvider);
 
             final Site existingSite = RequestUtil.getSite(rc, "id", siteProvider);
             if (existingSite == null) {
@@ -308,8 +543,8 @@ public class SiteService implements IService {
 
     private void handleSiteUpdate(RoutingContext rc) {
         try {
-            // refresh manually
-            siteProvider.loadContent();
+            // refresh if changed since last loaded
+            storeLoader.loadIfChanged(siteProvider);
 
             final Site existingSite = RequestUtil.getSite(rc, "id", siteProvider);
             if (existingSite == null) {
@@ -344,25 +579,33 @@ public class SiteService implements IService {
     }
 
     private static List<String> getNormalizedDomainNames(RoutingContext rc, JsonArray domainNamesJa) {
+        List<String> normalizedDomainNames = new ArrayList<>();
+        final String error = normalizeDomainNames(domainNamesJa, normalizedDomainNames);
+        if (error != null) {
+            ResponseUtil.error(rc, 400, error);
+            return null;
+        }
+        return normalizedDomainNames;
+    }
+
+    // adds the top level domain names to normalizedDomainNames, returns why they are not valid or null
+    private static String normalizeDomainNames(JsonArray domainNamesJa, List<String> normalizedDomainNames) {
         List<String> domainNames = domainNamesJa.stream().map(String::valueOf).collect(Collectors.toList());
 
-        List<String> normalizedDomainNames = new ArrayList<>();
         for (String domain : domainNames) {
             try {
                 String tld = getTopLevelDomainName(domain);
                 normalizedDomainNames.add(tld);
             } catch (Exception e) {
-                ResponseUtil.error(rc, 400, "invalid domain name: " + domain);
-                return null;
+                return "invalid domain name: " + domain;
             }
         }
 
         boolean containsDuplicates = normalizedDomainNames.stream().distinct().count() < normalizedDomainNames.size();
         if (containsDuplicates) {
-            ResponseUtil.error(rc, 400, "duplicate domain_names not permitted");
-            return null;
+            return "duplicate domain_names not permitted";
         }
-        return normalizedDomainNames;
+        return null;
     }
 
     public static String getTopLevelDomainName(String origin) throws MalformedURLException {
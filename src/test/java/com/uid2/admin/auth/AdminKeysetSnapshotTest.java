@@ -0,0 +1,65 @@
+package com.uid2.admin.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdminKeysetSnapshotTest {
+    private static AdminKeyset keyset(int keysetId, int siteId, boolean isDefault) {
+        return new AdminKeyset(keysetId, siteId, "keyset " + keysetId, Set.of(), 0, true, isDefault, Set.of());
+    }
+
+    @Test
+    void indexesKeysetsBySite() {
+        Map<Integer, AdminKeyset> keysets = new HashMap<>(Map.of(
+                4, keyset(4, 10, false),
+                7, keyset(7, 10, true),
+                5, keyset(5, 10, true),
+                6, keyset(6, 11, false)));
+
+        AdminKeysetSnapshot snapshot = new AdminKeysetSnapshot(keysets);
+
+        assertThat(snapshot.getKeysetsBySiteId(10)).containsExactly(keysets.get(4), keysets.get(5), keysets.get(7));
+        assertThat(snapshot.getDefaultKeyset(10)).isSameAs(keysets.get(5));
+        assertThat(snapshot.getDefaultKeyset(11)).isNull();
+        assertThat(snapshot.getKeysetsBySiteId(12)).isEmpty();
+        assertThat(snapshot.getMaxKeysetId()).isEqualTo(7);
+    }
+
+    @Test
+    void emptySnapshot() {
+        AdminKeysetSnapshot snapshot = new AdminKeysetSnapshot(new HashMap<>());
+
+        assertThat(snapshot.getMaxKeysetId()).isZero();
+        assertThat(snapshot.getDefaultKeyset(1)).isNull();
+    }
+
+    @Test
+    void changesAreMadeOnACopy() {
+        Map<Integer, AdminKeyset> keysets = new HashMap<>(Map.of(1, keyset(1, 10, true)));
+        AdminKeysetSnapshot snapshot = new AdminKeysetSnapshot(keysets);
+
+        Map<Integer, AdminKeyset> changed = snapshot.withKeysets(List.of(keyset(1, 11, true), keyset(8, 10, true)));
+
+        assertThat(changed).containsOnlyKeys(1, 8);
+        assertThat(changed.get(1).getSiteId()).isEqualTo(11);
+        assertThat(snapshot.getAllKeysets()).containsOnlyKeys(1);
+        assertThat(snapshot.getDefaultKeyset(10).getKeysetId()).isEqualTo(1);
+        assertThat(snapshot.getMaxKeysetId()).isEqualTo(1);
+    }
+
+    @Test
+    void cannotBeChanged() {
+        AdminKeysetSnapshot snapshot = new AdminKeysetSnapshot(new HashMap<>(Map.of(1, keyset(1, 10, true))));
+
+        assertThatThrownBy(() -> snapshot.getAllKeysets().put(2, keyset(2, 10, false))).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> snapshot.getAllKeysets().values().clear()).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> snapshot.getKeysetsBySiteId(10).clear()).isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -10,6 +10,8 @@ import org.junit.jupiter.api.Test;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -66,6 +68,23 @@ public class JobDispatcherTest {
         }
     }
 
+    private class TimedJob extends Job {
+        @Override
+        public String getId() {
+            return "timed id";
+        }
+
+        @Override
+        public Map<String, Long> getDurationsMs() {
+            return Map.of("step", 5L);
+        }
+
+        @Override
+        public void execute() {
+            executionCount++;
+        }
+    }
+
     private static final int INTERVAL_TIME = 50;
     private static final int LONG_RUNNING_TIME = INTERVAL_TIME*3;
     private Clock clock;
@@ -265,6 +284,137 @@ public class JobDispatcherTest {
         assertEquals(1000, jobDispatcher.getExecutionDuration());
     }
 
+    @Test
+    public void testDuplicateJobEnqueuedWhileExecutingRunsOnceMore() throws Exception {
+        jobDispatcher.enqueue(new TestLongRunningJob());
+        jobDispatcher.start();
+        Thread.sleep(INTERVAL_TIME);
+
+        jobDispatcher.enqueue(new TestLongRunningJob());
+        jobDispatcher.enqueue(new TestLongRunningJob());
+        jobDispatcher.enqueue(new TestLongRunningJob());
+
+        List<JobInfo> expected = new ArrayList<>();
+        addJobInfo(expected, new TestLongRunningJob(), true);
+        addJobInfo(expected, new TestLongRunningJob(), false);
+        assertEquals(expected, jobDispatcher.getJobQueueInfo());
+
+        Thread.sleep(LONG_RUNNING_TIME * 3);
+
+        assertFalse(jobDispatcher.isExecutingJob());
+        assertEquals(2, executionCount);
+        assertTrue(jobDispatcher.getJobQueueInfo().isEmpty());
+    }
+
+    @Test
+    public void testDuplicateJobsWithinDebounceWindowAreMerged() {
+        Instant start = Instant.EPOCH;
+        JobDispatcher debouncingDispatcher = new JobDispatcher("debouncing dispatcher", INTERVAL_TIME, 3, 1000, clock);
+
+        when(clock.now()).thenReturn(start);
+        debouncingDispatcher.enqueue(new TestJob());
+        when(clock.now()).thenReturn(start.plusMillis(500));
+        debouncingDispatcher.enqueue(new TestJob());
+
+        when(clock.now()).thenReturn(start.plusMillis(1200));
+        debouncingDispatcher.executeNextJob();
+        assertNull(debouncingDispatcher.getExecutingJobInfo());
+        assertEquals(1, debouncingDispatcher.getJobQueueInfo().size());
+
+        when(clock.now()).thenReturn(start.plusMillis(1500));
+        debouncingDispatcher.executeNextJob();
+        assertTrue(debouncingDispatcher.getJobQueueInfo().stream().allMatch(JobInfo::isExecuting));
+
+        debouncingDispatcher.shutdown();
+    }
+
+    @Test
+    public void testDebouncedJobDoesNotBlockReadyJobs() {
+        JobDispatcher debouncingDispatcher = new JobDispatcher("debouncing dispatcher", INTERVAL_TIME, 3, 1000, clock);
+
+        when(clock.now()).thenReturn(Instant.EPOCH);
+        debouncingDispatcher.enqueue(new TestJob());
+        debouncingDispatcher.enqueue(new Test2Job());
+        when(clock.now()).thenReturn(Instant.EPOCH.plusMillis(1000));
+        debouncingDispatcher.enqueue(new TestJob());
+
+        when(clock.now()).thenReturn(Instant.EPOCH.plusMillis(1500));
+        debouncingDispatcher.executeNextJob();
+
+        List<String> queuedJobIds = debouncingDispatcher.getJobQueueInfo().stream()
+                .filter(jobInfo -> !jobInfo.isExecuting())
+                .map(JobInfo::getId)
+                .collect(Collectors.toList());
+        assertEquals(List.of("id"), queuedJobIds);
+
+        debouncingDispatcher.shutdown();
+    }
+
+    @Test
+    public void testDebounceIsCappedByMaxWait() {
+        JobDispatcher debouncingDispatcher = new JobDispatcher("debouncing dispatcher", INTERVAL_TIME, 3, 1000, 3000, clock);
+
+        for (int enqueuedAtMs = 0; enqueuedAtMs < 3000; enqueuedAtMs += 800) {
+            when(clock.now()).thenReturn(Instant.EPOCH.plusMillis(enqueuedAtMs));
+            debouncingDispatcher.enqueue(new TestJob());
+        }
+
+        when(clock.now()).thenReturn(Instant.EPOCH.plusMillis(2999));
+        debouncingDispatcher.executeNextJob();
+        assertNull(debouncingDispatcher.getExecutingJobInfo());
+
+        when(clock.now()).thenReturn(Instant.EPOCH.plusMillis(3000));
+        debouncingDispatcher.executeNextJob();
+        assertTrue(debouncingDispatcher.getJobQueueInfo().stream().allMatch(JobInfo::isExecuting));
+
+        debouncingDispatcher.shutdown();
+    }
+
+    @Test
+    public void testImmediateJobBypassesDebounce() {
+        JobDispatcher debouncingDispatcher = new JobDispatcher("debouncing dispatcher", INTERVAL_TIME, 3, 1000, clock);
+
+        debouncingDispatcher.enqueue(new TestJob());
+        debouncingDispatcher.enqueue(new Test2Job(), true);
+        debouncingDispatcher.executeNextJob();
+
+        assertEquals("2 id", debouncingDispatcher.getExecutingJobInfo().getId());
+
+        debouncingDispatcher.shutdown();
+    }
+
+    @Test
+    public void testImmediateJobsRunOneAfterAnother() throws Exception {
+        JobDispatcher debouncingDispatcher = new JobDispatcher("debouncing dispatcher", 60 * 1000, 3, 1000, clock);
+        debouncingDispatcher.start();
+
+        debouncingDispatcher.enqueue(new TestLongRunningJob(), true);
+        debouncingDispatcher.executeNextJob();
+        debouncingDispatcher.enqueue(new TestJob(), true);
+        debouncingDispatcher.executeNextJob();
+        Thread.sleep(LONG_RUNNING_TIME * 2);
+
+        assertEquals(2, executionCount);
+        assertTrue(debouncingDispatcher.getJobQueueInfo().isEmpty());
+
+        debouncingDispatcher.shutdown();
+    }
+
+    @Test
+    public void testFinishedJobsKeepTheirLastExecution() throws Exception {
+        jobDispatcher.enqueue(new TimedJob());
+        jobDispatcher.enqueue(new TestExceptionJob());
+        jobDispatcher.start();
+        Thread.sleep(INTERVAL_TIME * 3);
+
+        List<JobInfo> finished = jobDispatcher.getFinishedJobsInfo();
+        assertEquals(List.of("timed id", "exception id"), finished.stream().map(JobInfo::getId).collect(Collectors.toList()));
+        assertTrue(finished.get(0).isSucceeded());
+        assertEquals(Map.of("step", 5L), finished.get(0).getDurationsMs());
+        assertEquals(Instant.EPOCH, finished.get(0).getFinishedExecutingAt());
+        assertFalse(finished.get(1).isSucceeded());
+    }
+
     private void addJobInfo(List<JobInfo> jobInfos, Job job, boolean executing) {
         job.setAddedToQueueAt(Instant.EPOCH);
         if (executing) {
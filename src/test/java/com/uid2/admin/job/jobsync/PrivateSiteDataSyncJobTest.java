@@ -0,0 +1,118 @@
+package com.uid2.admin.job.jobsync;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.uid2.admin.AdminConst;
+import com.uid2.admin.legacy.LegacyClientKey;
+import com.uid2.admin.store.Clock;
+import com.uid2.admin.store.FileManager;
+import com.uid2.admin.store.InstantClock;
+import com.uid2.admin.store.factory.ClientKeyStoreFactory;
+import com.uid2.admin.store.version.EpochVersionGenerator;
+import com.uid2.admin.store.version.VersionGenerator;
+import com.uid2.admin.store.writer.EncryptionKeyStoreWriter;
+import com.uid2.admin.store.writer.KeyAclStoreWriter;
+import com.uid2.admin.store.writer.SiteStoreWriter;
+import com.uid2.admin.store.writer.mocks.FileStorageMock;
+import com.uid2.admin.vertx.JsonUtil;
+import com.uid2.admin.vertx.WriteLock;
+import com.uid2.shared.Const;
+import com.uid2.shared.cloud.InMemoryStorageMock;
+import com.uid2.shared.model.Site;
+import com.uid2.shared.store.CloudPath;
+import com.uid2.shared.store.reader.RotatingKeyAclProvider;
+import com.uid2.shared.store.reader.RotatingKeyStore;
+import com.uid2.shared.store.reader.RotatingSiteStore;
+import com.uid2.shared.store.scope.GlobalScope;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrivateSiteDataSyncJobTest {
+    private final ObjectWriter jsonWriter = JsonUtil.createJsonWriter();
+    private final JsonObject config = new JsonObject()
+            .put(RotatingSiteStore.SITES_METADATA_PATH, "sites/metadata.json")
+            .put(Const.Config.ClientsMetadataPathProp, "clients/metadata.json")
+            .put(Const.Config.KeysMetadataPathProp, "keys/metadata.json")
+            .put(Const.Config.KeysAclMetadataPathProp, "keys_acl/metadata.json")
+            .put(Const.Config.OperatorsMetadataPathProp, "operators/metadata.json")
+            .put(Const.Config.KeysetsMetadataPathProp, "keysets/metadata.json")
+            .put(Const.Config.KeysetKeysMetadataPathProp, "keyset_keys/metadata.json")
+            .put(AdminConst.enableKeysetConfigProp, false);
+
+    private InMemoryStorageMock cloudStorage;
+
+    @BeforeEach
+    void seedGlobalData() throws Exception {
+        cloudStorage = new InMemoryStorageMock();
+        FileManager fileManager = new FileManager(cloudStorage, new FileStorageMock(cloudStorage));
+        Clock clock = new InstantClock();
+        VersionGenerator versionGenerator = new EpochVersionGenerator(clock);
+
+        GlobalScope siteScope = new GlobalScope(new CloudPath("sites/metadata.json"));
+        new SiteStoreWriter(new RotatingSiteStore(cloudStorage, siteScope), fileManager, jsonWriter, versionGenerator, clock, siteScope)
+                .upload(List.of(new Site(10, "site 10", true), new Site(11, "site 11", true)), null);
+        new ClientKeyStoreFactory(cloudStorage, new CloudPath("clients/metadata.json"), jsonWriter, versionGenerator, clock, fileManager)
+                .getGlobalWriter().upload(List.<LegacyClientKey>of(), null);
+        GlobalScope keyScope = new GlobalScope(new CloudPath("keys/metadata.json"));
+        new EncryptionKeyStoreWriter(new RotatingKeyStore(cloudStorage, keyScope), fileManager, versionGenerator, clock, keyScope)
+                .upload(List.of(), 0);
+        GlobalScope keyAclScope = new GlobalScope(new CloudPath("keys_acl/metadata.json"));
+        new KeyAclStoreWriter(new RotatingKeyAclProvider(cloudStorage, keyAclScope), fileManager, jsonWriter, versionGenerator, clock, keyAclScope)
+                .upload(Map.of(), null);
+
+        upload("operators/operators.json", new JsonArray().add(privateOperator(10)).add(privateOperator(11)).encode());
+        upload("operators/metadata.json", new JsonObject()
+                .put("version", 1)
+                .put("operators", new JsonObject().put("location", "operators/operators.json"))
+                .encode());
+    }
+
+    @Test
+    void regeneratesOnlyTheRequestedSites() throws Exception {
+        PrivateSiteDataSyncJob job = new PrivateSiteDataSyncJob(config, new WriteLock(), cloudStorage, new FileStorageMock(cloudStorage), Set.of(10));
+
+        job.execute();
+
+        List<String> files = cloudStorage.list("");
+        assertThat(files).contains("sites/site/10/sites.json", "clients/site/10/metadata.json", "keys/site/10/metadata.json", "keys_acl/site/10/metadata.json");
+        assertThat(files).noneMatch(file -> file.contains("/site/11/"));
+        assertThat(job.getDurationsMs()).containsKeys("load", "sites", "clients", "keys", "keys_acl");
+    }
+
+    @Test
+    void regeneratesEveryPrivateSiteWithoutSiteIds() throws Exception {
+        new PrivateSiteDataSyncJob(config, new WriteLock(), cloudStorage, new FileStorageMock(cloudStorage), null).execute();
+
+        assertThat(cloudStorage.list("")).contains("sites/site/10/sites.json", "sites/site/11/sites.json");
+    }
+
+    private void upload(String path, String content) throws Exception {
+        cloudStorage.upload(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), path);
+    }
+
+    private static JsonObject privateOperator(int siteId) {
+        return new JsonObject()
+                .put("key", "operator-key-" + siteId)
+                .put("name", "operator " + siteId)
+                .put("contact", "contact")
+                .put("protocol", "trusted")
+                .put("created", 0)
+                .put("disabled", false)
+                .put("roles", new JsonArray().add("OPERATOR"))
+                .put("site_id", siteId)
+                .put("operator_type", "PRIVATE")
+                .put("key_hash", Base64.getEncoder().encodeToString(("hash-" + siteId).getBytes(StandardCharsets.UTF_8)))
+                .put("key_salt", "c2FsdA==")
+                .put("key_id", "key-id-" + siteId);
+    }
+}
@@ -0,0 +1,66 @@
+package com.uid2.admin.job.jobsync;
+
+import com.uid2.admin.job.JobDispatcher;
+import com.uid2.admin.job.model.Job;
+import com.uid2.admin.store.event.StoreChangeEvent;
+import com.uid2.admin.vertx.WriteLock;
+import com.uid2.shared.cloud.ICloudStorage;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class PrivateSiteDataSyncTriggerTest {
+    private final JobDispatcher jobDispatcher = mock(JobDispatcher.class);
+    private final PrivateSiteDataSyncTrigger trigger = new PrivateSiteDataSyncTrigger(new JsonObject(), new WriteLock(), mock(ICloudStorage.class), jobDispatcher);
+
+    @Test
+    void ignoresChangesThatAffectNoSite() {
+        trigger.onStoreChange(new StoreChangeEvent("sites", Set.of()));
+
+        verifyNoInteractions(jobDispatcher);
+    }
+
+    @Test
+    void schedulesTargetedSyncForSiteLocalChanges() {
+        trigger.onStoreChange(new StoreChangeEvent("sites", Set.of(5)));
+        trigger.onStoreChange(new StoreChangeEvent("operators", Set.of(6)));
+
+        ArgumentCaptor<Job> jobs = ArgumentCaptor.forClass(Job.class);
+        verify(jobDispatcher, times(2)).enqueue(jobs.capture());
+        verify(jobDispatcher, times(2)).scheduleNextJob();
+        assertThat(jobs.getAllValues()).extracting(Job::getId)
+                .containsOnly("global-to-site-scope-sync-private-site-data-pending-sites");
+    }
+
+    @Test
+    void schedulesFullSyncForSharedDataChanges() {
+        trigger.onStoreChange(new StoreChangeEvent("keys_acl", Set.of(5)));
+
+        ArgumentCaptor<Job> job = ArgumentCaptor.forClass(Job.class);
+        verify(jobDispatcher).enqueue(job.capture());
+        assertThat(job.getValue().getId()).isEqualTo("global-to-site-scope-sync-private-site-data");
+    }
+
+    @Test
+    void schedulesFullSyncWhenAffectedSitesAreUnknown() {
+        trigger.onStoreChange(new StoreChangeEvent("sites", null));
+
+        ArgumentCaptor<Job> job = ArgumentCaptor.forClass(Job.class);
+        verify(jobDispatcher).enqueue(job.capture());
+        assertThat(job.getValue().getId()).isEqualTo("global-to-site-scope-sync-private-site-data");
+    }
+
+    @Test
+    void schedulesFullSyncWhenSpecialSitesChange() {
+        trigger.onStoreChange(new StoreChangeEvent("operators", Set.of(-1)));
+
+        ArgumentCaptor<Job> job = ArgumentCaptor.forClass(Job.class);
+        verify(jobDispatcher).enqueue(job.capture());
+        assertThat(job.getValue().getId()).isEqualTo("global-to-site-scope-sync-private-site-data");
+    }
+}
@@ -6,6 +6,7 @@ import com.uid2.admin.auth.AdminKeyset;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
 import com.uid2.admin.store.InstantClock;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.version.EpochVersionGenerator;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.admin.store.writer.AdminKeysetWriter;
@@ -28,6 +29,8 @@ import org.junit.jupiter.api.Test;
 
 import java.util.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 
 public class TestReplaceSharingtypesWithSitesJob {
@@ -98,7 +101,7 @@ public class TestReplaceSharingtypesWithSitesJob {
         siteStoreWriter.upload(sites, null);
         keysetStoreWriter.upload(new HashMap<>(), null);
 
-        ReplaceSharingTypesWithSitesJob job = new ReplaceSharingTypesWithSitesJob(config, writeLock, adminKeysetStore, keysetProvider, keysetStoreWriter, rotatingSiteStore);
+        ReplaceSharingTypesWithSitesJob job = new ReplaceSharingTypesWithSitesJob(config, writeLock, new StoreLoader(), adminKeysetStore, keysetProvider, keysetStoreWriter, rotatingSiteStore);
 
         job.execute();
         keysetProvider.loadContent();
@@ -112,4 +115,43 @@ public class TestReplaceSharingtypesWithSitesJob {
         }
     }
 
+    @Test
+    public void testSkipsUploadWhenKeysetsUnchanged() throws Exception {
+        JsonObject config = new JsonObject();
+        config.put(AdminConst.enableKeysetConfigProp, true);
+        adminKeysetStoreWriter.upload(adminKeysets, null);
+        siteStoreWriter.upload(sites, null);
+        keysetStoreWriter.upload(new HashMap<>(), null);
+        KeysetStoreWriter writer = spy(keysetStoreWriter);
+
+        ReplaceSharingTypesWithSitesJob job = new ReplaceSharingTypesWithSitesJob(config, new WriteLock(), new StoreLoader(), adminKeysetStore, keysetProvider, writer, rotatingSiteStore);
+        job.execute();
+        job.execute();
+
+        verify(writer, times(1)).upload(any(), any());
+    }
+
+    @Test
+    public void testUploadsAfterSiteTypeChange() throws Exception {
+        JsonObject config = new JsonObject();
+        config.put(AdminConst.enableKeysetConfigProp, true);
+        adminKeysetStoreWriter.upload(adminKeysets, null);
+        siteStoreWriter.upload(sites, null);
+        keysetStoreWriter.upload(new HashMap<>(), null);
+        KeysetStoreWriter writer = spy(keysetStoreWriter);
+
+        ReplaceSharingTypesWithSitesJob job = new ReplaceSharingTypesWithSitesJob(config, new WriteLock(), new StoreLoader(), adminKeysetStore, keysetProvider, writer, rotatingSiteStore);
+        job.execute();
+        List<Site> changedSites = new ArrayList<>(sites);
+        changedSites.set(0, new Site(3, "site 3", true, Set.of(ClientType.DSP), new HashSet<>()));
+        siteStoreWriter.upload(changedSites, null);
+        job.execute();
+
+        verify(writer, times(2)).upload(any(), any());
+        keysetProvider.loadContent();
+        Map<Integer, Keyset> results = keysetProvider.getAll();
+        assertEquals(new Keyset(6, 6, "keyset_6", Set.of(3, 4, 8, 9), 0L, true, true), results.get(6));
+        assertEquals(expectedKeysets.get(4), results.get(4));
+        assertEquals(new Keyset(7, 7, "keyset_7", Set.of(3, 4, 5, 6, 7, 8, 9), 0L, true, true), results.get(7));
+    }
 }
@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableMap;
 import com.uid2.admin.auth.AdminKeyset;
 import com.uid2.admin.auth.AdminKeysetSnapshot;
 import com.uid2.admin.secret.IKeysetKeyManager;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.reader.RotatingAdminKeysetStore;
 import com.uid2.admin.store.writer.AdminKeysetWriter;
 import com.uid2.shared.auth.ClientKey;
@@ -34,12 +35,17 @@ public class KeysetManagerTest {
     @Mock protected RotatingAdminKeysetStore keysetProvider;
     @Mock
     protected IKeysetKeyManager keysetKeyManager;
-    protected AdminKeysetSnapshot keysetSnapshot;
+    private Map<Integer, AdminKeyset> keysets;
 
     @BeforeEach
-    public void setupMocks() {
+    public void setupMocks() throws Exception {
         mocks = MockitoAnnotations.openMocks(this);
-        when(keysetProvider.getSnapshot()).thenReturn(keysetSnapshot);
+        // an upload replaces the keysets served, as the reload after a real upload does
+        doAnswer(i -> {
+            keysets.clear();
+            keysets.putAll(i.getArgument(0));
+            return null;
+        }).when(keysetStoreWriter).upload(anyMap(), any());
     }
 
     @AfterEach
@@ -48,14 +54,14 @@ public class KeysetManagerTest {
     }
 
     protected void setKeysets(Map<Integer, AdminKeyset> keysets) {
-        keysetSnapshot = new AdminKeysetSnapshot(keysets);
-        when(keysetProvider.getSnapshot()).thenReturn(keysetSnapshot);
+        this.keysets = keysets;
+        when(keysetProvider.getSnapshot()).thenAnswer(i -> new AdminKeysetSnapshot(new HashMap<>(keysets)));
     }
 
     @Test
     public void testAddOrReplaceKeyset() throws Exception{
         KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter,
-                keysetKeyManager, true);
+                keysetKeyManager, new StoreLoader(), true);
 
         Map<Integer, AdminKeyset> keysets = new HashMap<Integer, AdminKeyset>() {{
             put(1, KeysetManager.createDefaultKeyset(3, 1));
@@ -74,7 +80,7 @@ public class KeysetManagerTest {
         verify(keysetStoreWriter).upload(mapOfSize(5), isNull());
 
         //Reset between tests so verify works
-        reset(keysetStoreWriter);
+        clearInvocations(keysetStoreWriter);
 
         // add existing AdminKeyset
         AdminKeyset keyset2 = new AdminKeyset(keysetId, 7, "newKeyset", Set.of(1, 2, 3), 1 , true, true, new HashSet<>());
@@ -91,7 +97,7 @@ public class KeysetManagerTest {
         public void createsKeysetWhenNoneExists() throws Exception {
             setKeysets(new HashMap<>());
 
-            final KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter, keysetKeyManager, true);
+            final KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter, keysetKeyManager, new StoreLoader(), true);
 
             final AdminKeyset keysetForSite = keysetManager.createKeysetForSite(1);
 
@@ -108,7 +114,7 @@ public class KeysetManagerTest {
 
             setKeysets(keysets);
 
-            final KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter, keysetKeyManager, true);
+            final KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter, keysetKeyManager, new StoreLoader(), true);
 
             final AdminKeyset actual = keysetManager.createKeysetForSite(1);
 
@@ -119,7 +125,7 @@ public class KeysetManagerTest {
 
         @Test
         public void returnsNullWhenKeysetsAreNotEnabled() throws Exception {
-            final KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter, keysetKeyManager, false);
+            final KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter, keysetKeyManager, new StoreLoader(), false);
 
             final AdminKeyset actual = keysetManager.createKeysetForSite(1);
 
@@ -129,10 +135,35 @@ public class KeysetManagerTest {
         }
     }
 
+    @Test
+    public void testBuildKeysetsForSites() throws Exception {
+        KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter,
+                keysetKeyManager, new StoreLoader(), true);
+
+        Map<Integer, AdminKeyset> keysets = new HashMap<Integer, AdminKeyset>() {{
+            put(4, KeysetManager.createDefaultKeyset(5, 4));
+        }};
+        setKeysets(keysets);
+
+        List<AdminKeyset> created = keysetManager.buildKeysetsForSites(List.of(5, 6, 7));
+
+        assertEquals(2, created.size());
+        verifyNoInteractions(keysetStoreWriter, keysetKeyManager);
+
+        keysetManager.addOrReplaceKeysets(created);
+
+        assertEquals(6, keysets.get(5).getSiteId());
+        assertEquals(7, keysets.get(6).getSiteId());
+        assertTrue(keysets.get(6).isDefault());
+        assertEquals(Set.of(4, 5, 6), keysets.keySet());
+        verify(keysetStoreWriter, times(1)).upload(mapOfSize(3), isNull());
+        verify(keysetKeyManager).addKeysetKeys(List.of(5, 6));
+    }
+
     @Test
     public void testCreateKeysetForClient() throws Exception {
         KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter,
-                keysetKeyManager, true);
+                keysetKeyManager, new StoreLoader(), true);
 
         Map<Integer, AdminKeyset> keysets = new HashMap<Integer, AdminKeyset>() {{
             put(1, KeysetManager.createDefaultKeyset(3, 1));
@@ -173,22 +204,6 @@ public class KeysetManagerTest {
     }
 
 
-    @Test
-    public void testLookUpKeyset() {
-        Map<Integer, AdminKeyset> keysets = Map.of(
-                1, new AdminKeyset(1, 1, "", new HashSet<>(), 0, true, true, new HashSet<>()),
-                2, new AdminKeyset(2, 2, "", new HashSet<>(), 0, true, false, new HashSet<>()),
-                3, new AdminKeyset(3, 2, "", new HashSet<>(), 0, true, true, new HashSet<>()),
-                4, new AdminKeyset(4, 3, "", new HashSet<>(), 0, true, true, new HashSet<>())
-        );
-
-        AdminKeyset result = lookUpKeyset(2, keysets);
-        assertEquals(result, keysets.get(3));
-
-        result = lookUpKeyset(4, keysets);
-        assertNull(result);
-    }
-
     // keyset id 1/2/3 are assigned for master/refresh/default publisher encryption key ids,
     // so we always reserve these 3 keyset ids for them
     @Test
@@ -311,7 +326,7 @@ public class KeysetManagerTest {
         );
 
         KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter,
-                keysetKeyManager, true);
+                keysetKeyManager, new StoreLoader(), true);
 
         keysetManager.createAdminKeysets(keysets);
 
@@ -351,7 +366,7 @@ public class KeysetManagerTest {
         );
 
         KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter,
-                keysetKeyManager, true);
+                keysetKeyManager, new StoreLoader(), true);
 
         keysetManager.createAdminKeysets(keysets);
 
@@ -392,7 +407,7 @@ public class KeysetManagerTest {
         );
 
         KeysetManager keysetManager = new KeysetManager(keysetProvider, keysetStoreWriter,
-                keysetKeyManager, true);
+                keysetKeyManager, new StoreLoader(), true);
 
         keysetManager.createAdminKeysets(keysets);
 
@@ -0,0 +1,42 @@
+package com.uid2.admin.model;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NameAndKeyIdIndexTest {
+    private static final Collection<String[]> KEYS = ImmutableList.of(
+            new String[]{"name1", "id1"},
+            new String[]{"name2", "id2"},
+            new String[]{"name1", "id3"},
+            new String[]{null, "id4"});
+
+    private final NameAndKeyIdIndex<String[]> index = NameAndKeyIdIndex.build(KEYS, k -> k[0], k -> k[1]);
+
+    @Test
+    void looksUpByNameAndKeyId() {
+        assertThat(index.getByName("name2")).isSameAs(index.getByKeyId("id2"));
+        assertThat(index.getByKeyId("id4")[1]).isEqualTo("id4");
+    }
+
+    @Test
+    void keepsTheFirstKeyWithADuplicatedName() {
+        assertThat(index.getByName("name1")[1]).isEqualTo("id1");
+    }
+
+    @Test
+    void returnsNullForUnknownKeys() {
+        assertThat(index.getByName("name3")).isNull();
+        assertThat(index.getByKeyId("id5")).isNull();
+    }
+
+    @Test
+    void isBuiltFromTheSameSnapshotOnly() {
+        assertThat(index.isBuiltFrom(KEYS)).isTrue();
+        assertThat(index.isBuiltFrom(new ArrayList<>(KEYS))).isFalse();
+    }
+}
@@ -0,0 +1,44 @@
+package com.uid2.admin.model;
+
+import com.google.common.collect.ImmutableList;
+import com.uid2.shared.auth.OperatorKey;
+import com.uid2.shared.auth.OperatorType;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrivateSiteTopologyTest {
+    @Test
+    void indexesDistinctPrivateSitesInSiteIdOrder() {
+        PrivateSiteTopology topology = PrivateSiteTopology.fromOperators(ImmutableList.of(
+                operator("1", 12, OperatorType.PRIVATE),
+                operator("2", 5, OperatorType.PRIVATE),
+                operator("3", 12, OperatorType.PRIVATE),
+                operator("4", 7, OperatorType.PUBLIC),
+                operator("5", null, OperatorType.PRIVATE)));
+
+        assertThat(topology.size()).isEqualTo(2);
+        assertThat(topology.getSiteId(0)).isEqualTo(5);
+        assertThat(topology.getSiteId(1)).isEqualTo(12);
+        assertThat(topology.indexOf(5)).isEqualTo(0);
+        assertThat(topology.indexOf(12)).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotContainSitesWithoutPrivateOperators() {
+        PrivateSiteTopology topology = PrivateSiteTopology.fromOperators(ImmutableList.of(
+                operator("1", 5, OperatorType.PRIVATE),
+                operator("2", 7, OperatorType.PUBLIC)));
+
+        assertThat(topology.contains(5)).isTrue();
+        assertThat(topology.contains(7)).isFalse();
+        assertThat(topology.indexOf(7)).isEqualTo(-1);
+        assertThat(topology.indexOf(1)).isEqualTo(-1);
+    }
+
+    private static OperatorKey operator(String name, Integer siteId, OperatorType type) {
+        return new OperatorKey("keyHash" + name, "keySalt" + name, name, "contact" + name, "aws-nitro", 1, false, siteId, new HashSet<>(), type, "key-id-" + name);
+    }
+}
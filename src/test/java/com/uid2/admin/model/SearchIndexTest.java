@@ -0,0 +1,54 @@
+package com.uid2.admin.model;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+    private static final Collection<String[]> ITEMS = ImmutableList.of(
+            new String[]{"alpha", "first contact"},
+            new String[]{"alphabet", null},
+            new String[]{"the alpha", "second"},
+            new String[]{"alp", "third"});
+
+    private final SearchIndex<String[]> index = SearchIndex.build(ITEMS, item -> item);
+
+    @Test
+    void ranksExactThenPrefixThenInfixMatches() {
+        List<String[]> results = index.search("alpha", 10);
+
+        assertThat(results).extracting(item -> item[0]).containsExactly("alpha", "alphabet", "the alpha");
+    }
+
+    @Test
+    void searchesEveryField() {
+        assertThat(index.search("contact", 10)).extracting(item -> item[0]).containsExactly("alpha");
+        assertThat(index.search("cond", 10)).extracting(item -> item[0]).containsExactly("the alpha");
+    }
+
+    @Test
+    void findsNothingForUnknownTrigrams() {
+        assertThat(index.search("alphz", 10)).isEmpty();
+    }
+
+    @Test
+    void scansQueriesShorterThanATrigram() {
+        assertThat(index.search("al", 10)).hasSize(4);
+    }
+
+    @Test
+    void limitsResults() {
+        assertThat(index.search("alp", 2)).extracting(item -> item[0]).containsExactly("alp", "alpha");
+    }
+
+    @Test
+    void isBuiltFromTheSameSnapshotOnly() {
+        assertThat(index.isBuiltFrom(ITEMS)).isTrue();
+        assertThat(index.isBuiltFrom(new ArrayList<>(ITEMS))).isFalse();
+    }
+}
@@ -0,0 +1,53 @@
+package com.uid2.admin.model;
+
+import com.google.common.collect.ImmutableList;
+import com.uid2.admin.legacy.LegacyClientKey;
+import com.uid2.admin.model.SiteSummaries.SiteSummary;
+import com.uid2.shared.auth.Role;
+import com.uid2.shared.model.Site;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SiteSummariesTest {
+    @Test
+    void summarisesClientsOfEachSiteInNameOrder() {
+        SiteSummaries summaries = SiteSummaries.build(
+                ImmutableList.of(new Site(11, "b", true), new Site(12, "a", true), new Site(13, "c", false)),
+                ImmutableList.of(
+                        client("c1", 11, Role.GENERATOR, Role.ID_READER),
+                        client("c2", 12, Role.MAPPER),
+                        client("c3", 11, Role.GENERATOR, Role.MAPPER)));
+
+        List<SiteSummary> byName = summaries.getByName();
+        assertThat(byName.stream().map(s -> s.getSite().getId()).collect(Collectors.toList())).containsExactly(12, 11, 13);
+        assertThat(byName.get(0).getRoles()).containsExactlyInAnyOrder(Role.MAPPER);
+        assertThat(byName.get(0).getClientCount()).isEqualTo(1);
+        assertThat(byName.get(1).getRoles()).containsExactlyInAnyOrder(Role.GENERATOR, Role.ID_READER, Role.MAPPER);
+        assertThat(byName.get(1).getClientCount()).isEqualTo(2);
+        assertThat(byName.get(2).getRoles()).isEmpty();
+        assertThat(byName.get(2).getClientCount()).isZero();
+    }
+
+    @Test
+    void isBuiltFromTheSameSnapshotsOnly() {
+        Collection<Site> sites = ImmutableList.of(new Site(11, "a", true));
+        Collection<LegacyClientKey> clients = ImmutableList.of(client("c1", 11, Role.GENERATOR));
+        SiteSummaries summaries = SiteSummaries.build(sites, clients);
+
+        assertThat(summaries.isBuiltFrom(sites, clients)).isTrue();
+        assertThat(summaries.isBuiltFrom(new ArrayList<>(sites), clients)).isFalse();
+        assertThat(summaries.isBuiltFrom(sites, ImmutableList.of())).isFalse();
+    }
+
+    private static LegacyClientKey client(String name, int siteId, Role... roles) {
+        return new LegacyClientKey("key" + name, "hash" + name, "salt" + name, "secret" + name, name, Instant.MIN, Set.of(roles), siteId, "id-" + name);
+    }
+}
@@ -0,0 +1,93 @@
+package com.uid2.admin.monitoring;
+
+import com.uid2.admin.store.Clock;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.StoreRefresher;
+import com.uid2.shared.store.reader.IMetadataVersionedStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.micrometer.core.instrument.Metrics.globalRegistry;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class DataStoreMetricsTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Clock clock = mock(Clock.class);
+    private final StoreLoader storeLoader = new StoreLoader(clock);
+    private final IMetadataVersionedStore store = mock(IMetadataVersionedStore.class);
+    private final JsonObject metadata = new JsonObject().put("version", 5);
+
+    @BeforeEach
+    void setup() throws Exception {
+        globalRegistry.add(registry);
+        when(store.getMetadata()).thenReturn(metadata);
+        when(store.getVersion(metadata)).thenReturn(5L);
+    }
+
+    @AfterEach
+    void teardown() {
+        globalRegistry.remove(registry);
+    }
+
+    @Test
+    void scrapesDoNotReadTheStore() throws Exception {
+        DataStoreMetrics metrics = new DataStoreMetrics(storeLoader, clock);
+        metrics.addDataStoreMetrics("cached", store);
+
+        assertThat(gauge("uid2_data_store_version", "cached")).isNaN();
+        assertThat(gauge("uid2_data_store_last_refresh_age_seconds", "cached")).isNaN();
+
+        when(clock.getEpochMillis()).thenReturn(1000L);
+        storeLoader.load(store);
+        when(clock.getEpochMillis()).thenReturn(31000L);
+
+        assertThat(gauge("uid2_data_store_version", "cached")).isEqualTo(5.0);
+        assertThat(gauge("uid2_data_store_version", "cached")).isEqualTo(5.0);
+        assertThat(gauge("uid2_data_store_last_refresh_age_seconds", "cached")).isEqualTo(30.0);
+        verify(store, times(1)).getMetadata();
+    }
+
+    @Test
+    void reportsTheRefresherChecksOfAnUnchangedStore() throws Exception {
+        DataStoreMetrics metrics = new DataStoreMetrics(storeLoader, clock);
+        metrics.addDataStoreMetrics("unchanged", store);
+        StoreRefresher refresher = new StoreRefresher(storeLoader);
+        refresher.addStore("unchanged", store);
+        when(clock.getEpochMillis()).thenReturn(1000L);
+        refresher.refresh();
+
+        when(clock.getEpochMillis()).thenReturn(11000L);
+        refresher.refresh();
+        when(clock.getEpochMillis()).thenReturn(13000L);
+
+        assertThat(gauge("uid2_data_store_version", "unchanged")).isEqualTo(5.0);
+        assertThat(gauge("uid2_data_store_last_refresh_age_seconds", "unchanged")).isEqualTo(2.0);
+        verify(store, times(1)).loadContent(metadata);
+    }
+
+    @Test
+    void keepsTheLastVersionWhenARefreshFails() throws Exception {
+        DataStoreMetrics metrics = new DataStoreMetrics(storeLoader, clock);
+        metrics.addDataStoreMetrics("failing", store);
+        StoreRefresher refresher = new StoreRefresher(storeLoader);
+        refresher.addStore("failing", store);
+        when(clock.getEpochMillis()).thenReturn(1000L);
+        refresher.refresh();
+
+        when(store.getMetadata()).thenThrow(new RuntimeException("download failed"));
+        when(clock.getEpochMillis()).thenReturn(11000L);
+        refresher.refresh();
+
+        assertThat(gauge("uid2_data_store_version", "failing")).isEqualTo(5.0);
+        assertThat(gauge("uid2_data_store_last_refresh_age_seconds", "failing")).isEqualTo(10.0);
+        assertThat(registry.get("uid2_data_store_background_refresh_failures").tag("store", "failing").counter().count()).isEqualTo(1.0);
+    }
+
+    private double gauge(String name, String store) {
+        return registry.get(name).tag("store", store).gauge().value();
+    }
+}
@@ -0,0 +1,126 @@
+package com.uid2.admin.monitoring;
+
+import com.uid2.admin.store.Clock;
+import com.uid2.admin.store.FileManager;
+import com.uid2.admin.store.FileName;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.StoreChangePublisher;
+import com.uid2.admin.store.version.VersionGenerator;
+import com.uid2.admin.store.writer.ScopedStoreWriter;
+import com.uid2.admin.store.writer.mocks.FileStorageMock;
+import com.uid2.shared.cloud.InMemoryStorageMock;
+import com.uid2.shared.store.CloudPath;
+import com.uid2.shared.store.reader.RotatingSiteStore;
+import com.uid2.shared.store.scope.GlobalScope;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.micrometer.core.instrument.Metrics.globalRegistry;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestTraceTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setup() {
+        globalRegistry.add(registry);
+    }
+
+    @AfterEach
+    void teardown() {
+        globalRegistry.remove(registry);
+    }
+
+    @Test
+    void addsSectionsToTheBoundTraceInOrder() {
+        RequestTrace trace = new RequestTrace("/api/site/add");
+        trace.bind(() -> {
+            RequestTrace.record("lock_wait", null, TimeUnit.MILLISECONDS.toNanos(6000));
+            RequestTrace.record("load_content", "sites", TimeUnit.MILLISECONDS.toNanos(1000));
+            RequestTrace.record("load_content", "sites", TimeUnit.MILLISECONDS.toNanos(200));
+        });
+
+        assertThat(trace.getSections()).containsOnlyKeys("lock_wait", "load_content[sites]");
+        assertThat(trace.describe()).isEqualTo("lock_wait=6000ms load_content[sites]=1200ms");
+    }
+
+    @Test
+    void timesSectionsByRouteAndDataType() throws Exception {
+        RequestTrace trace = new RequestTrace("/api/client/add");
+        trace.bind(() -> {
+            try {
+                assertThat(RequestTrace.time("upload_data", "client_keys", () -> "done")).isEqualTo("done");
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        RequestTrace.time("upload_data", "client_keys", () -> {});
+
+        assertThat(trace.getSections()).containsOnlyKeys("upload_data[client_keys]");
+        assertThat(timer("/api/client/add").count()).isEqualTo(1);
+        assertThat(timer("none").count()).isEqualTo(1);
+    }
+
+    @Test
+    void timesSectionsThatFail() {
+        assertThatThrownBy(() -> RequestTrace.time("upload_metadata", "failing", () -> {
+            throw new IllegalStateException("upload failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        Timer timer = registry.find(RequestTrace.SECTION_TIMER).tags("section", "upload_metadata", "data_type", "failing").timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void tracesStoreWritesAndReloads() throws Exception {
+        InMemoryStorageMock cloudStorage = new InMemoryStorageMock();
+        FileManager fileManager = new FileManager(cloudStorage, new FileStorageMock(cloudStorage));
+        GlobalScope scope = new GlobalScope(new CloudPath("sites").resolve("sites-metadata.json"));
+        RotatingSiteStore store = new RotatingSiteStore(cloudStorage, scope);
+        VersionGenerator versionGenerator = mock(VersionGenerator.class);
+        when(versionGenerator.getVersion()).thenReturn(1L, 2L);
+        StoreLoader storeLoader = new StoreLoader();
+        ScopedStoreWriter writer = new ScopedStoreWriter(store, fileManager, versionGenerator, mock(Clock.class), scope,
+                new FileName("sites", ".json"), "sites", new StoreChangePublisher(), storeLoader);
+        StoreLoader handlerLoader = new StoreLoader();
+        handlerLoader.setDataType(store, "sites");
+
+        RequestTrace write = new RequestTrace("/api/site/add");
+        write.bind(() -> {
+            try {
+                writer.upload(writer.serialize(() -> "[]"), null);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        RequestTrace reload = new RequestTrace("/api/site/list");
+        reload.bind(() -> {
+            try {
+                handlerLoader.load(store);
+                writer.upload("[]", null);
+                assertThat(handlerLoader.loadIfChanged(store)).isTrue();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertThat(write.getSections()).containsOnlyKeys(
+                "serialize[sites]", "read_metadata[sites]", "upload_data[sites]", "upload_metadata[sites]", "load_content[sites]");
+        assertThat(reload.getSections()).containsKeys("read_metadata[sites]", "load_content[sites]");
+    }
+
+    private Timer timer(String route) {
+        return registry.find(RequestTrace.SECTION_TIMER)
+                .tags("section", "upload_data", "data_type", "client_keys", "route", route)
+                .timer();
+    }
+}
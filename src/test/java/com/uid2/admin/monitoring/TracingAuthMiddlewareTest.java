@@ -0,0 +1,97 @@
+package com.uid2.admin.monitoring;
+
+import com.uid2.admin.auth.AdminUser;
+import com.uid2.shared.auth.IAuthorizableProvider;
+import com.uid2.shared.auth.Role;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static io.micrometer.core.instrument.Metrics.globalRegistry;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(VertxExtension.class)
+class TracingAuthMiddlewareTest {
+    private static final String ROUTE = "/api/traced";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final IAuthorizableProvider adminUserProvider = mock(IAuthorizableProvider.class);
+    private HttpServer server;
+
+    @BeforeEach
+    void setup(Vertx vertx, VertxTestContext testContext) {
+        globalRegistry.add(registry);
+        when(adminUserProvider.get("admin-key")).thenReturn(
+                new AdminUser(null, null, null, null, null, 0, Set.of(Role.CLIENTKEY_ISSUER), false, null));
+
+        TracingAuthMiddleware auth = new TracingAuthMiddleware(adminUserProvider, Long.MAX_VALUE);
+        Router router = Router.router(vertx);
+        router.get(ROUTE).handler(auth.handle(rc -> {
+            RequestTrace.record("upload_data", "sites", TimeUnit.MILLISECONDS.toNanos(5));
+            rc.response().end();
+        }, Role.CLIENTKEY_ISSUER));
+        vertx.createHttpServer().requestHandler(router).listen(0, testContext.succeeding(server -> {
+            this.server = server;
+            testContext.completeNow();
+        }));
+    }
+
+    @AfterEach
+    void teardown() {
+        globalRegistry.remove(registry);
+    }
+
+    @Test
+    void timesAllowedRequests(Vertx vertx, VertxTestContext testContext) {
+        WebClient.create(vertx).get(server.actualPort(), "127.0.0.1", ROUTE)
+                .bearerTokenAuthentication("admin-key")
+                .send()
+                .onComplete(testContext.succeeding(response -> {
+                    testContext.verify(() -> assertThat(response.statusCode()).isEqualTo(200));
+                    awaitRequestTimer(vertx, testContext, "200", () ->
+                            assertThat(registry.get(RequestTrace.SECTION_TIMER).tag("route", ROUTE).timer().count()).isEqualTo(1));
+                }));
+    }
+
+    @Test
+    void timesRejectedRequests(Vertx vertx, VertxTestContext testContext) {
+        WebClient.create(vertx).get(server.actualPort(), "127.0.0.1", ROUTE)
+                .bearerTokenAuthentication("unknown-key")
+                .send()
+                .onComplete(testContext.succeeding(response -> {
+                    testContext.verify(() -> assertThat(response.statusCode()).isEqualTo(401));
+                    awaitRequestTimer(vertx, testContext, "401", () ->
+                            assertThat(registry.find(RequestTrace.SECTION_TIMER).tag("route", ROUTE).timers())
+                                    .allMatch(timer -> timer.count() == 0));
+                }));
+    }
+
+    // the timer is recorded once the server is done with the response, which may be after the client got it
+    private void awaitRequestTimer(Vertx vertx, VertxTestContext testContext, String status, Runnable andThen) {
+        vertx.setPeriodic(10, id -> {
+            Timer timer = registry.find(TracingAuthMiddleware.REQUEST_TIMER).tag("route", ROUTE).tag("status", status).timer();
+            if (timer != null && timer.count() > 0) {
+                vertx.cancelTimer(id);
+                testContext.verify(() -> {
+                    assertThat(timer.count()).isEqualTo(1);
+                    andThen.run();
+                });
+                testContext.completeNow();
+            }
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package com.uid2.admin.monitoring;
+
+import com.uid2.admin.store.Clock;
+import com.uid2.admin.vertx.WriteLock;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WriteLockMonitorTest {
+    private final WriteLock writeLock = new WriteLock();
+    private final Clock clock = mock(Clock.class);
+    private final WriteLockMonitor monitor = new WriteLockMonitor(writeLock, clock, 5000);
+
+    @Test
+    void countsThreadsBlockedOnTheWriteLock() throws Exception {
+        when(clock.getEpochMillis()).thenReturn(1000L);
+        monitor.sample();
+        assertThat(monitor.getBlockedThreads()).isZero();
+
+        CountDownLatch done = new CountDownLatch(1);
+        Thread waiter;
+        synchronized (writeLock) {
+            waiter = new Thread(() -> {
+                synchronized (writeLock) {
+                    done.countDown();
+                }
+            }, "waiter");
+            waiter.start();
+            waitUntilBlocked(waiter);
+
+            monitor.sample();
+            assertThat(monitor.getBlockedThreads()).isEqualTo(1);
+            assertThat(monitor.getLongestWaitMs()).isZero();
+
+            when(clock.getEpochMillis()).thenReturn(7000L);
+            monitor.sample();
+            assertThat(monitor.getLongestWaitMs()).isEqualTo(6000L);
+        }
+
+        done.await();
+        waiter.join();
+        monitor.sample();
+        assertThat(monitor.getBlockedThreads()).isZero();
+        assertThat(monitor.getLongestWaitMs()).isZero();
+    }
+
+    @Test
+    void ignoresThreadsBlockedOnOtherLocks() throws Exception {
+        when(clock.getEpochMillis()).thenReturn(1000L);
+        Object otherLock = new Object();
+        Thread waiter;
+        synchronized (otherLock) {
+            waiter = new Thread(() -> {
+                synchronized (otherLock) {
+                }
+            }, "waiter");
+            waiter.start();
+            waitUntilBlocked(waiter);
+
+            monitor.sample();
+            assertThat(monitor.getBlockedThreads()).isZero();
+        }
+        waiter.join();
+    }
+
+    private static void waitUntilBlocked(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.BLOCKED) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.uid2.admin.store;
+
+import com.uid2.shared.cloud.CloudStorageException;
+import com.uid2.shared.store.reader.IMetadataVersionedStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.micrometer.core.instrument.Metrics.globalRegistry;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LazyStoreTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StoreLoader storeLoader = new StoreLoader();
+    private final Clock clock = mock(Clock.class);
+    private final IMetadataVersionedStore store = mock(IMetadataVersionedStore.class);
+    private final JsonObject metadata = new JsonObject().put("version", 1);
+
+    @BeforeEach
+    void setup() {
+        globalRegistry.add(registry);
+        when(store.getVersion(metadata)).thenReturn(1L);
+        when(clock.getEpochMillis()).thenReturn(1000L);
+    }
+
+    @AfterEach
+    void teardown() {
+        globalRegistry.remove(registry);
+    }
+
+    @Test
+    void loadsOnFirstUseOnly() throws Exception {
+        when(store.getMetadata()).thenReturn(metadata);
+        storeLoader.loadLazily(new LazyStore("lazy", store, clock));
+        verify(store, never()).loadContent(any());
+        assertThat(readySeconds("lazy")).isNaN();
+
+        when(clock.getEpochMillis()).thenReturn(4000L);
+        storeLoader.ensureLoaded(store);
+        storeLoader.ensureLoaded(store);
+
+        verify(store, times(1)).loadContent(metadata);
+        assertThat(readySeconds("lazy")).isEqualTo(3.0);
+    }
+
+    @Test
+    void bootstrapsAMissingStore() throws Exception {
+        when(store.getMetadata())
+                .thenThrow(new CloudStorageException("The specified key does not exist: metadata.json"))
+                .thenReturn(metadata);
+        LazyStore.Bootstrap bootstrap = mock(LazyStore.Bootstrap.class);
+        storeLoader.loadLazily(new LazyStore("bootstrapped", store, bootstrap, clock));
+
+        assertThat(storeLoader.loadIfChanged(store)).isTrue();
+
+        verify(bootstrap).run();
+        verify(store).loadContent(metadata);
+        assertThat(storeLoader.isLoaded(store)).isTrue();
+    }
+
+    @Test
+    void failsOnOtherErrors() throws Exception {
+        when(store.getMetadata()).thenThrow(new CloudStorageException("access denied"));
+        LazyStore.Bootstrap bootstrap = mock(LazyStore.Bootstrap.class);
+        storeLoader.loadLazily(new LazyStore("denied", store, bootstrap, clock));
+
+        assertThatThrownBy(() -> storeLoader.ensureLoaded(store)).hasMessage("access denied");
+
+        verify(bootstrap, never()).run();
+        assertThat(storeLoader.isLoaded(store)).isFalse();
+    }
+
+    @Test
+    void refresherLeavesUnusedStoresUnlessWarming() throws Exception {
+        when(store.getMetadata()).thenReturn(metadata);
+        storeLoader.loadLazily(new LazyStore("unused", store, clock));
+
+        StoreRefresher refresher = new StoreRefresher(storeLoader, false);
+        refresher.addStore("unused", store);
+        refresher.refresh();
+        verify(store, never()).loadContent(any());
+
+        StoreRefresher warming = new StoreRefresher(storeLoader, true);
+        warming.addStore("unused", store);
+        warming.refresh();
+        verify(store, times(1)).loadContent(metadata);
+    }
+
+    private double readySeconds(String dataType) {
+        return registry.get("uid2_data_store_ready_seconds").tag("store", dataType).gauge().value();
+    }
+}
@@ -131,6 +131,71 @@ class MultiScopeStoreWriterTest {
         assertThat(newVersion).isEqualTo(oldVersion);
     }
 
+    @Test
+    public void doesNotWriteDataThatHasOnlyBeenReordered() throws Exception {
+        Site anotherSite = new Site(scopedSiteId + 1, "site 2", true);
+        siteStoreFactory.getWriter(scopedSiteId).upload(ImmutableList.of(site, anotherSite), null);
+
+        StoreReader<Collection<Site>> reader = siteStoreFactory.getReader(scopedSiteId);
+        Long oldVersion = reader.getMetadata().getLong("version");
+
+        MultiScopeStoreWriter<Collection<Site>> multiStore = new MultiScopeStoreWriter<>(fileManager, siteStoreFactory, MultiScopeStoreWriter::areCollectionsEqual);
+
+        multiStore.uploadIfChanged(ImmutableMap.of(
+                scopedSiteId, ImmutableList.of(anotherSite, site)
+        ), null);
+
+        Long newVersion = reader.getMetadata().getLong("version");
+        assertThat(newVersion).isEqualTo(oldVersion);
+    }
+
+    @Test
+    public void recordsContentDigestInMetadata() throws Exception {
+        MultiScopeStoreWriter<Collection<Site>> multiStore = new MultiScopeStoreWriter<>(fileManager, siteStoreFactory, MultiScopeStoreWriter::areCollectionsEqual);
+
+        multiStore.uploadIfChanged(ImmutableMap.of(scopedSiteId, ImmutableList.of(site)), null);
+
+        StoreReader<Collection<Site>> reader = siteStoreFactory.getReader(scopedSiteId);
+        assertThat(reader.getMetadata().getString("content_digest")).isNotEmpty();
+    }
+
+    @Nested
+    class WithoutContentDigest {
+        private StoreReader<Collection<Site>> reader;
+        private Long oldVersion;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            siteStoreFactory.getWriter(scopedSiteId).upload(ImmutableList.of(site), null);
+            reader = siteStoreFactory.getReader(scopedSiteId);
+            JsonObject metadata = reader.getMetadata();
+            metadata.remove("content_digest");
+            fileManager.uploadMetadata(metadata, "sites", reader.getMetadataPath());
+            oldVersion = metadata.getLong("version");
+        }
+
+        @Test
+        void doesNotWriteDataThatHasNotChanged() throws Exception {
+            MultiScopeStoreWriter<Collection<Site>> multiStore = new MultiScopeStoreWriter<>(fileManager, siteStoreFactory, MultiScopeStoreWriter::areCollectionsEqual);
+
+            multiStore.uploadIfChanged(ImmutableMap.of(scopedSiteId, ImmutableList.of(site)), null);
+
+            assertThat(reader.getMetadata().getLong("version")).isEqualTo(oldVersion);
+        }
+
+        @Test
+        void overwritesExistingDataWhenChanged() throws Exception {
+            Site updatedSite = new Site(scopedSiteId, "site 1 updated", true);
+            MultiScopeStoreWriter<Collection<Site>> multiStore = new MultiScopeStoreWriter<>(fileManager, siteStoreFactory, MultiScopeStoreWriter::areCollectionsEqual);
+
+            multiStore.uploadIfChanged(ImmutableMap.of(scopedSiteId, ImmutableList.of(updatedSite)), null);
+
+            reader.loadContent();
+            assertThat(reader.getAll()).containsExactly(updatedSite);
+            assertThat(reader.getMetadata().getString("content_digest")).isNotEmpty();
+        }
+    }
+
     @Nested
     class AreMapsEqual {
         Map<String, String> a = ImmutableMap.of(
@@ -0,0 +1,100 @@
+package com.uid2.admin.store;
+
+import com.uid2.shared.store.reader.IMetadataVersionedStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.micrometer.core.instrument.Metrics.globalRegistry;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class StoreLoaderTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StoreLoader storeLoader = new StoreLoader();
+    private final IMetadataVersionedStore store = mock(IMetadataVersionedStore.class);
+    private final JsonObject metadataV1 = new JsonObject().put("version", 1);
+    private final JsonObject metadataV2 = new JsonObject().put("version", 2);
+
+    @BeforeEach
+    void setup() {
+        globalRegistry.add(registry);
+        when(store.getVersion(metadataV1)).thenReturn(1L);
+        when(store.getVersion(metadataV2)).thenReturn(2L);
+    }
+
+    @AfterEach
+    void teardown() {
+        globalRegistry.remove(registry);
+    }
+
+    @Test
+    void loadsOnlyWhenTheVersionChanged() throws Exception {
+        when(store.getMetadata()).thenReturn(metadataV1);
+
+        assertThat(storeLoader.loadIfChanged(store)).isTrue();
+        assertThat(storeLoader.loadIfChanged(store)).isFalse();
+        verify(store, times(1)).loadContent(metadataV1);
+
+        when(store.getMetadata()).thenReturn(metadataV2);
+
+        assertThat(storeLoader.loadIfChanged(store)).isTrue();
+        verify(store, times(1)).loadContent(metadataV2);
+        assertThat(storeLoader.getLoadedVersion(store)).isEqualTo(2L);
+    }
+
+    @Test
+    void loadsAfterWriteAreNotRepeatedByTheCheck() throws Exception {
+        when(store.getMetadata()).thenReturn(metadataV2);
+
+        storeLoader.load(store);
+
+        assertThat(storeLoader.loadIfChanged(store)).isFalse();
+        verify(store, times(1)).loadContent(any());
+    }
+
+    @Test
+    void loadsAgainAfterInvalidation() throws Exception {
+        when(store.getMetadata()).thenReturn(metadataV1);
+        storeLoader.load(store);
+
+        storeLoader.invalidate(store);
+
+        assertThat(storeLoader.loadIfChanged(store)).isTrue();
+        verify(store, times(2)).loadContent(metadataV1);
+    }
+
+    @Test
+    void loadersKeepTheirOwnVersions() throws Exception {
+        when(store.getMetadata()).thenReturn(metadataV1);
+        storeLoader.load(store);
+
+        StoreLoader otherLoader = new StoreLoader();
+
+        assertThat(otherLoader.isLoaded(store)).isFalse();
+        assertThat(otherLoader.loadIfChanged(store)).isTrue();
+        assertThat(storeLoader.loadIfChanged(store)).isFalse();
+        verify(store, times(2)).loadContent(metadataV1);
+    }
+
+    @Test
+    void failedLoadIsRetriedByTheNextCheck() throws Exception {
+        when(store.getMetadata()).thenReturn(metadataV1);
+        when(store.loadContent(metadataV1)).thenThrow(new RuntimeException("download failed")).thenReturn(1L);
+
+        StoreRefresher refresher = new StoreRefresher(storeLoader);
+        refresher.addStore("retried", store);
+        refresher.refresh();
+
+        assertThat(registry.get("uid2_data_store_background_refresh_failures").tag("store", "retried").counter().count()).isEqualTo(1);
+        assertThat(storeLoader.getLoadedVersion(store)).isNull();
+
+        refresher.refresh();
+
+        assertThat(registry.get("uid2_data_store_background_reloads").tag("store", "retried").counter().count()).isEqualTo(1);
+        assertThat(storeLoader.getLoadedVersion(store)).isEqualTo(1L);
+    }
+}
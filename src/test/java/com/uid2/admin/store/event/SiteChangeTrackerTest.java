@@ -0,0 +1,38 @@
+package com.uid2.admin.store.event;
+
+import com.uid2.shared.model.Site;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SiteChangeTrackerTest {
+    private final SiteChangeTracker<Site> tracker = new SiteChangeTracker<>(Site::getId);
+
+    @Test
+    void reportsUnknownSitesBeforeFirstCommit() {
+        Map<Integer, Integer> digests = tracker.digest(List.of(new Site(5, "site 5", true)));
+
+        assertThat(tracker.getChangedSiteIds(digests)).isNull();
+    }
+
+    @Test
+    void reportsNoSitesWhenContentIsUnchanged() {
+        tracker.commit(tracker.digest(List.of(new Site(5, "site 5", true), new Site(6, "site 6", true))));
+
+        Map<Integer, Integer> digests = tracker.digest(List.of(new Site(6, "site 6", true), new Site(5, "site 5", true)));
+
+        assertThat(tracker.getChangedSiteIds(digests)).isEmpty();
+    }
+
+    @Test
+    void reportsChangedAddedAndRemovedSites() {
+        tracker.commit(tracker.digest(List.of(new Site(5, "site 5", true), new Site(6, "site 6", true), new Site(7, "site 7", true))));
+
+        Map<Integer, Integer> digests = tracker.digest(List.of(new Site(5, "site 5", false), new Site(6, "site 6", true), new Site(8, "site 8", true)));
+
+        assertThat(tracker.getChangedSiteIds(digests)).containsExactlyInAnyOrder(5, 7, 8);
+    }
+}
@@ -5,11 +5,15 @@ import com.uid2.admin.auth.AdminKeysetSnapshot;
 import com.uid2.shared.model.ClientType;
 import com.uid2.shared.store.parser.ParsingResult;
 import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
@@ -50,4 +54,47 @@ public class AdminKeysetParserTest {
         }
 
     }
+
+    @Test
+    public void deserializeKeysetsEqualToTheWrittenOnes() throws Exception {
+        Map<Integer, AdminKeyset> expected = Map.of(
+                1, new AdminKeyset(1, 2, "test", new HashSet<>(List.of(5, 3, 4)), 100, true, false, new HashSet<>(List.of(ClientType.DSP))),
+                2, new AdminKeyset(2, -1, "no sites", null, 200, false, true, new HashSet<>()));
+
+        ParsingResult<AdminKeysetSnapshot> result = new AdminKeysetParser().deserialize(makeInputStream(new JsonArray(List.copyOf(expected.values()))));
+
+        assertEquals(2, result.getCount().intValue());
+        assertEquals(expected, result.getData().getAllKeysets());
+        assertEquals(expected.hashCode(), result.getData().getAllKeysets().hashCode());
+        assertNull(result.getData().getAllKeysets().get(2).getAllowedSites());
+    }
+
+    @Test
+    public void deserializeKeysetWithLowercaseTypesAndUnknownFields() throws Exception {
+        JsonArray keysetArray = new JsonArray().add(new JsonObject()
+                .put("allowed_types", new JsonArray().add("dsp").add("Publisher"))
+                .put("unknown", new JsonObject().put("nested", new JsonArray().add(1)))
+                .put("keyset", new JsonObject()
+                        .put("keyset_id", 7)
+                        .put("unknown", new JsonArray().add(new JsonObject()))
+                        .put("site_id", 8)
+                        .put("name", "seven")
+                        .put("allowed_sites", new JsonArray().add(3).add(1).add(3))
+                        .put("created", 1L)
+                        .put("enabled", true)
+                        .put("default", false)));
+
+        AdminKeyset keyset = new AdminKeysetParser().deserialize(makeInputStream(keysetArray)).getData().getAllKeysets().get(7);
+
+        assertEquals(new AdminKeyset(7, 8, "seven", Set.of(1, 3), 1, true, false, Set.of(ClientType.DSP, ClientType.PUBLISHER)), keyset);
+    }
+
+    @Test
+    public void deserializeKeysetMissingItsId() {
+        JsonArray keysetArray = new JsonArray().add(new JsonObject()
+                .put("allowed_types", new JsonArray())
+                .put("keyset", new JsonObject().put("site_id", 8).put("created", 1L).put("enabled", true).put("default", false)));
+
+        assertThrows(IOException.class, () -> new AdminKeysetParser().deserialize(makeInputStream(keysetArray)));
+    }
 }
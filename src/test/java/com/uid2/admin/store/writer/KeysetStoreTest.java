@@ -8,6 +8,7 @@ import com.uid2.admin.store.writer.mocks.FileStorageMock;
 import com.uid2.shared.auth.Keyset;
 import com.uid2.shared.cloud.InMemoryStorageMock;
 import com.uid2.shared.store.reader.RotatingKeysetProvider;
+import io.vertx.core.json.JsonArray;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import com.uid2.shared.store.CloudPath;
@@ -18,6 +19,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
 import java.time.Instant;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -65,4 +67,16 @@ public class KeysetStoreTest {
         Map<Integer, Keyset> actual = globalStore.getAll();
         assertThat(actual).containsAllEntriesOf(expected);
     }
+
+    @Test
+    void serializesTheSameKeysetsToTheSameContent() {
+        Keyset keyset = new Keyset(1, 5, "test1", new LinkedHashSet<>(List.of(17, 1, 33)), 100, true, true);
+        Keyset sameKeyset = new Keyset(1, 5, "test1", new LinkedHashSet<>(List.of(33, 1, 17)), 100, true, true);
+        Keyset noSites = new Keyset(2, 6, "test2", null, 100, true, true);
+
+        String content = KeysetStoreWriter.serialize(Map.of(1, keyset, 2, noSites));
+
+        assertThat(KeysetStoreWriter.serialize(Map.of(2, noSites, 1, sameKeyset))).isEqualTo(content);
+        assertThat(new JsonArray(content).getJsonObject(0).getJsonArray("allowed_sites")).containsExactly(1, 17, 33);
+    }
 }
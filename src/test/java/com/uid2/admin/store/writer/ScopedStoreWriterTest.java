@@ -4,6 +4,9 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.collect.ImmutableList;
 import com.uid2.admin.store.Clock;
 import com.uid2.admin.store.FileManager;
+import com.uid2.admin.store.StoreLoader;
+import com.uid2.admin.store.event.StoreChangeEvent;
+import com.uid2.admin.store.event.StoreChangePublisher;
 import com.uid2.admin.store.version.VersionGenerator;
 import com.uid2.admin.store.writer.mocks.FileStorageMock;
 import com.uid2.admin.vertx.JsonUtil;
@@ -14,18 +17,30 @@ import com.uid2.admin.store.FileName;
 import com.uid2.shared.store.reader.RotatingSiteStore;
 import com.uid2.shared.store.scope.GlobalScope;
 import com.uid2.shared.store.scope.SiteScope;
+import com.uid2.shared.cloud.CloudStorageException;
+import com.uid2.shared.cloud.ICloudStorage;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 class ScopedStoreWriterTest {
@@ -98,6 +113,38 @@ class ScopedStoreWriterTest {
             assertThat(files).contains(dataFile, metaFile);
         }
 
+        @Test
+        void publishesChangeEventAfterUpload() throws Exception {
+            StoreChangePublisher changePublisher = new StoreChangePublisher();
+            List<StoreChangeEvent> events = new ArrayList<>();
+            changePublisher.addListener(events::add);
+            ScopedStoreWriter writer = new ScopedStoreWriter(globalStore, fileManager, versionGenerator, clock, globalScope, dataFile, dataType, changePublisher, new StoreLoader());
+
+            writer.upload(jsonWriter.writeValueAsString(oneSite), null, Set.of(1));
+
+            assertThat(events).hasSize(1);
+            assertThat(events.get(0).getDataType()).isEqualTo(dataType);
+            assertThat(events.get(0).getSiteIds()).containsExactly(1);
+        }
+
+        @Test
+        void reloadsSnapshotWhenUploadFails() throws Exception {
+            ScopedStoreWriter writer = new ScopedStoreWriter(globalStore, fileManager, versionGenerator, clock, globalScope, dataFile, dataType);
+            writer.upload(jsonWriter.writeValueAsString(oneSite));
+            Collection<Site> snapshot = globalStore.getAllSites();
+            snapshot.iterator().next().setEnabled(false);
+
+            ICloudStorage failingStorage = spy(cloudStorage);
+            doThrow(new CloudStorageException("unavailable")).when(failingStorage).upload(anyString(), anyString());
+            ScopedStoreWriter failingWriter = new ScopedStoreWriter(globalStore, new FileManager(failingStorage, new FileStorageMock(cloudStorage)),
+                    versionGenerator, clock, globalScope, dataFile, dataType);
+
+            assertThatThrownBy(() -> failingWriter.upload(jsonWriter.writeValueAsString(snapshot)))
+                    .isInstanceOf(CloudStorageException.class);
+            assertThat(globalStore.getAllSites()).isNotSameAs(snapshot);
+            assertThat(globalStore.getAllSites()).extracting(Site::isEnabled).containsExactly(true);
+        }
+
         @Test
         void addsExtraMetadata() throws Exception {
             ScopedStoreWriter writer = new ScopedStoreWriter(globalStore, fileManager, versionGenerator, clock, globalScope, dataFile, dataType);
@@ -178,6 +225,61 @@ class ScopedStoreWriterTest {
         }
     }
 
+    @Nested
+    class Async {
+        private Vertx vertx;
+
+        @BeforeEach
+        void setUp() {
+            vertx = Vertx.vertx();
+        }
+
+        @AfterEach
+        void tearDown() throws Exception {
+            await(vertx.close());
+        }
+
+        @Test
+        void uploadsContentAndMetadata() throws Exception {
+            when(versionGenerator.getVersion()).thenReturn(10L);
+            StoreChangePublisher changePublisher = new StoreChangePublisher();
+            List<StoreChangeEvent> events = new ArrayList<>();
+            changePublisher.addListener(events::add);
+            ScopedStoreWriter writer = new ScopedStoreWriter(globalStore, fileManager, versionGenerator, clock, globalScope, dataFile, dataType, changePublisher, new StoreLoader());
+
+            await(writer.uploadAsync(jsonWriter.writeValueAsString(oneSite), new JsonObject().put("extraField1", "extraValue1"), vertx));
+            await(writer.uploadAsync(jsonWriter.writeValueAsString(anotherSite), null, vertx));
+
+            assertThat(globalStore.getAllSites()).containsExactlyElementsOf(anotherSite);
+            JsonObject metadata = globalStore.getMetadata();
+            assertThat(metadata.getLong("version")).isEqualTo(10L);
+            assertThat(metadata.getString("extraField1")).isEqualTo("extraValue1");
+            assertThat(cloudStorage.list(sitesDir)).contains(sitesDir + "/sites.json", sitesDir + "/" + metadataFileName);
+            assertThat(events).hasSize(2);
+        }
+
+        @Test
+        void reloadsSnapshotWhenUploadFails() throws Exception {
+            ScopedStoreWriter writer = new ScopedStoreWriter(globalStore, fileManager, versionGenerator, clock, globalScope, dataFile, dataType);
+            writer.upload(jsonWriter.writeValueAsString(oneSite));
+            Collection<Site> snapshot = globalStore.getAllSites();
+            snapshot.iterator().next().setEnabled(false);
+
+            ICloudStorage failingStorage = spy(cloudStorage);
+            doThrow(new CloudStorageException("unavailable")).when(failingStorage).upload(anyString(), anyString());
+            ScopedStoreWriter failingWriter = new ScopedStoreWriter(globalStore, new FileManager(failingStorage, new FileStorageMock(cloudStorage)),
+                    versionGenerator, clock, globalScope, dataFile, dataType);
+
+            assertThatThrownBy(() -> await(failingWriter.uploadAsync(jsonWriter.writeValueAsString(snapshot), null, vertx)))
+                    .hasRootCauseInstanceOf(CloudStorageException.class);
+            assertThat(globalStore.getAllSites()).isNotSameAs(snapshot);
+            assertThat(globalStore.getAllSites()).extracting(Site::isEnabled).containsExactly(true);
+        }
+
+        private <T> T await(Future<T> future) throws Exception {
+            return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        }
+    }
 
     @Test
     void rewritesMetadata() throws Exception {
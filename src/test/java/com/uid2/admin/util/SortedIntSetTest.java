@@ -0,0 +1,40 @@
+package com.uid2.admin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SortedIntSetTest {
+    @Test
+    void dropsDuplicatesAndKeepsOrder() {
+        SortedIntSet set = SortedIntSet.of(5, -1, 3, 5, 3);
+
+        assertThat(set).containsExactly(-1, 3, 5);
+        assertThat(set.containsInt(3)).isTrue();
+        assertThat(set.contains(4)).isFalse();
+        assertThat(set.contains("3")).isFalse();
+    }
+
+    @Test
+    void equalsAndHashesLikeOtherSets() {
+        SortedIntSet set = SortedIntSet.of(3, 1, 2);
+        Set<Integer> hashSet = new HashSet<>(Set.of(1, 2, 3));
+
+        assertThat(set).isEqualTo(hashSet);
+        assertThat(hashSet).isEqualTo(set);
+        assertThat(set.hashCode()).isEqualTo(hashSet.hashCode());
+        assertThat(SortedIntSet.of()).isEqualTo(Set.of()).isSameAs(SortedIntSet.empty());
+    }
+
+    @Test
+    void isImmutable() {
+        SortedIntSet set = SortedIntSet.of(1);
+
+        assertThatThrownBy(() -> set.add(2)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> set.iterator().remove()).isInstanceOf(UnsupportedOperationException.class);
+    }
+}
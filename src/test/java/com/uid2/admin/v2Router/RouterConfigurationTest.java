@@ -1,5 +1,6 @@
 package com.uid2.admin.v2Router;
 
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.vertx.AdminVerticle;
 import com.uid2.admin.vertx.api.IRouteProvider;
 import com.uid2.admin.vertx.api.V2Router;
@@ -47,7 +48,7 @@ public class RouterConfigurationTest {
     }
     @Test
     public void WhenANonBlockingRouteProviderIsUsed_ItIsRegisteredCorrectly() {
-        val routeProvider = new GetClientSideKeypairsBySite(clientSideKeypairMock);
+        val routeProvider = new GetClientSideKeypairsBySite(clientSideKeypairMock, new StoreLoader());
         val router = new V2Router(new IRouteProvider[] {routeProvider}, authMiddlewareMock);
         try (MockedStatic<Router> r = mockStatic(Router.class)) {
             r.when(() -> Router.router(vertxMock)).thenReturn(subrouterMock);
@@ -1,5 +1,6 @@
 package com.uid2.admin.v2Router;
 
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.vertx.api.cstg.ClientSideKeypairResponse;
 import com.uid2.admin.vertx.api.cstg.GetClientSideKeypairsBySite;
 import com.uid2.admin.vertx.service.ClientSideKeypairService;
@@ -49,7 +50,7 @@ public class SiteId_ClientSideKeypair_Test {
         when(clientSideKeypairMock.getKeypairsBySite(5))
                 .thenReturn(expectedResult);
 
-        val service = new GetClientSideKeypairsBySite(clientSideKeypairMock);
+        val service = new GetClientSideKeypairsBySite(clientSideKeypairMock, new StoreLoader());
         service.handleGetClientSideKeys(contextMock, siteIdToTest);
 
         verify(contextMock).json(keypairResponseCaptor.capture());
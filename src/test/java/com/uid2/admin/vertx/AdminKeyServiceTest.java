@@ -29,7 +29,7 @@ public class AdminKeyServiceTest extends ServiceTestBase {
     @Override
     protected IService createService() {
         this.config.put("admin_key_prefix", KEY_PREFIX);
-        return new AdminKeyService(config, auth, writeLock, adminUserStoreWriter, adminUserProvider, keyGenerator, keyHasher, clientKeyStoreWriter, encryptionKeyStoreWriter, keyAclStoreWriter);
+        return new AdminKeyService(config, auth, writeLock, storeLoader, adminUserStoreWriter, adminUserProvider, keyGenerator, keyHasher, clientKeyStoreWriter, encryptionKeyStoreWriter, keyAclStoreWriter);
     }
 
     private void checkAdminUserJson(AdminUser expectedAdmin, JsonObject actualAdmin) {
@@ -0,0 +1,33 @@
+package com.uid2.admin.vertx;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlockingExecutionModeTest {
+    @Test
+    void defaultsToTheSharedWorkerPool() {
+        JsonObject config = new JsonObject();
+
+        DeploymentOptions options = BlockingExecutionMode.fromConfig(config).adminVerticleOptions(config);
+
+        assertThat(options.getInstances()).isEqualTo(1);
+        assertThat(options.getWorkerPoolName()).isNull();
+    }
+
+    @Test
+    void deploysInstancesOnADedicatedWorkerPool() {
+        JsonObject config = new JsonObject()
+                .put("blocking_execution_mode", "dedicated")
+                .put("admin_verticle_instances", 4)
+                .put("blocking_worker_pool_size", 32);
+
+        DeploymentOptions options = BlockingExecutionMode.fromConfig(config).adminVerticleOptions(config);
+
+        assertThat(options.getInstances()).isEqualTo(4);
+        assertThat(options.getWorkerPoolName()).isEqualTo(BlockingExecutionMode.WORKER_POOL_NAME);
+        assertThat(options.getWorkerPoolSize()).isEqualTo(32);
+    }
+}
@@ -13,6 +13,7 @@ import com.uid2.shared.auth.Role;
 import com.uid2.shared.model.Site;
 import com.uid2.shared.util.Mapper;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxTestContext;
 import org.assertj.core.util.Sets;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,8 +38,8 @@ public class ClientKeyServiceTest extends ServiceTestBase {
     @Override
     protected IService createService() {
         this.config.put("client_key_prefix", KEY_PREFIX);
-        KeysetManager keysetManager = new KeysetManager(adminKeysetProvider, adminKeysetWriter, keysetKeyManager, true);
-        return new ClientKeyService(config, auth, writeLock, clientKeyStoreWriter, clientKeyProvider, siteProvider, keysetManager, keyGenerator, keyHasher);
+        KeysetManager keysetManager = new KeysetManager(adminKeysetProvider, adminKeysetWriter, keysetKeyManager, storeLoader, true);
+        return new ClientKeyService(config, auth, writeLock, storeLoader, clientKeyStoreWriter, clientKeyProvider, siteProvider, keysetManager, keyGenerator, keyHasher);
     }
 
     @BeforeEach
@@ -74,6 +75,52 @@ public class ClientKeyServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/client/rename?oldName=test_client&newName=test_client1", "", expectHttpStatus(testContext, 400));
     }
 
+    @Test
+    public void clientListFiltered(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setClientKeys(
+                new LegacyClientBuilder().withName("reader").withSiteId(5).withRoles(Set.of(Role.ID_READER)).build(),
+                new LegacyClientBuilder().withName("generator").withSiteId(5).withRoles(Set.of(Role.GENERATOR)).build(),
+                new LegacyClientBuilder().withName("other site reader").withSiteId(6).withRoles(Set.of(Role.ID_READER)).build()
+        );
+
+        get(vertx, testContext, "api/client/list?site_id=5&role=id_reader", response -> {
+            assertEquals(200, response.statusCode());
+            assertThat(response.bodyAsJsonArray().stream().map(c -> ((JsonObject) c).getString("name")))
+                    .containsExactly("reader");
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    public void clientListInvalidRole(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setClientKeys(new LegacyClientBuilder().build());
+
+        get(vertx, testContext, "api/client/list?role=not_a_role", expectHttpStatus(testContext, 400));
+    }
+
+    @Test
+    public void clientListDisabledIgnoresCase(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setClientKeys(new LegacyClientBuilder().withName("enabled").build());
+
+        get(vertx, testContext, "api/client/list?disabled=FALSE", response -> {
+            assertEquals(200, response.statusCode());
+            assertThat(response.bodyAsJsonArray().stream().map(c -> ((JsonObject) c).getString("name")))
+                    .containsExactly("enabled");
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    public void clientListInvalidDisabled(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setClientKeys(new LegacyClientBuilder().build());
+
+        get(vertx, testContext, "api/client/list?disabled=yes", expectHttpStatus(testContext, 400));
+    }
+
     @Test
     public void clientAdd(Vertx vertx, VertxTestContext testContext) {
         fakeAuth(Role.CLIENTKEY_ISSUER);
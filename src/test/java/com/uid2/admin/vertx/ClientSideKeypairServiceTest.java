@@ -48,7 +48,7 @@ public class ClientSideKeypairServiceTest extends ServiceTestBase {
         JsonObject config = new JsonObject();
         config.put("client_side_keypair_public_prefix", "UID2-X-L-");
         config.put("client_side_keypair_private_prefix", "UID2-Y-L-");
-        return new ClientSideKeypairService(config, auth, writeLock, keypairStoreWriter, keypairProvider, siteProvider, keysetManager, new SecureKeypairGenerator(), clock);
+        return new ClientSideKeypairService(config, auth, writeLock, storeLoader, keypairStoreWriter, keypairProvider, siteProvider, keysetManager, new SecureKeypairGenerator(), clock);
     }
     @BeforeEach
     void setUp() {
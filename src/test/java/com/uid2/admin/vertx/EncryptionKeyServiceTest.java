@@ -63,7 +63,7 @@ public class EncryptionKeyServiceTest extends ServiceTestBase {
         this.config.put("filter_key_over_cut_off_days", FILTER_KEY_OVER_CUT_OFF_DAYS);
         this.config.put("enable_keysets", true);
 
-        keyService = new EncryptionKeyService(config, auth, writeLock, encryptionKeyStoreWriter, keysetKeyStoreWriter,
+        keyService = new EncryptionKeyService(config, auth, writeLock, storeLoader, encryptionKeyStoreWriter, keysetKeyStoreWriter,
                 keyProvider, keysetKeyProvider, adminKeysetProvider, adminKeysetWriter, keyGenerator, clock);
         return keyService;
     }
@@ -21,7 +21,7 @@ import static org.mockito.Mockito.*;
 public class KeyAclServiceTest extends ServiceTestBase {
     @Override
     protected IService createService() {
-        return new KeyAclService(auth, writeLock, keyAclStoreWriter, keyAclProvider, siteProvider, keyManager);
+        return new KeyAclService(auth, writeLock, storeLoader, keyAclStoreWriter, keyAclProvider, siteProvider, keyManager);
     }
 
     private void checkEncryptionKeyAclsResponse(Map<Integer, EncryptionKeyAcl> expectedAcls, Object[] actualAcls) {
@@ -237,6 +237,29 @@ public class KeyAclServiceTest extends ServiceTestBase {
         });
     }
 
+    @Test
+    void keyAclUpdateLeavesServedAclUnchanged(Vertx vertx, VertxTestContext testContext) throws Exception {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setSites(
+                new Site(5, "test_site", true),
+                new Site(11, "test_site11", true));
+        Map<Integer, EncryptionKeyAcl> initialAcls = new HashMap<Integer, EncryptionKeyAcl>() {{
+            put(5, makeKeyAcl(true, 6, 7));
+        }};
+        setEncryptionKeyAcls(initialAcls);
+        setEncryptionKeys(123);
+
+        post(vertx, testContext, "api/keys_acl/update?site_id=5&add=11&remove=6", "", response -> {
+            assertEquals(200, response.statusCode());
+
+            // requests reading the acls meanwhile still see them as they were, until the upload is loaded
+            assertEquals(Set.of(6, 7), initialAcls.get(5).getAccessList());
+            verify(keyAclStoreWriter).upload(argThat(acls -> acls.get(5).getAccessList().equals(Set.of(7, 11))), isNull());
+
+            testContext.completeNow();
+        });
+    }
+
     @Test
     void keyAclUpdateAddToBlacklist(Vertx vertx, VertxTestContext testContext) throws Exception {
         fakeAuth(Role.CLIENTKEY_ISSUER);
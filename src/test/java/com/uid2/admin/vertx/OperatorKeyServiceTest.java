@@ -31,7 +31,7 @@ public class OperatorKeyServiceTest extends ServiceTestBase {
     @Override
     protected IService createService() {
         this.config.put("operator_key_prefix", KEY_PREFIX);
-        return new OperatorKeyService(config, auth, writeLock, operatorKeyStoreWriter, operatorKeyProvider, siteProvider, keyGenerator, keyHasher);
+        return new OperatorKeyService(config, auth, writeLock, storeLoader, operatorKeyStoreWriter, operatorKeyProvider, siteProvider, keyGenerator, keyHasher);
     }
 
     @BeforeEach
@@ -0,0 +1,113 @@
+package com.uid2.admin.vertx;
+
+import com.uid2.admin.job.JobDispatcher;
+import com.uid2.admin.job.model.Job;
+import com.uid2.admin.vertx.service.IService;
+import com.uid2.admin.vertx.service.PrivateSiteDataRefreshService;
+import com.uid2.admin.vertx.test.ServiceTestBase;
+import com.uid2.shared.auth.OperatorKey;
+import com.uid2.shared.auth.OperatorType;
+import com.uid2.shared.auth.Role;
+import com.uid2.shared.cloud.ICloudStorage;
+import com.uid2.shared.model.Site;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class PrivateSiteDataRefreshServiceTest extends ServiceTestBase {
+    @Mock JobDispatcher jobDispatcher;
+    @Mock ICloudStorage cloudStorage;
+
+    @Override
+    protected IService createService() {
+        return new PrivateSiteDataRefreshService(auth, jobDispatcher, writeLock, storeLoader, config, cloudStorage, siteProvider, operatorKeyProvider);
+    }
+
+    @Test
+    void refreshSitesWithoutSiteIds(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.SECRET_MANAGER);
+
+        post(vertx, testContext, "api/private-sites/refresh/sites", "", expectHttpStatus(testContext, 400));
+    }
+
+    @Test
+    void refreshSitesWithUnparsableSiteIds(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.SECRET_MANAGER);
+
+        post(vertx, testContext, "api/private-sites/refresh/sites?site_ids=5,abc", "", expectHttpStatus(testContext, 400));
+    }
+
+    @Test
+    void refreshSitesWithSpecialSiteId(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.SECRET_MANAGER);
+
+        post(vertx, testContext, "api/private-sites/refresh/sites?site_ids=5,-1", "", response -> {
+            assertEquals(400, response.statusCode());
+            assertEquals("must specify valid site ids", response.bodyAsJsonObject().getString("message"));
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void refreshSitesQueuesSyncOfRequestedSites(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.SECRET_MANAGER);
+        setSites(new Site(5, "site 5", true), new Site(6, "site 6", true), new Site(7, "site 7", true));
+        setOperatorKeys(operator(5, OperatorType.PRIVATE), operator(6, OperatorType.PRIVATE), operator(7, OperatorType.PRIVATE));
+
+        post(vertx, testContext, "api/private-sites/refresh/sites?site_ids=6,5", "", response -> {
+            assertEquals(200, response.statusCode());
+            assertEquals(new JsonArray().add(5).add(6), response.bodyAsJsonObject().getJsonArray("site_ids"));
+            assertEquals("global-to-site-scope-sync-private-site-data-sites-5,6", response.bodyAsJsonObject().getString("job_id"));
+
+            ArgumentCaptor<Job> job = ArgumentCaptor.forClass(Job.class);
+            InOrder inOrder = inOrder(jobDispatcher);
+            inOrder.verify(jobDispatcher).enqueue(job.capture());
+            inOrder.verify(jobDispatcher).scheduleNextJob();
+            assertEquals("global-to-site-scope-sync-private-site-data-sites-5,6", job.getValue().getId());
+            verify(jobDispatcher, never()).executeNextJob();
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void refreshSitesWithUnknownSite(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.SECRET_MANAGER);
+        setSites(new Site(5, "site 5", true));
+        setOperatorKeys(operator(5, OperatorType.PRIVATE));
+
+        post(vertx, testContext, "api/private-sites/refresh/sites?site_ids=5,8", "", response -> {
+            assertEquals(400, response.statusCode());
+            assertEquals("site 8 does not exist", response.bodyAsJsonObject().getString("message"));
+            verifyNoInteractions(jobDispatcher);
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void refreshSitesWithPublicSite(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.SECRET_MANAGER);
+        setSites(new Site(5, "site 5", true), new Site(6, "site 6", true));
+        setOperatorKeys(operator(5, OperatorType.PRIVATE), operator(6, OperatorType.PUBLIC));
+
+        post(vertx, testContext, "api/private-sites/refresh/sites?site_ids=5,6", "", response -> {
+            assertEquals(400, response.statusCode());
+            assertEquals("site 6 has no private operator", response.bodyAsJsonObject().getString("message"));
+            verifyNoInteractions(jobDispatcher);
+            testContext.completeNow();
+        });
+    }
+
+    private static OperatorKey operator(int siteId, OperatorType type) {
+        return new OperatorKey("hash-" + siteId, "salt", "operator " + siteId, "contact", "trusted", 0, false, siteId,
+                Set.of(Role.OPERATOR), type, "key-id-" + siteId);
+    }
+}
@@ -27,7 +27,7 @@ public class SaltServiceTest extends ServiceTestBase {
 
     @Override
     protected IService createService() {
-        return new SaltService(auth, writeLock, saltStoreWriter, saltProvider, saltRotation);
+        return new SaltService(auth, writeLock, storeLoader, saltStoreWriter, saltProvider, saltRotation);
     }
 
     private void checkSnapshotsResponse(RotatingSaltProvider.SaltSnapshot[] expectedSnapshots, Object[] actualSnapshots) {
@@ -201,6 +201,46 @@ public class SearchServiceTest extends ServiceTestBase {
         });
     }
 
+    @Test
+    void searchOperatorKeyByKeyIdPrefixFindsKey(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.ADMINISTRATOR);
+        Map<String, OperatorKey> operatorKeys = getOperatorKeys();
+
+        setOperatorKeys(operatorKeys);
+        OperatorKey expectedOperatorKey = operatorKeys.get("UID2-O-L-999-dp9Dt0.JVoGpynN4J8nMA7FxmzsavxJa8B9H74y9xdEE=");
+        post(vertx, testContext, searchUrl, "UID2-O-L-999", response -> {
+            JsonArray foundKeys = response.bodyAsJsonObject().getJsonArray("OperatorKeys");
+
+            assertAll(
+                    "searchOperatorKeyByKeyIdPrefixFindsKey",
+                    () -> assertEquals(1, foundKeys.size()),
+                    () -> assertEquals(expectedOperatorKey, OBJECT_MAPPER.readValue(foundKeys.getJsonObject(0).toString(), OperatorKey.class))
+            );
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void searchIsLimited(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.ADMINISTRATOR);
+        setOperatorKeys(getOperatorKeys());
+
+        post(vertx, testContext, searchUrl, "UID2-O-L-", all -> {
+            assertEquals(2, all.bodyAsJsonObject().getJsonArray("OperatorKeys").size());
+
+            post(vertx, testContext, searchUrl + "?limit=1", "UID2-O-L-", limited -> {
+                assertEquals(1, limited.bodyAsJsonObject().getJsonArray("OperatorKeys").size());
+                testContext.completeNow();
+            });
+        });
+    }
+
+    @Test
+    void searchWithInvalidLimitReturns400Error(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.ADMINISTRATOR);
+        post(vertx, testContext, searchUrl + "?limit=0", "1234567", expectHttpStatus(testContext, 400));
+    }
+
     @Test
     void searchAdminUserFindsKey(Vertx vertx, VertxTestContext testContext) {
         fakeAuth(Role.ADMINISTRATOR);
@@ -27,7 +27,7 @@ public class ServiceLinkServiceTest extends ServiceTestBase {
 
     @Override
     protected IService createService() {
-        return new ServiceLinkService(auth, writeLock, serviceLinkStoreWriter, serviceLinkProvider, serviceProvider, siteProvider);
+        return new ServiceLinkService(auth, writeLock, storeLoader, serviceLinkStoreWriter, serviceLinkProvider, serviceProvider, siteProvider);
     }
 
     private void checkServiceLinkResponse(ServiceLink[] expectedServiceLinks, JsonArray actualServiceLinks) {
@@ -6,10 +6,12 @@ import com.uid2.admin.vertx.test.ServiceTestBase;
 import com.uid2.shared.auth.Role;
 import com.uid2.shared.model.Service;
 import com.uid2.shared.model.Site;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -26,7 +28,12 @@ public class ServiceServiceTest extends ServiceTestBase {
 
     @Override
     protected IService createService() {
-        return new ServiceService(auth, writeLock, serviceStoreWriter, serviceProvider, siteProvider);
+        return new ServiceService(auth, storeLoader, serviceStoreWriter, serviceProvider, siteProvider);
+    }
+
+    @BeforeEach
+    void stubUploads() {
+        when(serviceStoreWriter.uploadAsync(any(), any(), any())).thenReturn(Future.succeededFuture());
     }
 
     private void checkServiceResponse(Service[] expectedServices, JsonArray actualServices) {
@@ -69,7 +76,28 @@ public class ServiceServiceTest extends ServiceTestBase {
             assertEquals(200, response.statusCode());
             JsonArray respArray = response.bodyAsJsonArray();
             assertEquals(0, respArray.size());
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void listServicesUnauthorizedDoesNotLoadStore(Vertx vertx, VertxTestContext testContext) throws Exception {
+        get(vertx, testContext, "api/service/list", response -> {
+            assertEquals(401, response.statusCode());
+            verify(serviceProvider, never()).getMetadata();
+            verify(serviceProvider, never()).loadContent(any());
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void listServicesLoadsStoreWhenAuthorized(Vertx vertx, VertxTestContext testContext) throws Exception {
+        fakeAuth(Role.ADMINISTRATOR);
+
+        get(vertx, testContext, "api/service/list", response -> {
+            assertEquals(200, response.statusCode());
+            verify(serviceProvider).loadContent(any());
             testContext.completeNow();
         });
     }
@@ -90,7 +118,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         get(vertx, testContext, "api/service/list", response -> {
             assertEquals(200, response.statusCode());
             checkServiceResponse(expectedServices, response.bodyAsJsonArray());
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -105,7 +133,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         get(vertx, testContext, "api/service/list/asdf", response -> {
             assertEquals(400, response.statusCode());
             assertEquals("failed to parse a service_id from request", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -120,7 +148,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         get(vertx, testContext, "api/service/list/3", response -> {
             assertEquals(404, response.statusCode());
             assertEquals("failed to find a service for service_id: 3", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -135,7 +163,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         get(vertx, testContext, "api/service/list/3", response -> {
             assertEquals(200, response.statusCode());
             checkServiceJson(existingService, response.bodyAsJsonObject());
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -147,7 +175,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         postWithoutBody(vertx, testContext, "api/service/add", response -> {
             assertEquals(400, response.statusCode());
             assertEquals("json payload required but not provided", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -167,7 +195,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/add", jo.encode(), response -> {
             assertEquals(400, response.statusCode());
             assertEquals("required parameters: site_id, name, roles", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -184,7 +212,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/add", jo.encode(), response -> {
             assertEquals(404, response.statusCode());
             assertEquals("site_id 123 not valid", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -203,7 +231,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/add", jo.encode(), response -> {
             assertEquals(400, response.statusCode());
             assertEquals("name cannot be empty", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -223,7 +251,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/add", jo.encode(), response -> {
             assertEquals(400, response.statusCode());
             assertEquals("site_id 123 already has service of name testName1", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -245,7 +273,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/add", jo.encode(), response -> {
             assertEquals(400, response.statusCode());
             assertEquals("invalid parameter: roles", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -265,11 +293,35 @@ public class ServiceServiceTest extends ServiceTestBase {
             assertEquals(200, response.statusCode());
             Service expectedService = new Service(1, 123, "name1", Set.of());
             checkServiceJson(expectedService, response.bodyAsJsonObject());
-            verify(serviceStoreWriter, times(1)).upload(List.of(expectedService), null);
+            verify(serviceStoreWriter, times(1)).uploadAsync(eq(List.of(expectedService)), isNull(), any());
             testContext.completeNow();
         });
     }
 
+    @Test
+    void addServiceUploadFailureReleasesWriteLock(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.ADMINISTRATOR);
+
+        setSites(new Site(123, "name1", false));
+        when(serviceStoreWriter.uploadAsync(any(), any(), any()))
+                .thenReturn(Future.failedFuture(new Exception("upload failed")))
+                .thenReturn(Future.succeededFuture());
+
+        JsonObject jo = new JsonObject();
+        jo.put("site_id", 123);
+        jo.put("name", "name1");
+        jo.put("roles", new JsonArray());
+
+        post(vertx, testContext, "api/service/add", jo.encode(), failed -> {
+            assertEquals(500, failed.statusCode());
+            post(vertx, testContext, "api/service/add", jo.encode(), response -> {
+                assertEquals(200, response.statusCode());
+                verify(serviceStoreWriter, times(2)).uploadAsync(any(), isNull(), any());
+                testContext.completeNow();
+            });
+        });
+    }
+
     @Test
     void addServiceNonEmptyRoles(Vertx vertx, VertxTestContext testContext) {
         fakeAuth(Role.ADMINISTRATOR);
@@ -289,7 +341,7 @@ public class ServiceServiceTest extends ServiceTestBase {
             assertEquals(200, response.statusCode());
             Service expectedService = new Service(1, 123, "name1", Set.of(Role.GENERATOR, Role.ID_READER));
             checkServiceJson(expectedService, response.bodyAsJsonObject());
-            verify(serviceStoreWriter, times(1)).upload(List.of(expectedService), null);
+            verify(serviceStoreWriter, times(1)).uploadAsync(eq(List.of(expectedService)), isNull(), any());
             testContext.completeNow();
         });
     }
@@ -316,7 +368,7 @@ public class ServiceServiceTest extends ServiceTestBase {
             assertEquals(200, response.statusCode());
             Service expectedService = new Service(2, 123, "name2", Set.of(Role.GENERATOR, Role.ID_READER));
             checkServiceJson(expectedService, response.bodyAsJsonObject());
-            verify(serviceStoreWriter, times(1)).upload(List.of(existingService, expectedService), null);
+            verify(serviceStoreWriter, times(1)).uploadAsync(eq(List.of(existingService, expectedService)), isNull(), any());
             testContext.completeNow();
         });
     }
@@ -328,7 +380,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         postWithoutBody(vertx, testContext, "api/service/update", response -> {
             assertEquals(400, response.statusCode());
             assertEquals("json payload required but not provided", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -347,7 +399,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/update", jo.encode(), response -> {
             assertEquals(400, response.statusCode());
             assertEquals("required parameters: service_id", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -368,7 +420,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/update", jo.encode(), response -> {
             assertEquals(404, response.statusCode());
             assertEquals("failed to find a service for service_id: 2", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -389,7 +441,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/update", jo.encode(), response -> {
             assertEquals(400, response.statusCode());
             assertEquals("invalid parameter: roles", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -413,7 +465,7 @@ public class ServiceServiceTest extends ServiceTestBase {
             assertEquals(200, response.statusCode());
             existingService.setRoles(Set.of(Role.GENERATOR, Role.ADMINISTRATOR));
             checkServiceJson(existingService, response.bodyAsJsonObject());
-            verify(serviceStoreWriter, times(1)).upload(List.of(existingService), null);
+            verify(serviceStoreWriter, times(1)).uploadAsync(eq(List.of(existingService)), isNull(), any());
             testContext.completeNow();
         });
     }
@@ -433,7 +485,7 @@ public class ServiceServiceTest extends ServiceTestBase {
             assertEquals(200, response.statusCode());
             existingService.setName("newName");
             checkServiceJson(existingService, response.bodyAsJsonObject());
-            verify(serviceStoreWriter, times(1)).upload(List.of(existingService), null);
+            verify(serviceStoreWriter, times(1)).uploadAsync(eq(List.of(existingService)), isNull(), any());
             testContext.completeNow();
         });
     }
@@ -453,7 +505,7 @@ public class ServiceServiceTest extends ServiceTestBase {
             assertEquals(200, response.statusCode());
             existingService.setSiteId(456);
             checkServiceJson(existingService, response.bodyAsJsonObject());
-            verify(serviceStoreWriter, times(1)).upload(List.of(existingService), null);
+            verify(serviceStoreWriter, times(1)).uploadAsync(eq(List.of(existingService)), isNull(), any());
             testContext.completeNow();
         });
     }
@@ -473,7 +525,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/update", jo.encode(), response -> {
             assertEquals(200, response.statusCode());
             checkServiceJson(existingService, response.bodyAsJsonObject());
-            verify(serviceStoreWriter, times(1)).upload(List.of(existingService), null);
+            verify(serviceStoreWriter, times(1)).uploadAsync(eq(List.of(existingService)), isNull(), any());
             testContext.completeNow();
         });
     }
@@ -492,7 +544,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/update", jo.encode(), response -> {
             assertEquals(200, response.statusCode());
             checkServiceJson(existingService, response.bodyAsJsonObject());
-            verify(serviceStoreWriter, times(1)).upload(List.of(existingService), null);
+            verify(serviceStoreWriter, times(1)).uploadAsync(eq(List.of(existingService)), isNull(), any());
             testContext.completeNow();
         });
     }
@@ -513,7 +565,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/update", jo.encode(), response -> {
             assertEquals(400, response.statusCode());
             assertEquals("invalid parameter: roles", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -534,7 +586,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/update", jo.encode(), response -> {
             assertEquals(400, response.statusCode());
             assertEquals("site_id 123 already has service of name name1", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -552,7 +604,7 @@ public class ServiceServiceTest extends ServiceTestBase {
         post(vertx, testContext, "api/service/delete", jo.encode(), response -> {
             assertEquals(200, response.statusCode());
             checkServiceJson(existingService, response.bodyAsJsonObject());
-            verify(serviceStoreWriter, times(1)).upload(new ArrayList<Service>(), null);
+            verify(serviceStoreWriter, times(1)).uploadAsync(eq(new ArrayList<Service>()), isNull(), any());
             testContext.completeNow();
         });
     }
@@ -571,10 +623,7 @@ public class ServiceServiceTest extends ServiceTestBase {
             assertEquals(400, response.statusCode());
 
             assertEquals("required parameters: service_id", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
-
-            verify(serviceStoreWriter, never()).upload(new ArrayList<Service>(), null);
-            verify(serviceStoreWriter, never()).upload(List.of(existingService), null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -590,10 +639,7 @@ public class ServiceServiceTest extends ServiceTestBase {
             assertEquals(400, response.statusCode());
 
             assertEquals("json payload required but not provided", response.bodyAsJsonObject().getString("message"));
-            verify(serviceStoreWriter, never()).upload(null, null);
-
-            verify(serviceStoreWriter, never()).upload(new ArrayList<Service>(), null);
-            verify(serviceStoreWriter, never()).upload(List.of(existingService), null);
+            verify(serviceStoreWriter, never()).uploadAsync(any(), any(), any());
             testContext.completeNow();
         });
     }
@@ -614,7 +660,7 @@ public class ServiceServiceTest extends ServiceTestBase {
             assertEquals(200, response.statusCode());
 
             checkServiceJson(existingService2, response.bodyAsJsonObject());
-            verify(serviceStoreWriter, times(1)).upload(List.of(existingService, existingService3), null);
+            verify(serviceStoreWriter, times(1)).uploadAsync(eq(List.of(existingService, existingService3)), isNull(), any());
             testContext.completeNow();
         });
     }
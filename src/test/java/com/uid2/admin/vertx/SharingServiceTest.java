@@ -33,8 +33,8 @@ import static org.mockito.Mockito.*;
 public class SharingServiceTest extends ServiceTestBase {
     @Override
     protected IService createService() {
-        KeysetManager keysetManager = new KeysetManager(adminKeysetProvider, adminKeysetWriter, keysetKeyManager, true);
-        return new SharingService(auth, writeLock, adminKeysetProvider, keysetManager, siteProvider, true);
+        KeysetManager keysetManager = new KeysetManager(adminKeysetProvider, adminKeysetWriter, keysetKeyManager, storeLoader, true);
+        return new SharingService(auth, writeLock, storeLoader, adminKeysetProvider, keysetManager, siteProvider, true);
     }
 
     private void compareKeysetListToResult(AdminKeyset keyset, JsonArray actualList) {
@@ -286,6 +286,97 @@ public class SharingServiceTest extends ServiceTestBase {
         });
     }
 
+    @Test
+    void listSiteSetBulk(Vertx vertx, VertxTestContext testContext) throws Exception {
+        fakeAuth(Role.SHARING_PORTAL);
+
+        Map<Integer, AdminKeyset> keysets = new HashMap<Integer, AdminKeyset>() {{
+            put(3, new AdminKeyset(3, 5, "test", Set.of(4,6,7), Instant.now().getEpochSecond(),true, true, new HashSet<>()));
+            put(4, new AdminKeyset(4, 7, "test", Set.of(12), Instant.now().getEpochSecond(),true, true, new HashSet<>()));
+        }};
+
+        setAdminKeysets(keysets);
+        mockSiteExistence(5,7,8,22,25,6);
+
+        JsonArray body = new JsonArray()
+                .add(new JsonObject().put("site_id", 5).put("allowed_sites", new JsonArray().add(22).add(25).add(6)).put("hash", keysets.get(3).hashCode()))
+                .add(new JsonObject().put("site_id", 8).put("allowed_sites", new JsonArray().add(5)).put("allowed_types", new JsonArray().add("DSP")));
+
+        post(vertx, testContext, "api/sharing/lists", body.encode(), response -> {
+            assertEquals(200, response.statusCode());
+
+            JsonArray results = response.bodyAsJsonArray();
+            assertEquals(2, results.size());
+            assertEquals("success", results.getJsonObject(0).getString("status"));
+            assertEquals(3, results.getJsonObject(0).getInteger("keyset_id"));
+            assertEquals(new JsonArray().add(6).add(22).add(25), results.getJsonObject(0).getJsonArray("allowed_sites"));
+            assertEquals(5, results.getJsonObject(1).getInteger("keyset_id"));
+            assertEquals(keysets.get(5).hashCode(), results.getJsonObject(1).getInteger("hash"));
+
+            assertEquals(Set.of(22, 25, 6), keysets.get(3).getAllowedSites());
+            assertEquals(new AdminKeyset(5, 8, "", Set.of(5), keysets.get(5).getCreated(), true, true, Set.of(ClientType.DSP)), keysets.get(5));
+            verify(adminKeysetWriter, times(1)).upload(anyMap(), isNull());
+            verify(keysetKeyManager).addKeysetKeys(List.of(3, 5));
+            verify(keysetKeyManager, never()).addKeysetKey(anyInt());
+
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void listSiteSetBulkAppliesNothingWhenOneIsInvalid(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.SHARING_PORTAL);
+
+        Map<Integer, AdminKeyset> keysets = new HashMap<Integer, AdminKeyset>() {{
+            put(3, new AdminKeyset(3, 5, "test", Set.of(4,6,7), Instant.now().getEpochSecond(),true, true, new HashSet<>()));
+        }};
+
+        setAdminKeysets(keysets);
+        mockSiteExistence(5,7,22);
+
+        JsonArray body = new JsonArray()
+                .add(new JsonObject().put("site_id", 5).put("allowed_sites", new JsonArray().add(22)))
+                .add(new JsonObject().put("site_id", 7).put("allowed_sites", new JsonArray().add(42)))
+                .add(new JsonObject().put("site_id", 5).put("allowed_sites", new JsonArray()));
+
+        post(vertx, testContext, "api/sharing/lists", body.encode(), response -> {
+            assertEquals(400, response.statusCode());
+
+            JsonArray results = response.bodyAsJsonObject().getJsonArray("results");
+            assertEquals("skipped", results.getJsonObject(0).getString("status"));
+            assertEquals("Site id 42 not valid", results.getJsonObject(1).getString("message"));
+            assertEquals("Duplicate site id 5", results.getJsonObject(2).getString("message"));
+
+            assertEquals(Set.of(4, 6, 7), keysets.get(3).getAllowedSites());
+            verifyNoInteractions(adminKeysetWriter, keysetKeyManager);
+
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void listSiteSetBulkConflict(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.SHARING_PORTAL);
+
+        Map<Integer, AdminKeyset> keysets = new HashMap<Integer, AdminKeyset>() {{
+            put(3, new AdminKeyset(3, 5, "test", Set.of(4,6,7), Instant.now().getEpochSecond(),true, true, new HashSet<>()));
+        }};
+
+        setAdminKeysets(keysets);
+        mockSiteExistence(5,22);
+
+        JsonArray body = new JsonArray()
+                .add(new JsonObject().put("site_id", 5).put("allowed_sites", new JsonArray().add(22)).put("hash", keysets.get(3).hashCode() + 1));
+
+        post(vertx, testContext, "api/sharing/lists", body.encode(), response -> {
+            assertEquals(409, response.statusCode());
+
+            verifyNoInteractions(adminKeysetWriter, keysetKeyManager);
+
+            testContext.completeNow();
+        });
+    }
+
     @Test
     void listSiteSetConcurrency(Vertx vertx, VertxTestContext testContext) {
         fakeAuth(Role.SHARING_PORTAL);
@@ -1,6 +1,9 @@
 package com.uid2.admin.vertx;
 
+import com.uid2.admin.auth.AdminKeyset;
 import com.uid2.admin.legacy.LegacyClientKey;
+import com.uid2.admin.managers.KeysetManager;
+import com.uid2.admin.store.Clock;
 import com.uid2.admin.vertx.service.IService;
 import com.uid2.admin.vertx.service.SiteService;
 import com.uid2.admin.vertx.test.ServiceTestBase;
@@ -12,9 +15,12 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxTestContext;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -24,9 +30,11 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class SiteServiceTest extends ServiceTestBase {
+    private final Clock clock = mock(Clock.class);
+
     @Override
     protected IService createService() {
-        return new SiteService(auth, writeLock, storeWriter, siteProvider, clientKeyProvider);
+        return new SiteService(auth, writeLock, storeLoader, storeWriter, siteProvider, clientKeyProvider, keysetManager, clock);
     }
 
     private void checkSiteResponse(Site[] expectedSites, Object[] actualSites) {
@@ -114,6 +122,108 @@ public class SiteServiceTest extends ServiceTestBase {
         });
     }
 
+    @Test
+    void listSitesLargerThanOneChunk(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+
+        Site[] sites = new Site[3000];
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = new Site(i + 3, String.format("site%05d", i), true);
+        }
+        setSites(sites);
+
+        get(vertx, testContext, "api/site/list", response -> {
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().length() > 64 * 1024);
+            checkSiteResponse(sites, response.bodyAsJsonArray().stream().toArray());
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void listSitesNotModified(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setClientKeys();
+        setSites(new Site(3, "site3", true));
+
+        get(vertx, testContext, "api/site/list", response -> {
+            assertEquals(200, response.statusCode());
+            String etag = response.getHeader("ETag");
+            assertNotNull(etag);
+
+            getWithHeader(vertx, testContext, "api/site/list", "If-None-Match", etag, notModified -> {
+                assertEquals(304, notModified.statusCode());
+                assertNull(notModified.body());
+
+                Site[] reloaded = {new Site(3, "site3", true), new Site(4, "site4", true)};
+                setSites(reloaded);
+                getWithHeader(vertx, testContext, "api/site/list", "If-None-Match", etag, modified -> {
+                    assertEquals(200, modified.statusCode());
+                    assertNotEquals(etag, modified.getHeader("ETag"));
+                    checkSiteResponse(reloaded, modified.bodyAsJsonArray().stream().toArray());
+                    testContext.completeNow();
+                });
+            });
+        });
+    }
+
+    @Test
+    void listSitesServedFromCacheUntilReload(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setClientKeys();
+        Site site = new Site(3, "site3", true);
+        setSites(site);
+
+        get(vertx, testContext, "api/site/list", first -> {
+            assertEquals(200, first.statusCode());
+            // not a reload, so the body serialized for the current snapshot is still returned
+            site.setDescription("updated");
+            get(vertx, testContext, "api/site/list", cached -> {
+                assertEquals(200, cached.statusCode());
+                assertEquals(first.getHeader("ETag"), cached.getHeader("ETag"));
+                assertEquals(first.bodyAsString(), cached.bodyAsString());
+
+                setSites(site);
+                get(vertx, testContext, "api/site/list", reloaded -> {
+                    assertEquals("updated", reloaded.bodyAsJsonArray().getJsonObject(0).getString("description"));
+                    testContext.completeNow();
+                });
+            });
+        });
+    }
+
+    @Test
+    void listSitesPaged(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+
+        setSites(
+                new Site(13, "site3", false),
+                new Site(11, "site1", false),
+                new Site(12, "site2", true));
+
+        get(vertx, testContext, "api/site/list?limit=2", firstPage -> {
+            assertEquals(200, firstPage.statusCode());
+            JsonObject first = firstPage.bodyAsJsonObject();
+            assertEquals(List.of(11, 12), first.getJsonArray("items").stream().map(s -> ((JsonObject) s).getInteger("id")).collect(Collectors.toList()));
+            assertEquals("12", first.getString("next_cursor"));
+
+            get(vertx, testContext, "api/site/list?limit=2&cursor=12", secondPage -> {
+                assertEquals(200, secondPage.statusCode());
+                JsonObject second = secondPage.bodyAsJsonObject();
+                assertEquals(List.of(13), second.getJsonArray("items").stream().map(s -> ((JsonObject) s).getInteger("id")).collect(Collectors.toList()));
+                assertNull(second.getString("next_cursor"));
+                testContext.completeNow();
+            });
+        });
+    }
+
+    @Test
+    void listSitesInvalidLimit(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+
+        get(vertx, testContext, "api/site/list?limit=0", expectHttpStatus(testContext, 400));
+    }
+
     @Test
     void listSitesWithKeys(Vertx vertx, VertxTestContext testContext) {
         fakeAuth(Role.CLIENTKEY_ISSUER);
@@ -592,5 +702,133 @@ public class SiteServiceTest extends ServiceTestBase {
         });
     }
 
+    @Test
+    void bulkAddSites(Vertx vertx, VertxTestContext testContext) throws Exception {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setSites(new Site(7, "initial_site", false));
+        when(clock.getEpochSecond()).thenReturn(1700000000L);
+        List<AdminKeyset> keysets = List.of(KeysetManager.createDefaultKeyset(8, 20), KeysetManager.createDefaultKeyset(9, 21));
+        when(keysetManager.buildKeysetsForSites(List.of(8, 9))).thenReturn(keysets);
+
+        JsonArray body = new JsonArray()
+                .add(new JsonObject().put("name", "site_a").put("enabled", true).put("types", new JsonArray().add("DSP"))
+                        .put("domain_names", new JsonArray().add("https://www.test.com/path").add("test.org")))
+                .add(new JsonObject().put("name", " site_b "));
+
+        post(vertx, testContext, "api/site/bulk_add?create_keysets=true", body.encode(), response -> {
+            assertEquals(200, response.statusCode());
+
+            JsonArray results = response.bodyAsJsonArray();
+            assertEquals(2, results.size());
+            assertEquals("success", results.getJsonObject(0).getString("status"));
+            assertEquals(8, results.getJsonObject(0).getInteger("id"));
+            assertEquals(new JsonArray().add("test.com").add("test.org"), results.getJsonObject(0).getJsonArray("domain_names"));
+            assertEquals(20, results.getJsonObject(0).getInteger("keyset_id"));
+            assertEquals("site_b", results.getJsonObject(1).getString("name"));
+            assertEquals(9, results.getJsonObject(1).getInteger("id"));
+            assertEquals(21, results.getJsonObject(1).getInteger("keyset_id"));
+
+            ArgumentCaptor<Collection<Site>> sites = ArgumentCaptor.forClass(Collection.class);
+            verify(storeWriter, times(1)).upload(sites.capture(), isNull());
+            Site added = sites.getValue().stream().filter(site -> site.getId() == 8).findFirst().get();
+            assertEquals("site_a", added.getName());
+            assertTrue(added.isEnabled());
+            assertEquals(Set.of(ClientType.DSP), added.getClientTypes());
+            assertEquals(Set.of("test.com", "test.org"), added.getDomainNames());
+            assertEquals(1700000000L, added.getCreated());
+            assertEquals(3, sites.getValue().size());
+            InOrder inOrder = inOrder(keysetManager, storeWriter);
+            inOrder.verify(keysetManager).buildKeysetsForSites(List.of(8, 9));
+            inOrder.verify(storeWriter).upload(any(), isNull());
+            inOrder.verify(keysetManager).addOrReplaceKeysets(keysets);
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void bulkAddSitesAddsNothingWhenKeysetsCannotBeBuilt(Vertx vertx, VertxTestContext testContext) throws Exception {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setSites(new Site(7, "initial_site", false));
+        when(keysetManager.buildKeysetsForSites(List.of(8))).thenThrow(new RuntimeException("keysets unavailable"));
+
+        JsonArray body = new JsonArray().add(new JsonObject().put("name", "site_a"));
+
+        post(vertx, testContext, "api/site/bulk_add?create_keysets=true", body.encode(), response -> {
+            assertEquals(500, response.statusCode());
+            verify(storeWriter, never()).upload(any(), any());
+            verify(keysetManager, never()).addOrReplaceKeysets(any());
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void bulkAddSitesReportsSitesAddedWithoutKeysets(Vertx vertx, VertxTestContext testContext) throws Exception {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setSites(new Site(7, "initial_site", false));
+        when(keysetManager.buildKeysetsForSites(List.of(8))).thenReturn(List.of(KeysetManager.createDefaultKeyset(8, 20)));
+        doThrow(new RuntimeException("upload failed")).when(keysetManager).addOrReplaceKeysets(any());
+
+        JsonArray body = new JsonArray().add(new JsonObject().put("name", "site_a"));
+
+        post(vertx, testContext, "api/site/bulk_add?create_keysets=true", body.encode(), response -> {
+            assertEquals(500, response.statusCode());
+            JsonObject result = response.bodyAsJsonObject().getJsonArray("results").getJsonObject(0);
+            assertEquals("success", result.getString("status"));
+            assertEquals(8, result.getInteger("id"));
+            assertNull(result.getInteger("keyset_id"));
+            verify(storeWriter).upload(collectionOfSize(2), isNull());
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void bulkAddSitesNdjson(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setSites();
+
+        String body = new JsonObject().put("name", "site_a").encode() + "\n\n"
+                + new JsonObject().put("name", "site_b").put("domain_names", new JsonArray().add("test.com")).encode() + "\n";
+
+        postWithHeader(vertx, testContext, "api/site/bulk_add", body, "Content-Type", "application/x-ndjson", response -> {
+            assertEquals(200, response.statusCode());
+
+            JsonArray results = response.bodyAsJsonArray();
+            assertEquals(2, results.size());
+            assertEquals(3, results.getJsonObject(0).getInteger("id"));
+            assertEquals(4, results.getJsonObject(1).getInteger("id"));
+            assertNull(results.getJsonObject(1).getInteger("keyset_id"));
+            verify(storeWriter, times(1)).upload(collectionOfSize(2), isNull());
+            verifyNoInteractions(keysetManager);
+            testContext.completeNow();
+        });
+    }
+
+    @Test
+    void bulkAddSitesAddsNothingWhenOneIsInvalid(Vertx vertx, VertxTestContext testContext) {
+        fakeAuth(Role.CLIENTKEY_ISSUER);
+        setSites(new Site(7, "initial_site", false));
+
+        JsonArray body = new JsonArray()
+                .add(new JsonObject().put("name", "site_a"))
+                .add(new JsonObject().put("name", "initial_site"))
+                .add(new JsonObject().put("name", "site_a"))
+                .add(new JsonObject().put("name", "site_b").put("domain_names", new JsonArray().add("bad")))
+                .add(new JsonObject().put("name", "site_c").put("types", new JsonArray().add("UNKNOWN")))
+                .add("site_d");
 
-}
\ No newline at end of file
+        post(vertx, testContext, "api/site/bulk_add?create_keysets=true", body.encode(), response -> {
+            assertEquals(400, response.statusCode());
+
+            JsonArray results = response.bodyAsJsonObject().getJsonArray("results");
+            assertEquals("skipped", results.getJsonObject(0).getString("status"));
+            assertEquals("site existed", results.getJsonObject(1).getString("message"));
+            assertEquals("site existed", results.getJsonObject(2).getString("message"));
+            assertEquals("invalid domain name: bad", results.getJsonObject(3).getString("message"));
+            assertEquals("Invalid Types", results.getJsonObject(4).getString("message"));
+            assertEquals("Invalid site", results.getJsonObject(5).getString("message"));
+            verify(storeWriter, never()).upload(any(), any());
+            verifyNoInteractions(keysetManager);
+            testContext.completeNow();
+        });
+    }
+}
@@ -10,6 +10,7 @@ import com.uid2.shared.model.*;
 import com.uid2.shared.secret.IKeyGenerator;
 import com.uid2.admin.secret.IKeysetKeyManager;
 import com.uid2.admin.store.FileManager;
+import com.uid2.admin.store.StoreLoader;
 import com.uid2.admin.store.reader.RotatingAdminKeysetStore;
 import com.uid2.admin.store.writer.*;
 import com.uid2.admin.vertx.AdminVerticle;
@@ -46,6 +47,7 @@ import java.util.stream.Collectors;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(VertxExtension.class)
@@ -53,6 +55,7 @@ public abstract class ServiceTestBase {
     protected AutoCloseable mocks;
     protected final JsonObject config = new JsonObject();
     protected final WriteLock writeLock = new WriteLock();
+    protected final StoreLoader storeLoader = new StoreLoader();
     protected AuthMiddleware auth;
 
     @Mock protected AuthenticationHandler authHandler;
@@ -98,6 +101,7 @@ public abstract class ServiceTestBase {
     @Mock protected EnclaveIdentifierProvider enclaveIdentifierProvider;
     @Mock protected IKeyGenerator keyGenerator;
     @Mock protected KeyHasher keyHasher;
+    private Map<Integer, AdminKeyset> adminKeysets;
 
     @BeforeEach
     public void deployVerticle(Vertx vertx, VertxTestContext testContext) throws Throwable {
@@ -108,6 +112,14 @@ public abstract class ServiceTestBase {
         when(keyAclProvider.getSnapshot()).thenReturn(keyAclProviderSnapshot);
         when(keysetProvider.getSnapshot()).thenReturn(keysetSnapshot);
         when(adminKeysetProvider.getSnapshot()).thenReturn(adminKeysetSnapshot);
+        // an upload replaces the keysets served, as the reload after a real upload does
+        doAnswer(i -> {
+            if (adminKeysets != null) {
+                adminKeysets.clear();
+                adminKeysets.putAll(i.getArgument(0));
+            }
+            return null;
+        }).when(adminKeysetWriter).upload(anyMap(), any());
         when(siteProvider.getSite(anyInt())).then((i) -> siteProvider.getAllSites().stream()
                 .filter(s -> s.getId() == (Integer) i.getArgument(0)).findFirst().orElse(null));
         when(keyGenerator.generateRandomKey(anyInt())).thenReturn(new byte[]{1, 2, 3, 4, 5, 6});
@@ -144,6 +156,14 @@ public abstract class ServiceTestBase {
                 .onComplete(testContext.succeeding(response -> testContext.verify(() -> handler.handle(response))));
     }
 
+    protected void getWithHeader(Vertx vertx, VertxTestContext testContext, String endpoint, String header, String value, TestHandler<HttpResponse<Buffer>> handler) {
+        WebClient client = WebClient.create(vertx);
+        client.getAbs(getUrlForEndpoint(endpoint))
+                .putHeader(header, value)
+                .send()
+                .onComplete(testContext.succeeding(response -> testContext.verify(() -> handler.handle(response))));
+    }
+
     protected void post(Vertx vertx, VertxTestContext testContext, String endpoint, String body, TestHandler<HttpResponse<Buffer>> handler) {
         WebClient client = WebClient.create(vertx);
         client.postAbs(getUrlForEndpoint(endpoint))
@@ -151,6 +171,14 @@ public abstract class ServiceTestBase {
                 .onComplete(testContext.succeeding(response -> testContext.verify(() -> handler.handle(response))));
     }
 
+    protected void postWithHeader(Vertx vertx, VertxTestContext testContext, String endpoint, String body, String header, String value, TestHandler<HttpResponse<Buffer>> handler) {
+        WebClient client = WebClient.create(vertx);
+        client.postAbs(getUrlForEndpoint(endpoint))
+                .putHeader(header, value)
+                .sendBuffer(Buffer.buffer(body))
+                .onComplete(testContext.succeeding(response -> testContext.verify(() -> handler.handle(response))));
+    }
+
     protected void postWithoutBody(Vertx vertx, VertxTestContext testContext, String endpoint, TestHandler<HttpResponse<Buffer>> handler) {
         post(vertx, testContext, endpoint, null, handler);
     }
@@ -174,6 +202,8 @@ public abstract class ServiceTestBase {
         when(clientKeyProvider.getAll()).thenReturn(Arrays.asList(clientKeys));
         for (LegacyClientKey clientKey : clientKeys) {
             when(clientKeyProvider.getClientKeyFromHash(clientKey.getKeyHash())).thenReturn(clientKey);
+            when(clientKeyProvider.getClientKeyByName(clientKey.getName())).thenReturn(clientKey);
+            when(clientKeyProvider.getClientKeyByKeyId(clientKey.getKeyId())).thenReturn(clientKey);
         }
     }
 
@@ -185,6 +215,8 @@ public abstract class ServiceTestBase {
 
             when(clientKeyProvider.getClientKey(plaintextKey)).thenReturn(clientKey);
             when(clientKeyProvider.getClientKeyFromHash(clientKey.getKeyHash())).thenReturn(clientKey);
+            when(clientKeyProvider.getClientKeyByName(clientKey.getName())).thenReturn(clientKey);
+            when(clientKeyProvider.getClientKeyByKeyId(clientKey.getKeyId())).thenReturn(clientKey);
         }
     }
 
@@ -196,7 +228,9 @@ public abstract class ServiceTestBase {
     }
 
     protected void setAdminKeysets(Map<Integer, AdminKeyset> adminKeysets) {
-        when(adminKeysetSnapshot.getAllKeysets()).thenReturn(adminKeysets);
+        // a real snapshot for its indexes, built on every call so that changes made to adminKeysets are seen
+        when(adminKeysetProvider.getSnapshot()).thenAnswer(i -> new AdminKeysetSnapshot(new HashMap<>(adminKeysets)));
+        this.adminKeysets = adminKeysets;
     }
 
     protected void setKeysetKeys(int maxKeyId, KeysetKey... keys) throws Exception {